@@ -0,0 +1,130 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.benchmark.index.translog;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.seqno.SequenceNumbers;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.index.translog.TranslogConfig;
+import org.elasticsearch.index.translog.TranslogDeletionPolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the throughput of adding operations to a translog, with the operations buffered on heap or in direct buffers.
+ * A new translog is created for every iteration so that the translog files don't grow across iterations.
+ */
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class TranslogWriteBenchmark {
+
+    @Param({ "false", "true" })
+    public boolean directBuffers;
+
+    @Param({ "200", "2048" })
+    public int sourceSizeInBytes;
+
+    private final AtomicLong seqNo = new AtomicLong();
+    private byte[] source;
+    private Path path;
+    private Translog translog;
+
+    @Setup
+    public void setup() {
+        source = new byte[sourceSizeInBytes];
+        Arrays.fill(source, (byte) 'a');
+    }
+
+    @Setup(Level.Iteration)
+    public void openTranslog() throws IOException {
+        path = Files.createTempDirectory("translog");
+        final ShardId shardId = new ShardId("index", "_na_", 0);
+        final IndexMetadata indexMetadata = IndexMetadata.builder(shardId.getIndexName())
+            .settings(
+                Settings.builder()
+                    .put(IndexMetadata.SETTING_VERSION_CREATED, Version.CURRENT)
+                    .put(IndexSettings.INDEX_TRANSLOG_DIRECT_BUFFERS_SETTING.getKey(), directBuffers)
+            )
+            .numberOfShards(1)
+            .numberOfReplicas(0)
+            .build();
+        final TranslogConfig config = new TranslogConfig(
+            shardId,
+            path,
+            new IndexSettings(indexMetadata, Settings.EMPTY),
+            BigArrays.NON_RECYCLING_INSTANCE
+        );
+        final String translogUUID = Translog.createEmptyTranslog(path, SequenceNumbers.NO_OPS_PERFORMED, shardId, 1L);
+        translog = new Translog(
+            config,
+            translogUUID,
+            new TranslogDeletionPolicy(),
+            () -> SequenceNumbers.NO_OPS_PERFORMED,
+            () -> 1L,
+            seqNo -> {}
+        );
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeTranslog() throws IOException {
+        IOUtils.close(translog);
+        IOUtils.rm(path);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Translog.Location addWithOneThread() throws IOException {
+        return add();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Translog.Location addWithEightThreads() throws IOException {
+        return add();
+    }
+
+    @Benchmark
+    @Threads(32)
+    public Translog.Location addWithThirtyTwoThreads() throws IOException {
+        return add();
+    }
+
+    private Translog.Location add() throws IOException {
+        final long seqNo = this.seqNo.getAndIncrement();
+        return translog.add(new Translog.Index(Long.toString(seqNo), seqNo, 1L, source));
+    }
+}
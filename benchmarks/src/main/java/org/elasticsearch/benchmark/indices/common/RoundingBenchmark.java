@@ -11,6 +11,7 @@ package org.elasticsearch.benchmark.indices.common;
 import org.elasticsearch.common.Rounding;
 import org.elasticsearch.common.time.DateFormatter;
 import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.search.aggregations.BufferingLeafBucketCollector;
 import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramAggregationBuilder;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
@@ -109,6 +110,21 @@ public class RoundingBenchmark {
         }
     }
 
+    /**
+     * Rounds the dates in blocks the size of the ones that the aggregations collect at a time.
+     */
+    @Benchmark
+    public void roundBulk(Blackhole bh) {
+        Rounding.Prepared rounder = rounderBuilder.get();
+        long[] block = new long[BufferingLeafBucketCollector.DEFAULT_BLOCK_SIZE];
+        for (int start = 0; start < dates.length; start += block.length) {
+            int length = Math.min(block.length, dates.length - start);
+            System.arraycopy(dates, start, block, 0, length);
+            rounder.round(block, length);
+            bh.consume(block);
+        }
+    }
+
     @Benchmark
     public void nextRoundingValue(Blackhole bh) {
         Rounding.Prepared rounder = rounderBuilder.get();
@@ -98,10 +98,18 @@ public class AllocationBenchmark {
             "       10|     10|        2|    50",
             "      100|      1|        2|    50",
             "      100|      3|        2|    50",
-            "      100|     10|        2|    50" }
+            "      100|     10|        2|    50",
+
+            // 100k shards on a large cluster
+            "    50000|      1|        1|   300",
+            "    10000|      5|        1|   300",
+            "     5000|     10|        1|   300" }
     )
     public String indicesShardsReplicasNodes = "10|1|0|1";
 
+    @Param({ "false", "true" })
+    public boolean incremental = false;
+
     public int numTags = 2;
 
     private AllocationService strategy;
@@ -117,7 +125,10 @@ public class AllocationBenchmark {
         int numNodes = toInt(params[3]);
 
         strategy = Allocators.createAllocationService(
-            Settings.builder().put("cluster.routing.allocation.awareness.attributes", "tag").build()
+            Settings.builder()
+                .put("cluster.routing.allocation.awareness.attributes", "tag")
+                .put("cluster.routing.allocation.balance.incremental", incremental)
+                .build()
         );
 
         Metadata.Builder mb = Metadata.builder();
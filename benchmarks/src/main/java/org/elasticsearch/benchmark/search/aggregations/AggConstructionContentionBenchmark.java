@@ -304,6 +304,19 @@ public class AggConstructionContentionBenchmark {
             releaseMe.add(aggregator);
         }
 
+        @Override
+        public Releasable newReleasableScope() {
+            final int start = releaseMe.size();
+            return () -> {
+                List<Releasable> scope = releaseMe.subList(start, releaseMe.size());
+                try {
+                    Releasables.close(scope);
+                } finally {
+                    scope.clear();
+                }
+            };
+        }
+
         @Override
         public MultiBucketConsumer multiBucketConsumer() {
             return multiBucketConsumer;
@@ -86,7 +86,7 @@ public class TermsReduceBenchmark {
         @Param({ "1600172297" })
         long seed;
 
-        @Param({ "64", "128", "512" })
+        @Param({ "64", "100", "128", "512", "1000", "5000" })
         int numShards;
 
         @Param({ "100" })
@@ -158,6 +158,9 @@ public class TermsReduceBenchmark {
     @Param({ "32", "512" })
     private int bufferSize;
 
+    @Param({ "1", "4" })
+    private int maxConcurrentMerges;
+
     @Benchmark
     public SearchPhaseController.ReducedQueryPhase reduceAggs(TermsList candidateList) throws Exception {
         List<QuerySearchResult> shards = new ArrayList<>();
@@ -180,7 +183,7 @@ public class TermsReduceBenchmark {
         SearchRequest request = new SearchRequest();
         request.source(new SearchSourceBuilder().size(0).aggregation(AggregationBuilders.terms("test")));
         request.setBatchedReduceSize(bufferSize);
-        ExecutorService executor = Executors.newFixedThreadPool(1);
+        ExecutorService executor = Executors.newFixedThreadPool(maxConcurrentMerges);
         AtomicBoolean isCanceled = new AtomicBoolean();
         QueryPhaseResultConsumer consumer = new QueryPhaseResultConsumer(
             request,
@@ -190,6 +193,7 @@ public class TermsReduceBenchmark {
             isCanceled::get,
             SearchProgressListener.NOOP,
             shards.size(),
+            maxConcurrentMerges,
             exc -> {}
         );
         CountDownLatch latch = new CountDownLatch(shards.size());
@@ -0,0 +1,123 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.benchmark.search.aggregations.bucket.terms;
+
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.PageCacheRecycler;
+import org.elasticsearch.search.aggregations.CardinalityUpperBound;
+import org.elasticsearch.search.aggregations.bucket.terms.LongKeyedBucketOrds;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link LongKeyedBucketOrds} backed by on-heap and off-heap {@link BigArrays}
+ * with enough distinct values for the hash tables to span many pages.
+ */
+@Fork(2)
+@Warmup(iterations = 10)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(LongKeyedBucketOrdsOffHeapBenchmark.LIMIT)
+@State(Scope.Benchmark)
+public class LongKeyedBucketOrdsOffHeapBenchmark {
+    static final int LIMIT = 1_000_000;
+    /**
+     * The number of buckets to spread the values across in the multi bucket case.
+     */
+    private static final long DISTINCT_BUCKETS = 21;
+
+    @Param({ "false", "true" })
+    private boolean offHeap;
+
+    @Param({ "10000", "1000000" })
+    private long distinctValues;
+
+    private BigArrays bigArrays;
+    private LongKeyedBucketOrds single;
+    private LongKeyedBucketOrds many;
+
+    @Setup
+    public void setup() {
+        PageCacheRecycler recycler = new PageCacheRecycler(
+            Settings.builder().put(PageCacheRecycler.OFF_HEAP_SETTING.getKey(), offHeap).build()
+        );
+        bigArrays = new BigArrays(recycler, null, "REQUEST");
+        single = LongKeyedBucketOrds.build(bigArrays, CardinalityUpperBound.ONE);
+        many = LongKeyedBucketOrds.build(bigArrays, CardinalityUpperBound.MANY);
+        for (long i = 0; i < distinctValues; i++) {
+            single.add(0, value(i));
+            many.add(i % DISTINCT_BUCKETS, value(i));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        single.close();
+        many.close();
+    }
+
+    /**
+     * Scatters the values so that consecutive inserts hit different pages.
+     */
+    private static long value(long i) {
+        return i * 0x9E3779B97F4A7C15L;
+    }
+
+    @Benchmark
+    public void insertSingleBucket(Blackhole bh) {
+        try (LongKeyedBucketOrds ords = LongKeyedBucketOrds.build(bigArrays, CardinalityUpperBound.ONE)) {
+            for (long i = 0; i < LIMIT; i++) {
+                ords.add(0, value(i % distinctValues));
+            }
+            bh.consume(ords.size());
+        }
+    }
+
+    @Benchmark
+    public void insertManyBuckets(Blackhole bh) {
+        try (LongKeyedBucketOrds ords = LongKeyedBucketOrds.build(bigArrays, CardinalityUpperBound.MANY)) {
+            for (long i = 0; i < LIMIT; i++) {
+                long v = i % distinctValues;
+                ords.add(v % DISTINCT_BUCKETS, value(v));
+            }
+            bh.consume(ords.size());
+        }
+    }
+
+    @Benchmark
+    public void findSingleBucket(Blackhole bh) {
+        for (long i = 0; i < LIMIT; i++) {
+            bh.consume(single.find(0, value(i % distinctValues)));
+        }
+    }
+
+    @Benchmark
+    public void findManyBuckets(Blackhole bh) {
+        for (long i = 0; i < LIMIT; i++) {
+            long v = i % distinctValues;
+            bh.consume(many.find(v % DISTINCT_BUCKETS, value(v)));
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.benchmark.search.query;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.search.internal.ContextIndexSearcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the latency of a single shard search against the number of slices its segments are
+ * collected in by {@link ContextIndexSearcher}. One slice is the sequential baseline.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 7)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ConcurrentSegmentSearchBenchmark {
+
+    @Param({ "1", "2", "4", "8", "16" })
+    private int slices;
+
+    @Param({ "16" })
+    private int segments;
+
+    @Param({ "4000000" })
+    private int docs;
+
+    @Param({ "score", "sort" })
+    private String mode;
+
+    private Directory directory;
+    private DirectoryReader reader;
+    private ExecutorService executor;
+    private ContextIndexSearcher searcher;
+    private Query query;
+    private Sort sort;
+
+    @Setup
+    public void setup() throws IOException {
+        Random random = new Random(0);
+        directory = new ByteBuffersDirectory();
+        try (IndexWriter w = new IndexWriter(directory, new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))) {
+            int docsPerSegment = docs / segments;
+            for (int i = 0; i < docs; i++) {
+                Document doc = new Document();
+                long timestamp = random.nextLong();
+                doc.add(new LongPoint("@timestamp", timestamp));
+                doc.add(new NumericDocValuesField("@timestamp", timestamp));
+                doc.add(new StringField("tag", "tag" + random.nextInt(4), Field.Store.NO));
+                w.addDocument(doc);
+                if ((i + 1) % docsPerSegment == 0) {
+                    w.commit();
+                }
+            }
+            w.commit();
+        }
+        reader = DirectoryReader.open(directory);
+        executor = Executors.newFixedThreadPool(slices);
+        searcher = new ContextIndexSearcher(
+            reader,
+            IndexSearcher.getDefaultSimilarity(),
+            null,
+            IndexSearcher.getDefaultQueryCachingPolicy(),
+            true,
+            slices > 1 ? executor : null,
+            slices
+        );
+        query = new TermQuery(new Term("tag", "tag0"));
+        sort = "sort".equals(mode) ? new Sort(new SortField("@timestamp", SortField.Type.LONG, true)) : null;
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        executor.shutdown();
+        IOUtils.close(reader, directory);
+    }
+
+    @Benchmark
+    public TopDocs search() throws IOException {
+        if (sort == null) {
+            return searcher.search(query, 100);
+        }
+        return searcher.search(query, 100, sort);
+    }
+}
@@ -18,6 +18,7 @@ import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.nio.CharBuffer;
+import java.util.Base64;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -218,6 +219,9 @@ public class MapXContentParser extends AbstractXContentParser {
     public byte[] binaryValue() throws IOException {
         if (iterator != null && iterator.currentValue() instanceof byte[]) {
             return (byte[]) iterator.currentValue();
+        } else if (iterator != null && currentToken() == Token.VALUE_STRING) {
+            // binary values are base64 encoded strings in text formats
+            return Base64.getMimeDecoder().decode((String) iterator.currentValue());
         } else {
             throw new IllegalStateException("Cannot get binary value for the current token " + currentToken());
         }
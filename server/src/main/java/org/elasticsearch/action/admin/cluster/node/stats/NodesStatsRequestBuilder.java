@@ -153,6 +153,14 @@ public class NodesStatsRequestBuilder extends NodesOperationRequestBuilder<
         return this;
     }
 
+    /**
+     * Should the decisions of the indexing memory controller be returned
+     */
+    public NodesStatsRequestBuilder setIndexingMemory(boolean indexingMemory) {
+        addOrRemoveMetric(indexingMemory, NodesStatsRequest.Metric.INDEXING_MEMORY);
+        return this;
+    }
+
     /**
      * Helper method for adding metrics to a request
      */
@@ -0,0 +1,61 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.action.bulk;
+
+import org.elasticsearch.common.metrics.CounterMetric;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * The number of index requests that the primaries of a node may have scheduled for parsing ahead of their execution at any
+ * time, shared by all the shard bulk requests of the node, see {@link BulkPrimaryParseStage}.
+ * <p>
+ * Parsing ahead runs on the executor of the bulk. Without a node-wide budget, every bulk could queue dozens of parse tasks
+ * and get real shard bulk requests rejected. Once the budget is exhausted, the next requests are parsed on the thread of
+ * their bulk as if parsing ahead were disabled.
+ */
+public final class BulkParseAheadPermits {
+
+    private final int maxPermits;
+    private final Semaphore permits;
+    private final CounterMetric taken = new CounterMetric();
+
+    public BulkParseAheadPermits(int maxPermits) {
+        assert maxPermits > 0 : maxPermits;
+        this.maxPermits = maxPermits;
+        this.permits = new Semaphore(maxPermits);
+    }
+
+    boolean tryAcquire() {
+        return permits.tryAcquire();
+    }
+
+    void release() {
+        permits.release();
+        assert permits.availablePermits() <= maxPermits : "released more permits than acquired";
+    }
+
+    void onTaken() {
+        taken.inc();
+    }
+
+    /**
+     * Returns the number of permits that are not held by a scheduled or running parse-ahead task
+     */
+    int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    /**
+     * Returns the number of documents that were parsed ahead and then indexed without being parsed again
+     */
+    long takenCount() {
+        return taken.count();
+    }
+}
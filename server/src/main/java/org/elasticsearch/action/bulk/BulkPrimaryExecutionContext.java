@@ -14,6 +14,7 @@ import org.elasticsearch.action.delete.DeleteResponse;
 import org.elasticsearch.action.index.IndexResponse;
 import org.elasticsearch.action.support.replication.ReplicationResponse;
 import org.elasticsearch.action.support.replication.TransportWriteAction;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.translog.Translog;
@@ -57,6 +58,8 @@ class BulkPrimaryExecutionContext {
 
     private final BulkShardRequest request;
     private final IndexShard primary;
+    @Nullable
+    private final BulkPrimaryParseStage parseStage;
     private Translog.Location locationToSync = null;
     private int currentIndex = -1;
 
@@ -66,8 +69,13 @@ class BulkPrimaryExecutionContext {
     private int retryCounter;
 
     BulkPrimaryExecutionContext(BulkShardRequest request, IndexShard primary) {
+        this(request, primary, null);
+    }
+
+    BulkPrimaryExecutionContext(BulkShardRequest request, IndexShard primary, @Nullable BulkPrimaryParseStage parseStage) {
         this.request = request;
         this.primary = primary;
+        this.parseStage = parseStage;
         advance();
     }
 
@@ -89,6 +97,9 @@ class BulkPrimaryExecutionContext {
             : "moving to next but current item wasn't completed (state: " + currentItemState + ")";
         currentItemState = ItemProcessingState.INITIAL;
         currentIndex = findNextNonAborted(currentIndex + 1);
+        if (parseStage != null) {
+            parseStage.parseAhead(currentIndex);
+        }
         retryCounter = 0;
         requestToExecute = null;
         executionResult = null;
@@ -193,6 +204,53 @@ class BulkPrimaryExecutionContext {
         return (T) requestToExecute;
     }
 
+    /**
+     * returns the document that the parse stage parsed ahead for the current request, or <code>null</code> if it must be
+     * parsed now. Translated update requests are never parsed ahead.
+     */
+    @Nullable
+    public IndexShard.PreParsedDocument takePreParsedDocument() {
+        assert assertInvariants(ItemProcessingState.TRANSLATED);
+        if (parseStage == null || requestToExecute != getCurrent()) {
+            return null;
+        }
+        return parseStage.take(currentIndex);
+    }
+
+    /**
+     * returns the untranslated item request {@code offset} items after the current one, or <code>null</code> if there is no such
+     * item or if it was aborted
+     */
+    @Nullable
+    public DocWriteRequest<?> peek(int offset) {
+        assert assertInvariants(ItemProcessingState.INITIAL);
+        final int index = currentIndex + offset;
+        if (index >= request.items().length || isAborted(request.items()[index].getPrimaryResponse())) {
+            return null;
+        }
+        return request.items()[index].request();
+    }
+
+    /**
+     * returns the document that the parse stage parsed ahead for the request {@code offset} items after the current one, or
+     * <code>null</code> if it must be parsed now.
+     */
+    @Nullable
+    public IndexShard.PreParsedDocument takePreParsedDocument(int offset) {
+        assert assertInvariants(ItemProcessingState.INITIAL);
+        if (parseStage == null) {
+            return null;
+        }
+        return parseStage.take(currentIndex + offset);
+    }
+
+    /** stops parsing the next requests ahead of their execution, used when the remaining requests are failed */
+    public void cancelParseAhead() {
+        if (parseStage != null) {
+            parseStage.cancel();
+        }
+    }
+
     /** indicates that the current operation can not be completed and needs to wait for a new mapping from the master */
     public void markAsRequiringMappingUpdate() {
         assert assertInvariants(ItemProcessingState.TRANSLATED);
@@ -0,0 +1,193 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.action.bulk;
+
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.index.mapper.SourceToParse;
+import org.elasticsearch.index.shard.IndexShard;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Parses the sources of the index requests that follow the item a {@link BulkPrimaryExecutionContext} executes, on other
+ * threads of the executor of the bulk, so that the parsing of the next items overlaps with the indexing of the current one.
+ * <p>
+ * Items are still indexed one after the other on the thread of the bulk, so the order of the items and the assignment of
+ * their sequence numbers are unchanged. A parsed document is only reused if the mapping of the shard didn't change since
+ * it was parsed. If the parsing of an item hasn't started by the time the item is executed, or if it failed, the item is
+ * parsed on the thread of the bulk as usual so that a failure is reported like any other.
+ * <p>
+ * Every scheduled item holds one of the {@link BulkParseAheadPermits} of the node until it is parsed or cancelled. Items are
+ * only scheduled while permits are available, the others are parsed on the thread of the bulk.
+ */
+final class BulkPrimaryParseStage {
+
+    private final BulkShardRequest request;
+    private final IndexShard primary;
+    private final Executor executor;
+    private final BulkParseAheadPermits permits;
+    private final int parseAhead;
+    private final Item[] items;
+    private int nextToSchedule;
+    private boolean cancelled;
+
+    BulkPrimaryParseStage(
+        BulkShardRequest request,
+        IndexShard primary,
+        Executor executor,
+        BulkParseAheadPermits permits,
+        int parseAhead
+    ) {
+        assert parseAhead > 0 : parseAhead;
+        this.request = request;
+        this.primary = primary;
+        this.executor = executor;
+        this.permits = permits;
+        this.parseAhead = parseAhead;
+        this.items = new Item[request.items().length];
+    }
+
+    /**
+     * Schedules the parsing of the index requests that follow the current item, up to {@code parseAhead} items ahead of it
+     * and as long as permits are available.
+     */
+    void parseAhead(int currentIndex) {
+        if (cancelled) {
+            return;
+        }
+        final int end = Math.min(items.length, currentIndex + 1 + parseAhead);
+        int i = Math.max(nextToSchedule, currentIndex + 1);
+        for (; i < end; i++) {
+            final BulkItemRequest itemRequest = request.items()[i];
+            if (itemRequest.getPrimaryResponse() != null) {
+                // aborted
+                continue;
+            }
+            final DocWriteRequest<?> docWriteRequest = itemRequest.request();
+            if (docWriteRequest.opType() != DocWriteRequest.OpType.INDEX && docWriteRequest.opType() != DocWriteRequest.OpType.CREATE) {
+                continue;
+            }
+            if (permits.tryAcquire() == false) {
+                // try again when the next item is executed, the items that are still not scheduled by then are parsed on this thread
+                break;
+            }
+            final Item item = new Item(TransportShardBulkAction.sourceToParse((IndexRequest) docWriteRequest));
+            items[i] = item;
+            try {
+                executor.execute(item);
+            } catch (Exception e) {
+                // rejected, the item will be parsed when it is executed
+                item.cancel();
+            }
+        }
+        nextToSchedule = Math.max(nextToSchedule, i);
+    }
+
+    /**
+     * Returns the document that was parsed for the given item, waiting for its parsing to complete if it is running, or
+     * <code>null</code> if the item must be parsed by the caller.
+     */
+    @Nullable
+    IndexShard.PreParsedDocument take(int index) {
+        final Item item = items[index];
+        if (item == null) {
+            return null;
+        }
+        // the parsed document must only be indexed once
+        items[index] = null;
+        return item.take();
+    }
+
+    /**
+     * Cancels the parsing of the items that haven't started yet and stops scheduling new ones. Items that are being parsed
+     * hold a reference to the request until they are done, so the request can be released without waiting for them.
+     */
+    void cancel() {
+        cancelled = true;
+        for (Item item : items) {
+            if (item != null) {
+                item.cancel();
+            }
+        }
+    }
+
+    private class Item extends AbstractRunnable {
+        private static final int PENDING = 0;
+        private static final int RUNNING = 1;
+        private static final int CANCELLED = 2;
+
+        private final SourceToParse sourceToParse;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile IndexShard.PreParsedDocument parsed;
+
+        Item(SourceToParse sourceToParse) {
+            this.sourceToParse = sourceToParse;
+        }
+
+        @Override
+        protected void doRun() {
+            if (state.compareAndSet(PENDING, RUNNING)) {
+                try {
+                    // the source may be a slice of the buffer of the request, which must not be released while it is parsed
+                    if (request.tryIncRef()) {
+                        try {
+                            parsed = primary.parseOnPrimary(sourceToParse);
+                        } finally {
+                            request.decRef();
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                    permits.release();
+                }
+            }
+        }
+
+        @Override
+        public void onFailure(Exception e) {
+            // the item will be parsed again when it is executed, which reports the failure
+        }
+
+        @Override
+        public void onRejection(Exception e) {
+            // the item will be parsed when it is executed
+            cancel();
+        }
+
+        void cancel() {
+            if (state.compareAndSet(PENDING, CANCELLED)) {
+                permits.release();
+            }
+        }
+
+        IndexShard.PreParsedDocument take() {
+            cancel();
+            if (state.get() == CANCELLED) {
+                return null;
+            }
+            try {
+                // the parsing is running on another thread, waiting for it is cheaper than parsing again
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            if (parsed != null) {
+                permits.onTaken();
+            }
+            return parsed;
+        }
+    }
+}
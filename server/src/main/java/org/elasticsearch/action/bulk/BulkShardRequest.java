@@ -15,13 +15,21 @@ import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.support.replication.ReplicatedWriteRequest;
 import org.elasticsearch.action.support.replication.ReplicationRequest;
 import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.core.AbstractRefCounted;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.RefCounted;
+import org.elasticsearch.core.Releasable;
+import org.elasticsearch.core.Releasables;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.transport.RawIndexingDataTransportRequest;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Stream;
 
@@ -30,18 +38,46 @@ public class BulkShardRequest extends ReplicatedWriteRequest<BulkShardRequest> i
     private static final long SHALLOW_SIZE = RamUsageEstimator.shallowSizeOfInstance(BulkShardRequest.class);
 
     private final BulkItemRequest[] items;
+    /**
+     * Releases the sources of the items once the request isn't referenced anymore. The sources of a request that is read
+     * from the wire are slices of the network buffer rather than copies, see {@link IndexRequest#IndexRequest(ShardId, StreamInput)}.
+     * Requests that are built locally don't hold any buffer so they aren't ref counted.
+     */
+    @Nullable
+    private final RefCounted refCounted;
 
     public BulkShardRequest(StreamInput in) throws IOException {
         super(in);
         items = in.readArray(i -> i.readOptionalWriteable(inpt -> new BulkItemRequest(shardId, inpt)), BulkItemRequest[]::new);
+        final List<Releasable> sources = new ArrayList<>();
+        for (BulkItemRequest item : items) {
+            if (item == null) {
+                continue;
+            }
+            final DocWriteRequest<?> request = item.request();
+            if (request instanceof IndexRequest) {
+                addReleasableSource((IndexRequest) request, sources);
+            } else if (request instanceof UpdateRequest) {
+                addReleasableSource(((UpdateRequest) request).doc(), sources);
+                addReleasableSource(((UpdateRequest) request).upsertRequest(), sources);
+            }
+        }
+        refCounted = sources.isEmpty() ? null : AbstractRefCounted.of(() -> Releasables.close(sources));
     }
 
     public BulkShardRequest(ShardId shardId, RefreshPolicy refreshPolicy, BulkItemRequest[] items) {
         super(shardId);
         this.items = items;
+        this.refCounted = null;
         setRefreshPolicy(refreshPolicy);
     }
 
+    private static void addReleasableSource(@Nullable IndexRequest request, List<Releasable> sources) {
+        if (request != null && request.source() instanceof ReleasableBytesReference) {
+            sources.add((ReleasableBytesReference) request.source());
+        }
+    }
+
     public long totalSizeInBytes() {
         long totalSizeInBytes = 0;
         for (int i = 0; i < items.length; i++) {
@@ -144,6 +180,28 @@ public class BulkShardRequest extends ReplicatedWriteRequest<BulkShardRequest> i
         }
     }
 
+    @Override
+    public void incRef() {
+        if (refCounted != null) {
+            refCounted.incRef();
+        }
+    }
+
+    @Override
+    public boolean tryIncRef() {
+        return refCounted == null || refCounted.tryIncRef();
+    }
+
+    @Override
+    public boolean decRef() {
+        return refCounted != null && refCounted.decRef();
+    }
+
+    @Override
+    public boolean hasReferences() {
+        return refCounted == null || refCounted.hasReferences();
+    }
+
     @Override
     public long ramBytesUsed() {
         return SHALLOW_SIZE + Stream.of(items).mapToLong(Accountable::ramBytesUsed).sum();
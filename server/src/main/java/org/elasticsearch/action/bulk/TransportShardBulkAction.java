@@ -37,11 +37,14 @@ import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.compress.CompressedXContent;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.core.Tuple;
 import org.elasticsearch.index.IndexingPressure;
+import org.elasticsearch.index.VersionType;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.engine.VersionConflictEngineException;
 import org.elasticsearch.index.get.GetResult;
@@ -61,6 +64,8 @@ import org.elasticsearch.transport.TransportService;
 import org.elasticsearch.xcontent.XContentType;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Executor;
 import java.util.function.Consumer;
@@ -74,8 +79,38 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
 
     private static final Logger logger = LogManager.getLogger(TransportShardBulkAction.class);
 
+    /**
+     * The number of index requests of a shard bulk request that the primary parses on other threads of the write executor
+     * while the current request is indexed, see {@link BulkPrimaryParseStage}. Zero disables parsing ahead. Across all the
+     * bulks of the node, at most as many requests as there are write threads are parsed ahead at any time.
+     */
+    public static final Setting<Integer> PARSE_AHEAD_SETTING = Setting.intSetting(
+        "indices.bulk.primary_parse_ahead",
+        0,
+        0,
+        128,
+        Setting.Property.Dynamic,
+        Setting.Property.NodeScope
+    );
+
+    /**
+     * The maximum number of consecutive index requests with auto-generated ids of a shard bulk request that the primary
+     * indexes with a single {@link Engine#indexBatch} call. Zero or one disables batching.
+     */
+    public static final Setting<Integer> APPEND_ONLY_BATCH_SIZE_SETTING = Setting.intSetting(
+        "indices.bulk.primary_append_only_batch_size",
+        0,
+        0,
+        1024,
+        Setting.Property.Dynamic,
+        Setting.Property.NodeScope
+    );
+
     private final UpdateHelper updateHelper;
     private final MappingUpdatedAction mappingUpdatedAction;
+    private final BulkParseAheadPermits parseAheadPermits;
+    private volatile int parseAhead;
+    private volatile int appendOnlyBatchSize;
 
     @Inject
     public TransportShardBulkAction(
@@ -109,6 +144,12 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
         );
         this.updateHelper = updateHelper;
         this.mappingUpdatedAction = mappingUpdatedAction;
+        this.parseAheadPermits = new BulkParseAheadPermits(threadPool.info(ThreadPool.Names.WRITE).getMax());
+        this.parseAhead = PARSE_AHEAD_SETTING.get(settings);
+        clusterService.getClusterSettings().addSettingsUpdateConsumer(PARSE_AHEAD_SETTING, value -> this.parseAhead = value);
+        this.appendOnlyBatchSize = APPEND_ONLY_BATCH_SIZE_SETTING.get(settings);
+        clusterService.getClusterSettings()
+            .addSettingsUpdateConsumer(APPEND_ONLY_BATCH_SIZE_SETTING, value -> this.appendOnlyBatchSize = value);
     }
 
     @Override
@@ -147,7 +188,7 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
             public void onTimeout(TimeValue timeout) {
                 mappingUpdateListener.onFailure(new MapperException("timed out while waiting for a dynamic mapping update"));
             }
-        }), listener, threadPool, executor(primary));
+        }), listener, threadPool, executor(primary), parseAhead, parseAheadPermits, appendOnlyBatchSize);
     }
 
     @Override
@@ -171,17 +212,64 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
         ThreadPool threadPool,
         String executorName
     ) {
+        performOnPrimary(
+            request,
+            primary,
+            updateHelper,
+            nowInMillisSupplier,
+            mappingUpdater,
+            waitForMappingUpdate,
+            listener,
+            threadPool,
+            executorName,
+            0,
+            null,
+            0
+        );
+    }
+
+    /**
+     * Same as {@link #performOnPrimary(BulkShardRequest, IndexShard, UpdateHelper, LongSupplier, MappingUpdatePerformer, Consumer,
+     * ActionListener, ThreadPool, String)} but parses up to {@code parseAhead} index requests ahead of their execution while
+     * {@code parseAheadPermits} are available, and indexes runs of up to {@code appendOnlyBatchSize} index requests with
+     * auto-generated ids in one batch.
+     */
+    public static void performOnPrimary(
+        BulkShardRequest request,
+        IndexShard primary,
+        UpdateHelper updateHelper,
+        LongSupplier nowInMillisSupplier,
+        MappingUpdatePerformer mappingUpdater,
+        Consumer<ActionListener<Void>> waitForMappingUpdate,
+        ActionListener<PrimaryResult<BulkShardRequest, BulkShardResponse>> listener,
+        ThreadPool threadPool,
+        String executorName,
+        int parseAhead,
+        @Nullable BulkParseAheadPermits parseAheadPermits,
+        int appendOnlyBatchSize
+    ) {
+        assert parseAhead == 0 || parseAheadPermits != null : "parsing ahead requires permits";
         new ActionRunnable<>(listener) {
 
             private final Executor executor = threadPool.executor(executorName);
 
-            private final BulkPrimaryExecutionContext context = new BulkPrimaryExecutionContext(request, primary);
+            private final BulkPrimaryExecutionContext context = new BulkPrimaryExecutionContext(
+                request,
+                primary,
+                parseAhead > 0 && request.items().length > 1
+                    ? new BulkPrimaryParseStage(request, primary, executor, parseAheadPermits, parseAhead)
+                    : null
+            );
 
             final long startBulkTime = System.nanoTime();
 
             @Override
             protected void doRun() throws Exception {
                 while (context.hasMoreOperationsToExecute()) {
+                    if (appendOnlyBatchSize > 1 && executeAppendOnlyBatch(context, appendOnlyBatchSize)) {
+                        assert context.isInitial();
+                        continue;
+                    }
                     if (executeBulkItemRequest(
                         context,
                         updateHelper,
@@ -201,6 +289,13 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
                 finishRequest();
             }
 
+            @Override
+            public void onFailure(Exception e) {
+                // the remaining items are failed, there is no point in parsing them
+                context.cancelParseAhead();
+                super.onFailure(e);
+            }
+
             @Override
             public void onRejection(Exception e) {
                 // We must finish the outstanding request. Finishing the outstanding request can include
@@ -210,6 +305,7 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
                     @Override
                     protected void doRun() {
                         // Fail all operations after a bulk rejection hit an action that waited for a mapping update and finish the request
+                        context.cancelParseAhead();
                         while (context.hasMoreOperationsToExecute()) {
                             context.setRequestToExecute(context.getCurrent());
                             final DocWriteRequest<?> docWriteRequest = context.getRequestToExecute();
@@ -310,21 +406,15 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
             );
         } else {
             final IndexRequest request = context.getRequestToExecute();
-            final SourceToParse sourceToParse = new SourceToParse(
-                request.id(),
-                request.source(),
-                request.getContentType(),
-                request.routing(),
-                request.getDynamicTemplates()
-            );
             result = primary.applyIndexOperationOnPrimary(
                 version,
                 request.versionType(),
-                sourceToParse,
+                sourceToParse(request),
                 request.ifSeqNo(),
                 request.ifPrimaryTerm(),
                 request.getAutoGeneratedTimestamp(),
-                request.isRetry()
+                request.isRetry(),
+                context.takePreParsedDocument()
             );
         }
         if (result.getResultType() == Engine.Result.Type.MAPPING_UPDATE_REQUIRED) {
@@ -375,6 +465,69 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
         return true;
     }
 
+    /**
+     * Indexes the run of index requests with auto-generated ids that starts with the current item with a single
+     * {@link IndexShard#applyIndexOperationsOnPrimary} call. The run stops before the first request that isn't append-only,
+     * requires a mapping update or fails to parse, which is then executed on its own.
+     *
+     * @return {@code true} if the run wasn't empty and its items were completed
+     */
+    static boolean executeAppendOnlyBatch(BulkPrimaryExecutionContext context, int maxBatchSize) throws Exception {
+        int runLength = 0;
+        while (runLength < maxBatchSize && isAppendOnly(context.peek(runLength))) {
+            runLength++;
+        }
+        if (runLength < 2) {
+            return false;
+        }
+        final IndexShard primary = context.getPrimary();
+        final List<Engine.Index> operations = new ArrayList<>(runLength);
+        for (int offset = 0; offset < runLength; offset++) {
+            final IndexRequest request = (IndexRequest) context.peek(offset);
+            final Engine.Index operation = primary.prepareAppendOnlyIndexOnPrimary(
+                request.version(),
+                sourceToParse(request),
+                request.getAutoGeneratedTimestamp(),
+                context.takePreParsedDocument(offset)
+            );
+            if (operation == null) {
+                break;
+            }
+            operations.add(operation);
+        }
+        if (operations.isEmpty()) {
+            return false;
+        }
+        final List<Engine.IndexResult> results = primary.applyIndexOperationsOnPrimary(operations);
+        for (Engine.IndexResult result : results) {
+            context.setRequestToExecute(context.getCurrent());
+            onComplete(result, context, null);
+        }
+        return true;
+    }
+
+    private static boolean isAppendOnly(@Nullable DocWriteRequest<?> docWriteRequest) {
+        if (docWriteRequest == null
+            || (docWriteRequest.opType() != DocWriteRequest.OpType.INDEX && docWriteRequest.opType() != DocWriteRequest.OpType.CREATE)) {
+            return false;
+        }
+        final IndexRequest request = (IndexRequest) docWriteRequest;
+        return request.getAutoGeneratedTimestamp() != IndexRequest.UNSET_AUTO_GENERATED_TIMESTAMP
+            && request.isRetry() == false
+            && request.versionType() == VersionType.INTERNAL;
+    }
+
+    static SourceToParse sourceToParse(IndexRequest request) {
+        return new SourceToParse(
+            request.id(),
+            request.source(),
+            request.getContentType(),
+            request.routing(),
+            request.getDynamicTemplates(),
+            request.sourceMap()
+        );
+    }
+
     private static Engine.Result exceptionToResult(Exception e, IndexShard primary, boolean isDelete, long version) {
         return isDelete ? primary.getFailedDeleteResult(e, version) : primary.getFailedIndexResult(e, version);
     }
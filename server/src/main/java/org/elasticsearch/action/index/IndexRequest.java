@@ -36,7 +36,9 @@ import org.elasticsearch.xcontent.XContentFactory;
 import org.elasticsearch.xcontent.XContentType;
 
 import java.io.IOException;
+import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
@@ -81,6 +83,13 @@ public class IndexRequest extends ReplicatedWriteRequest<IndexRequest> implement
 
     private BytesReference source;
 
+    /**
+     * The map that the source was serialized from by an ingest pipeline, if any. It is not serialized with the request so it
+     * is only available to a primary on the node that ran the pipeline, which can parse the document from it.
+     */
+    @Nullable
+    private Map<String, Object> sourceMap;
+
     private OpType opType = OpType.INDEX;
 
     private long version = Versions.MATCH_ANY;
@@ -121,7 +130,12 @@ public class IndexRequest extends ReplicatedWriteRequest<IndexRequest> implement
         }
         id = in.readOptionalString();
         routing = in.readOptionalString();
-        source = in.readBytesReference();
+        if (shardId == null) {
+            source = in.readBytesReference();
+        } else {
+            // shard level requests keep the source as a slice of the network buffer until they are released, see BulkShardRequest
+            source = in.readReleasableBytesReference();
+        }
         opType = OpType.fromId(in.readByte());
         version = in.readLong();
         versionType = VersionType.fromValue(in.readByte());
@@ -346,6 +360,59 @@ public class IndexRequest extends ReplicatedWriteRequest<IndexRequest> implement
         return XContentHelper.convertToMap(source, false, contentType).v2();
     }
 
+    /**
+     * The map that the source was serialized from by an ingest pipeline, or <code>null</code> if the request doesn't hold it.
+     * See {@link #ingestedSource(Map, XContentType)}.
+     */
+    @Nullable
+    public Map<String, Object> sourceMap() {
+        return sourceMap;
+    }
+
+    /**
+     * Index the map that an ingest pipeline produced as the provided content type. If the map only holds values that
+     * parse back from the serialized source as they are, it is kept along with the source so that the document can be parsed
+     * from the map rather than from the source if the request is executed on this node. The map must not be modified after.
+     *
+     * @param source The map to index
+     */
+    public IndexRequest ingestedSource(Map<String, Object> source, XContentType contentType) throws ElasticsearchGenerationException {
+        source(source, contentType);
+        if (isParsedAsIs(source)) {
+            this.sourceMap = source;
+        }
+        return this;
+    }
+
+    /**
+     * Whether the given value parses back from its serialized form as an equal value of the same kind.
+     */
+    private static boolean isParsedAsIs(Object value) {
+        if (value == null || value instanceof String || value instanceof Boolean) {
+            return true;
+        } else if (value instanceof Integer || value instanceof Long || value instanceof BigInteger) {
+            return true;
+        } else if (value instanceof Double) {
+            // floats and decimals are parsed back as doubles, non-finite doubles can't be serialized in all formats
+            return Double.isFinite((Double) value);
+        } else if (value instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (entry.getKey() instanceof String == false || isParsedAsIs(entry.getValue()) == false) {
+                    return false;
+                }
+            }
+            return true;
+        } else if (value instanceof List) {
+            for (Object element : (List<?>) value) {
+                if (isParsedAsIs(element) == false) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
     /**
      * Index the Map in {@link Requests#INDEX_CONTENT_TYPE} format
      *
@@ -436,6 +503,7 @@ public class IndexRequest extends ReplicatedWriteRequest<IndexRequest> implement
     public IndexRequest source(BytesReference source, XContentType xContentType) {
         this.source = Objects.requireNonNull(source);
         this.contentType = Objects.requireNonNull(xContentType);
+        this.sourceMap = null;
         return this;
     }
 
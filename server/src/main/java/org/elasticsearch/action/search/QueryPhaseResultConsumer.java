@@ -11,6 +11,7 @@ package org.elasticsearch.action.search;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
 import org.elasticsearch.action.search.SearchPhaseController.TopDocsStats;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.breaker.CircuitBreakingException;
@@ -31,7 +32,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
@@ -49,6 +52,11 @@ import static org.elasticsearch.action.search.SearchPhaseController.setShardInde
  * in the {@link CircuitBreaker#REQUEST} circuit breaker. Before any partial or final reduce, the memory
  * needed to reduce the aggregations is estimated and a {@link CircuitBreakingException} is thrown if it
  * exceeds the maximum memory allowed in this breaker.
+ * <p>
+ * Up to {@code maxConcurrentMerges} partial reduces can run concurrently on the provided executor. Only one
+ * of them at a time merges its batch into the accumulated result. The others reduce their own batch and leave
+ * it to be merged by the next partial reduce or by the final reduce, forming a two level tree instead of a
+ * chain of merges.
  */
 public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhaseResult> implements Releasable {
     private static final Logger logger = LogManager.getLogger(QueryPhaseResultConsumer.class);
@@ -63,13 +71,14 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
     private final boolean hasTopDocs;
     private final boolean hasAggs;
     private final boolean performFinalReduce;
+    private final int maxConcurrentMerges;
 
     private final PendingMerges pendingMerges;
     private final Consumer<Exception> onPartialMergeFailure;
 
     /**
      * Creates a {@link QueryPhaseResultConsumer} that incrementally reduces aggregation results
-     * as shard results are consumed.
+     * as shard results are consumed, one partial reduce at a time.
      */
     public QueryPhaseResultConsumer(
         SearchRequest request,
@@ -80,8 +89,30 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         SearchProgressListener progressListener,
         int expectedResultSize,
         Consumer<Exception> onPartialMergeFailure
+    ) {
+        this(request, executor, circuitBreaker, controller, isCanceled, progressListener, expectedResultSize, 1, onPartialMergeFailure);
+    }
+
+    /**
+     * Creates a {@link QueryPhaseResultConsumer} that incrementally reduces aggregation results
+     * as shard results are consumed, running up to <code>maxConcurrentMerges</code> partial reduces
+     * concurrently.
+     */
+    public QueryPhaseResultConsumer(
+        SearchRequest request,
+        Executor executor,
+        CircuitBreaker circuitBreaker,
+        SearchPhaseController controller,
+        Supplier<Boolean> isCanceled,
+        SearchProgressListener progressListener,
+        int expectedResultSize,
+        int maxConcurrentMerges,
+        Consumer<Exception> onPartialMergeFailure
     ) {
         super(expectedResultSize);
+        if (maxConcurrentMerges < 1) {
+            throw new IllegalArgumentException("maxConcurrentMerges must be >= 1 but was [" + maxConcurrentMerges + "]");
+        }
         this.executor = executor;
         this.circuitBreaker = circuitBreaker;
         this.controller = controller;
@@ -89,6 +120,7 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         this.aggReduceContextBuilder = controller.getReduceContext(isCanceled, request);
         this.topNSize = getTopDocsSize(request);
         this.performFinalReduce = request.isFinalReduce();
+        this.maxConcurrentMerges = maxConcurrentMerges;
         this.onPartialMergeFailure = onPartialMergeFailure;
 
         SearchSourceBuilder source = request.source();
@@ -157,24 +189,35 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         return reducePhase;
     }
 
+    /**
+     * Reduces a batch of shard results together with the previously merged results.
+     *
+     * @param lastMerges the results of previous partial reduces to merge with the batch
+     * @param numReducePhases the number of the reduce phase to notify the progress listener with,
+     *                        or <code>-1</code> if the result only covers a part of the shards
+     *                        merged so far and must not be notified
+     */
     private MergeResult partialReduce(
         QuerySearchResult[] toConsume,
         List<SearchShard> emptyResults,
         TopDocsStats topDocsStats,
-        MergeResult lastMerge,
+        List<MergeResult> lastMerges,
         int numReducePhases
     ) {
         // ensure consistent ordering
         Arrays.sort(toConsume, Comparator.comparingInt(QuerySearchResult::getShardIndex));
 
-        for (QuerySearchResult result : toConsume) {
-            topDocsStats.add(result.topDocs(), result.searchTimedOut(), result.terminatedEarly());
+        // the stats are shared by all concurrent partial reduces
+        synchronized (topDocsStats) {
+            for (QuerySearchResult result : toConsume) {
+                topDocsStats.add(result.topDocs(), result.searchTimedOut(), result.terminatedEarly());
+            }
         }
 
         final TopDocs newTopDocs;
         if (hasTopDocs) {
             List<TopDocs> topDocsList = new ArrayList<>();
-            if (lastMerge != null) {
+            for (MergeResult lastMerge : lastMerges) {
                 topDocsList.add(lastMerge.reducedTopDocs);
             }
             for (QuerySearchResult result : toConsume) {
@@ -195,7 +238,7 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         final InternalAggregations newAggs;
         if (hasAggs) {
             List<InternalAggregations> aggsList = new ArrayList<>();
-            if (lastMerge != null) {
+            for (MergeResult lastMerge : lastMerges) {
                 aggsList.add(lastMerge.reducedAggs);
             }
             for (QuerySearchResult result : toConsume) {
@@ -206,14 +249,20 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
             newAggs = null;
         }
         List<SearchShard> processedShards = new ArrayList<>(emptyResults);
-        if (lastMerge != null) {
+        for (MergeResult lastMerge : lastMerges) {
             processedShards.addAll(lastMerge.processedShards);
         }
         for (QuerySearchResult result : toConsume) {
             SearchShardTarget target = result.getSearchShardTarget();
             processedShards.add(new SearchShard(target.getClusterAlias(), target.getShardId()));
         }
-        progressListener.notifyPartialReduce(processedShards, topDocsStats.getTotalHits(), newAggs, numReducePhases);
+        if (numReducePhases >= 0) {
+            final TotalHits totalHits;
+            synchronized (topDocsStats) {
+                totalHits = topDocsStats.getTotalHits();
+            }
+            progressListener.notifyPartialReduce(processedShards, totalHits, newAggs, numReducePhases);
+        }
         // we leave the results un-serialized because serializing is slow but we compute the serialized
         // size as an estimate of the memory used by the newly reduced aggregations.
         long serializedSize = hasAggs ? DelayableWriteable.getSerializedSize(newAggs) : 0;
@@ -235,11 +284,16 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         private volatile long maxAggsCurrentBufferSize = 0;
 
         private final ArrayDeque<MergeTask> queue = new ArrayDeque<>();
-        private final AtomicReference<MergeTask> runningTask = new AtomicReference<>();
+        private final Set<MergeTask> runningTasks = new HashSet<>();
         private final AtomicReference<Exception> failure = new AtomicReference<>();
 
         private final TopDocsStats topDocsStats;
+        // the accumulated result of the partial reduces
         private volatile MergeResult mergeResult;
+        // true if a running partial reduce merges its batch into the accumulated result
+        private boolean mergeResultInUse;
+        // the reduced batches that are not merged into the accumulated result yet
+        private final List<MergeResult> reducedBatches = new ArrayList<>();
         private volatile boolean hasPartialReduce;
         private volatile int numReducePhases;
 
@@ -278,8 +332,8 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
             return failure.get() != null;
         }
 
-        boolean hasPendingMerges() {
-            return queue.isEmpty() == false || runningTask.get() != null;
+        synchronized boolean hasPendingMerges() {
+            return queue.isEmpty() == false || runningTasks.isEmpty() == false;
         }
 
         void sortBuffer() {
@@ -381,34 +435,41 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
             failure.compareAndSet(null, exc);
             final List<Releasable> toCancels = new ArrayList<>();
             toCancels.add(() -> onPartialMergeFailure.accept(exc));
-            final MergeTask task = runningTask.getAndSet(null);
-            if (task != null) {
+            for (MergeTask task : runningTasks) {
                 toCancels.add(task::cancel);
             }
+            runningTasks.clear();
             MergeTask mergeTask;
             while ((mergeTask = queue.pollFirst()) != null) {
                 toCancels.add(mergeTask::cancel);
             }
             mergeResult = null;
+            mergeResultInUse = false;
+            reducedBatches.clear();
             Releasables.close(toCancels);
         }
 
-        private void onAfterMerge(MergeTask task, MergeResult newResult, long estimatedSize) {
+        private void onAfterMerge(MergeTask task, MergeResult newResult, boolean mergedIntoResult, long estimatedSize) {
             synchronized (this) {
                 if (hasFailure()) {
                     return;
                 }
-                runningTask.compareAndSet(task, null);
-                mergeResult = newResult;
+                runningTasks.remove(task);
+                if (mergedIntoResult) {
+                    mergeResult = newResult;
+                    mergeResultInUse = false;
+                } else {
+                    reducedBatches.add(newResult);
+                }
                 if (hasAggs) {
                     // Update the circuit breaker to remove the size of the source aggregations
                     // and replace the estimation with the serialized size of the newly reduced result.
-                    long newSize = mergeResult.estimatedSize - estimatedSize;
+                    long newSize = newResult.estimatedSize - estimatedSize;
                     addWithoutBreaking(newSize);
                     logger.trace(
                         "aggs partial reduction [{}->{}] max [{}]",
                         estimatedSize,
-                        mergeResult.estimatedSize,
+                        newResult.estimatedSize,
                         maxAggsCurrentBufferSize
                     );
                 }
@@ -417,31 +478,62 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         }
 
         private void tryExecuteNext() {
-            final MergeTask task;
+            final List<MergeTask> toExecute = new ArrayList<>();
             synchronized (this) {
-                if (queue.isEmpty() || hasFailure() || runningTask.get() != null) {
-                    return;
+                while (queue.isEmpty() == false && hasFailure() == false && runningTasks.size() < maxConcurrentMerges) {
+                    MergeTask task = queue.poll();
+                    runningTasks.add(task);
+                    toExecute.add(task);
                 }
-                task = queue.poll();
-                runningTask.compareAndSet(null, task);
             }
+            for (MergeTask task : toExecute) {
+                execute(task);
+            }
+        }
 
+        private void execute(MergeTask task) {
             executor.execute(new AbstractRunnable() {
                 @Override
                 protected void doRun() {
-                    final MergeResult thisMergeResult = mergeResult;
-                    long estimatedTotalSize = (thisMergeResult != null ? thisMergeResult.estimatedSize : 0) + task.aggsBufferSize;
-                    final MergeResult newMerge;
                     final QuerySearchResult[] toConsume = task.consumeBuffer();
                     if (toConsume == null) {
                         return;
                     }
+                    final List<MergeResult> lastMerges = new ArrayList<>();
+                    final boolean mergeIntoResult;
+                    final int reducePhase;
+                    synchronized (PendingMerges.this) {
+                        if (hasFailure()) {
+                            for (QuerySearchResult result : toConsume) {
+                                result.releaseAggs();
+                            }
+                            return;
+                        }
+                        // only one partial reduce at a time can merge into the accumulated result, the
+                        // others reduce their batch on their own so that batches are reduced concurrently
+                        mergeIntoResult = mergeResultInUse == false;
+                        if (mergeIntoResult) {
+                            mergeResultInUse = true;
+                            if (mergeResult != null) {
+                                lastMerges.add(mergeResult);
+                            }
+                            lastMerges.addAll(reducedBatches);
+                            reducedBatches.clear();
+                            reducePhase = ++numReducePhases;
+                        } else {
+                            reducePhase = -1;
+                        }
+                    }
+                    long estimatedTotalSize = task.aggsBufferSize;
+                    for (MergeResult lastMerge : lastMerges) {
+                        estimatedTotalSize += lastMerge.estimatedSize;
+                    }
+                    final MergeResult newMerge;
                     try {
                         long estimatedMergeSize = estimateRamBytesUsedForReduce(estimatedTotalSize);
                         addEstimateAndMaybeBreak(estimatedMergeSize);
                         estimatedTotalSize += estimatedMergeSize;
-                        ++numReducePhases;
-                        newMerge = partialReduce(toConsume, task.emptyResults, topDocsStats, thisMergeResult, numReducePhases);
+                        newMerge = partialReduce(toConsume, task.emptyResults, topDocsStats, lastMerges, reducePhase);
                     } catch (Exception t) {
                         for (QuerySearchResult result : toConsume) {
                             result.releaseAggs();
@@ -449,7 +541,7 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
                         onMergeFailure(t);
                         return;
                     }
-                    onAfterMerge(task, newMerge, estimatedTotalSize);
+                    onAfterMerge(task, newMerge, mergeIntoResult, estimatedTotalSize);
                     tryExecuteNext();
                 }
 
@@ -475,6 +567,9 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
             if (mergeResult != null) {
                 topDocsList.add(mergeResult.reducedTopDocs);
             }
+            for (MergeResult reducedBatch : reducedBatches) {
+                topDocsList.add(reducedBatch.reducedTopDocs);
+            }
             for (QuerySearchResult result : buffer) {
                 TopDocsAndMaxScore topDocs = result.consumeTopDocs();
                 setShardIndex(topDocs.topDocs, result.getShardIndex());
@@ -491,6 +586,9 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
             if (mergeResult != null) {
                 aggsList.add(mergeResult.reducedAggs);
             }
+            for (MergeResult reducedBatch : reducedBatches) {
+                aggsList.add(reducedBatch.reducedAggs);
+            }
             for (QuerySearchResult result : buffer) {
                 aggsList.add(result.consumeAggs());
             }
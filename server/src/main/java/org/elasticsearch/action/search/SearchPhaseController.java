@@ -693,6 +693,23 @@ public final class SearchPhaseController {
         SearchRequest request,
         int numShards,
         Consumer<Exception> onPartialMergeFailure
+    ) {
+        return newSearchPhaseResults(executor, circuitBreaker, isCanceled, listener, request, numShards, 1, onPartialMergeFailure);
+    }
+
+    /**
+     * Returns a new {@link QueryPhaseResultConsumer} instance that reduces search responses incrementally
+     * with up to <code>maxConcurrentMerges</code> partial reduces running concurrently.
+     */
+    QueryPhaseResultConsumer newSearchPhaseResults(
+        Executor executor,
+        CircuitBreaker circuitBreaker,
+        Supplier<Boolean> isCanceled,
+        SearchProgressListener listener,
+        SearchRequest request,
+        int numShards,
+        int maxConcurrentMerges,
+        Consumer<Exception> onPartialMergeFailure
     ) {
         return new QueryPhaseResultConsumer(
             request,
@@ -702,6 +719,7 @@ public final class SearchPhaseController {
             isCanceled,
             listener,
             numShards,
+            maxConcurrentMerges,
             onPartialMergeFailure
         );
     }
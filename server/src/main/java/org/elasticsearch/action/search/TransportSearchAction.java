@@ -42,6 +42,7 @@ import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.util.concurrent.AtomicArray;
 import org.elasticsearch.common.util.concurrent.CountDown;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.Index;
@@ -120,6 +121,17 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
         Property.NodeScope
     );
 
+    /**
+     * The maximum number of partial reduces of the shard results of a single search request that can run
+     * concurrently on the coordinating node. Defaults to the size of the search coordination thread pool.
+     */
+    public static final Setting<Integer> MAX_CONCURRENT_PARTIAL_REDUCES_SETTING = new Setting<>(
+        "action.search.max_concurrent_partial_reduces",
+        s -> Integer.toString(Math.min(5, Math.max(1, (EsExecutors.allocatedProcessors(s) + 1) / 2))),
+        s -> Setting.parseInt(s, 1, "action.search.max_concurrent_partial_reduces"),
+        Property.NodeScope
+    );
+
     private final ThreadPool threadPool;
     private final ClusterService clusterService;
     private final SearchTransportService searchTransportService;
@@ -131,6 +143,7 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
     private final CircuitBreaker circuitBreaker;
     private final ExecutorSelector executorSelector;
     private final int defaultPreFilterShardSize;
+    private final int maxConcurrentPartialReduces;
 
     @Inject
     public TransportSearchAction(
@@ -159,6 +172,7 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
         this.namedWriteableRegistry = namedWriteableRegistry;
         this.executorSelector = executorSelector;
         this.defaultPreFilterShardSize = DEFAULT_PRE_FILTER_SHARD_SIZE.get(clusterService.getSettings());
+        this.maxConcurrentPartialReduces = MAX_CONCURRENT_PARTIAL_REDUCES_SETTING.get(clusterService.getSettings());
     }
 
     private Map<String, OriginalIndices> buildPerIndexOriginalIndices(
@@ -1190,6 +1204,7 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
                 task.getProgressListener(),
                 searchRequest,
                 shardIterators.size(),
+                maxConcurrentPartialReduces,
                 exc -> searchTransportService.cancelSearchTask(task, "failed to merge result [" + exc.getMessage() + "]")
             );
             AbstractSearchAsyncAction<? extends SearchPhaseResult> searchAsyncAction;
@@ -332,7 +332,9 @@ public abstract class TransportReplicationAction<
             new ChannelActionListener<>(channel, actionName, request),
             releasable::close
         );
-        runReroutePhase(task, request, listener, false);
+        // the request might hold network buffers that the async execution still needs once the handler returns
+        request.incRef();
+        runReroutePhase(task, request, ActionListener.runAfter(listener, request::decRef), false);
     }
 
     protected Releasable checkOperationLimits(final Request request) {
@@ -345,9 +347,10 @@ public abstract class TransportReplicationAction<
             request.sentFromLocalReroute(),
             request.localRerouteInitiatedByNodeClient()
         );
-        ActionListener<Response> listener = ActionListener.runBefore(
-            new ChannelActionListener<>(channel, transportPrimaryAction, request),
-            releasable::close
+        request.incRef();
+        ActionListener<Response> listener = ActionListener.runAfter(
+            ActionListener.runBefore(new ChannelActionListener<>(channel, transportPrimaryAction, request), releasable::close),
+            request::decRef
         );
 
         try {
@@ -605,9 +608,10 @@ public abstract class TransportReplicationAction<
         final Task task
     ) {
         Releasable releasable = checkReplicaLimits(replicaRequest.getRequest());
-        ActionListener<ReplicaResponse> listener = ActionListener.runBefore(
-            new ChannelActionListener<>(channel, transportReplicaAction, replicaRequest),
-            releasable::close
+        replicaRequest.incRef();
+        ActionListener<ReplicaResponse> listener = ActionListener.runAfter(
+            ActionListener.runBefore(new ChannelActionListener<>(channel, transportReplicaAction, replicaRequest), releasable::close),
+            replicaRequest::decRef
         );
 
         try {
@@ -1414,6 +1418,26 @@ public abstract class TransportReplicationAction<
             return false;
         }
 
+        @Override
+        public void incRef() {
+            request.incRef();
+        }
+
+        @Override
+        public boolean tryIncRef() {
+            return request.tryIncRef();
+        }
+
+        @Override
+        public boolean decRef() {
+            return request.decRef();
+        }
+
+        @Override
+        public boolean hasReferences() {
+            return request.hasReferences();
+        }
+
         @Override
         public String toString() {
             return "request: " + request + ", target allocation id: " + targetAllocationID + ", primary term: " + primaryTerm;
@@ -30,11 +30,12 @@ import java.util.Optional;
  * ClusterInfo is an object representing a map of nodes to {@link DiskUsage}
  * and a map of shard ids to shard sizes, see
  * <code>InternalClusterInfoService.shardIdentifierFromRouting(String)</code>
- * for the key used in the shardSizes map
+ * for the key used in the shardSizes map, as well as the write and search load of each shard
  */
 public class ClusterInfo implements ToXContentFragment, Writeable {
 
     public static final Version DATA_SET_SIZE_SIZE_VERSION = Version.V_7_13_0;
+    public static final Version SHARD_LOADS_VERSION = Version.V_8_1_0;
 
     private final ImmutableOpenMap<String, DiskUsage> leastAvailableSpaceUsage;
     private final ImmutableOpenMap<String, DiskUsage> mostAvailableSpaceUsage;
@@ -43,6 +44,8 @@ public class ClusterInfo implements ToXContentFragment, Writeable {
     public static final ClusterInfo EMPTY = new ClusterInfo();
     final ImmutableOpenMap<ShardRouting, String> routingToDataPath;
     final ImmutableOpenMap<NodeAndPath, ReservedSpace> reservedSpace;
+    final ImmutableOpenMap<ShardId, Double> shardWriteLoads;
+    final ImmutableOpenMap<ShardId, Double> shardSearchLoads;
 
     protected ClusterInfo() {
         this(
@@ -55,6 +58,32 @@ public class ClusterInfo implements ToXContentFragment, Writeable {
         );
     }
 
+    /**
+     * Creates a new ClusterInfo instance without any shard load information.
+     *
+     * @see #ClusterInfo(ImmutableOpenMap, ImmutableOpenMap, ImmutableOpenMap, ImmutableOpenMap, ImmutableOpenMap, ImmutableOpenMap,
+     *      ImmutableOpenMap, ImmutableOpenMap)
+     */
+    public ClusterInfo(
+        ImmutableOpenMap<String, DiskUsage> leastAvailableSpaceUsage,
+        ImmutableOpenMap<String, DiskUsage> mostAvailableSpaceUsage,
+        ImmutableOpenMap<String, Long> shardSizes,
+        ImmutableOpenMap<ShardId, Long> shardDataSetSizes,
+        ImmutableOpenMap<ShardRouting, String> routingToDataPath,
+        ImmutableOpenMap<NodeAndPath, ReservedSpace> reservedSpace
+    ) {
+        this(
+            leastAvailableSpaceUsage,
+            mostAvailableSpaceUsage,
+            shardSizes,
+            shardDataSetSizes,
+            routingToDataPath,
+            reservedSpace,
+            ImmutableOpenMap.of(),
+            ImmutableOpenMap.of()
+        );
+    }
+
     /**
      * Creates a new ClusterInfo instance.
      *
@@ -64,6 +93,8 @@ public class ClusterInfo implements ToXContentFragment, Writeable {
      * @param shardDataSetSizes a shard id to data set size in bytes mapping per shard
      * @param routingToDataPath the shard routing to datapath mapping
      * @param reservedSpace reserved space per shard broken down by node and data path
+     * @param shardWriteLoads a shard id to write load mapping, the average number of threads busy indexing into a copy of the shard
+     * @param shardSearchLoads a shard id to search load mapping, the average number of threads busy searching a copy of the shard
      * @see #shardIdentifierFromRouting
      */
     public ClusterInfo(
@@ -72,7 +103,9 @@ public class ClusterInfo implements ToXContentFragment, Writeable {
         ImmutableOpenMap<String, Long> shardSizes,
         ImmutableOpenMap<ShardId, Long> shardDataSetSizes,
         ImmutableOpenMap<ShardRouting, String> routingToDataPath,
-        ImmutableOpenMap<NodeAndPath, ReservedSpace> reservedSpace
+        ImmutableOpenMap<NodeAndPath, ReservedSpace> reservedSpace,
+        ImmutableOpenMap<ShardId, Double> shardWriteLoads,
+        ImmutableOpenMap<ShardId, Double> shardSearchLoads
     ) {
         this.leastAvailableSpaceUsage = leastAvailableSpaceUsage;
         this.shardSizes = shardSizes;
@@ -80,6 +113,8 @@ public class ClusterInfo implements ToXContentFragment, Writeable {
         this.mostAvailableSpaceUsage = mostAvailableSpaceUsage;
         this.routingToDataPath = routingToDataPath;
         this.reservedSpace = reservedSpace;
+        this.shardWriteLoads = shardWriteLoads;
+        this.shardSearchLoads = shardSearchLoads;
     }
 
     public ClusterInfo(StreamInput in) throws IOException {
@@ -99,6 +134,15 @@ public class ClusterInfo implements ToXContentFragment, Writeable {
         } else {
             reservedSpaceMap = Map.of();
         }
+        final Map<ShardId, Double> writeLoadMap;
+        final Map<ShardId, Double> searchLoadMap;
+        if (in.getVersion().onOrAfter(SHARD_LOADS_VERSION)) {
+            writeLoadMap = in.readMap(ShardId::new, StreamInput::readDouble);
+            searchLoadMap = in.readMap(ShardId::new, StreamInput::readDouble);
+        } else {
+            writeLoadMap = Map.of();
+            searchLoadMap = Map.of();
+        }
 
         ImmutableOpenMap.Builder<String, DiskUsage> leastBuilder = ImmutableOpenMap.builder();
         this.leastAvailableSpaceUsage = leastBuilder.putAll(leastMap).build();
@@ -112,6 +156,10 @@ public class ClusterInfo implements ToXContentFragment, Writeable {
         this.routingToDataPath = routingBuilder.putAll(routingMap).build();
         ImmutableOpenMap.Builder<NodeAndPath, ReservedSpace> reservedSpaceBuilder = ImmutableOpenMap.builder();
         this.reservedSpace = reservedSpaceBuilder.putAll(reservedSpaceMap).build();
+        ImmutableOpenMap.Builder<ShardId, Double> writeLoadBuilder = ImmutableOpenMap.builder();
+        this.shardWriteLoads = writeLoadBuilder.putAll(writeLoadMap).build();
+        ImmutableOpenMap.Builder<ShardId, Double> searchLoadBuilder = ImmutableOpenMap.builder();
+        this.shardSearchLoads = searchLoadBuilder.putAll(searchLoadMap).build();
     }
 
     @Override
@@ -130,6 +178,10 @@ public class ClusterInfo implements ToXContentFragment, Writeable {
         if (out.getVersion().onOrAfter(StoreStats.RESERVED_BYTES_VERSION)) {
             out.writeMap(this.reservedSpace);
         }
+        if (out.getVersion().onOrAfter(SHARD_LOADS_VERSION)) {
+            out.writeMap(this.shardWriteLoads, (o, s) -> s.writeTo(o), StreamOutput::writeDouble);
+            out.writeMap(this.shardSearchLoads, (o, s) -> s.writeTo(o), StreamOutput::writeDouble);
+        }
     }
 
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
@@ -171,6 +223,20 @@ public class ClusterInfo implements ToXContentFragment, Writeable {
             }
         }
         builder.endObject(); // end "shard_data_set_sizes"
+        builder.startObject("shard_write_loads");
+        {
+            for (Map.Entry<ShardId, Double> c : this.shardWriteLoads.entrySet()) {
+                builder.field(c.getKey().toString(), c.getValue());
+            }
+        }
+        builder.endObject(); // end "shard_write_loads"
+        builder.startObject("shard_search_loads");
+        {
+            for (Map.Entry<ShardId, Double> c : this.shardSearchLoads.entrySet()) {
+                builder.field(c.getKey().toString(), c.getValue());
+            }
+        }
+        builder.endObject(); // end "shard_search_loads"
         builder.startObject("shard_paths");
         {
             for (Map.Entry<ShardRouting, String> c : this.routingToDataPath.entrySet()) {
@@ -236,6 +302,24 @@ public class ClusterInfo implements ToXContentFragment, Writeable {
         return Optional.ofNullable(shardDataSetSizes.get(shardId));
     }
 
+    /**
+     * Returns the average number of threads that were busy indexing into a copy of the given shard between the last two samples of its
+     * stats, or <code>defaultValue</code> if that metric is not available.
+     */
+    public double getShardWriteLoad(ShardId shardId, double defaultValue) {
+        final Double writeLoad = shardWriteLoads.get(shardId);
+        return writeLoad == null ? defaultValue : writeLoad;
+    }
+
+    /**
+     * Returns the average number of threads that were busy searching a copy of the given shard between the last two samples of its
+     * stats, or <code>defaultValue</code> if that metric is not available.
+     */
+    public double getShardSearchLoad(ShardId shardId, double defaultValue) {
+        final Double searchLoad = shardSearchLoads.get(shardId);
+        return searchLoad == null ? defaultValue : searchLoad;
+    }
+
     /**
      * Returns the reserved space for each shard on the given node/path pair
      */
@@ -28,6 +28,17 @@ public interface ClusterStateTaskExecutor<T> {
         return true;
     }
 
+    /**
+     * Indicates whether the master may compute a batch of this executor together with pending batches of other executors that also
+     * return {@code true}, applying them one after the other to produce a single cluster state update. An executor that allows this must
+     * only run on the master and must not rely on the cluster state it sees having been published. Its
+     * {@link #clusterStatePublished(ClusterStatePublicationEvent)} is called once for each coalesced update that it took part in, even if
+     * its own batch left the cluster state unchanged.
+     */
+    default boolean allowsCoalescing() {
+        return false;
+    }
+
     /**
      * Callback invoked after new cluster state is published. Note that
      * this method is not invoked if the cluster state was not updated.
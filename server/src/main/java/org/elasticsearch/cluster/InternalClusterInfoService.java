@@ -16,6 +16,7 @@ import org.elasticsearch.action.FailedNodeException;
 import org.elasticsearch.action.admin.cluster.node.stats.NodeStats;
 import org.elasticsearch.action.admin.cluster.node.stats.NodesStatsRequest;
 import org.elasticsearch.action.admin.cluster.node.stats.NodesStatsResponse;
+import org.elasticsearch.action.admin.indices.stats.CommonStats;
 import org.elasticsearch.action.admin.indices.stats.IndicesStatsRequest;
 import org.elasticsearch.action.admin.indices.stats.IndicesStatsResponse;
 import org.elasticsearch.action.admin.indices.stats.ShardStats;
@@ -35,6 +36,8 @@ import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.concurrent.CountDown;
 import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.index.search.stats.SearchStats;
+import org.elasticsearch.index.shard.IndexingStats;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.store.StoreStats;
 import org.elasticsearch.monitor.fs.FsInfo;
@@ -47,6 +50,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 /**
@@ -58,7 +62,9 @@ import java.util.function.Consumer;
  * ClusterInfoUpdateJob if a node has been added.
  *
  * Every time the timer runs, gathers information about the disk usage and
- * shard sizes across the cluster.
+ * shard sizes across the cluster. The write and search load of each shard is
+ * derived from the time spent indexing into and searching each shard copy
+ * since the previous run.
  */
 public class InternalClusterInfoService implements ClusterInfoService, ClusterStateListener {
 
@@ -85,6 +91,7 @@ public class InternalClusterInfoService implements ClusterInfoService, ClusterSt
     private volatile ImmutableOpenMap<String, DiskUsage> leastAvailableSpaceUsages;
     private volatile ImmutableOpenMap<String, DiskUsage> mostAvailableSpaceUsages;
     private volatile IndicesStatsSummary indicesStatsSummary;
+    private volatile ShardLoadSample shardLoadSample;
 
     private final ThreadPool threadPool;
     private final Client client;
@@ -99,6 +106,7 @@ public class InternalClusterInfoService implements ClusterInfoService, ClusterSt
         this.leastAvailableSpaceUsages = ImmutableOpenMap.of();
         this.mostAvailableSpaceUsages = ImmutableOpenMap.of();
         this.indicesStatsSummary = IndicesStatsSummary.EMPTY;
+        this.shardLoadSample = ShardLoadSample.EMPTY;
         this.threadPool = threadPool;
         this.client = client;
         this.updateFrequency = INTERNAL_CLUSTER_INFO_UPDATE_INTERVAL_SETTING.get(settings);
@@ -211,6 +219,8 @@ public class InternalClusterInfoService implements ClusterInfoService, ClusterSt
             final IndicesStatsRequest indicesStatsRequest = new IndicesStatsRequest();
             indicesStatsRequest.clear();
             indicesStatsRequest.store(true);
+            indicesStatsRequest.indexing(true);
+            indicesStatsRequest.search(true);
             indicesStatsRequest.indicesOptions(IndicesOptions.STRICT_EXPAND_OPEN_CLOSED_HIDDEN);
             indicesStatsRequest.timeout(fetchTimeout);
             client.admin().indices().stats(indicesStatsRequest, ActionListener.runAfter(new ActionListener<>() {
@@ -278,11 +288,23 @@ public class InternalClusterInfoService implements ClusterInfoService, ClusterSt
                         .builder();
                     reservedSpaceBuilders.forEach((nodeAndPath, builder) -> rsrvdSpace.put(nodeAndPath, builder.build()));
 
+                    final ImmutableOpenMap.Builder<ShardId, Double> shardWriteLoadBuilder = ImmutableOpenMap.builder();
+                    final ImmutableOpenMap.Builder<ShardId, Double> shardSearchLoadBuilder = ImmutableOpenMap.builder();
+                    shardLoadSample = buildShardLoadInfo(
+                        stats,
+                        shardLoadSample,
+                        threadPool.relativeTimeInNanos(),
+                        shardWriteLoadBuilder,
+                        shardSearchLoadBuilder
+                    );
+
                     indicesStatsSummary = new IndicesStatsSummary(
                         shardSizeByIdentifierBuilder.build(),
                         shardDataSetSizeBuilder.build(),
                         dataPathByShardRoutingBuilder.build(),
-                        rsrvdSpace.build()
+                        rsrvdSpace.build(),
+                        shardWriteLoadBuilder.build(),
+                        shardSearchLoadBuilder.build()
                     );
                 }
 
@@ -361,6 +383,7 @@ public class InternalClusterInfoService implements ClusterInfoService, ClusterSt
                 leastAvailableSpaceUsages = ImmutableOpenMap.of();
                 mostAvailableSpaceUsages = ImmutableOpenMap.of();
                 indicesStatsSummary = IndicesStatsSummary.EMPTY;
+                shardLoadSample = ShardLoadSample.EMPTY;
                 thisRefreshListeners.forEach(l -> l.onResponse(ClusterInfo.EMPTY));
             };
         }
@@ -403,7 +426,9 @@ public class InternalClusterInfoService implements ClusterInfoService, ClusterSt
             indicesStatsSummary.shardSizes,
             indicesStatsSummary.shardDataSetSizes,
             indicesStatsSummary.shardRoutingToDataPath,
-            indicesStatsSummary.reservedSpace
+            indicesStatsSummary.reservedSpace,
+            indicesStatsSummary.shardWriteLoads,
+            indicesStatsSummary.shardSearchLoads
         );
     }
 
@@ -462,6 +487,62 @@ public class InternalClusterInfoService implements ClusterInfoService, ClusterSt
         }
     }
 
+    /**
+     * Computes the write and search load of each shard from the time its copies spent indexing and searching since the previous sample.
+     * The write load of a shard is the highest load of any of its copies since every copy indexes every document, whereas searches are
+     * spread over the copies so the search load of a shard is the average load of its copies. Copies that were not part of the previous
+     * sample have no load yet.
+     *
+     * @return the sample to compare the next stats against
+     */
+    static ShardLoadSample buildShardLoadInfo(
+        ShardStats[] stats,
+        ShardLoadSample previousSample,
+        long currentTimeNanos,
+        ImmutableOpenMap.Builder<ShardId, Double> shardWriteLoads,
+        ImmutableOpenMap.Builder<ShardId, Double> shardSearchLoads
+    ) {
+        final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(currentTimeNanos - previousSample.timestampNanos);
+        final Map<String, Long> indexTimes = new HashMap<>();
+        final Map<String, Long> searchTimes = new HashMap<>();
+        final Map<ShardId, double[]> searchLoadSums = new HashMap<>();
+        for (ShardStats s : stats) {
+            final ShardRouting shardRouting = s.getShardRouting();
+            if (shardRouting.allocationId() == null) {
+                continue;
+            }
+            final String allocationId = shardRouting.allocationId().getId();
+            final CommonStats commonStats = s.getStats();
+
+            final IndexingStats indexingStats = commonStats.getIndexing();
+            if (indexingStats != null) {
+                final long indexTime = indexingStats.getTotal().getIndexTime().millis();
+                indexTimes.put(allocationId, indexTime);
+                final Long previousIndexTime = previousSample.indexTimes.get(allocationId);
+                if (previousIndexTime != null && indexTime >= previousIndexTime && elapsedMillis > 0) {
+                    final double writeLoad = (double) (indexTime - previousIndexTime) / elapsedMillis;
+                    if (writeLoad > shardWriteLoads.getOrDefault(shardRouting.shardId(), -1.0)) {
+                        shardWriteLoads.put(shardRouting.shardId(), writeLoad);
+                    }
+                }
+            }
+
+            final SearchStats searchStats = commonStats.getSearch();
+            if (searchStats != null) {
+                final long searchTime = searchStats.getTotal().getQueryTimeInMillis() + searchStats.getTotal().getFetchTimeInMillis();
+                searchTimes.put(allocationId, searchTime);
+                final Long previousSearchTime = previousSample.searchTimes.get(allocationId);
+                if (previousSearchTime != null && searchTime >= previousSearchTime && elapsedMillis > 0) {
+                    final double[] sumAndCount = searchLoadSums.computeIfAbsent(shardRouting.shardId(), k -> new double[2]);
+                    sumAndCount[0] += (double) (searchTime - previousSearchTime) / elapsedMillis;
+                    sumAndCount[1] += 1;
+                }
+            }
+        }
+        searchLoadSums.forEach((shardId, sumAndCount) -> shardSearchLoads.put(shardId, sumAndCount[0] / sumAndCount[1]));
+        return new ShardLoadSample(currentTimeNanos, indexTimes, searchTimes);
+    }
+
     static void fillDiskUsagePerNode(
         List<NodeStats> nodeStatsArray,
         ImmutableOpenMap.Builder<String, DiskUsage> newLeastAvailableUsages,
@@ -551,6 +632,8 @@ public class InternalClusterInfoService implements ClusterInfoService, ClusterSt
 
     private static class IndicesStatsSummary {
         static final IndicesStatsSummary EMPTY = new IndicesStatsSummary(
+            ImmutableOpenMap.of(),
+            ImmutableOpenMap.of(),
             ImmutableOpenMap.of(),
             ImmutableOpenMap.of(),
             ImmutableOpenMap.of(),
@@ -561,17 +644,40 @@ public class InternalClusterInfoService implements ClusterInfoService, ClusterSt
         final ImmutableOpenMap<ShardId, Long> shardDataSetSizes;
         final ImmutableOpenMap<ShardRouting, String> shardRoutingToDataPath;
         final ImmutableOpenMap<ClusterInfo.NodeAndPath, ClusterInfo.ReservedSpace> reservedSpace;
+        final ImmutableOpenMap<ShardId, Double> shardWriteLoads;
+        final ImmutableOpenMap<ShardId, Double> shardSearchLoads;
 
         IndicesStatsSummary(
             ImmutableOpenMap<String, Long> shardSizes,
             ImmutableOpenMap<ShardId, Long> shardDataSetSizes,
             ImmutableOpenMap<ShardRouting, String> shardRoutingToDataPath,
-            ImmutableOpenMap<ClusterInfo.NodeAndPath, ClusterInfo.ReservedSpace> reservedSpace
+            ImmutableOpenMap<ClusterInfo.NodeAndPath, ClusterInfo.ReservedSpace> reservedSpace,
+            ImmutableOpenMap<ShardId, Double> shardWriteLoads,
+            ImmutableOpenMap<ShardId, Double> shardSearchLoads
         ) {
             this.shardSizes = shardSizes;
             this.shardDataSetSizes = shardDataSetSizes;
             this.shardRoutingToDataPath = shardRoutingToDataPath;
             this.reservedSpace = reservedSpace;
+            this.shardWriteLoads = shardWriteLoads;
+            this.shardSearchLoads = shardSearchLoads;
+        }
+    }
+
+    /**
+     * The cumulative time spent indexing into and searching each shard copy, keyed by allocation id, at a point in time.
+     */
+    static class ShardLoadSample {
+        static final ShardLoadSample EMPTY = new ShardLoadSample(0L, Map.of(), Map.of());
+
+        final long timestampNanos;
+        final Map<String, Long> indexTimes;
+        final Map<String, Long> searchTimes;
+
+        ShardLoadSample(long timestampNanos, Map<String, Long> indexTimes, Map<String, Long> searchTimes) {
+            this.timestampNanos = timestampNanos;
+            this.indexTimes = indexTimes;
+            this.searchTimes = searchTimes;
         }
     }
 
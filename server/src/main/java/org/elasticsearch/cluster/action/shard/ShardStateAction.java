@@ -463,6 +463,11 @@ public class ShardStateAction {
             return allocationService.applyFailedShards(currentState, failedShards, staleShards);
         }
 
+        @Override
+        public boolean allowsCoalescing() {
+            return true;
+        }
+
         @Override
         public void clusterStatePublished(ClusterStatePublicationEvent clusterStatePublicationEvent) {
             int numberOfUnassignedShards = clusterStatePublicationEvent.getNewState().getRoutingNodes().unassigned().size();
@@ -778,6 +783,11 @@ public class ShardStateAction {
             }
         }
 
+        @Override
+        public boolean allowsCoalescing() {
+            return true;
+        }
+
         @Override
         public void clusterStatePublished(ClusterStatePublicationEvent clusterStatePublicationEvent) {
             rerouteService.reroute(
@@ -8,6 +8,7 @@
 
 package org.elasticsearch.cluster.coordination;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -19,7 +20,9 @@ import java.io.IOException;
 
 public class ClusterStateSerializationStats implements Writeable, ToXContentObject {
 
-    public static final ClusterStateSerializationStats EMPTY = new ClusterStateSerializationStats(0L, 0L, 0L, 0L, 0L, 0L);
+    public static final ClusterStateSerializationStats EMPTY = new ClusterStateSerializationStats(0L, 0L, 0L, 0L, 0L, 0L, 0L);
+
+    static final Version PEAK_BUFFERED_BYTES_VERSION = Version.V_8_1_0;
 
     private final long fullStateCount;
     private final long totalUncompressedFullStateBytes;
@@ -27,6 +30,7 @@ public class ClusterStateSerializationStats implements Writeable, ToXContentObje
     private final long diffCount;
     private final long totalUncompressedDiffBytes;
     private final long totalCompressedDiffBytes;
+    private final long peakBufferedBytes;
 
     public ClusterStateSerializationStats(
         long fullStateCount,
@@ -34,7 +38,8 @@ public class ClusterStateSerializationStats implements Writeable, ToXContentObje
         long totalCompressedFullStateBytes,
         long diffCount,
         long totalUncompressedDiffBytes,
-        long totalCompressedDiffBytes
+        long totalCompressedDiffBytes,
+        long peakBufferedBytes
     ) {
         this.fullStateCount = fullStateCount;
         this.totalUncompressedFullStateBytes = totalUncompressedFullStateBytes;
@@ -42,6 +47,7 @@ public class ClusterStateSerializationStats implements Writeable, ToXContentObje
         this.diffCount = diffCount;
         this.totalUncompressedDiffBytes = totalUncompressedDiffBytes;
         this.totalCompressedDiffBytes = totalCompressedDiffBytes;
+        this.peakBufferedBytes = peakBufferedBytes;
     }
 
     public ClusterStateSerializationStats(StreamInput in) throws IOException {
@@ -51,6 +57,11 @@ public class ClusterStateSerializationStats implements Writeable, ToXContentObje
         this.diffCount = in.readVLong();
         this.totalUncompressedDiffBytes = in.readVLong();
         this.totalCompressedDiffBytes = in.readVLong();
+        if (in.getVersion().onOrAfter(PEAK_BUFFERED_BYTES_VERSION)) {
+            this.peakBufferedBytes = in.readVLong();
+        } else {
+            this.peakBufferedBytes = 0L;
+        }
     }
 
     public long getFullStateCount() {
@@ -77,6 +88,14 @@ public class ClusterStateSerializationStats implements Writeable, ToXContentObje
         return totalCompressedDiffBytes;
     }
 
+    /**
+     * The largest number of bytes of serialized cluster states and diffs that this node has held on to at once, waiting for them to be
+     * sent to the other nodes.
+     */
+    public long getPeakBufferedBytes() {
+        return peakBufferedBytes;
+    }
+
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject();
@@ -90,6 +109,7 @@ public class ClusterStateSerializationStats implements Writeable, ToXContentObje
         builder.humanReadableField("uncompressed_size_in_bytes", "uncompressed_size", new ByteSizeValue(totalUncompressedDiffBytes));
         builder.humanReadableField("compressed_size_in_bytes", "compressed_size", new ByteSizeValue(totalCompressedDiffBytes));
         builder.endObject();
+        builder.humanReadableField("peak_buffered_size_in_bytes", "peak_buffered_size", new ByteSizeValue(peakBufferedBytes));
         builder.endObject();
         return builder;
     }
@@ -102,6 +122,9 @@ public class ClusterStateSerializationStats implements Writeable, ToXContentObje
         out.writeVLong(diffCount);
         out.writeVLong(totalUncompressedDiffBytes);
         out.writeVLong(totalCompressedDiffBytes);
+        if (out.getVersion().onOrAfter(PEAK_BUFFERED_BYTES_VERSION)) {
+            out.writeVLong(peakBufferedBytes);
+        }
     }
 
 }
@@ -226,6 +226,7 @@ public class Coordinator extends AbstractLifecycleComponent implements ClusterSt
             configuredHostsResolver
         );
         this.publicationHandler = new PublicationTransportHandler(
+            settings,
             transportService,
             namedWriteableRegistry,
             this::handlePublishRequest,
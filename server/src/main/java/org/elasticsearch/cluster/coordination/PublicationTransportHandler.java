@@ -21,10 +21,14 @@ import org.elasticsearch.cluster.Diff;
 import org.elasticsearch.cluster.IncompatibleClusterStateVersionException;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.common.UUIDs;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.CompositeBytesReference;
 import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.compress.Compressor;
 import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.InputStreamStreamInput;
 import org.elasticsearch.common.io.stream.NamedWriteableAwareStreamInput;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
@@ -32,25 +36,38 @@ import org.elasticsearch.common.io.stream.PositionTrackingOutputStreamStreamOutp
 import org.elasticsearch.common.io.stream.RecyclerBytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.LazyInitializable;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.core.AbstractRefCounted;
+import org.elasticsearch.core.RefCounted;
 import org.elasticsearch.core.Releasables;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.threadpool.Scheduler;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.BytesTransportRequest;
+import org.elasticsearch.transport.TransportChannel;
 import org.elasticsearch.transport.TransportException;
 import org.elasticsearch.transport.TransportRequestOptions;
 import org.elasticsearch.transport.TransportResponse;
 import org.elasticsearch.transport.TransportService;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
+import java.util.function.LongSupplier;
 
 public class PublicationTransportHandler {
 
@@ -58,6 +75,21 @@ public class PublicationTransportHandler {
 
     public static final String PUBLISH_STATE_ACTION_NAME = "internal:cluster/coordination/publish_state";
     public static final String COMMIT_STATE_ACTION_NAME = "internal:cluster/coordination/commit_state";
+    public static final String PUBLISH_STATE_CHUNK_ACTION_NAME = "internal:cluster/coordination/publish_state_chunk";
+
+    /**
+     * Serialized cluster states and diffs that are larger than this are sent to the other nodes as a sequence of chunks of this size,
+     * which keeps each transport message small. The receiving node reassembles the chunks before it deserializes the state.
+     */
+    public static final Setting<ByteSizeValue> PUBLISH_CHUNK_SIZE_SETTING = Setting.byteSizeSetting(
+        "cluster.publish.chunk_size",
+        new ByteSizeValue(4, ByteSizeUnit.MB),
+        new ByteSizeValue(1, ByteSizeUnit.KB),
+        new ByteSizeValue(1, ByteSizeUnit.GB),
+        Setting.Property.NodeScope
+    );
+
+    static final Version CHUNKED_PUBLICATION_VERSION = Version.V_8_1_0;
 
     private final TransportService transportService;
     private final NamedWriteableRegistry namedWriteableRegistry;
@@ -84,7 +116,12 @@ public class PublicationTransportHandler {
 
     private final SerializationStatsTracker serializationStatsTracker = new SerializationStatsTracker();
 
+    private final int chunkSize;
+    private final TimeValue chunkTimeout;
+    private final Map<String, IncomingChunkedPublication> incomingChunkedPublications = ConcurrentCollections.newConcurrentMap();
+
     public PublicationTransportHandler(
+        Settings settings,
         TransportService transportService,
         NamedWriteableRegistry namedWriteableRegistry,
         Function<PublishRequest, PublishWithJoinResponse> handlePublishRequest,
@@ -93,6 +130,8 @@ public class PublicationTransportHandler {
         this.transportService = transportService;
         this.namedWriteableRegistry = namedWriteableRegistry;
         this.handlePublishRequest = handlePublishRequest;
+        this.chunkSize = Math.toIntExact(PUBLISH_CHUNK_SIZE_SETTING.get(settings).getBytes());
+        this.chunkTimeout = Coordinator.PUBLISH_TIMEOUT_SETTING.get(settings);
 
         transportService.registerRequestHandler(
             PUBLISH_STATE_ACTION_NAME,
@@ -103,6 +142,15 @@ public class PublicationTransportHandler {
             (request, channel, task) -> channel.sendResponse(handleIncomingPublishRequest(request))
         );
 
+        transportService.registerRequestHandler(
+            PUBLISH_STATE_CHUNK_ACTION_NAME,
+            ThreadPool.Names.SAME,
+            false,
+            false,
+            BytesTransportRequest::new,
+            (request, channel, task) -> handleIncomingPublishChunk(request, channel)
+        );
+
         transportService.registerRequestHandler(
             COMMIT_STATE_ACTION_NAME,
             ThreadPool.Names.GENERIC,
@@ -128,12 +176,18 @@ public class PublicationTransportHandler {
     private PublishWithJoinResponse handleIncomingPublishRequest(BytesTransportRequest request) throws IOException {
         final Compressor compressor = CompressorFactory.compressor(request.bytes());
         StreamInput in = request.bytes().streamInput();
+        if (compressor != null) {
+            in = new InputStreamStreamInput(compressor.threadLocalInputStream(in));
+        }
+        return handleIncomingPublishRequest(in, request.version(), () -> request.bytes().length());
+    }
+
+    private PublishWithJoinResponse handleIncomingPublishRequest(StreamInput input, Version version, LongSupplier serializedSize)
+        throws IOException {
+        StreamInput in = input;
         try {
-            if (compressor != null) {
-                in = new InputStreamStreamInput(compressor.threadLocalInputStream(in));
-            }
             in = new NamedWriteableAwareStreamInput(in, namedWriteableRegistry);
-            in.setVersion(request.version());
+            in.setVersion(version);
             // If true we received full cluster state - otherwise diffs
             if (in.readBoolean()) {
                 final ClusterState incomingState;
@@ -146,7 +200,11 @@ public class PublicationTransportHandler {
                     throw e;
                 }
                 fullClusterStateReceivedCount.incrementAndGet();
-                logger.debug("received full cluster state version [{}] with size [{}]", incomingState.version(), request.bytes().length());
+                logger.debug(
+                    "received full cluster state version [{}] with size [{}]",
+                    incomingState.version(),
+                    serializedSize.getAsLong()
+                );
                 final PublishWithJoinResponse response = acceptState(incomingState);
                 lastSeenClusterState.set(incomingState);
                 return response;
@@ -178,7 +236,7 @@ public class PublicationTransportHandler {
                         "received diff cluster state version [{}] with uuid [{}], diff size [{}]",
                         incomingState.version(),
                         incomingState.stateUUID(),
-                        request.bytes().length()
+                        serializedSize.getAsLong()
                     );
                     final PublishWithJoinResponse response = acceptState(incomingState);
                     lastSeenClusterState.compareAndSet(lastSeen, incomingState);
@@ -190,6 +248,39 @@ public class PublicationTransportHandler {
         }
     }
 
+    private void handleIncomingPublishChunk(BytesTransportRequest request, TransportChannel channel) throws IOException {
+        final BytesReference bytes = request.bytes();
+        final String publicationId;
+        final long offset;
+        final boolean lastChunk;
+        final int headerLength;
+        try (StreamInput header = bytes.streamInput()) {
+            publicationId = header.readString();
+            offset = header.readVLong();
+            lastChunk = header.readBoolean();
+            headerLength = bytes.length() - header.available();
+        }
+        final IncomingChunkedPublication publication = offset == 0
+            ? incomingChunkedPublications.computeIfAbsent(publicationId, id -> new IncomingChunkedPublication(id, request.version()))
+            : incomingChunkedPublications.get(publicationId);
+        if (publication == null) {
+            channel.sendResponse(
+                new ElasticsearchException("received chunk at offset [{}] of unknown publication [{}]", offset, publicationId)
+            );
+            return;
+        }
+        request.incRef();
+        publication.onChunk(
+            offset,
+            new PublicationChunk(
+                bytes.slice(headerLength, bytes.length() - headerLength),
+                lastChunk,
+                request,
+                new ChannelActionListener<>(channel, PUBLISH_STATE_CHUNK_ACTION_NAME, request)
+            )
+        );
+    }
+
     private PublishWithJoinResponse acceptState(ClusterState incomingState) {
         // if the state is coming from the current node, use original request instead (see currentPublishRequestToSelf for explanation)
         if (transportService.getLocalNode().equals(incomingState.nodes().getMasterNode())) {
@@ -238,7 +329,7 @@ public class PublicationTransportHandler {
             } catch (IOException e) {
                 throw new ElasticsearchException("failed to serialize cluster state for publishing to node {}", e, node);
             }
-            final ReleasableBytesReference result = new ReleasableBytesReference(bytesStream.bytes(), bytesStream);
+            final ReleasableBytesReference result = trackBufferedBytes(bytesStream);
             serializationStatsTracker.serializedFullState(uncompressedBytes, result.length());
             logger.trace(
                 "serialized full cluster state version [{}] for node version [{}] with size [{}]",
@@ -273,7 +364,7 @@ public class PublicationTransportHandler {
             } catch (IOException e) {
                 throw new ElasticsearchException("failed to serialize cluster state diff for publishing to node {}", e, node);
             }
-            final ReleasableBytesReference result = new ReleasableBytesReference(bytesStream.bytes(), bytesStream);
+            final ReleasableBytesReference result = trackBufferedBytes(bytesStream);
             serializationStatsTracker.serializedDiff(uncompressedBytes, result.length());
             logger.trace(
                 "serialized cluster state diff for version [{}] for node version [{}] with size [{}]",
@@ -290,6 +381,29 @@ public class PublicationTransportHandler {
         }
     }
 
+    /**
+     * Wraps the serialized bytes of a cluster state (or diff) so that they count towards the buffered bytes reported in the stats until
+     * they are released.
+     */
+    private ReleasableBytesReference trackBufferedBytes(RecyclerBytesStreamOutput bytesStream) {
+        final BytesReference bytes = bytesStream.bytes();
+        final int length = bytes.length();
+        serializationStatsTracker.bufferedBytes(length);
+        return new ReleasableBytesReference(bytes, () -> {
+            serializationStatsTracker.releasedBytes(length);
+            bytesStream.close();
+        });
+    }
+
+    private static BytesReference chunkHeader(String publicationId, long offset, boolean lastChunk) throws IOException {
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.writeString(publicationId);
+            out.writeVLong(offset);
+            out.writeBoolean(lastChunk);
+            return out.bytes();
+        }
+    }
+
     /**
      * Publishing a cluster state typically involves sending the same cluster state (or diff) to every node, so the work of diffing,
      * serializing, and compressing the state can be done once and the results shared across publish requests. The
@@ -452,21 +566,91 @@ public class PublicationTransportHandler {
                 return;
             }
             try {
+                if (bytes.length() > chunkSize
+                    && destination.getVersion().onOrAfter(CHUNKED_PUBLICATION_VERSION)
+                    && destination.equals(discoveryNodes.getLocalNode()) == false) {
+                    sendClusterStateChunk(
+                        destination,
+                        UUIDs.randomBase64UUID(),
+                        bytes,
+                        0,
+                        ActionListener.runAfter(listener, bytes::decRef)
+                    );
+                } else {
+                    transportService.sendRequest(
+                        destination,
+                        PUBLISH_STATE_ACTION_NAME,
+                        new BytesTransportRequest(bytes, destination.getVersion()),
+                        STATE_REQUEST_OPTIONS,
+                        new ActionListenerResponseHandler<PublishWithJoinResponse>(
+                            ActionListener.runAfter(listener, bytes::decRef),
+                            PublishWithJoinResponse::new,
+                            ThreadPool.Names.GENERIC
+                        )
+                    );
+                }
+            } catch (Exception e) {
+                assert false : e;
+                logger.warn(() -> new ParameterizedMessage("error sending cluster state to {}", destination), e);
+                listener.onFailure(e);
+            }
+        }
+
+        /**
+         * Sends the chunk of the serialized state that starts at the given offset, and the following ones once the destination has
+         * acknowledged it. The destination responds to the last chunk once it has applied the whole state. Sending the chunks one after
+         * the other lets the destination reject a chunk that does not follow on from the previous one.
+         */
+        private void sendClusterStateChunk(
+            DiscoveryNode destination,
+            String publicationId,
+            ReleasableBytesReference bytes,
+            int offset,
+            ActionListener<PublishWithJoinResponse> listener
+        ) {
+            final int length = Math.min(chunkSize, bytes.length() - offset);
+            final boolean lastChunk = offset + length == bytes.length();
+            final BytesReference header;
+            try {
+                header = chunkHeader(publicationId, offset, lastChunk);
+            } catch (IOException e) {
+                assert false : e;
+                listener.onFailure(e);
+                return;
+            }
+            final BytesTransportRequest request = new BytesTransportRequest(
+                new ReleasableBytesReference(CompositeBytesReference.of(header, bytes.slice(offset, length)), bytes),
+                destination.getVersion()
+            );
+            logger.trace(
+                "sending chunk of publication [{}] at offset [{}] with size [{}] to [{}]",
+                publicationId,
+                offset,
+                length,
+                destination
+            );
+            if (lastChunk) {
+                transportService.sendRequest(
+                    destination,
+                    PUBLISH_STATE_CHUNK_ACTION_NAME,
+                    request,
+                    STATE_REQUEST_OPTIONS,
+                    new ActionListenerResponseHandler<>(listener, PublishWithJoinResponse::new, ThreadPool.Names.GENERIC)
+                );
+            } else {
                 transportService.sendRequest(
                     destination,
-                    PUBLISH_STATE_ACTION_NAME,
-                    new BytesTransportRequest(bytes, destination.getVersion()),
+                    PUBLISH_STATE_CHUNK_ACTION_NAME,
+                    request,
                     STATE_REQUEST_OPTIONS,
-                    new ActionListenerResponseHandler<PublishWithJoinResponse>(
-                        ActionListener.runAfter(listener, bytes::decRef),
-                        PublishWithJoinResponse::new,
+                    new ActionListenerResponseHandler<TransportResponse.Empty>(
+                        listener.delegateFailure(
+                            (l, response) -> sendClusterStateChunk(destination, publicationId, bytes, offset + length, l)
+                        ),
+                        in -> TransportResponse.Empty.INSTANCE,
                         ThreadPool.Names.GENERIC
                     )
                 );
-            } catch (Exception e) {
-                assert false : e;
-                logger.warn(() -> new ParameterizedMessage("error sending cluster state to {}", destination), e);
-                listener.onFailure(e);
             }
         }
 
@@ -487,6 +671,9 @@ public class PublicationTransportHandler {
         private long totalUncompressedDiffBytes;
         private long totalCompressedDiffBytes;
 
+        private long currentBufferedBytes;
+        private long peakBufferedBytes;
+
         public synchronized void serializedFullState(long uncompressedBytes, int compressedBytes) {
             fullStateCount += 1;
             totalUncompressedFullStateBytes += uncompressedBytes;
@@ -499,6 +686,16 @@ public class PublicationTransportHandler {
             totalCompressedDiffBytes += compressedBytes;
         }
 
+        public synchronized void bufferedBytes(int bytes) {
+            currentBufferedBytes += bytes;
+            peakBufferedBytes = Math.max(peakBufferedBytes, currentBufferedBytes);
+        }
+
+        public synchronized void releasedBytes(int bytes) {
+            currentBufferedBytes -= bytes;
+            assert currentBufferedBytes >= 0 : currentBufferedBytes;
+        }
+
         public synchronized ClusterStateSerializationStats getSerializationStats() {
             return new ClusterStateSerializationStats(
                 fullStateCount,
@@ -506,9 +703,174 @@ public class PublicationTransportHandler {
                 totalCompressedFullStateBytes,
                 diffCount,
                 totalUncompressedDiffBytes,
-                totalCompressedDiffBytes
+                totalCompressedDiffBytes,
+                peakBufferedBytes
             );
         }
     }
 
+    private static class PublicationChunk {
+
+        private final BytesReference bytes;
+        private final boolean last;
+        private final RefCounted request;
+        private final ActionListener<TransportResponse> listener;
+
+        PublicationChunk(BytesReference bytes, boolean last, RefCounted request, ActionListener<TransportResponse> listener) {
+            this.bytes = bytes;
+            this.last = last;
+            this.request = request;
+            this.listener = listener;
+        }
+
+        void release() {
+            request.decRef();
+        }
+    }
+
+    /**
+     * Reassembles a cluster state (or diff) that the master sends in chunks. Each chunk but the last one is acknowledged as soon as it
+     * is received, which lets the master send the next one. Once the last chunk arrives, the state is decompressed and deserialized
+     * from all the chunks on the generic thread pool, and the response to the last chunk carries the outcome of the whole publication.
+     * A publication whose next chunk does not arrive within the publish timeout is dropped.
+     */
+    private class IncomingChunkedPublication {
+
+        private final String publicationId;
+        private final Version version;
+
+        // all fields below are guarded by this
+        private final List<PublicationChunk> chunks = new ArrayList<>();
+        private long receivedBytes;
+        private Exception failure;
+        private Scheduler.Cancellable timeoutTask;
+
+        IncomingChunkedPublication(String publicationId, Version version) {
+            this.publicationId = publicationId;
+            this.version = version;
+        }
+
+        void onChunk(long offset, PublicationChunk chunk) {
+            final List<PublicationChunk> toRelease;
+            final Exception failure;
+            synchronized (this) {
+                if (this.failure == null && isComplete()) {
+                    // the chunks are being read already, so just reject this one
+                    failure = new ElasticsearchException(
+                        "received chunk at offset [{}] of publication [{}] after its last chunk",
+                        offset,
+                        publicationId
+                    );
+                    toRelease = List.of();
+                } else if (this.failure == null && offset != receivedBytes) {
+                    // a gap, an overlap or an out-of-order chunk, so the state cannot be reassembled
+                    this.failure = new ElasticsearchException(
+                        "received chunk at offset [{}] of publication [{}] but expected offset [{}]",
+                        offset,
+                        publicationId,
+                        receivedBytes
+                    );
+                    cancelTimeout();
+                    toRelease = new ArrayList<>(chunks);
+                    chunks.clear();
+                    failure = this.failure;
+                } else {
+                    toRelease = List.of();
+                    failure = this.failure;
+                }
+                if (failure == null) {
+                    chunks.add(chunk);
+                    receivedBytes += chunk.bytes.length();
+                    cancelTimeout();
+                    if (chunk.last == false) {
+                        timeoutTask = transportService.getThreadPool().schedule(this::onTimeout, chunkTimeout, ThreadPool.Names.GENERIC);
+                    }
+                }
+            }
+            if (failure != null) {
+                // the master stops sending chunks once it receives this failure, so we can forget about this publication
+                incomingChunkedPublications.remove(publicationId, this);
+                toRelease.forEach(PublicationChunk::release);
+                chunk.release();
+                chunk.listener.onFailure(failure);
+            } else if (chunk.last) {
+                incomingChunkedPublications.remove(publicationId, this);
+                transportService.getThreadPool().generic().execute(new AbstractRunnable() {
+                    @Override
+                    protected void doRun() throws Exception {
+                        chunk.listener.onResponse(readState());
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        logger.debug(() -> new ParameterizedMessage("failed to receive chunked publication [{}]", publicationId), e);
+                        chunk.listener.onFailure(e);
+                    }
+
+                    @Override
+                    public void onAfter() {
+                        releaseChunks();
+                    }
+                });
+            } else {
+                chunk.listener.onResponse(TransportResponse.Empty.INSTANCE);
+            }
+        }
+
+        private boolean isComplete() {
+            assert Thread.holdsLock(this);
+            return chunks.isEmpty() == false && chunks.get(chunks.size() - 1).last;
+        }
+
+        private PublishWithJoinResponse readState() throws IOException {
+            final BytesReference bytes;
+            final long serializedSize;
+            synchronized (this) {
+                assert isComplete();
+                bytes = CompositeBytesReference.of(chunks.stream().map(c -> c.bytes).toArray(BytesReference[]::new));
+                serializedSize = receivedBytes;
+            }
+            final Compressor compressor = CompressorFactory.compressor(bytes);
+            StreamInput in = bytes.streamInput();
+            if (compressor != null) {
+                in = new InputStreamStreamInput(compressor.threadLocalInputStream(in));
+            }
+            return handleIncomingPublishRequest(in, version, () -> serializedSize);
+        }
+
+        private void onTimeout() {
+            synchronized (this) {
+                if (failure != null || chunks.isEmpty() || isComplete()) {
+                    return;
+                }
+                failure = new ElasticsearchException(
+                    "timed out after [{}] waiting for the chunk at offset [{}] of publication [{}]",
+                    chunkTimeout,
+                    receivedBytes,
+                    publicationId
+                );
+            }
+            logger.debug("dropping chunked publication [{}] whose next chunk did not arrive within [{}]", publicationId, chunkTimeout);
+            incomingChunkedPublications.remove(publicationId, this);
+            releaseChunks();
+        }
+
+        private void cancelTimeout() {
+            assert Thread.holdsLock(this);
+            if (timeoutTask != null) {
+                timeoutTask.cancel();
+                timeoutTask = null;
+            }
+        }
+
+        private void releaseChunks() {
+            final List<PublicationChunk> toRelease;
+            synchronized (this) {
+                toRelease = new ArrayList<>(chunks);
+                chunks.clear();
+            }
+            toRelease.forEach(PublicationChunk::release);
+        }
+    }
+
 }
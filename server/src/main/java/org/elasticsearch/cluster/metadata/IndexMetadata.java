@@ -1567,7 +1567,9 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
                 builder.startArray(KEY_MAPPINGS);
                 MappingMetadata mmd = indexMetadata.mapping();
                 if (mmd != null) {
-                    if (binary) {
+                    if (binary && params.paramAsBoolean(Metadata.DEDUPLICATED_MAPPINGS_PARAM, false)) {
+                        builder.value(mmd.getSha256());
+                    } else if (binary) {
                         builder.value(mmd.source().compressed());
                     } else {
                         builder.map(XContentHelper.convertToMap(mmd.source().uncompressed(), true).v2());
@@ -1644,6 +1646,16 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
         }
 
         public static IndexMetadata fromXContent(XContentParser parser) throws IOException {
+            return fromXContent(parser, null);
+        }
+
+        /**
+         * Parses index metadata, resolving mappings that were written with {@link Metadata#DEDUPLICATED_MAPPINGS_PARAM} by their hash.
+         *
+         * @param mappingsByHash the mappings that may be referred to by hash, or {@code null} if the mappings are all embedded
+         */
+        public static IndexMetadata fromXContent(XContentParser parser, @Nullable Map<String, MappingMetadata> mappingsByHash)
+            throws IOException {
             if (parser.currentToken() == null) { // fresh parser? move to the first token
                 parser.nextToken();
             }
@@ -1728,6 +1740,13 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
                         while ((token = parser.nextToken()) != XContentParser.Token.END_ARRAY) {
                             if (token == XContentParser.Token.VALUE_EMBEDDED_OBJECT) {
                                 builder.putMapping(new MappingMetadata(new CompressedXContent(parser.binaryValue())));
+                            } else if (token == XContentParser.Token.VALUE_STRING) {
+                                final String mappingHash = parser.text();
+                                final MappingMetadata mappingMetadata = mappingsByHash == null ? null : mappingsByHash.get(mappingHash);
+                                if (mappingMetadata == null) {
+                                    throw new IllegalArgumentException("mapping with hash [" + mappingHash + "] not found");
+                                }
+                                builder.putMapping(mappingMetadata);
                             } else {
                                 Map<String, Object> mapping = parser.mapOrdered();
                                 if (mapping.size() == 1) {
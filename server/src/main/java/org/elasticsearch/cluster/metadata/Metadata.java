@@ -177,6 +177,12 @@ public class Metadata implements Iterable<IndexMetadata>, Diffable<Metadata>, To
 
     public static final String CONTEXT_MODE_API = XContentContext.API.toString();
 
+    /**
+     * Parameter that makes the binary gateway format refer to index mappings by their sha256 hash rather than embedding them, for
+     * callers that store each distinct mapping separately.
+     */
+    public static final String DEDUPLICATED_MAPPINGS_PARAM = "deduplicated_mappings";
+
     public static final String GLOBAL_STATE_FILE_PREFIX = "global-";
 
     private static final NamedDiffableValueSerializer<Custom> CUSTOM_VALUE_SERIALIZER = new NamedDiffableValueSerializer<>(Custom.class);
@@ -929,7 +935,7 @@ public class Metadata implements Iterable<IndexMetadata>, Diffable<Metadata>, To
         return builder;
     }
 
-    Map<String, MappingMetadata> getMappingsByHash() {
+    public Map<String, MappingMetadata> getMappingsByHash() {
         return mappingsByHash;
     }
 
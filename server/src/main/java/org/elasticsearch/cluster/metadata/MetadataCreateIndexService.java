@@ -316,6 +316,11 @@ public class MetadataCreateIndexService {
                     return applyCreateIndexRequest(currentState, request, false);
                 }
 
+                @Override
+                public boolean allowsCoalescing() {
+                    return true;
+                }
+
                 @Override
                 public void onFailure(String source, Exception e) {
                     if (e instanceof ResourceAlreadyExistsException) {
@@ -88,6 +88,11 @@ public class MetadataMappingService {
             }
         }
 
+        @Override
+        public boolean allowsCoalescing() {
+            return true;
+        }
+
         private ClusterState applyRequest(
             ClusterState currentState,
             PutMappingClusterStateUpdateRequest request,
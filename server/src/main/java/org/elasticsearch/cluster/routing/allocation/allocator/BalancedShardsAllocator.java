@@ -12,6 +12,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.IntroSorter;
+import org.elasticsearch.cluster.ClusterInfo;
 import org.elasticsearch.cluster.metadata.IndexMetadata;
 import org.elasticsearch.cluster.metadata.Metadata;
 import org.elasticsearch.cluster.metadata.SingleNodeShutdownMetadata;
@@ -36,6 +37,7 @@ import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Tuple;
 import org.elasticsearch.gateway.PriorityComparator;
 
@@ -55,14 +57,23 @@ import static org.elasticsearch.cluster.routing.ShardRoutingState.RELOCATING;
 
 /**
  * The {@link BalancedShardsAllocator} re-balances the nodes allocations
- * within an cluster based on a {@link WeightFunction}. The clusters balance is defined by four parameters which can be set
+ * within an cluster based on a {@link WeightFunction}. The clusters balance is defined by seven parameters which can be set
  * in the cluster update API that allows changes in real-time:
  * <ul><li><code>cluster.routing.allocation.balance.shard</code> - The <b>shard balance</b> defines the weight factor
  * for shards allocated on a {@link RoutingNode}</li>
  * <li><code>cluster.routing.allocation.balance.index</code> - The <b>index balance</b> defines a factor to the number
  * of {@link org.elasticsearch.cluster.routing.ShardRouting}s per index allocated on a specific node</li>
+ * <li><code>cluster.routing.allocation.balance.write_load</code> - The <b>write load balance</b> defines a factor to the
+ * indexing load of the shards allocated on a specific node</li>
+ * <li><code>cluster.routing.allocation.balance.search_load</code> - The <b>search load balance</b> defines a factor to the
+ * search load of the shards allocated on a specific node</li>
+ * <li><code>cluster.routing.allocation.balance.disk_usage</code> - The <b>disk usage balance</b> defines a factor to the
+ * size of the shards allocated on a specific node</li>
  * <li><code>cluster.routing.allocation.balance.threshold</code> - A <b>threshold</b> to set the minimal optimization
  * value of operations that should be performed</li>
+ * <li><code>cluster.routing.allocation.balance.incremental</code> - Whether the balancer keeps the nodes ordered by weight
+ * while allocating unassigned shards, which makes a reroute of a large cluster consult the deciders for far fewer nodes
+ * without changing where the shards go</li>
  * </ul>
  * <p>
  * These parameters are combined in a {@link WeightFunction} that allows calculation of node weights which
@@ -86,6 +97,27 @@ public class BalancedShardsAllocator implements ShardsAllocator {
         Property.Dynamic,
         Property.NodeScope
     );
+    public static final Setting<Float> WRITE_LOAD_BALANCE_FACTOR_SETTING = Setting.floatSetting(
+        "cluster.routing.allocation.balance.write_load",
+        0.0f,
+        0.0f,
+        Property.Dynamic,
+        Property.NodeScope
+    );
+    public static final Setting<Float> SEARCH_LOAD_BALANCE_FACTOR_SETTING = Setting.floatSetting(
+        "cluster.routing.allocation.balance.search_load",
+        0.0f,
+        0.0f,
+        Property.Dynamic,
+        Property.NodeScope
+    );
+    public static final Setting<Float> DISK_USAGE_BALANCE_FACTOR_SETTING = Setting.floatSetting(
+        "cluster.routing.allocation.balance.disk_usage",
+        0.0f,
+        0.0f,
+        Property.Dynamic,
+        Property.NodeScope
+    );
     public static final Setting<Float> THRESHOLD_SETTING = Setting.floatSetting(
         "cluster.routing.allocation.balance.threshold",
         1.0f,
@@ -94,8 +126,16 @@ public class BalancedShardsAllocator implements ShardsAllocator {
         Property.NodeScope
     );
 
+    public static final Setting<Boolean> INCREMENTAL_BALANCE_SETTING = Setting.boolSetting(
+        "cluster.routing.allocation.balance.incremental",
+        false,
+        Property.Dynamic,
+        Property.NodeScope
+    );
+
     private volatile WeightFunction weightFunction;
     private volatile float threshold;
+    private volatile boolean incremental;
 
     public BalancedShardsAllocator(Settings settings) {
         this(settings, new ClusterSettings(settings, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS));
@@ -103,27 +143,53 @@ public class BalancedShardsAllocator implements ShardsAllocator {
 
     @Inject
     public BalancedShardsAllocator(Settings settings, ClusterSettings clusterSettings) {
-        setWeightFunction(INDEX_BALANCE_FACTOR_SETTING.get(settings), SHARD_BALANCE_FACTOR_SETTING.get(settings));
+        setWeightFunction(settings);
         setThreshold(THRESHOLD_SETTING.get(settings));
-        clusterSettings.addSettingsUpdateConsumer(INDEX_BALANCE_FACTOR_SETTING, SHARD_BALANCE_FACTOR_SETTING, this::setWeightFunction);
+        setIncremental(INCREMENTAL_BALANCE_SETTING.get(settings));
+        clusterSettings.addSettingsUpdateConsumer(
+            this::setWeightFunction,
+            List.of(
+                INDEX_BALANCE_FACTOR_SETTING,
+                SHARD_BALANCE_FACTOR_SETTING,
+                WRITE_LOAD_BALANCE_FACTOR_SETTING,
+                SEARCH_LOAD_BALANCE_FACTOR_SETTING,
+                DISK_USAGE_BALANCE_FACTOR_SETTING
+            ),
+            BalancedShardsAllocator::createWeightFunction
+        );
         clusterSettings.addSettingsUpdateConsumer(THRESHOLD_SETTING, this::setThreshold);
+        clusterSettings.addSettingsUpdateConsumer(INCREMENTAL_BALANCE_SETTING, this::setIncremental);
     }
 
-    private void setWeightFunction(float indexBalance, float shardBalanceFactor) {
-        weightFunction = new WeightFunction(indexBalance, shardBalanceFactor);
+    private void setWeightFunction(Settings settings) {
+        weightFunction = createWeightFunction(settings);
+    }
+
+    private static WeightFunction createWeightFunction(Settings settings) {
+        return new WeightFunction(
+            INDEX_BALANCE_FACTOR_SETTING.get(settings),
+            SHARD_BALANCE_FACTOR_SETTING.get(settings),
+            WRITE_LOAD_BALANCE_FACTOR_SETTING.get(settings),
+            SEARCH_LOAD_BALANCE_FACTOR_SETTING.get(settings),
+            DISK_USAGE_BALANCE_FACTOR_SETTING.get(settings)
+        );
     }
 
     private void setThreshold(float threshold) {
         this.threshold = threshold;
     }
 
+    private void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
     @Override
     public void allocate(RoutingAllocation allocation) {
         if (allocation.routingNodes().size() == 0) {
             failAllocationOfNewPrimaries(allocation);
             return;
         }
-        final Balancer balancer = new Balancer(logger, allocation, weightFunction, threshold);
+        final Balancer balancer = new Balancer(logger, allocation, weightFunction, threshold, incremental);
         balancer.allocateUnassigned();
         balancer.moveShards();
         balancer.balance();
@@ -131,7 +197,7 @@ public class BalancedShardsAllocator implements ShardsAllocator {
 
     @Override
     public ShardAllocationDecision decideShardAllocation(final ShardRouting shard, final RoutingAllocation allocation) {
-        Balancer balancer = new Balancer(logger, allocation, weightFunction, threshold);
+        Balancer balancer = new Balancer(logger, allocation, weightFunction, threshold, incremental);
         AllocateUnassignedDecision allocateUnassignedDecision = AllocateUnassignedDecision.NOT_TAKEN;
         MoveDecision moveDecision = MoveDecision.NOT_TAKEN;
         if (shard.unassigned()) {
@@ -195,12 +261,43 @@ public class BalancedShardsAllocator implements ShardsAllocator {
         return weightFunction.shardBalance;
     }
 
+    /**
+     * Returns the write load related weight factor.
+     */
+    public float getWriteLoadBalance() {
+        return weightFunction.writeLoadBalance;
+    }
+
+    /**
+     * Returns the search load related weight factor.
+     */
+    public float getSearchLoadBalance() {
+        return weightFunction.searchLoadBalance;
+    }
+
+    /**
+     * Returns the disk usage related weight factor.
+     */
+    public float getDiskUsageBalance() {
+        return weightFunction.diskUsageBalance;
+    }
+
+    /**
+     * Returns whether the incremental balancing mode is enabled.
+     */
+    public boolean isIncremental() {
+        return incremental;
+    }
+
     /**
      * This class is the primary weight function used to create balanced over nodes and shards in the cluster.
-     * Currently this function has 3 properties:
+     * Currently this function has 5 properties:
      * <ul>
      * <li><code>index balance</code> - balance property over shards per index</li>
      * <li><code>shard balance</code> - balance property over shards per cluster</li>
+     * <li><code>write load balance</code> - balance property over the indexing load per cluster</li>
+     * <li><code>search load balance</code> - balance property over the search load per cluster</li>
+     * <li><code>disk usage balance</code> - balance property over the shard sizes per cluster</li>
      * </ul>
      * <p>
      * Each of these properties are expressed as factor such that the properties factor defines the relative
@@ -216,31 +313,100 @@ public class BalancedShardsAllocator implements ShardsAllocator {
      * <li>
      * <code>weight<sub>node</sub>(node, index) = shardBalance * (node.numShards() - avgShardsPerNode)</code>
      * </li>
+     * <li>
+     * <code>weight<sub>resource</sub>(node) = resourceBalance * (node.usage() - avgUsagePerNode) / avgUsagePerShard</code>
+     * </li>
      * </ul>
-     * <code>weight(node, index) = weight<sub>index</sub>(node, index) + weight<sub>node</sub>(node, index)</code>
+     * <code>weight(node, index) = weight<sub>index</sub>(node, index) + weight<sub>node</sub>(node, index) +
+     * weight<sub>writeLoad</sub>(node) + weight<sub>searchLoad</sub>(node) + weight<sub>diskUsage</sub>(node)</code>
+     * <p>
+     * The usage of each resource is expressed in multiples of the usage of an average shard so that moving an average shard changes
+     * every term of the weight by about the same amount, which keeps the threshold meaningful whatever the factors are. The write
+     * load, search load and size of the shards come from the {@link ClusterInfo} and count as zero when they are unknown.
+     * </p>
      */
     private static class WeightFunction {
 
         private final float indexBalance;
         private final float shardBalance;
+        private final float writeLoadBalance;
+        private final float searchLoadBalance;
+        private final float diskUsageBalance;
         private final float theta0;
         private final float theta1;
+        private final float theta2;
+        private final float theta3;
+        private final float theta4;
 
         WeightFunction(float indexBalance, float shardBalance) {
-            float sum = indexBalance + shardBalance;
+            this(indexBalance, shardBalance, 0.0f, 0.0f, 0.0f);
+        }
+
+        WeightFunction(float indexBalance, float shardBalance, float writeLoadBalance, float searchLoadBalance, float diskUsageBalance) {
+            float sum = indexBalance + shardBalance + writeLoadBalance + searchLoadBalance + diskUsageBalance;
             if (sum <= 0.0f) {
                 throw new IllegalArgumentException("Balance factors must sum to a value > 0 but was: " + sum);
             }
             theta0 = shardBalance / sum;
             theta1 = indexBalance / sum;
+            theta2 = writeLoadBalance / sum;
+            theta3 = searchLoadBalance / sum;
+            theta4 = diskUsageBalance / sum;
             this.indexBalance = indexBalance;
             this.shardBalance = shardBalance;
+            this.writeLoadBalance = writeLoadBalance;
+            this.searchLoadBalance = searchLoadBalance;
+            this.diskUsageBalance = diskUsageBalance;
+        }
+
+        /**
+         * Whether the weights depend on the write load, search load or size of the shards.
+         */
+        boolean usesShardResources() {
+            return theta2 > 0.0f || theta3 > 0.0f || theta4 > 0.0f;
         }
 
         float weight(Balancer balancer, ModelNode node, String index) {
             final float weightShard = node.numShards() - balancer.avgShardsPerNode();
             final float weightIndex = node.numShards(index) - balancer.avgShardsPerNode(index);
-            return theta0 * weightShard + theta1 * weightIndex;
+            float weight = theta0 * weightShard + theta1 * weightIndex;
+            if (theta2 > 0.0f) {
+                weight += theta2 * resourceWeight(node.writeLoad(), balancer.avgWriteLoadPerNode, balancer.avgWriteLoadPerShard);
+            }
+            if (theta3 > 0.0f) {
+                weight += theta3 * resourceWeight(node.searchLoad(), balancer.avgSearchLoadPerNode, balancer.avgSearchLoadPerShard);
+            }
+            if (theta4 > 0.0f) {
+                weight += theta4 * resourceWeight(node.diskUsageInBytes(), balancer.avgDiskUsagePerNode, balancer.avgDiskUsagePerShard);
+            }
+            return weight;
+        }
+
+        /**
+         * Returns by how much moving the given shard changes the weights of the node it leaves and of the node it joins, with respect
+         * to the shard's index. This is 1 unless the weights depend on the resources the shards use, in which case the shards that use
+         * more resources than average weigh more.
+         */
+        float shardWeight(Balancer balancer, ShardRouting shard) {
+            if (usesShardResources() == false) {
+                return 1.0f;
+            }
+            final ClusterInfo clusterInfo = balancer.allocation.clusterInfo();
+            float weight = theta0 + theta1;
+            if (theta2 > 0.0f) {
+                weight += theta2 * resourceWeight(ModelNode.shardWriteLoad(clusterInfo, shard), 0.0, balancer.avgWriteLoadPerShard);
+            }
+            if (theta3 > 0.0f) {
+                weight += theta3 * resourceWeight(ModelNode.shardSearchLoad(clusterInfo, shard), 0.0, balancer.avgSearchLoadPerShard);
+            }
+            if (theta4 > 0.0f) {
+                weight += theta4 * resourceWeight(ModelNode.shardDiskUsage(clusterInfo, shard), 0.0, balancer.avgDiskUsagePerShard);
+            }
+            return weight;
+        }
+
+        private static float resourceWeight(double usage, double avgUsagePerNode, double avgUsagePerShard) {
+            return avgUsagePerShard > 0.0 ? (float) ((usage - avgUsagePerNode) / avgUsagePerShard) : 0.0f;
         }
     }
 
@@ -255,20 +421,70 @@ public class BalancedShardsAllocator implements ShardsAllocator {
         private final WeightFunction weight;
 
         private final float threshold;
+        private final boolean incremental;
         private final Metadata metadata;
         private final float avgShardsPerNode;
         private final NodeSorter sorter;
 
+        // the average usage of each resource per node and per shard copy, only computed if the weight function depends on them
+        private double avgWriteLoadPerNode;
+        private double avgWriteLoadPerShard;
+        private double avgSearchLoadPerNode;
+        private double avgSearchLoadPerShard;
+        private double avgDiskUsagePerNode;
+        private double avgDiskUsagePerShard;
+
         public Balancer(Logger logger, RoutingAllocation allocation, WeightFunction weight, float threshold) {
+            this(logger, allocation, weight, threshold, false);
+        }
+
+        public Balancer(Logger logger, RoutingAllocation allocation, WeightFunction weight, float threshold, boolean incremental) {
             this.logger = logger;
             this.allocation = allocation;
             this.weight = weight;
             this.threshold = threshold;
+            this.incremental = incremental;
             this.routingNodes = allocation.routingNodes();
             this.metadata = allocation.metadata();
             avgShardsPerNode = ((float) metadata.getTotalNumberOfShards()) / routingNodes.size();
-            nodes = Collections.unmodifiableMap(buildModelFromAssigned());
+            final ClusterInfo clusterInfo = weight.usesShardResources() ? allocation.clusterInfo() : null;
+            nodes = Collections.unmodifiableMap(buildModelFromAssigned(clusterInfo));
             sorter = newNodeSorter();
+            if (clusterInfo != null) {
+                computeAverageResourceUsage(clusterInfo);
+            }
+        }
+
+        /**
+         * Computes the average write load, search load and disk usage per node and per shard copy, taking the unassigned shards into
+         * account just like {@link #avgShardsPerNode()} does.
+         */
+        private void computeAverageResourceUsage(ClusterInfo clusterInfo) {
+            double totalWriteLoad = 0.0;
+            double totalSearchLoad = 0.0;
+            double totalDiskUsage = 0.0;
+            for (ModelNode node : nodes.values()) {
+                totalWriteLoad += node.writeLoad();
+                totalSearchLoad += node.searchLoad();
+                totalDiskUsage += node.diskUsageInBytes();
+            }
+            for (ShardRouting shard : routingNodes.unassigned()) {
+                totalWriteLoad += ModelNode.shardWriteLoad(clusterInfo, shard);
+                totalSearchLoad += ModelNode.shardSearchLoad(clusterInfo, shard);
+                totalDiskUsage += ModelNode.shardDiskUsage(clusterInfo, shard);
+            }
+            for (ShardRouting shard : routingNodes.unassigned().ignored()) {
+                totalWriteLoad += ModelNode.shardWriteLoad(clusterInfo, shard);
+                totalSearchLoad += ModelNode.shardSearchLoad(clusterInfo, shard);
+                totalDiskUsage += ModelNode.shardDiskUsage(clusterInfo, shard);
+            }
+            final int totalShards = Math.max(1, metadata.getTotalNumberOfShards());
+            avgWriteLoadPerNode = totalWriteLoad / nodes.size();
+            avgWriteLoadPerShard = totalWriteLoad / totalShards;
+            avgSearchLoadPerNode = totalSearchLoad / nodes.size();
+            avgSearchLoadPerShard = totalSearchLoad / totalShards;
+            avgDiskUsagePerNode = totalDiskUsage / nodes.size();
+            avgDiskUsagePerShard = totalDiskUsage / totalShards;
         }
 
         /**
@@ -380,6 +596,7 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             // balance the shard, if a better node can be found
             final String idxName = shard.getIndexName();
             final float currentWeight = weight.weight(this, currentNode, idxName);
+            final float shardWeight = weight.shardWeight(this, shard);
             final AllocationDeciders deciders = allocation.deciders();
             Type rebalanceDecisionType = Type.NO;
             ModelNode assignedNode = null;
@@ -411,7 +628,7 @@ public class BalancedShardsAllocator implements ShardsAllocator {
                     boolean deltaAboveThreshold = lessThan(currentDelta, threshold) == false;
                     // calculate the delta of the weights of the two nodes if we were to add the shard to the
                     // node in question and move it away from the node that currently holds it.
-                    boolean betterWeightWithShardAdded = nodeWeight + 1.0f < currentWeight;
+                    boolean betterWeightWithShardAdded = nodeWeight + shardWeight < currentWeight;
                     rebalanceConditionsMet = deltaAboveThreshold && betterWeightWithShardAdded;
                     // if the simulated weight delta with the shard moved away is better than the weight delta
                     // with the shard remaining on the current node, and we are allowed to allocate to the
@@ -800,10 +1017,10 @@ public class BalancedShardsAllocator implements ShardsAllocator {
          * on the target node which we respect during the allocation / balancing
          * process. In short, this method recreates the status-quo in the cluster.
          */
-        private Map<String, ModelNode> buildModelFromAssigned() {
+        private Map<String, ModelNode> buildModelFromAssigned(@Nullable ClusterInfo clusterInfo) {
             Map<String, ModelNode> nodes = new HashMap<>();
             for (RoutingNode rn : routingNodes) {
-                ModelNode node = new ModelNode(rn);
+                ModelNode node = new ModelNode(rn, clusterInfo);
                 nodes.put(rn.nodeId(), node);
                 for (ShardRouting shard : rn) {
                     assert rn.nodeId().equals(shard.currentNodeId());
@@ -862,6 +1079,9 @@ public class BalancedShardsAllocator implements ShardsAllocator {
              * if we allocate for instance (0, R, IDX1) we move the second replica to the secondary array and proceed with
              * the next replica. If we could not find a node to allocate (0,R,IDX1) we move all it's replicas to ignoreUnassigned.
              */
+            // in incremental mode the nodes are kept ordered by their weight for the index of the shard being allocated, and only the
+            // node that receives a shard is reweighed, so that consecutive shards of the same index don't reweigh every node
+            final NodeSorter nodesByWeight = incremental && allocation.debugDecision() == false ? newNodeSorter() : null;
             ShardRouting[] primary = unassigned.drain();
             ShardRouting[] secondary = new ShardRouting[primary.length];
             int secondaryLength = 0;
@@ -870,7 +1090,9 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             do {
                 for (int i = 0; i < primaryLength; i++) {
                     ShardRouting shard = primary[i];
-                    final AllocateUnassignedDecision allocationDecision = decideAllocateUnassigned(shard);
+                    final AllocateUnassignedDecision allocationDecision = nodesByWeight == null
+                        ? decideAllocateUnassigned(shard)
+                        : decideAllocateUnassignedInWeightOrder(shard, nodesByWeight);
                     final String assignedNodeId = allocationDecision.getTargetNode() != null
                         ? allocationDecision.getTargetNode().getId()
                         : null;
@@ -891,6 +1113,9 @@ public class BalancedShardsAllocator implements ShardsAllocator {
                         );
                         shard = routingNodes.initializeShard(shard, minNode.getNodeId(), null, shardSize, allocation.changes());
                         minNode.addShard(shard);
+                        if (nodesByWeight != null) {
+                            nodesByWeight.update(minNode);
+                        }
                         if (shard.primary() == false) {
                             // copy over the same replica shards to the secondary array so they will get allocated
                             // in a subsequent iteration, allowing replicas of other shards to be allocated first
@@ -920,6 +1145,9 @@ public class BalancedShardsAllocator implements ShardsAllocator {
                                 allocation.routingTable()
                             );
                             minNode.addShard(shard.initialize(minNode.getNodeId(), null, shardSize));
+                            if (nodesByWeight != null) {
+                                nodesByWeight.update(minNode);
+                            }
                         } else {
                             if (logger.isTraceEnabled()) {
                                 logger.trace("No Node found to assign shard [{}]", shard);
@@ -992,26 +1220,7 @@ public class BalancedShardsAllocator implements ShardsAllocator {
                 if (currentDecision.type() == Type.YES || currentDecision.type() == Type.THROTTLE) {
                     final boolean updateMinNode;
                     if (currentWeight == minWeight) {
-                        /*  we have an equal weight tie breaking:
-                         *  1. if one decision is YES prefer it
-                         *  2. prefer the node that holds the primary for this index with the next id in the ring ie.
-                         *  for the 3 shards 2 replica case we try to build up:
-                         *    1 2 0
-                         *    2 0 1
-                         *    0 1 2
-                         *  such that if we need to tie-break we try to prefer the node holding a shard with the minimal id greater
-                         *  than the id of the shard we need to assign. This works find when new indices are created since
-                         *  primaries are added first and we only add one shard set a time in this algorithm.
-                         */
-                        if (currentDecision.type() == decision.type()) {
-                            final int repId = shard.id();
-                            final int nodeHigh = node.highestPrimary(shard.index().getName());
-                            final int minNodeHigh = minNode.highestPrimary(shard.getIndexName());
-                            updateMinNode = ((((nodeHigh > repId && minNodeHigh > repId) || (nodeHigh < repId && minNodeHigh < repId))
-                                && (nodeHigh < minNodeHigh)) || (nodeHigh > repId && minNodeHigh < repId));
-                        } else {
-                            updateMinNode = currentDecision.type() == Type.YES;
-                        }
+                        updateMinNode = preferOnEqualWeight(shard, node, currentDecision, minNode, decision);
                     } else {
                         updateMinNode = currentWeight < minWeight;
                     }
@@ -1040,6 +1249,102 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             return AllocateUnassignedDecision.fromDecision(decision, minNode != null ? minNode.routingNode.node() : null, nodeDecisions);
         }
 
+        /**
+         * Make a decision for allocating an unassigned shard like {@link #decideAllocateUnassigned(ShardRouting)}, but visiting the nodes
+         * in ascending order of their weight for the shard's index so that the deciders are only consulted until a node is found to
+         * which the shard can be allocated and all remaining nodes are heavier. Does not support explaining the decision.
+         */
+        private AllocateUnassignedDecision decideAllocateUnassignedInWeightOrder(final ShardRouting shard, final NodeSorter nodesByWeight) {
+            assert allocation.debugDecision() == false : "explaining the decision needs the weights of all nodes";
+            if (shard.assignedToNode()) {
+                // we only make decisions for unassigned shards here
+                return AllocateUnassignedDecision.NOT_TAKEN;
+            }
+
+            Decision shardLevelDecision = allocation.deciders().canAllocate(shard, allocation);
+            if (shardLevelDecision.type() == Type.NO) {
+                // NO decision for allocating the shard, irrespective of any particular node, so exit early
+                return AllocateUnassignedDecision.no(AllocationStatus.DECIDERS_NO, null);
+            }
+
+            if (shard.getIndexName().equals(nodesByWeight.index) == false) {
+                nodesByWeight.reset(shard.getIndexName());
+            }
+
+            float minWeight = Float.POSITIVE_INFINITY;
+            ModelNode minNode = null;
+            int minOrdinal = -1;
+            Decision decision = null;
+            for (int i = 0; i < nodesByWeight.modelNodes.length; i++) {
+                final float currentWeight = nodesByWeight.weights[i];
+                if (currentWeight > minWeight) {
+                    // this node and all the ones after it are heavier than a node we can already allocate to
+                    break;
+                }
+                final ModelNode node = nodesByWeight.modelNodes[i];
+                if (node.containsShard(shard)) {
+                    continue;
+                }
+
+                Decision currentDecision = allocation.deciders().canAllocate(shard, node.getRoutingNode(), allocation);
+                if (currentDecision.type() == Type.YES || currentDecision.type() == Type.THROTTLE) {
+                    final boolean updateMinNode;
+                    if (currentWeight == minWeight) {
+                        // the nodes of equal weight are not in any particular order here, so if neither node is preferred over the
+                        // other then pick the one that comes first in the order in which decideAllocateUnassigned visits them
+                        updateMinNode = preferOnEqualWeight(shard, node, currentDecision, minNode, decision)
+                            || (preferOnEqualWeight(shard, minNode, decision, node, currentDecision) == false
+                                && nodesByWeight.ordinals[i] < minOrdinal);
+                    } else {
+                        updateMinNode = true;
+                    }
+                    if (updateMinNode) {
+                        minNode = node;
+                        minOrdinal = nodesByWeight.ordinals[i];
+                        minWeight = currentWeight;
+                        decision = currentDecision;
+                    }
+                }
+            }
+            if (decision == null) {
+                // decision was not set and a node was not assigned, so treat it as a NO decision
+                decision = Decision.NO;
+            }
+            return AllocateUnassignedDecision.fromDecision(decision, minNode != null ? minNode.routingNode.node() : null, null);
+        }
+
+        /**
+         * Whether to allocate the shard to the given node rather than to the current candidate node of the same weight.
+         */
+        private static boolean preferOnEqualWeight(
+            ShardRouting shard,
+            ModelNode node,
+            Decision nodeDecision,
+            ModelNode minNode,
+            Decision minNodeDecision
+        ) {
+            /*  we have an equal weight tie breaking:
+             *  1. if one decision is YES prefer it
+             *  2. prefer the node that holds the primary for this index with the next id in the ring ie.
+             *  for the 3 shards 2 replica case we try to build up:
+             *    1 2 0
+             *    2 0 1
+             *    0 1 2
+             *  such that if we need to tie-break we try to prefer the node holding a shard with the minimal id greater
+             *  than the id of the shard we need to assign. This works find when new indices are created since
+             *  primaries are added first and we only add one shard set a time in this algorithm.
+             */
+            if (nodeDecision.type() == minNodeDecision.type()) {
+                final int repId = shard.id();
+                final int nodeHigh = node.highestPrimary(shard.index().getName());
+                final int minNodeHigh = minNode.highestPrimary(shard.getIndexName());
+                return ((((nodeHigh > repId && minNodeHigh > repId) || (nodeHigh < repId && minNodeHigh < repId))
+                    && (nodeHigh < minNodeHigh)) || (nodeHigh > repId && minNodeHigh < repId));
+            } else {
+                return nodeDecision.type() == Type.YES;
+            }
+        }
+
         private static final Comparator<ShardRouting> BY_DESCENDING_SHARD_ID = Comparator.comparing(ShardRouting::shardId).reversed();
 
         /**
@@ -1057,8 +1362,20 @@ public class BalancedShardsAllocator implements ShardsAllocator {
                     .sorted(BY_DESCENDING_SHARD_ID) // check in descending order of shard id so that the decision is deterministic
                 ::iterator;
 
+                // if the weights depend on the resources the shards use then moving a shard might not bring the weights closer, either
+                // because it uses no resources or because it uses so many that the nodes would only swap their imbalance
+                final float delta = weight.usesShardResources()
+                    ? Math.abs(weight.weight(this, maxNode, idx) - weight.weight(this, minNode, idx))
+                    : Float.POSITIVE_INFINITY;
+
                 final AllocationDeciders deciders = allocation.deciders();
                 for (ShardRouting shard : shardRoutings) {
+                    if (delta != Float.POSITIVE_INFINITY) {
+                        final float shardWeight = weight.shardWeight(this, shard);
+                        if (shardWeight <= 0.0f || shardWeight >= delta) {
+                            continue;
+                        }
+                    }
                     final Decision rebalanceDecision = deciders.canRebalance(shard, allocation);
                     if (rebalanceDecision.type() == Type.NO) {
                         continue;
@@ -1097,9 +1414,15 @@ public class BalancedShardsAllocator implements ShardsAllocator {
         private final Map<String, ModelIndex> indices = new HashMap<>();
         private int numShards = 0;
         private final RoutingNode routingNode;
+        @Nullable // if the weight function does not depend on the resources the shards use
+        private final ClusterInfo clusterInfo;
+        private double writeLoad = 0.0;
+        private double searchLoad = 0.0;
+        private double diskUsageInBytes = 0.0;
 
-        ModelNode(RoutingNode routingNode) {
+        ModelNode(RoutingNode routingNode, @Nullable ClusterInfo clusterInfo) {
             this.routingNode = routingNode;
+            this.clusterInfo = clusterInfo;
         }
 
         public ModelIndex getIndex(String indexId) {
@@ -1123,6 +1446,18 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             return index == null ? 0 : index.numShards();
         }
 
+        public double writeLoad() {
+            return writeLoad;
+        }
+
+        public double searchLoad() {
+            return searchLoad;
+        }
+
+        public double diskUsageInBytes() {
+            return diskUsageInBytes;
+        }
+
         public int highestPrimary(String index) {
             ModelIndex idx = indices.get(index);
             if (idx != null) {
@@ -1139,6 +1474,11 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             }
             index.addShard(shard);
             numShards++;
+            if (clusterInfo != null) {
+                writeLoad += shardWriteLoad(clusterInfo, shard);
+                searchLoad += shardSearchLoad(clusterInfo, shard);
+                diskUsageInBytes += shardDiskUsage(clusterInfo, shard);
+            }
         }
 
         public void removeShard(ShardRouting shard) {
@@ -1150,6 +1490,23 @@ public class BalancedShardsAllocator implements ShardsAllocator {
                 }
             }
             numShards--;
+            if (clusterInfo != null) {
+                writeLoad -= shardWriteLoad(clusterInfo, shard);
+                searchLoad -= shardSearchLoad(clusterInfo, shard);
+                diskUsageInBytes -= shardDiskUsage(clusterInfo, shard);
+            }
+        }
+
+        static double shardWriteLoad(ClusterInfo clusterInfo, ShardRouting shard) {
+            return clusterInfo.getShardWriteLoad(shard.shardId(), 0.0);
+        }
+
+        static double shardSearchLoad(ClusterInfo clusterInfo, ShardRouting shard) {
+            return clusterInfo.getShardSearchLoad(shard.shardId(), 0.0);
+        }
+
+        static double shardDiskUsage(ClusterInfo clusterInfo, ShardRouting shard) {
+            return clusterInfo.getShardSize(shard, 0L);
         }
 
         @Override
@@ -1228,6 +1585,8 @@ public class BalancedShardsAllocator implements ShardsAllocator {
         final ModelNode[] modelNodes;
         /* the nodes weights with respect to the current weight function / index */
         final float[] weights;
+        /* the position of each node in the array that the sorter was created with */
+        final int[] ordinals;
         private final WeightFunction function;
         private String index;
         private final Balancer balancer;
@@ -1238,6 +1597,10 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             this.balancer = balancer;
             this.modelNodes = modelNodes;
             weights = new float[modelNodes.length];
+            ordinals = new int[modelNodes.length];
+            for (int i = 0; i < ordinals.length; i++) {
+                ordinals[i] = i;
+            }
         }
 
         /**
@@ -1256,6 +1619,27 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             reset(index, 0, modelNodes.length);
         }
 
+        /**
+         * Recomputes the weight of the given node, whose shards have changed since the last {@link #reset(String)}, and moves it to
+         * its place in the order without sorting the other nodes again.
+         */
+        public void update(ModelNode node) {
+            assert index != null : "sorter has not been reset";
+            int i = 0;
+            while (modelNodes[i] != node) {
+                i++;
+            }
+            weights[i] = weight(node);
+            while (i > 0 && weights[i - 1] > weights[i]) {
+                swap(i - 1, i);
+                i--;
+            }
+            while (i < modelNodes.length - 1 && weights[i + 1] < weights[i]) {
+                swap(i, i + 1);
+                i++;
+            }
+        }
+
         public float weight(ModelNode node) {
             return function.weight(balancer, node, index);
         }
@@ -1268,6 +1652,9 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             final float tmpWeight = weights[i];
             weights[i] = weights[j];
             weights[j] = tmpWeight;
+            final int tmpOrdinal = ordinals[i];
+            ordinals[i] = ordinals[j];
+            ordinals[j] = tmpOrdinal;
         }
 
         @Override
@@ -0,0 +1,166 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.cluster.service;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.xcontent.ToXContentObject;
+import org.elasticsearch.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Statistics about the batches of cluster state update tasks that the elected master computed for one kind of
+ * {@link org.elasticsearch.cluster.ClusterStateTaskExecutor}.
+ */
+public class ClusterStateTaskExecutorStats implements Writeable, ToXContentObject {
+
+    /**
+     * Batch sizes are counted in buckets bounded by consecutive powers of two, i.e. {@code 1}, {@code 2-3}, {@code 4-7} etc., and the last
+     * bucket counts every batch of at least {@code 1024} tasks.
+     */
+    public static final int BATCH_SIZE_BUCKETS = 11;
+
+    private final long batchCount;
+    private final long coalescedBatchCount;
+    private final long taskCount;
+    private final long queueElapsedMillis;
+    private final long computationElapsedMillis;
+    private final long[] batchSizeHistogram;
+
+    public ClusterStateTaskExecutorStats(
+        long batchCount,
+        long coalescedBatchCount,
+        long taskCount,
+        long queueElapsedMillis,
+        long computationElapsedMillis,
+        long[] batchSizeHistogram
+    ) {
+        assert batchSizeHistogram.length == BATCH_SIZE_BUCKETS : batchSizeHistogram.length;
+        this.batchCount = batchCount;
+        this.coalescedBatchCount = coalescedBatchCount;
+        this.taskCount = taskCount;
+        this.queueElapsedMillis = queueElapsedMillis;
+        this.computationElapsedMillis = computationElapsedMillis;
+        this.batchSizeHistogram = batchSizeHistogram;
+    }
+
+    public ClusterStateTaskExecutorStats(StreamInput in) throws IOException {
+        this.batchCount = in.readVLong();
+        this.coalescedBatchCount = in.readVLong();
+        this.taskCount = in.readVLong();
+        this.queueElapsedMillis = in.readVLong();
+        this.computationElapsedMillis = in.readVLong();
+        this.batchSizeHistogram = in.readVLongArray();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVLong(batchCount);
+        out.writeVLong(coalescedBatchCount);
+        out.writeVLong(taskCount);
+        out.writeVLong(queueElapsedMillis);
+        out.writeVLong(computationElapsedMillis);
+        out.writeVLongArray(batchSizeHistogram);
+    }
+
+    /**
+     * @return the index of the bucket of the batch size histogram that counts batches of the given size
+     */
+    public static int batchSizeBucket(int batchSize) {
+        assert batchSize > 0 : batchSize;
+        return Math.min(BATCH_SIZE_BUCKETS - 1, 31 - Integer.numberOfLeadingZeros(batchSize));
+    }
+
+    private static String batchSizeBucketName(int bucket) {
+        if (bucket == 0) {
+            return "1";
+        } else if (bucket == BATCH_SIZE_BUCKETS - 1) {
+            return (1 << bucket) + "+";
+        } else {
+            return (1 << bucket) + "-" + ((1 << (bucket + 1)) - 1);
+        }
+    }
+
+    /**
+     * @return the number of batches that were computed, including those that were coalesced with batches of other executors
+     */
+    public long getBatchCount() {
+        return batchCount;
+    }
+
+    /**
+     * @return the number of batches that were computed in the same cluster state update as a batch of another executor
+     */
+    public long getCoalescedBatchCount() {
+        return coalescedBatchCount;
+    }
+
+    public long getTaskCount() {
+        return taskCount;
+    }
+
+    /**
+     * @return the total time that the tasks spent in the pending task queue before their batch was computed
+     */
+    public long getQueueElapsedMillis() {
+        return queueElapsedMillis;
+    }
+
+    public long getComputationElapsedMillis() {
+        return computationElapsedMillis;
+    }
+
+    public long[] getBatchSizeHistogram() {
+        return batchSizeHistogram;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject();
+        builder.field("batch_count", batchCount);
+        builder.field("coalesced_batch_count", coalescedBatchCount);
+        builder.field("task_count", taskCount);
+        builder.humanReadableField("queue_time_millis", "queue_time", TimeValue.timeValueMillis(queueElapsedMillis));
+        builder.humanReadableField("computation_time_millis", "computation_time", TimeValue.timeValueMillis(computationElapsedMillis));
+        builder.startObject("batch_sizes");
+        for (int bucket = 0; bucket < batchSizeHistogram.length; bucket++) {
+            if (batchSizeHistogram[bucket] > 0) {
+                builder.field(batchSizeBucketName(bucket), batchSizeHistogram[bucket]);
+            }
+        }
+        builder.endObject();
+        builder.endObject();
+        return builder;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ClusterStateTaskExecutorStats that = (ClusterStateTaskExecutorStats) o;
+        return batchCount == that.batchCount
+            && coalescedBatchCount == that.coalescedBatchCount
+            && taskCount == that.taskCount
+            && queueElapsedMillis == that.queueElapsedMillis
+            && computationElapsedMillis == that.computationElapsedMillis
+            && Arrays.equals(batchSizeHistogram, that.batchSizeHistogram);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Objects.hash(batchCount, coalescedBatchCount, taskCount, queueElapsedMillis, computationElapsedMillis);
+        result = 31 * result + Arrays.hashCode(batchSizeHistogram);
+        return result;
+    }
+}
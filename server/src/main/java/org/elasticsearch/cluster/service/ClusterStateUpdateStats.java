@@ -17,13 +17,17 @@ import org.elasticsearch.xcontent.ToXContentFragment;
 import org.elasticsearch.xcontent.XContentBuilder;
 
 import java.io.IOException;
+import java.util.Map;
 import java.util.Objects;
+import java.util.TreeMap;
 
 /**
  * Various statistics (timing information etc) about cluster state updates coordinated by this node.
  */
 public class ClusterStateUpdateStats implements Writeable, ToXContentFragment {
 
+    static final Version EXECUTOR_STATS_VERSION = Version.V_8_1_0;
+
     private final long unchangedTaskCount;
     private final long publicationSuccessCount;
     private final long publicationFailureCount;
@@ -46,6 +50,8 @@ public class ClusterStateUpdateStats implements Writeable, ToXContentFragment {
     private final long failedMasterApplyElapsedMillis;
     private final long failedNotificationElapsedMillis;
 
+    private final Map<String, ClusterStateTaskExecutorStats> executorStats;
+
     public ClusterStateUpdateStats(
         long unchangedTaskCount,
         long publicationSuccessCount,
@@ -66,6 +72,52 @@ public class ClusterStateUpdateStats implements Writeable, ToXContentFragment {
         long failedCompletionElapsedMillis,
         long failedMasterApplyElapsedMillis,
         long failedNotificationElapsedMillis
+    ) {
+        this(
+            unchangedTaskCount,
+            publicationSuccessCount,
+            publicationFailureCount,
+            unchangedComputationElapsedMillis,
+            unchangedNotificationElapsedMillis,
+            successfulComputationElapsedMillis,
+            successfulPublicationElapsedMillis,
+            successfulContextConstructionElapsedMillis,
+            successfulCommitElapsedMillis,
+            successfulCompletionElapsedMillis,
+            successfulMasterApplyElapsedMillis,
+            successfulNotificationElapsedMillis,
+            failedComputationElapsedMillis,
+            failedPublicationElapsedMillis,
+            failedContextConstructionElapsedMillis,
+            failedCommitElapsedMillis,
+            failedCompletionElapsedMillis,
+            failedMasterApplyElapsedMillis,
+            failedNotificationElapsedMillis,
+            Map.of()
+        );
+    }
+
+    public ClusterStateUpdateStats(
+        long unchangedTaskCount,
+        long publicationSuccessCount,
+        long publicationFailureCount,
+        long unchangedComputationElapsedMillis,
+        long unchangedNotificationElapsedMillis,
+        long successfulComputationElapsedMillis,
+        long successfulPublicationElapsedMillis,
+        long successfulContextConstructionElapsedMillis,
+        long successfulCommitElapsedMillis,
+        long successfulCompletionElapsedMillis,
+        long successfulMasterApplyElapsedMillis,
+        long successfulNotificationElapsedMillis,
+        long failedComputationElapsedMillis,
+        long failedPublicationElapsedMillis,
+        long failedContextConstructionElapsedMillis,
+        long failedCommitElapsedMillis,
+        long failedCompletionElapsedMillis,
+        long failedMasterApplyElapsedMillis,
+        long failedNotificationElapsedMillis,
+        Map<String, ClusterStateTaskExecutorStats> executorStats
     ) {
         this.unchangedTaskCount = nonNegative(unchangedTaskCount);
         this.publicationSuccessCount = nonNegative(publicationSuccessCount);
@@ -86,6 +138,7 @@ public class ClusterStateUpdateStats implements Writeable, ToXContentFragment {
         this.failedCompletionElapsedMillis = nonNegative(failedCompletionElapsedMillis);
         this.failedMasterApplyElapsedMillis = nonNegative(failedMasterApplyElapsedMillis);
         this.failedNotificationElapsedMillis = nonNegative(failedNotificationElapsedMillis);
+        this.executorStats = executorStats;
     }
 
     private static long nonNegative(long v) {
@@ -113,6 +166,11 @@ public class ClusterStateUpdateStats implements Writeable, ToXContentFragment {
         this.failedCompletionElapsedMillis = in.readVLong();
         this.failedMasterApplyElapsedMillis = in.readVLong();
         this.failedNotificationElapsedMillis = in.readVLong();
+        if (in.getVersion().onOrAfter(EXECUTOR_STATS_VERSION)) {
+            this.executorStats = in.readMap(StreamInput::readString, ClusterStateTaskExecutorStats::new);
+        } else {
+            this.executorStats = Map.of();
+        }
     }
 
     @Override
@@ -137,6 +195,9 @@ public class ClusterStateUpdateStats implements Writeable, ToXContentFragment {
         out.writeVLong(failedCompletionElapsedMillis);
         out.writeVLong(failedMasterApplyElapsedMillis);
         out.writeVLong(failedNotificationElapsedMillis);
+        if (out.getVersion().onOrAfter(EXECUTOR_STATS_VERSION)) {
+            out.writeMap(executorStats, StreamOutput::writeString, (o, stats) -> stats.writeTo(o));
+        }
     }
 
     public static ClusterStateUpdateStats EMPTY = new ClusterStateUpdateStats(
@@ -237,6 +298,13 @@ public class ClusterStateUpdateStats implements Writeable, ToXContentFragment {
         return failedNotificationElapsedMillis;
     }
 
+    /**
+     * @return statistics about the batches of each kind of cluster state task executor, keyed by the name of the executor
+     */
+    public Map<String, ClusterStateTaskExecutorStats> getExecutorStats() {
+        return executorStats;
+    }
+
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject("cluster_state_update");
@@ -269,6 +337,12 @@ public class ClusterStateUpdateStats implements Writeable, ToXContentFragment {
         msField(builder, "notification", failedNotificationElapsedMillis);
         builder.endObject();
 
+        builder.startObject("executors");
+        for (Map.Entry<String, ClusterStateTaskExecutorStats> entry : new TreeMap<>(executorStats).entrySet()) {
+            builder.field(entry.getKey(), entry.getValue());
+        }
+        builder.endObject();
+
         builder.endObject();
         return builder;
     }
@@ -300,7 +374,8 @@ public class ClusterStateUpdateStats implements Writeable, ToXContentFragment {
             && failedCommitElapsedMillis == that.failedCommitElapsedMillis
             && failedCompletionElapsedMillis == that.failedCompletionElapsedMillis
             && failedMasterApplyElapsedMillis == that.failedMasterApplyElapsedMillis
-            && failedNotificationElapsedMillis == that.failedNotificationElapsedMillis;
+            && failedNotificationElapsedMillis == that.failedNotificationElapsedMillis
+            && executorStats.equals(that.executorStats);
     }
 
     @Override
@@ -324,7 +399,8 @@ public class ClusterStateUpdateStats implements Writeable, ToXContentFragment {
             failedCommitElapsedMillis,
             failedCompletionElapsedMillis,
             failedMasterApplyElapsedMillis,
-            failedNotificationElapsedMillis
+            failedNotificationElapsedMillis,
+            executorStats
         );
     }
 }
@@ -44,12 +44,17 @@ import org.elasticsearch.node.Node;
 import org.elasticsearch.threadpool.Scheduler;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.function.LongSupplier;
 import java.util.function.Supplier;
@@ -73,6 +78,18 @@ public class MasterService extends AbstractLifecycleComponent {
         Setting.Property.NodeScope
     );
 
+    /**
+     * How long the master may keep computing further batches of tasks whose executors allow coalescing, after the first one, before it
+     * publishes the resulting cluster state. Setting this to zero disables coalescing.
+     */
+    public static final Setting<TimeValue> MASTER_SERVICE_COALESCING_TIME_BUDGET_SETTING = Setting.timeSetting(
+        "cluster.service.master_task_coalescing_time_budget",
+        TimeValue.timeValueMillis(100),
+        TimeValue.ZERO,
+        Setting.Property.Dynamic,
+        Setting.Property.NodeScope
+    );
+
     static final String MASTER_UPDATE_THREAD_NAME = "masterService#updateTask";
 
     ClusterStatePublisher clusterStatePublisher;
@@ -83,6 +100,7 @@ public class MasterService extends AbstractLifecycleComponent {
 
     private volatile TimeValue slowTaskLoggingThreshold;
     private final TimeValue starvationLoggingThreshold;
+    private volatile TimeValue coalescingTimeBudget;
 
     protected final ThreadPool threadPool;
 
@@ -99,6 +117,9 @@ public class MasterService extends AbstractLifecycleComponent {
 
         this.starvationLoggingThreshold = MASTER_SERVICE_STARVATION_LOGGING_THRESHOLD_SETTING.get(settings);
 
+        this.coalescingTimeBudget = MASTER_SERVICE_COALESCING_TIME_BUDGET_SETTING.get(settings);
+        clusterSettings.addSettingsUpdateConsumer(MASTER_SERVICE_COALESCING_TIME_BUDGET_SETTING, this::setCoalescingTimeBudget);
+
         this.threadPool = threadPool;
     }
 
@@ -106,6 +127,10 @@ public class MasterService extends AbstractLifecycleComponent {
         this.slowTaskLoggingThreshold = slowTaskLoggingThreshold;
     }
 
+    private void setCoalescingTimeBudget(TimeValue coalescingTimeBudget) {
+        this.coalescingTimeBudget = coalescingTimeBudget;
+    }
+
     public synchronized void setClusterStatePublisher(ClusterStatePublisher publisher) {
         clusterStatePublisher = publisher;
     }
@@ -167,6 +192,28 @@ public class MasterService extends AbstractLifecycleComponent {
             runTasks(new TaskInputs(taskExecutor, updateTasks, tasksSummary));
         }
 
+        /**
+         * Takes the pending tasks of the first batching key, in submission order, whose executor allows coalescing, so that they can be
+         * computed as part of the cluster state update that is currently running. Only takes tasks of a key that has a pending task of the
+         * highest pending priority, so that coalescing never delays a more urgent task. Returns {@code null} if there are no such tasks.
+         */
+        @Nullable
+        TaskInputs takeCoalescibleTasks() {
+            final Object batchingKey = firstBatchingKeyOfHighestPriority(key -> {
+                final ClusterStateTaskExecutor<?> taskExecutor = (ClusterStateTaskExecutor<?>) key;
+                return taskExecutor.allowsCoalescing() && taskExecutor.runOnlyOnMaster();
+            });
+            if (batchingKey == null) {
+                return null;
+            }
+            final List<BatchedTask> tasks = takePendingTasks(batchingKey);
+            if (tasks.isEmpty()) {
+                return null;
+            }
+            final ClusterStateTaskExecutor<Object> taskExecutor = (ClusterStateTaskExecutor<Object>) batchingKey;
+            return new TaskInputs(taskExecutor, (List<UpdateTask>) (List<?>) tasks, buildTasksDescription(tasks));
+        }
+
         class UpdateTask extends BatchedTask {
             final ClusterStateTaskListener listener;
 
@@ -216,23 +263,23 @@ public class MasterService extends AbstractLifecycleComponent {
     }
 
     private void runTasks(TaskInputs taskInputs) {
-        final String summary = taskInputs.summary;
         if (lifecycle.started() == false) {
-            logger.debug("processing [{}]: ignoring, master service not started", summary);
+            logger.debug("processing [{}]: ignoring, master service not started", taskInputs.summary);
             return;
         }
 
-        logger.debug("executing cluster state update for [{}]", summary);
+        logger.debug("executing cluster state update for [{}]", taskInputs.summary);
         final ClusterState previousClusterState = state();
 
         if (previousClusterState.nodes().isLocalNodeElectedMaster() == false && taskInputs.runOnlyWhenMaster()) {
-            logger.debug("failing [{}]: local node is no longer master", summary);
+            logger.debug("failing [{}]: local node is no longer master", taskInputs.summary);
             taskInputs.onNoLongerMaster();
             return;
         }
 
         final long computationStartTime = threadPool.rawRelativeTimeInMillis();
-        final TaskOutputs taskOutputs = calculateTaskOutputs(taskInputs, previousClusterState);
+        final TaskOutputs taskOutputs = calculateTaskOutputs(taskInputs, previousClusterState, computationStartTime);
+        final String summary = taskOutputs.summary();
         taskOutputs.notifyFailedTasks();
         final TimeValue computationTime = getTimeSince(computationStartTime);
         logExecutionTime(computationTime, "compute cluster state update", summary);
@@ -391,20 +438,69 @@ public class MasterService extends AbstractLifecycleComponent {
         // TODO: do we want to call updateTask.onFailure here?
     }
 
-    private TaskOutputs calculateTaskOutputs(TaskInputs taskInputs, ClusterState previousClusterState) {
-        ClusterTasksResult<Object> clusterTasksResult = executeTasks(taskInputs, previousClusterState);
-        ClusterState newClusterState = patchVersions(previousClusterState, clusterTasksResult);
+    /**
+     * Computes the given batch of tasks and, if its executor allows coalescing, further pending batches whose executors also allow it
+     * until there are none left or the coalescing time budget is spent. Each batch is applied to the state that the previous one produced
+     * and the combined result is published as a single cluster state update.
+     */
+    private TaskOutputs calculateTaskOutputs(TaskInputs taskInputs, ClusterState previousClusterState, long computationStartTime) {
+        final List<TaskInputs> batches = new ArrayList<>();
+        final List<Long> queueTimesMillis = new ArrayList<>();
+        final List<Long> computationTimesMillis = new ArrayList<>();
+        final List<Batcher.UpdateTask> nonFailedTasks = new ArrayList<>();
+        final Map<Batcher.UpdateTask, Exception> failedTasks = new LinkedHashMap<>();
+        ClusterState resultingState = previousClusterState;
+        TaskInputs batch = taskInputs;
+        while (batch != null) {
+            final long batchStartTime = threadPool.rawRelativeTimeInMillis();
+            queueTimesMillis.add(batch.updateTasks.stream().mapToLong(Batcher.UpdateTask::getAgeInMillis).sum());
+            final ClusterTasksResult<Object> clusterTasksResult = executeTasks(batch, resultingState);
+            for (Batcher.UpdateTask updateTask : batch.updateTasks) {
+                final ClusterStateTaskExecutor.TaskResult taskResult = clusterTasksResult.executionResults.get(updateTask.task);
+                if (taskResult.isSuccess()) {
+                    nonFailedTasks.add(updateTask);
+                } else {
+                    failedTasks.put(updateTask, taskResult.getFailure());
+                }
+            }
+            resultingState = clusterTasksResult.resultingState;
+            computationTimesMillis.add(getTimeSince(batchStartTime).millis());
+            batches.add(batch);
+            batch = takeCoalescibleTasks(taskInputs, previousClusterState, computationStartTime);
+        }
+        for (int i = 0; i < batches.size(); i++) {
+            clusterStateUpdateStatsTracker.onBatchComputed(
+                batches.get(i),
+                batches.size() > 1,
+                queueTimesMillis.get(i),
+                computationTimesMillis.get(i)
+            );
+        }
         return new TaskOutputs(
-            taskInputs,
+            batches,
             previousClusterState,
-            newClusterState,
-            getNonFailedTasks(taskInputs, clusterTasksResult),
-            clusterTasksResult.executionResults
+            patchVersions(previousClusterState, resultingState),
+            nonFailedTasks,
+            failedTasks
         );
     }
 
-    private ClusterState patchVersions(ClusterState previousClusterState, ClusterTasksResult<?> executionResult) {
-        ClusterState newClusterState = executionResult.resultingState;
+    @Nullable
+    private TaskInputs takeCoalescibleTasks(TaskInputs firstBatch, ClusterState previousClusterState, long computationStartTime) {
+        if (firstBatch.executor.allowsCoalescing() == false
+            || previousClusterState.nodes().isLocalNodeElectedMaster() == false
+            || getTimeSince(computationStartTime).compareTo(coalescingTimeBudget) >= 0) {
+            return null;
+        }
+        final TaskInputs coalescedBatch = taskBatcher.takeCoalescibleTasks();
+        if (coalescedBatch != null) {
+            logger.debug("coalescing [{}] into the cluster state update for [{}]", coalescedBatch.summary, firstBatch.summary);
+        }
+        return coalescedBatch;
+    }
+
+    private ClusterState patchVersions(ClusterState previousClusterState, ClusterState resultingState) {
+        ClusterState newClusterState = resultingState;
 
         if (previousClusterState != newClusterState) {
             // only the master controls the version numbers
@@ -477,24 +573,32 @@ public class MasterService extends AbstractLifecycleComponent {
      * Output created by executing a set of tasks provided as TaskInputs
      */
     class TaskOutputs {
-        final TaskInputs taskInputs;
+        final List<TaskInputs> taskInputs;
         final ClusterState previousClusterState;
         final ClusterState newClusterState;
         final List<Batcher.UpdateTask> nonFailedTasks;
-        final Map<Object, ClusterStateTaskExecutor.TaskResult> executionResults;
+        final Map<Batcher.UpdateTask, Exception> failedTasks;
 
         TaskOutputs(
-            TaskInputs taskInputs,
+            List<TaskInputs> taskInputs,
             ClusterState previousClusterState,
             ClusterState newClusterState,
             List<Batcher.UpdateTask> nonFailedTasks,
-            Map<Object, ClusterStateTaskExecutor.TaskResult> executionResults
+            Map<Batcher.UpdateTask, Exception> failedTasks
         ) {
+            assert taskInputs.isEmpty() == false;
             this.taskInputs = taskInputs;
             this.previousClusterState = previousClusterState;
             this.newClusterState = newClusterState;
             this.nonFailedTasks = nonFailedTasks;
-            this.executionResults = executionResults;
+            this.failedTasks = failedTasks;
+        }
+
+        String summary() {
+            if (taskInputs.size() == 1) {
+                return taskInputs.get(0).summary;
+            }
+            return taskInputs.stream().map(batch -> batch.summary).collect(Collectors.joining(", "));
         }
 
         void publishingFailed(FailedToCommitClusterStateException t) {
@@ -506,7 +610,13 @@ public class MasterService extends AbstractLifecycleComponent {
         }
 
         void clusterStatePublished(ClusterStatePublicationEvent clusterStatePublicationEvent) {
-            taskInputs.executor.clusterStatePublished(clusterStatePublicationEvent);
+            // notify the executor of every coalesced batch, whether or not it changed the state, but only once per executor
+            final Set<ClusterStateTaskExecutor<Object>> notifiedExecutors = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (TaskInputs batch : taskInputs) {
+                if (notifiedExecutors.add(batch.executor)) {
+                    batch.executor.clusterStatePublished(clusterStatePublicationEvent);
+                }
+            }
         }
 
         ClusterStatePublisher.AckListener createAckListener(ThreadPool threadPool, ClusterState newClusterState) {
@@ -531,13 +641,7 @@ public class MasterService extends AbstractLifecycleComponent {
 
         void notifyFailedTasks() {
             // fail all tasks that have failed
-            for (Batcher.UpdateTask updateTask : taskInputs.updateTasks) {
-                assert executionResults.containsKey(updateTask.task) : "missing " + updateTask;
-                final ClusterStateTaskExecutor.TaskResult taskResult = executionResults.get(updateTask.task);
-                if (taskResult.isSuccess() == false) {
-                    updateTask.listener.onFailure(updateTask.source(), taskResult.getFailure());
-                }
-            }
+            failedTasks.forEach((updateTask, failure) -> updateTask.listener.onFailure(updateTask.source(), failure));
         }
 
         void notifySuccessfulTasksOnUnchangedClusterState() {
@@ -870,14 +974,6 @@ public class MasterService extends AbstractLifecycleComponent {
         return clusterTasksResult;
     }
 
-    private List<Batcher.UpdateTask> getNonFailedTasks(TaskInputs taskInputs, ClusterTasksResult<Object> clusterTasksResult) {
-        return taskInputs.updateTasks.stream().filter(updateTask -> {
-            assert clusterTasksResult.executionResults.containsKey(updateTask.task) : "missing " + updateTask;
-            final ClusterStateTaskExecutor.TaskResult taskResult = clusterTasksResult.executionResults.get(updateTask.task);
-            return taskResult.isSuccess();
-        }).collect(Collectors.toList());
-    }
-
     /**
      * Represents a set of tasks to be processed together with their executor
      */
@@ -1028,6 +1124,23 @@ public class MasterService extends AbstractLifecycleComponent {
         private long failedMasterApplyElapsedMillis;
         private long failedNotificationElapsedMillis;
 
+        private final Map<String, ExecutorStatsTracker> executorStats = new HashMap<>();
+
+        synchronized void onBatchComputed(TaskInputs batch, boolean coalesced, long queueElapsedMillis, long computationElapsedMillis) {
+            final ExecutorStatsTracker tracker = executorStats.computeIfAbsent(
+                executorName(batch.executor),
+                k -> new ExecutorStatsTracker()
+            );
+            tracker.batchCount += 1;
+            if (coalesced) {
+                tracker.coalescedBatchCount += 1;
+            }
+            tracker.taskCount += batch.updateTasks.size();
+            tracker.queueElapsedMillis += queueElapsedMillis;
+            tracker.computationElapsedMillis += computationElapsedMillis;
+            tracker.batchSizeHistogram[ClusterStateTaskExecutorStats.batchSizeBucket(batch.updateTasks.size())] += 1;
+        }
+
         synchronized void onUnchangedClusterState(long computationElapsedMillis, long notificationElapsedMillis) {
             unchangedTaskCount += 1;
             unchangedComputationElapsedMillis += computationElapsedMillis;
@@ -1084,7 +1197,44 @@ public class MasterService extends AbstractLifecycleComponent {
                 failedCommitElapsedMillis,
                 failedCompletionElapsedMillis,
                 failedMasterApplyElapsedMillis,
-                failedNotificationElapsedMillis
+                failedNotificationElapsedMillis,
+                executorStats.entrySet()
+                    .stream()
+                    .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, e -> e.getValue().getStatistics()))
+            );
+        }
+
+        /**
+         * Names an executor after its class, or the class that declares it if it's an anonymous class or a lambda, so that all the
+         * executor instances of the same kind share their statistics.
+         */
+        static String executorName(ClusterStateTaskExecutor<?> executor) {
+            Class<?> executorClass = executor.getClass();
+            while (executorClass.isAnonymousClass() && executorClass.getEnclosingClass() != null) {
+                executorClass = executorClass.getEnclosingClass();
+            }
+            final String name = executorClass.getSimpleName();
+            final int lambdaIndex = name.indexOf("$$Lambda");
+            return lambdaIndex > 0 ? name.substring(0, lambdaIndex) : name;
+        }
+    }
+
+    private static class ExecutorStatsTracker {
+        private long batchCount;
+        private long coalescedBatchCount;
+        private long taskCount;
+        private long queueElapsedMillis;
+        private long computationElapsedMillis;
+        private final long[] batchSizeHistogram = new long[ClusterStateTaskExecutorStats.BATCH_SIZE_BUCKETS];
+
+        ClusterStateTaskExecutorStats getStatistics() {
+            return new ClusterStateTaskExecutorStats(
+                batchCount,
+                coalescedBatchCount,
+                taskCount,
+                queueElapsedMillis,
+                computationElapsedMillis,
+                batchSizeHistogram.clone()
             );
         }
     }
@@ -20,11 +20,13 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
@@ -35,8 +37,8 @@ public abstract class TaskBatcher {
 
     private final Logger logger;
     private final PrioritizedEsThreadPoolExecutor threadExecutor;
-    // package visible for tests
-    final Map<Object, LinkedHashSet<BatchedTask>> tasksPerBatchingKey = new HashMap<>();
+    // package visible for tests; ordered by the time at which each batching key was first submitted
+    final Map<Object, LinkedHashSet<BatchedTask>> tasksPerBatchingKey = new LinkedHashMap<>();
 
     public TaskBatcher(Logger logger, PrioritizedEsThreadPoolExecutor threadExecutor) {
         this.logger = logger;
@@ -125,36 +127,81 @@ public abstract class TaskBatcher {
         // if this task is already processed, it shouldn't execute other tasks with same batching key that arrived later,
         // to give other tasks with different batching key a chance to execute.
         if (updateTask.processed.get() == false) {
-            final List<BatchedTask> toExecute = new ArrayList<>();
-            final Map<String, List<BatchedTask>> processTasksBySource = new HashMap<>();
-            synchronized (tasksPerBatchingKey) {
-                LinkedHashSet<BatchedTask> pending = tasksPerBatchingKey.remove(updateTask.batchingKey);
-                if (pending != null) {
-                    for (BatchedTask task : pending) {
-                        if (task.processed.getAndSet(true) == false) {
-                            logger.trace("will process {}", task);
-                            toExecute.add(task);
-                            processTasksBySource.computeIfAbsent(task.source, s -> new ArrayList<>()).add(task);
-                        } else {
-                            logger.trace("skipping {}, already processed", task);
-                        }
+            final List<BatchedTask> toExecute = takePendingTasks(updateTask.batchingKey);
+            if (toExecute.isEmpty() == false) {
+                run(updateTask.batchingKey, toExecute, buildTasksDescription(toExecute));
+            }
+        }
+    }
+
+    /**
+     * Removes the pending tasks with the given batching key and marks them as processed, so that the entries that were queued for them
+     * in the executor are skipped. Returns an empty list if there are no such tasks.
+     */
+    List<BatchedTask> takePendingTasks(Object batchingKey) {
+        final List<BatchedTask> toExecute = new ArrayList<>();
+        synchronized (tasksPerBatchingKey) {
+            LinkedHashSet<BatchedTask> pending = tasksPerBatchingKey.remove(batchingKey);
+            if (pending != null) {
+                for (BatchedTask task : pending) {
+                    if (task.processed.getAndSet(true) == false) {
+                        logger.trace("will process {}", task);
+                        toExecute.add(task);
+                    } else {
+                        logger.trace("skipping {}, already processed", task);
                     }
                 }
             }
+        }
+        return toExecute;
+    }
 
-            if (toExecute.isEmpty() == false) {
-                run(updateTask.batchingKey, toExecute, buildTasksDescription(updateTask, toExecute, processTasksBySource));
+    /**
+     * Returns the first batching key, in the order in which the keys were first submitted, that matches the given predicate and has a
+     * pending task of the highest priority among all pending tasks, so that taking its tasks does not delay any more urgent task. Returns
+     * {@code null} if there is no such key.
+     */
+    @Nullable
+    Object firstBatchingKeyOfHighestPriority(Predicate<Object> predicate) {
+        synchronized (tasksPerBatchingKey) {
+            Priority highestPriority = null;
+            final Map<Object, Priority> priorityPerBatchingKey = new LinkedHashMap<>();
+            for (Map.Entry<Object, LinkedHashSet<BatchedTask>> entry : tasksPerBatchingKey.entrySet()) {
+                Priority keyPriority = null;
+                for (BatchedTask task : entry.getValue()) {
+                    if (task.processed.get() == false && (keyPriority == null || keyPriority.after(task.priority()))) {
+                        keyPriority = task.priority();
+                    }
+                }
+                if (keyPriority != null) {
+                    priorityPerBatchingKey.put(entry.getKey(), keyPriority);
+                    if (highestPriority == null || highestPriority.after(keyPriority)) {
+                        highestPriority = keyPriority;
+                    }
+                }
+            }
+            for (Map.Entry<Object, Priority> entry : priorityPerBatchingKey.entrySet()) {
+                if (entry.getValue() == highestPriority && predicate.test(entry.getKey())) {
+                    return entry.getKey();
+                }
             }
+            return null;
         }
     }
 
     private static final int MAX_TASK_DESCRIPTION_CHARS = 8 * 1024;
 
-    private String buildTasksDescription(
-        BatchedTask updateTask,
-        List<BatchedTask> toExecute,
-        Map<String, List<BatchedTask>> processTasksBySource
-    ) {
+    /**
+     * Builds a summary of the given tasks, which must all share the same batching key, grouped by source.
+     */
+    String buildTasksDescription(List<BatchedTask> toExecute) {
+        assert toExecute.isEmpty() == false;
+        final BatchedTask updateTask = toExecute.get(0);
+        final Map<String, List<BatchedTask>> processTasksBySource = new HashMap<>();
+        for (BatchedTask task : toExecute) {
+            assert task.batchingKey == updateTask.batchingKey : "tasks in a batch should share the same batching key: " + toExecute;
+            processTasksBySource.computeIfAbsent(task.source, s -> new ArrayList<>()).add(task);
+        }
         final StringBuilder output = new StringBuilder();
         Strings.collectionToDelimitedStringWithLimit((Iterable<String>) () -> processTasksBySource.entrySet().stream().map(entry -> {
             String tasks = updateTask.describeTasks(entry.getValue());
@@ -242,6 +242,19 @@ public abstract class Rounding implements Writeable {
          */
         long round(long utcMillis);
 
+        /**
+         * Rounds the first {@code count} values of the array in place. This is
+         * the same as calling {@link #round(long)} on each value but implementations
+         * that look up time zone transitions or pre-calculated rounding points can
+         * share the lookups between the values, which is cheap because values read
+         * together from doc values tend to be close to each other.
+         */
+        default void round(long[] utcMillis, int count) {
+            for (int i = 0; i < count; i++) {
+                utcMillis[i] = round(utcMillis[i]);
+            }
+        }
+
         /**
          * Given the rounded value (which was potentially generated by
          * {@link #round(long)}, returns the next rounding value. For
@@ -718,6 +731,20 @@ public abstract class Rounding implements Writeable {
                 return offset.localToUtc(unit.roundFloor(offset.utcToLocalTime(utcMillis)), this);
             }
 
+            @Override
+            public void round(long[] utcMillis, int count) {
+                LocalTimeOffset offset = fixedOffset(lookup, utcMillis, count);
+                if (offset == null) {
+                    for (int i = 0; i < count; i++) {
+                        utcMillis[i] = round(utcMillis[i]);
+                    }
+                    return;
+                }
+                for (int i = 0; i < count; i++) {
+                    utcMillis[i] = offset.localToUtc(unit.roundFloor(offset.utcToLocalTime(utcMillis[i])), this);
+                }
+            }
+
             @Override
             public long nextRoundingValue(long utcMillis) {
                 // TODO this is actually used date range's collect so we should optimize it
@@ -773,6 +800,20 @@ public abstract class Rounding implements Writeable {
                 return offset.localToUtc(roundedLocalMillis, this);
             }
 
+            @Override
+            public void round(long[] utcMillis, int count) {
+                LocalTimeOffset offset = fixedOffset(lookup, utcMillis, count);
+                if (offset == null) {
+                    for (int i = 0; i < count; i++) {
+                        utcMillis[i] = round(utcMillis[i]);
+                    }
+                    return;
+                }
+                for (int i = 0; i < count; i++) {
+                    utcMillis[i] = offset.localToUtc(unit.roundFloor(offset.utcToLocalTime(utcMillis[i])), this);
+                }
+            }
+
             @Override
             public long inGap(long localMillis, Gap gap) {
                 // Round from just before the start of the gap
@@ -1129,6 +1170,20 @@ public abstract class Rounding implements Writeable {
                 return offset.localToUtc(roundKey(offset.utcToLocalTime(utcMillis), interval) * interval, this);
             }
 
+            @Override
+            public void round(long[] utcMillis, int count) {
+                LocalTimeOffset offset = fixedOffset(lookup, utcMillis, count);
+                if (offset == null) {
+                    for (int i = 0; i < count; i++) {
+                        utcMillis[i] = round(utcMillis[i]);
+                    }
+                    return;
+                }
+                for (int i = 0; i < count; i++) {
+                    utcMillis[i] = offset.localToUtc(roundKey(offset.utcToLocalTime(utcMillis[i]), interval) * interval, this);
+                }
+            }
+
             @Override
             public long nextRoundingValue(long utcMillis) {
                 // TODO this is used in date range's collect so we should optimize it too
@@ -1366,6 +1421,17 @@ public abstract class Rounding implements Writeable {
                     return delegatePrepared.round(utcMillis - offset) + offset;
                 }
 
+                @Override
+                public void round(long[] utcMillis, int count) {
+                    for (int i = 0; i < count; i++) {
+                        utcMillis[i] -= offset;
+                    }
+                    delegatePrepared.round(utcMillis, count);
+                    for (int i = 0; i < count; i++) {
+                        utcMillis[i] += offset;
+                    }
+                }
+
                 @Override
                 public long nextRoundingValue(long utcMillis) {
                     return delegatePrepared.nextRoundingValue(utcMillis - offset) + offset;
@@ -1433,6 +1499,24 @@ public abstract class Rounding implements Writeable {
         }
     }
 
+    /**
+     * The offset of the first {@code count} values if they are all in the same
+     * offset, otherwise {@code null}. Time zone transitions are rare so values
+     * that are collected together are almost always in the same offset.
+     */
+    private static LocalTimeOffset fixedOffset(LocalTimeOffset.Lookup lookup, long[] utcMillis, int count) {
+        if (count == 0) {
+            return null;
+        }
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            min = Math.min(min, utcMillis[i]);
+            max = Math.max(max, utcMillis[i]);
+        }
+        return lookup.fixedInRange(min, max);
+    }
+
     /**
      * Implementation of {@link Prepared} using pre-calculated "round down" points.
      */
@@ -1459,6 +1543,26 @@ public abstract class Rounding implements Writeable {
             return values[idx];
         }
 
+        @Override
+        public void round(long[] utcMillis, int count) {
+            // the rounding points [lower, upper) of the last value, which likely contain the next one too
+            long lower = Long.MAX_VALUE;
+            long upper = Long.MIN_VALUE;
+            for (int i = 0; i < count; i++) {
+                long value = utcMillis[i];
+                if (value < lower || value >= upper) {
+                    assert values[0] <= value : value + " must be after " + values[0];
+                    int idx = Arrays.binarySearch(values, 0, max, value);
+                    if (idx < 0) {
+                        idx = -2 - idx;
+                    }
+                    lower = values[idx];
+                    upper = idx + 1 < max ? values[idx + 1] : Long.MAX_VALUE;
+                }
+                utcMillis[i] = lower;
+            }
+        }
+
         @Override
         public long nextRoundingValue(long utcMillis) {
             return delegate.nextRoundingValue(utcMillis);
@@ -0,0 +1,118 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.common.util;
+
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.RamUsageEstimator;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Common implementation for arrays that slice data into fixed-size pages allocated outside of the heap. The pages
+ * come from {@link PageCacheRecycler#directPage(boolean)} so they are in native byte order and are reused across
+ * arrays rather than left to the garbage collector.
+ */
+abstract class AbstractDirectBigArray extends AbstractBigArray {
+
+    private final int shift;
+    protected ByteBuffer[] pages;
+
+    protected AbstractDirectBigArray(int pageSize, long size, BigArrays bigArrays, boolean clearOnResize) {
+        super(pageSize, bigArrays, clearOnResize);
+        this.shift = Integer.numberOfTrailingZeros(numBytesPerElement());
+        assert pageSize << shift == PageCacheRecycler.PAGE_SIZE_IN_BYTES;
+        this.size = size;
+        pages = new ByteBuffer[numPages(size)];
+        for (int i = 0; i < pages.length; ++i) {
+            pages[i] = newDirectPage(i);
+        }
+    }
+
+    /** Returns the page that holds the element at <code>index</code>. */
+    protected final ByteBuffer page(long index) {
+        return pages[pageIndex(index)];
+    }
+
+    /** Returns the offset in bytes of the element at <code>index</code> in its page. */
+    protected final int offsetInPage(long index) {
+        return indexInPage(index) << shift;
+    }
+
+    /** Change the size of this array. Content between indexes <code>0</code> and <code>min(size(), newSize)</code> will be preserved. */
+    @Override
+    public final void resize(long newSize) {
+        final int numPages = numPages(newSize);
+        if (numPages > pages.length) {
+            pages = Arrays.copyOf(pages, ArrayUtil.oversize(numPages, RamUsageEstimator.NUM_BYTES_OBJECT_REF));
+        }
+        for (int i = numPages - 1; i >= 0 && pages[i] == null; --i) {
+            pages[i] = newDirectPage(i);
+        }
+        for (int i = numPages; i < pages.length && pages[i] != null; ++i) {
+            pages[i] = null;
+            releasePage(i);
+        }
+        this.size = newSize;
+    }
+
+    /**
+     * Bulk copies elements serialized in native byte order in <code>buf</code> to this array.
+     * <code>offset</code> and <code>len</code> are expressed in number of elements.
+     */
+    protected final void setBytes(long index, byte[] buf, int offset, int len) {
+        assert index + len <= size();
+        int pageIndex = pageIndex(index);
+        int indexInPage = indexInPage(index);
+        while (len > 0) {
+            final int copyLen = Math.min(len, pageSize() - indexInPage);
+            pages[pageIndex].put(indexInPage << shift, buf, offset << shift, copyLen << shift);
+            ++pageIndex;
+            indexInPage = 0;
+            offset += copyLen;
+            len -= copyLen;
+        }
+    }
+
+    /**
+     * Fills the bytes of the elements between <code>fromIndex</code> inclusive and <code>toIndex</code> exclusive
+     * by repeating the bytes of the element at <code>fromIndex</code>, which must already be set.
+     */
+    protected final void fillBySelfCopy(long fromIndex, long toIndex) {
+        if (toIndex - fromIndex <= 1) {
+            return;
+        }
+        final ByteBuffer firstPage = page(fromIndex);
+        final int from = offsetInPage(fromIndex);
+        final int fromPage = pageIndex(fromIndex);
+        final int toPage = pageIndex(toIndex - 1);
+        final int firstPageEnd = fromPage == toPage ? offsetInPage(toIndex - 1) + (1 << shift) : PageCacheRecycler.PAGE_SIZE_IN_BYTES;
+        for (int pos = from + (1 << shift); pos < firstPageEnd;) {
+            final int copyLen = Math.min(pos - from, firstPageEnd - pos);
+            firstPage.put(pos, firstPage, from, copyLen);
+            pos += copyLen;
+        }
+        if (fromPage == toPage) {
+            return;
+        }
+        // the first page holds at least one element, copy it to the start of the other pages and double from there
+        final int filled = firstPageEnd - from;
+        for (int i = fromPage + 1; i <= toPage; ++i) {
+            final ByteBuffer page = pages[i];
+            final int end = i == toPage ? offsetInPage(toIndex - 1) + (1 << shift) : PageCacheRecycler.PAGE_SIZE_IN_BYTES;
+            int pos = Math.min(filled, end);
+            page.put(0, firstPage, from, pos);
+            while (pos < end) {
+                final int copyLen = Math.min(pos, end - pos);
+                page.put(pos, page, 0, copyLen);
+                pos += copyLen;
+            }
+        }
+    }
+}
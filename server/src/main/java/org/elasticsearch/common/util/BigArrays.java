@@ -27,7 +27,10 @@ import static org.elasticsearch.common.util.BigFloatArray.VH_PLATFORM_NATIVE_FLO
 import static org.elasticsearch.common.util.BigIntArray.VH_PLATFORM_NATIVE_INT;
 import static org.elasticsearch.common.util.BigLongArray.VH_PLATFORM_NATIVE_LONG;
 
-/** Utility class to work with arrays. */
+/**
+ * Utility class to work with arrays. Arrays that span several pages can be allocated outside of the heap,
+ * see {@link PageCacheRecycler#OFF_HEAP_SETTING}.
+ */
 public class BigArrays {
 
     public static final BigArrays NON_RECYCLING_INSTANCE = new BigArrays(null, null, CircuitBreaker.REQUEST);
@@ -398,6 +401,7 @@ public class BigArrays {
     private final boolean checkBreaker;
     private final BigArrays circuitBreakingInstance;
     private final String breakerName;
+    private final boolean offHeap;
 
     public BigArrays(PageCacheRecycler recycler, @Nullable final CircuitBreakerService breakerService, String breakerName) {
         // Checking the breaker is disabled if not specified
@@ -412,6 +416,7 @@ public class BigArrays {
     ) {
         this.checkBreaker = checkBreaker;
         this.recycler = recycler;
+        this.offHeap = recycler != null && recycler.isOffHeap();
         this.breakerService = breakerService;
         if (breakerService != null) {
             breaker = breakerService.getBreaker(breakerName);
@@ -519,7 +524,7 @@ public class BigArrays {
             // when allocating big arrays, we want to first ensure we have the capacity by
             // checking with the circuit breaker before attempting to allocate
             adjustBreaker(BigByteArray.estimateRamBytes(size), false);
-            return new BigByteArray(size, this, clearOnResize);
+            return offHeap ? new DirectBigByteArray(size, this, clearOnResize) : new BigByteArray(size, this, clearOnResize);
         } else if (size >= PageCacheRecycler.BYTE_PAGE_SIZE / 2 && recycler != null) {
             final Recycler.V<byte[]> page = recycler.bytePage(clearOnResize);
             return validate(new ByteArrayWrapper(this, page.v(), size, page, clearOnResize));
@@ -540,6 +545,8 @@ public class BigArrays {
     public ByteArray resize(ByteArray array, long size) {
         if (array instanceof BigByteArray) {
             return resizeInPlace((BigByteArray) array, size);
+        } else if (array instanceof DirectBigByteArray) {
+            return resizeInPlace((DirectBigByteArray) array, size);
         } else {
             AbstractArray arr = (AbstractArray) array;
             final ByteArray newArray = newByteArray(size, arr.clearOnResize);
@@ -603,7 +610,7 @@ public class BigArrays {
             // when allocating big arrays, we want to first ensure we have the capacity by
             // checking with the circuit breaker before attempting to allocate
             adjustBreaker(BigIntArray.estimateRamBytes(size), false);
-            return new BigIntArray(size, this, clearOnResize);
+            return offHeap ? new DirectBigIntArray(size, this, clearOnResize) : new BigIntArray(size, this, clearOnResize);
         } else {
             return validate(new ByteArrayAsIntArrayWrapper(this, size, clearOnResize));
         }
@@ -621,6 +628,8 @@ public class BigArrays {
     public IntArray resize(IntArray array, long size) {
         if (array instanceof BigIntArray) {
             return resizeInPlace((BigIntArray) array, size);
+        } else if (array instanceof DirectBigIntArray) {
+            return resizeInPlace((DirectBigIntArray) array, size);
         } else {
             AbstractArray arr = (AbstractArray) array;
             final IntArray newArray = newIntArray(size, arr.clearOnResize);
@@ -650,7 +659,7 @@ public class BigArrays {
             // when allocating big arrays, we want to first ensure we have the capacity by
             // checking with the circuit breaker before attempting to allocate
             adjustBreaker(BigLongArray.estimateRamBytes(size), false);
-            return new BigLongArray(size, this, clearOnResize);
+            return offHeap ? new DirectBigLongArray(size, this, clearOnResize) : new BigLongArray(size, this, clearOnResize);
         } else {
             return validate(new ByteArrayAsLongArrayWrapper(this, size, clearOnResize));
         }
@@ -668,6 +677,8 @@ public class BigArrays {
     public LongArray resize(LongArray array, long size) {
         if (array instanceof BigLongArray) {
             return resizeInPlace((BigLongArray) array, size);
+        } else if (array instanceof DirectBigLongArray) {
+            return resizeInPlace((DirectBigLongArray) array, size);
         } else {
             AbstractArray arr = (AbstractArray) array;
             final LongArray newArray = newLongArray(size, arr.clearOnResize);
@@ -697,7 +708,7 @@ public class BigArrays {
             // when allocating big arrays, we want to first ensure we have the capacity by
             // checking with the circuit breaker before attempting to allocate
             adjustBreaker(BigDoubleArray.estimateRamBytes(size), false);
-            return new BigDoubleArray(size, this, clearOnResize);
+            return offHeap ? new DirectBigDoubleArray(size, this, clearOnResize) : new BigDoubleArray(size, this, clearOnResize);
         } else {
             return validate(new ByteArrayAsDoubleArrayWrapper(this, size, clearOnResize));
         }
@@ -712,6 +723,8 @@ public class BigArrays {
     public DoubleArray resize(DoubleArray array, long size) {
         if (array instanceof BigDoubleArray) {
             return resizeInPlace((BigDoubleArray) array, size);
+        } else if (array instanceof DirectBigDoubleArray) {
+            return resizeInPlace((DirectBigDoubleArray) array, size);
         } else {
             AbstractArray arr = (AbstractArray) array;
             final DoubleArray newArray = newDoubleArray(size, arr.clearOnResize);
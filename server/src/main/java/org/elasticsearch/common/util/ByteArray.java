@@ -34,6 +34,15 @@ public interface ByteArray extends BigArray {
      */
     boolean get(long index, int len, BytesRef ref);
 
+    /**
+     * Checks whether the slice of <code>other.length</code> bytes starting at <code>index</code> holds the same bytes as
+     * <code>other</code>. The slice may be read into <code>scratch</code> to compare it.
+     */
+    default boolean bytesEquals(long index, BytesRef other, BytesRef scratch) {
+        get(index, other.length, scratch);
+        return other.bytesEquals(scratch);
+    }
+
     /**
      * Bulk set.
      */
@@ -76,7 +76,7 @@ public final class BytesRefHash extends AbstractHash {
         final long slot = slot(rehash(code), mask);
         for (long index = slot;; index = nextSlot(index, mask)) {
             final long id = id(index);
-            if (id == -1L || key.bytesEquals(get(id, spare))) {
+            if (id == -1L || keyEquals(id, key)) {
                 return id;
             }
         }
@@ -98,12 +98,18 @@ public final class BytesRefHash extends AbstractHash {
                 append(id, key, code);
                 ++size;
                 return id;
-            } else if (key.bytesEquals(get(curId, spare))) {
+            } else if (keyEquals(curId, key)) {
                 return -1 - curId;
             }
         }
     }
 
+    private boolean keyEquals(long id, BytesRef key) {
+        final long startOffset = startOffsets.get(id);
+        final int length = (int) (startOffsets.get(id + 1) - startOffset);
+        return length == key.length && bytes.bytesEquals(startOffset, key, spare);
+    }
+
     private void append(long id, BytesRef key, int code) {
         assert size == id;
         final long startOffset = startOffsets.get(size);
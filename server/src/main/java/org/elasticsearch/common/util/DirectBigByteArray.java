@@ -0,0 +1,118 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.common.util;
+
+import org.apache.lucene.util.BytesRef;
+
+import java.nio.ByteBuffer;
+
+import static org.elasticsearch.common.util.PageCacheRecycler.BYTE_PAGE_SIZE;
+
+/**
+ * Byte array abstraction able to support more than 2B values. This implementation slices data into fixed-sized pages
+ * allocated outside of the heap.
+ */
+final class DirectBigByteArray extends AbstractDirectBigArray implements ByteArray {
+
+    /** Constructor. */
+    DirectBigByteArray(long size, BigArrays bigArrays, boolean clearOnResize) {
+        super(BYTE_PAGE_SIZE, size, bigArrays, clearOnResize);
+    }
+
+    @Override
+    public byte get(long index) {
+        return page(index).get(indexInPage(index));
+    }
+
+    @Override
+    public byte set(long index, byte value) {
+        final ByteBuffer page = page(index);
+        final int indexInPage = indexInPage(index);
+        final byte ret = page.get(indexInPage);
+        page.put(indexInPage, value);
+        return ret;
+    }
+
+    /**
+     * The pages are not backed by a heap array so the slice is always copied to a new byte[].
+     */
+    @Override
+    public boolean get(long index, int len, BytesRef ref) {
+        assert index + len <= size();
+        ref.bytes = new byte[len];
+        ref.offset = 0;
+        ref.length = len;
+        int pageIndex = pageIndex(index);
+        int indexInPage = indexInPage(index);
+        int copied = 0;
+        while (copied < len) {
+            final int copyLen = Math.min(len - copied, pageSize() - indexInPage);
+            pages[pageIndex].get(indexInPage, ref.bytes, copied, copyLen);
+            ++pageIndex;
+            indexInPage = 0;
+            copied += copyLen;
+        }
+        return true;
+    }
+
+    /**
+     * Compares the pages in place so that probing, like {@link BytesRefHash} does, doesn't copy the slice.
+     */
+    @Override
+    public boolean bytesEquals(long index, BytesRef other, BytesRef scratch) {
+        assert index + other.length <= size();
+        int pageIndex = pageIndex(index);
+        int indexInPage = indexInPage(index);
+        int compared = 0;
+        while (compared < other.length) {
+            final int compareLen = Math.min(other.length - compared, pageSize() - indexInPage);
+            final ByteBuffer slice = pages[pageIndex].slice(indexInPage, compareLen);
+            if (slice.mismatch(ByteBuffer.wrap(other.bytes, other.offset + compared, compareLen)) != -1) {
+                return false;
+            }
+            ++pageIndex;
+            indexInPage = 0;
+            compared += compareLen;
+        }
+        return true;
+    }
+
+    @Override
+    public void set(long index, byte[] buf, int offset, int len) {
+        setBytes(index, buf, offset, len);
+    }
+
+    @Override
+    public void fill(long fromIndex, long toIndex, byte value) {
+        if (fromIndex > toIndex) {
+            throw new IllegalArgumentException();
+        }
+        if (fromIndex == toIndex) {
+            return; // empty range
+        }
+        set(fromIndex, value);
+        fillBySelfCopy(fromIndex, toIndex);
+    }
+
+    @Override
+    public boolean hasArray() {
+        return false;
+    }
+
+    @Override
+    public byte[] array() {
+        assert false;
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected int numBytesPerElement() {
+        return 1;
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.common.util;
+
+import java.nio.ByteBuffer;
+
+import static org.elasticsearch.common.util.PageCacheRecycler.DOUBLE_PAGE_SIZE;
+
+/**
+ * Double array abstraction able to support more than 2B values. This implementation slices data into fixed-sized pages
+ * allocated outside of the heap.
+ */
+final class DirectBigDoubleArray extends AbstractDirectBigArray implements DoubleArray {
+
+    /** Constructor. */
+    DirectBigDoubleArray(long size, BigArrays bigArrays, boolean clearOnResize) {
+        super(DOUBLE_PAGE_SIZE, size, bigArrays, clearOnResize);
+    }
+
+    @Override
+    public double get(long index) {
+        return page(index).getDouble(offsetInPage(index));
+    }
+
+    @Override
+    public double set(long index, double value) {
+        final ByteBuffer page = page(index);
+        final int offset = offsetInPage(index);
+        final double ret = page.getDouble(offset);
+        page.putDouble(offset, value);
+        return ret;
+    }
+
+    @Override
+    public double increment(long index, double inc) {
+        final ByteBuffer page = page(index);
+        final int offset = offsetInPage(index);
+        final double newVal = page.getDouble(offset) + inc;
+        page.putDouble(offset, newVal);
+        return newVal;
+    }
+
+    @Override
+    protected int numBytesPerElement() {
+        return Double.BYTES;
+    }
+
+    @Override
+    public void fill(long fromIndex, long toIndex, double value) {
+        if (fromIndex > toIndex) {
+            throw new IllegalArgumentException();
+        }
+        if (fromIndex == toIndex) {
+            return; // empty range
+        }
+        set(fromIndex, value);
+        fillBySelfCopy(fromIndex, toIndex);
+    }
+
+    @Override
+    public void set(long index, byte[] buf, int offset, int len) {
+        setBytes(index, buf, offset, len);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.common.util;
+
+import java.nio.ByteBuffer;
+
+import static org.elasticsearch.common.util.PageCacheRecycler.INT_PAGE_SIZE;
+
+/**
+ * Int array abstraction able to support more than 2B values. This implementation slices data into fixed-sized pages
+ * allocated outside of the heap.
+ */
+final class DirectBigIntArray extends AbstractDirectBigArray implements IntArray {
+
+    /** Constructor. */
+    DirectBigIntArray(long size, BigArrays bigArrays, boolean clearOnResize) {
+        super(INT_PAGE_SIZE, size, bigArrays, clearOnResize);
+    }
+
+    @Override
+    public int get(long index) {
+        return page(index).getInt(offsetInPage(index));
+    }
+
+    @Override
+    public int set(long index, int value) {
+        final ByteBuffer page = page(index);
+        final int offset = offsetInPage(index);
+        final int ret = page.getInt(offset);
+        page.putInt(offset, value);
+        return ret;
+    }
+
+    @Override
+    public int increment(long index, int inc) {
+        final ByteBuffer page = page(index);
+        final int offset = offsetInPage(index);
+        final int newVal = page.getInt(offset) + inc;
+        page.putInt(offset, newVal);
+        return newVal;
+    }
+
+    @Override
+    protected int numBytesPerElement() {
+        return Integer.BYTES;
+    }
+
+    @Override
+    public void fill(long fromIndex, long toIndex, int value) {
+        if (fromIndex > toIndex) {
+            throw new IllegalArgumentException();
+        }
+        if (fromIndex == toIndex) {
+            return; // empty range
+        }
+        set(fromIndex, value);
+        fillBySelfCopy(fromIndex, toIndex);
+    }
+
+    @Override
+    public void set(long index, byte[] buf, int offset, int len) {
+        setBytes(index, buf, offset, len);
+    }
+}
@@ -17,6 +17,8 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.concurrent.EsExecutors;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Arrays;
 import java.util.Locale;
 
@@ -59,6 +61,18 @@ public class PageCacheRecycler {
         Property.NodeScope,
         Property.DeprecatedWarning
     );
+    /**
+     * Whether big arrays of primitives should be backed by direct pages that live outside of the heap.
+     */
+    public static final Setting<Boolean> OFF_HEAP_SETTING = Setting.boolSetting("cache.recycler.page.off_heap", false, Property.NodeScope);
+    /**
+     * The maximum amount of direct pages to keep for reuse. Defaults to the limit of the heap pages.
+     */
+    public static final Setting<ByteSizeValue> LIMIT_DIRECT_SETTING = Setting.byteSizeSetting(
+        "cache.recycler.page.limit.direct",
+        s -> LIMIT_HEAP_SETTING.get(s).getStringRep(),
+        Property.NodeScope
+    );
     // object pages are less useful to us so we give them a lower weight by default
     public static final Setting<Double> WEIGHT_OBJECTS_SETTING = Setting.doubleSetting(
         "cache.recycler.page.weight.objects",
@@ -76,8 +90,11 @@ public class PageCacheRecycler {
     public static final int DOUBLE_PAGE_SIZE = PAGE_SIZE_IN_BYTES / Double.BYTES;
     public static final int BYTE_PAGE_SIZE = PAGE_SIZE_IN_BYTES;
 
+    private static final byte[] ZERO_PAGE = new byte[PAGE_SIZE_IN_BYTES];
+
     private final Recycler<byte[]> bytePage;
     private final Recycler<Object[]> objectPage;
+    private final Recycler<ByteBuffer> directPage;
 
     public static final PageCacheRecycler NON_RECYCLING_INSTANCE;
 
@@ -125,6 +142,32 @@ public class PageCacheRecycler {
         });
 
         assert PAGE_SIZE_IN_BYTES * (maxBytePageCount + maxObjectPageCount) <= limit;
+
+        if (OFF_HEAP_SETTING.get(settings)) {
+            final long directLimit = LIMIT_DIRECT_SETTING.get(settings).getBytes();
+            final int maxDirectPageCount = (int) Math.min(Integer.MAX_VALUE, directLimit / PAGE_SIZE_IN_BYTES);
+            directPage = build(type, maxDirectPageCount, allocatedProcessors, new AbstractRecyclerC<ByteBuffer>() {
+                @Override
+                public ByteBuffer newInstance() {
+                    // direct buffers are zeroed on allocation
+                    return ByteBuffer.allocateDirect(PAGE_SIZE_IN_BYTES).order(ByteOrder.nativeOrder());
+                }
+
+                @Override
+                public void recycle(ByteBuffer value) {
+                    // nothing to do
+                }
+            });
+        } else {
+            directPage = null;
+        }
+    }
+
+    /**
+     * Whether this recycler hands out {@link #directPage(boolean) direct pages}.
+     */
+    public boolean isOffHeap() {
+        return directPage != null;
     }
 
     public Recycler.V<byte[]> bytePage(boolean clear) {
@@ -135,6 +178,21 @@ public class PageCacheRecycler {
         return v;
     }
 
+    /**
+     * Obtain a page of {@link #PAGE_SIZE_IN_BYTES} bytes allocated outside of the heap, in native byte order.
+     * Only available if {@link #isOffHeap()}.
+     */
+    public Recycler.V<ByteBuffer> directPage(boolean clear) {
+        if (directPage == null) {
+            throw new IllegalStateException("direct pages are disabled, see [" + OFF_HEAP_SETTING.getKey() + "]");
+        }
+        final Recycler.V<ByteBuffer> v = directPage.obtain();
+        if (v.isRecycled() && clear) {
+            v.v().put(0, ZERO_PAGE);
+        }
+        return v;
+    }
+
     public Recycler.V<Object[]> objectPage() {
         // object pages are cleared on release anyway
         return objectPage.obtain();
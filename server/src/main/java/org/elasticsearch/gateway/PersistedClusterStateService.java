@@ -42,12 +42,19 @@ import org.apache.lucene.util.BytesRefIterator;
 import org.apache.lucene.util.SetOnce;
 import org.elasticsearch.Version;
 import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.Diff;
 import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.cluster.metadata.MappingMetadata;
 import org.elasticsearch.cluster.metadata.Metadata;
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.bytes.RecyclingBytesStreamOutput;
+import org.elasticsearch.common.compress.CompressedXContent;
 import org.elasticsearch.common.io.Streams;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.NamedWriteableAwareStreamInput;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.settings.ClusterSettings;
@@ -66,6 +73,7 @@ import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.env.NodeEnvironment;
 import org.elasticsearch.env.NodeMetadata;
 import org.elasticsearch.index.Index;
+import org.elasticsearch.indices.IndicesModule;
 import org.elasticsearch.xcontent.NamedXContentRegistry;
 import org.elasticsearch.xcontent.ToXContent;
 import org.elasticsearch.xcontent.XContentBuilder;
@@ -82,10 +90,9 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.Objects;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.IntPredicate;
 import java.util.function.LongSupplier;
@@ -103,6 +110,19 @@ import java.util.function.Supplier;
  * | INDEX_TYPE_NAME  == "index"  | Index UUID                  | Index metadata                               |
  * +------------------------------+-----------------------------+----------------------------------------------+
  *
+ * If {@link #INCREMENTAL_PERSISTENCE_SETTING} is enabled then the index documents refer to their mapping by its hash, and the index also
+ * has the following documents:
+ *
+ * +-------------------------------------+-----------------------------------+------------------------------------------------------------+
+ * | "type" (string field)               | key (stored string field)         | "data" (stored binary field)                               |
+ * +-------------------------------------+-----------------------------------+------------------------------------------------------------+
+ * | MAPPING_TYPE_NAME    == "mapping"   | "mapping_hash": mapping hash      | Compressed mapping, shared by every index that uses it     |
+ * | INDEX_DIFF_TYPE_NAME == "index_diff"| "index_uuid": Index UUID          | Diff of the index metadata from the version "from_version" |
+ * +-------------------------------------+-----------------------------------+------------------------------------------------------------+
+ *
+ * An index whose metadata changes is then recorded by appending a diff rather than by rewriting its whole metadata. Its diffs are compacted
+ * into a new index document when its mapping changes or when there are {@link #MAX_DIFFS_PER_INDEX_SETTING} of them already.
+ *
  * Additionally each commit has the following user data:
  *
  * +---------------------------+-------------------------+-------------------------------------------------------------------------------+
@@ -127,6 +147,10 @@ public class PersistedClusterStateService {
     private static final String GLOBAL_TYPE_NAME = "global";
     private static final String INDEX_TYPE_NAME = "index";
     private static final String INDEX_UUID_FIELD_NAME = "index_uuid";
+    private static final String MAPPING_TYPE_NAME = "mapping";
+    private static final String MAPPING_HASH_FIELD_NAME = "mapping_hash";
+    private static final String INDEX_DIFF_TYPE_NAME = "index_diff";
+    private static final String FROM_VERSION_FIELD_NAME = "from_version";
     private static final int COMMIT_DATA_SIZE = 4;
 
     private static final MergePolicy NO_MERGE_POLICY = noMergePolicy();
@@ -142,11 +166,33 @@ public class PersistedClusterStateService {
         Setting.Property.Dynamic
     );
 
+    /**
+     * Whether to store each distinct mapping once and to record changes to index metadata as diffs. Nodes on versions that do not support
+     * this format cannot read the metadata it writes.
+     */
+    public static final Setting<Boolean> INCREMENTAL_PERSISTENCE_SETTING = Setting.boolSetting(
+        "gateway.metadata_persistence.incremental",
+        false,
+        Setting.Property.NodeScope
+    );
+
+    public static final Setting<Integer> MAX_DIFFS_PER_INDEX_SETTING = Setting.intSetting(
+        "gateway.metadata_persistence.max_diffs_per_index",
+        16,
+        1,
+        Setting.Property.NodeScope
+    );
+
+    // index metadata diffs may contain rollover conditions, which are named writeables
+    private static final NamedWriteableRegistry NAMED_WRITEABLE_REGISTRY = new NamedWriteableRegistry(IndicesModule.getNamedWriteables());
+
     private final Path[] dataPaths;
     private final String nodeId;
     private final XContentParserConfiguration parserConfig;
     private final BigArrays bigArrays;
     private final LongSupplier relativeTimeMillisSupplier;
+    private final boolean incrementalPersistence;
+    private final int maxDiffsPerIndex;
 
     private volatile TimeValue slowWriteLoggingThreshold;
 
@@ -183,6 +229,8 @@ public class PersistedClusterStateService {
         this.relativeTimeMillisSupplier = relativeTimeMillisSupplier;
         this.slowWriteLoggingThreshold = clusterSettings.get(SLOW_WRITE_LOGGING_THRESHOLD);
         clusterSettings.addSettingsUpdateConsumer(SLOW_WRITE_LOGGING_THRESHOLD, this::setSlowWriteLoggingThreshold);
+        this.incrementalPersistence = clusterSettings.get(INCREMENTAL_PERSISTENCE_SETTING);
+        this.maxDiffsPerIndex = clusterSettings.get(MAX_DIFFS_PER_INDEX_SETTING);
     }
 
     private void setSlowWriteLoggingThreshold(TimeValue slowWriteLoggingThreshold) {
@@ -215,7 +263,15 @@ public class PersistedClusterStateService {
                 IOUtils.closeWhileHandlingException(closeables);
             }
         }
-        return new Writer(metadataIndexWriters, nodeId, bigArrays, relativeTimeMillisSupplier, () -> slowWriteLoggingThreshold);
+        return new Writer(
+            metadataIndexWriters,
+            nodeId,
+            bigArrays,
+            relativeTimeMillisSupplier,
+            () -> slowWriteLoggingThreshold,
+            incrementalPersistence,
+            maxDiffsPerIndex
+        );
     }
 
     private static IndexWriter createIndexWriter(Directory directory, boolean openExisting) throws IOException {
@@ -481,20 +537,82 @@ public class PersistedClusterStateService {
             throw new CorruptStateException("no global metadata found in [" + dataPath + "]");
         }
 
-        logger.trace("got global metadata, now reading index metadata");
+        logger.trace("got global metadata, now reading mappings");
+
+        final Map<String, MappingMetadata> mappingsByHash = new HashMap<>();
+        consumeDocumentsFromType(searcher, MAPPING_TYPE_NAME, document -> {
+            final String mappingHash = document.get(MAPPING_HASH_FIELD_NAME);
+            final BytesRef bytes = document.getBinaryValue(DATA_FIELD_NAME);
+            final MappingMetadata mappingMetadata = new MappingMetadata(
+                new CompressedXContent(new BytesArray(bytes.bytes, bytes.offset, bytes.length))
+            );
+            if (mappingMetadata.getSha256().equals(mappingHash) == false) {
+                throw new CorruptStateException(
+                    "mapping with hash [" + mappingHash + "] has content hash [" + mappingMetadata.getSha256() + "] in [" + dataPath + "]"
+                );
+            }
+            if (mappingsByHash.put(mappingHash, mappingMetadata) != null) {
+                throw new CorruptStateException("duplicate mapping found for hash [" + mappingHash + "] in [" + dataPath + "]");
+            }
+        });
 
-        final Set<String> indexUUIDs = new HashSet<>();
+        logger.trace("got [{}] mappings, now reading index metadata", mappingsByHash.size());
+
+        final Map<String, IndexMetadata> indexMetadataByUUID = new HashMap<>();
         consumeFromType(searcher, INDEX_TYPE_NAME, bytes -> {
-            final IndexMetadata indexMetadata = IndexMetadata.fromXContent(
-                XContentType.SMILE.xContent().createParser(parserConfig, bytes.bytes, bytes.offset, bytes.length)
+            final IndexMetadata indexMetadata = IndexMetadata.Builder.fromXContent(
+                XContentType.SMILE.xContent().createParser(parserConfig, bytes.bytes, bytes.offset, bytes.length),
+                mappingsByHash
             );
             logger.trace("found index metadata for {}", indexMetadata.getIndex());
-            if (indexUUIDs.add(indexMetadata.getIndexUUID()) == false) {
+            if (indexMetadataByUUID.putIfAbsent(indexMetadata.getIndexUUID(), indexMetadata) != null) {
                 throw new CorruptStateException("duplicate metadata found for " + indexMetadata.getIndex() + " in [" + dataPath + "]");
             }
-            builder.put(indexMetadata, false);
         });
 
+        final Map<String, Map<Long, BytesRef>> diffsByIndexUUID = new HashMap<>();
+        consumeDocumentsFromType(searcher, INDEX_DIFF_TYPE_NAME, document -> {
+            final String indexUUID = document.get(INDEX_UUID_FIELD_NAME);
+            final long fromVersion = document.getField(FROM_VERSION_FIELD_NAME).numericValue().longValue();
+            final Map<Long, BytesRef> diffs = diffsByIndexUUID.computeIfAbsent(indexUUID, k -> new HashMap<>());
+            if (diffs.put(fromVersion, document.getBinaryValue(DATA_FIELD_NAME)) != null) {
+                throw new CorruptStateException(
+                    "duplicate metadata diff found for [" + indexUUID + "] from version [" + fromVersion + "] in [" + dataPath + "]"
+                );
+            }
+        });
+
+        for (Map.Entry<String, Map<Long, BytesRef>> entry : diffsByIndexUUID.entrySet()) {
+            IndexMetadata indexMetadata = indexMetadataByUUID.get(entry.getKey());
+            if (indexMetadata == null) {
+                throw new CorruptStateException("metadata diffs found for missing index [" + entry.getKey() + "] in [" + dataPath + "]");
+            }
+            final Map<Long, BytesRef> diffs = entry.getValue();
+            BytesRef diff;
+            while ((diff = diffs.remove(indexMetadata.getVersion())) != null) {
+                indexMetadata = readIndexMetadataDiff(diff).apply(indexMetadata);
+            }
+            if (diffs.isEmpty() == false) {
+                throw new CorruptStateException(
+                    "metadata diffs for "
+                        + indexMetadata.getIndex()
+                        + " from versions "
+                        + diffs.keySet()
+                        + " do not apply to version ["
+                        + indexMetadata.getVersion()
+                        + "] in ["
+                        + dataPath
+                        + "]"
+                );
+            }
+            logger.trace("applied [{}] metadata diffs to {}", entry.getValue().size(), indexMetadata.getIndex());
+            indexMetadataByUUID.put(entry.getKey(), indexMetadata);
+        }
+
+        for (IndexMetadata indexMetadata : indexMetadataByUUID.values()) {
+            builder.put(indexMetadata, false);
+        }
+
         final Map<String, String> userData = reader.getIndexCommit().getUserData();
         logger.trace("loaded metadata [{}] from [{}]", userData, reader.directory());
         assert userData.size() == COMMIT_DATA_SIZE : userData;
@@ -511,8 +629,28 @@ public class PersistedClusterStateService {
         );
     }
 
+    private static Diff<IndexMetadata> readIndexMetadataDiff(BytesRef bytes) throws IOException {
+        try (
+            StreamInput in = new NamedWriteableAwareStreamInput(
+                StreamInput.wrap(bytes.bytes, bytes.offset, bytes.length),
+                NAMED_WRITEABLE_REGISTRY
+            )
+        ) {
+            in.setVersion(Version.readVersion(in));
+            return IndexMetadata.readDiffFrom(in);
+        }
+    }
+
     private static void consumeFromType(IndexSearcher indexSearcher, String type, CheckedConsumer<BytesRef, IOException> bytesRefConsumer)
         throws IOException {
+        consumeDocumentsFromType(indexSearcher, type, document -> bytesRefConsumer.accept(document.getBinaryValue(DATA_FIELD_NAME)));
+    }
+
+    private static void consumeDocumentsFromType(
+        IndexSearcher indexSearcher,
+        String type,
+        CheckedConsumer<Document, IOException> documentConsumer
+    ) throws IOException {
 
         final Query query = new TermQuery(new Term(TYPE_FIELD_NAME, type));
         final Weight weight = indexSearcher.createWeight(query, ScoreMode.COMPLETE_NO_SCORES, 0.0f);
@@ -528,9 +666,7 @@ public class PersistedClusterStateService {
                 while (docIdSetIterator.nextDoc() != DocIdSetIterator.NO_MORE_DOCS) {
                     if (isLiveDoc.test(docIdSetIterator.docID())) {
                         logger.trace("processing doc {}", docIdSetIterator.docID());
-                        bytesRefConsumer.accept(
-                            leafReaderContext.reader().document(docIdSetIterator.docID()).getBinaryValue(DATA_FIELD_NAME)
-                        );
+                        documentConsumer.accept(leafReaderContext.reader().document(docIdSetIterator.docID()));
                     }
                 }
             }
@@ -538,12 +674,15 @@ public class PersistedClusterStateService {
     }
 
     private static final ToXContent.Params FORMAT_PARAMS;
+    private static final ToXContent.Params DEDUPLICATED_MAPPINGS_FORMAT_PARAMS;
 
     static {
-        Map<String, String> params = new HashMap<>(2);
+        Map<String, String> params = new HashMap<>(3);
         params.put("binary", "true");
         params.put(Metadata.CONTEXT_MODE_PARAM, Metadata.CONTEXT_MODE_GATEWAY);
         FORMAT_PARAMS = new ToXContent.MapParams(params);
+        params.put(Metadata.DEDUPLICATED_MAPPINGS_PARAM, "true");
+        DEDUPLICATED_MAPPINGS_FORMAT_PARAMS = new ToXContent.MapParams(params);
     }
 
     @SuppressForbidden(reason = "merges are only temporarily suppressed, the merge scheduler does not need changing")
@@ -589,16 +728,33 @@ public class PersistedClusterStateService {
             this.indexWriter.deleteAll();
         }
 
+        // replaces any diffs of the index metadata too, since they are keyed by the same index UUID
         void updateIndexMetadataDocument(Document indexMetadataDocument, Index index) throws IOException {
             this.logger.trace("updating metadata for [{}]", index);
             indexWriter.updateDocument(new Term(INDEX_UUID_FIELD_NAME, index.getUUID()), indexMetadataDocument);
         }
 
+        void addIndexMetadataDiffDocument(Document indexMetadataDiffDocument, Index index) throws IOException {
+            this.logger.trace("adding metadata diff for [{}]", index);
+            indexWriter.addDocument(indexMetadataDiffDocument);
+        }
+
+        void updateMappingDocument(Document mappingDocument, String mappingHash) throws IOException {
+            this.logger.trace("updating mapping [{}]", mappingHash);
+            indexWriter.updateDocument(new Term(MAPPING_HASH_FIELD_NAME, mappingHash), mappingDocument);
+        }
+
+        void deleteMapping(String mappingHash) throws IOException {
+            this.logger.trace("removing mapping [{}]", mappingHash);
+            indexWriter.deleteDocuments(new Term(MAPPING_HASH_FIELD_NAME, mappingHash));
+        }
+
         void updateGlobalMetadata(Document globalMetadataDocument) throws IOException {
             this.logger.trace("updating global metadata doc");
             indexWriter.updateDocument(new Term(TYPE_FIELD_NAME, GLOBAL_TYPE_NAME), globalMetadataDocument);
         }
 
+        // also removes any diffs of the index metadata, since they are keyed by the same index UUID
         void deleteIndexMetadata(String indexUUID) throws IOException {
             this.logger.trace("removing metadata for [{}]", indexUUID);
             indexWriter.deleteDocuments(new Term(INDEX_UUID_FIELD_NAME, indexUUID));
@@ -644,6 +800,11 @@ public class PersistedClusterStateService {
         private final BigArrays bigArrays;
         private final LongSupplier relativeTimeMillisSupplier;
         private final Supplier<TimeValue> slowWriteLoggingThresholdSupplier;
+        private final boolean incrementalPersistence;
+        private final int maxDiffsPerIndex;
+
+        // The number of diffs written for each index since its metadata was last written in full.
+        private final Map<String, Integer> diffCountByIndexUUID = new HashMap<>();
 
         boolean fullStateWritten = false;
         private final AtomicBoolean closed = new AtomicBoolean();
@@ -657,13 +818,17 @@ public class PersistedClusterStateService {
             String nodeId,
             BigArrays bigArrays,
             LongSupplier relativeTimeMillisSupplier,
-            Supplier<TimeValue> slowWriteLoggingThresholdSupplier
+            Supplier<TimeValue> slowWriteLoggingThresholdSupplier,
+            boolean incrementalPersistence,
+            int maxDiffsPerIndex
         ) {
             this.metadataIndexWriters = metadataIndexWriters;
             this.nodeId = nodeId;
             this.bigArrays = bigArrays;
             this.relativeTimeMillisSupplier = relativeTimeMillisSupplier;
             this.slowWriteLoggingThresholdSupplier = slowWriteLoggingThresholdSupplier;
+            this.incrementalPersistence = incrementalPersistence;
+            this.maxDiffsPerIndex = maxDiffsPerIndex;
         }
 
         private void ensureOpen() {
@@ -796,46 +961,81 @@ public class PersistedClusterStateService {
                     }
                 }
 
-                final Map<String, Long> indexMetadataVersionByUUID = new HashMap<>(previouslyWrittenMetadata.indices().size());
+                if (incrementalPersistence) {
+                    // add the new mappings before any index metadata that refers to them
+                    final Map<String, MappingMetadata> previousMappingsByHash = previouslyWrittenMetadata.getMappingsByHash();
+                    for (MappingMetadata mappingMetadata : metadata.getMappingsByHash().values()) {
+                        if (previousMappingsByHash.containsKey(mappingMetadata.getSha256()) == false) {
+                            final Document mappingDocument = makeMappingDocument(mappingMetadata);
+                            for (MetadataIndexWriter metadataIndexWriter : metadataIndexWriters) {
+                                metadataIndexWriter.updateMappingDocument(mappingDocument, mappingMetadata.getSha256());
+                            }
+                        }
+                    }
+                }
+
+                final Map<String, IndexMetadata> indexMetadataByUUID = new HashMap<>(previouslyWrittenMetadata.indices().size());
                 for (IndexMetadata indexMetadata : previouslyWrittenMetadata.indices().values()) {
-                    final Long previousValue = indexMetadataVersionByUUID.putIfAbsent(
-                        indexMetadata.getIndexUUID(),
-                        indexMetadata.getVersion()
-                    );
+                    final IndexMetadata previousValue = indexMetadataByUUID.putIfAbsent(indexMetadata.getIndexUUID(), indexMetadata);
                     assert previousValue == null : indexMetadata.getIndexUUID() + " already mapped to " + previousValue;
                 }
 
                 int numIndicesUpdated = 0;
                 int numIndicesUnchanged = 0;
                 for (IndexMetadata indexMetadata : metadata.indices().values()) {
-                    final Long previousVersion = indexMetadataVersionByUUID.get(indexMetadata.getIndexUUID());
-                    if (previousVersion == null || indexMetadata.getVersion() != previousVersion) {
+                    final IndexMetadata previousIndexMetadata = indexMetadataByUUID.get(indexMetadata.getIndexUUID());
+                    if (previousIndexMetadata == null || indexMetadata.getVersion() != previousIndexMetadata.getVersion()) {
                         logger.trace(
                             "updating metadata for [{}], changing version from [{}] to [{}]",
                             indexMetadata.getIndex(),
-                            previousVersion,
+                            previousIndexMetadata == null ? null : previousIndexMetadata.getVersion(),
                             indexMetadata.getVersion()
                         );
                         numIndicesUpdated++;
-                        final Document indexMetadataDocument = makeIndexMetadataDocument(indexMetadata, documentBuffer);
-                        for (MetadataIndexWriter metadataIndexWriter : metadataIndexWriters) {
-                            metadataIndexWriter.updateIndexMetadataDocument(indexMetadataDocument, indexMetadata.getIndex());
+                        if (shouldWriteDiff(previousIndexMetadata, indexMetadata)) {
+                            diffCountByIndexUUID.merge(indexMetadata.getIndexUUID(), 1, Integer::sum);
+                            final Document indexMetadataDiffDocument = makeIndexMetadataDiffDocument(
+                                previousIndexMetadata,
+                                indexMetadata,
+                                documentBuffer
+                            );
+                            for (MetadataIndexWriter metadataIndexWriter : metadataIndexWriters) {
+                                metadataIndexWriter.addIndexMetadataDiffDocument(indexMetadataDiffDocument, indexMetadata.getIndex());
+                            }
+                        } else {
+                            diffCountByIndexUUID.remove(indexMetadata.getIndexUUID());
+                            final Document indexMetadataDocument = makeIndexMetadataDocument(indexMetadata, documentBuffer);
+                            for (MetadataIndexWriter metadataIndexWriter : metadataIndexWriters) {
+                                metadataIndexWriter.updateIndexMetadataDocument(indexMetadataDocument, indexMetadata.getIndex());
+                            }
                         }
                     } else {
                         numIndicesUnchanged++;
                         logger.trace("no action required for [{}]", indexMetadata.getIndex());
                     }
-                    indexMetadataVersionByUUID.remove(indexMetadata.getIndexUUID());
+                    indexMetadataByUUID.remove(indexMetadata.getIndexUUID());
                 }
 
                 documentBufferUsed = documentBuffer.getMaxUsed();
 
-                for (String removedIndexUUID : indexMetadataVersionByUUID.keySet()) {
+                for (String removedIndexUUID : indexMetadataByUUID.keySet()) {
+                    diffCountByIndexUUID.remove(removedIndexUUID);
                     for (MetadataIndexWriter metadataIndexWriter : metadataIndexWriters) {
                         metadataIndexWriter.deleteIndexMetadata(removedIndexUUID);
                     }
                 }
 
+                if (incrementalPersistence) {
+                    final Map<String, MappingMetadata> mappingsByHash = metadata.getMappingsByHash();
+                    for (String previousMappingHash : previouslyWrittenMetadata.getMappingsByHash().keySet()) {
+                        if (mappingsByHash.containsKey(previousMappingHash) == false) {
+                            for (MetadataIndexWriter metadataIndexWriter : metadataIndexWriters) {
+                                metadataIndexWriter.deleteMapping(previousMappingHash);
+                            }
+                        }
+                    }
+                }
+
                 // Flush, to try and expose a failure (e.g. out of disk space) before committing, because we can handle a failure here more
                 // gracefully than one that occurs during the commit process.
                 for (MetadataIndexWriter metadataIndexWriter : metadataIndexWriters) {
@@ -846,6 +1046,27 @@ public class PersistedClusterStateService {
             }
         }
 
+        /**
+         * Whether to record the change to the metadata of an index as a diff rather than by rewriting its metadata in full.
+         */
+        private boolean shouldWriteDiff(@Nullable IndexMetadata previousIndexMetadata, IndexMetadata indexMetadata) {
+            if (incrementalPersistence == false || previousIndexMetadata == null) {
+                return false;
+            }
+            // the index document refers to the mapping by its hash, so the document must be rewritten when the mapping changes
+            if (Objects.equals(mappingHash(previousIndexMetadata), mappingHash(indexMetadata)) == false) {
+                return false;
+            }
+            // compact the diffs into a new index document once there are enough of them, to bound the work needed to load the index
+            return diffCountByIndexUUID.getOrDefault(indexMetadata.getIndexUUID(), 0) < maxDiffsPerIndex;
+        }
+
+        @Nullable
+        private static String mappingHash(IndexMetadata indexMetadata) {
+            final MappingMetadata mappingMetadata = indexMetadata.mapping();
+            return mappingMetadata == null ? null : mappingMetadata.getSha256();
+        }
+
         /**
          * Update the persisted metadata to match the given cluster state by removing all existing documents and then adding new documents.
          */
@@ -853,6 +1074,7 @@ public class PersistedClusterStateService {
             for (MetadataIndexWriter metadataIndexWriter : metadataIndexWriters) {
                 metadataIndexWriter.deleteAll();
             }
+            diffCountByIndexUUID.clear();
             return addMetadata(metadata);
         }
 
@@ -867,6 +1089,15 @@ public class PersistedClusterStateService {
                     metadataIndexWriter.updateGlobalMetadata(globalMetadataDocument);
                 }
 
+                if (incrementalPersistence) {
+                    for (MappingMetadata mappingMetadata : metadata.getMappingsByHash().values()) {
+                        final Document mappingDocument = makeMappingDocument(mappingMetadata);
+                        for (MetadataIndexWriter metadataIndexWriter : metadataIndexWriters) {
+                            metadataIndexWriter.updateMappingDocument(mappingDocument, mappingMetadata.getSha256());
+                        }
+                    }
+                }
+
                 for (IndexMetadata indexMetadata : metadata.indices().values()) {
                     final Document indexMetadataDocument = makeIndexMetadataDocument(indexMetadata, documentBuffer);
                     for (MetadataIndexWriter metadataIndexWriter : metadataIndexWriters) {
@@ -957,18 +1188,51 @@ public class PersistedClusterStateService {
         }
 
         private Document makeIndexMetadataDocument(IndexMetadata indexMetadata, DocumentBuffer documentBuffer) throws IOException {
-            final Document indexMetadataDocument = makeDocument(INDEX_TYPE_NAME, indexMetadata, documentBuffer);
+            final Document indexMetadataDocument = makeDocument(
+                INDEX_TYPE_NAME,
+                indexMetadata,
+                documentBuffer,
+                incrementalPersistence ? DEDUPLICATED_MAPPINGS_FORMAT_PARAMS : FORMAT_PARAMS
+            );
             final String indexUUID = indexMetadata.getIndexUUID();
             assert indexUUID.equals(IndexMetadata.INDEX_UUID_NA_VALUE) == false;
             indexMetadataDocument.add(new StringField(INDEX_UUID_FIELD_NAME, indexUUID, Field.Store.NO));
             return indexMetadataDocument;
         }
 
+        private Document makeIndexMetadataDiffDocument(
+            IndexMetadata previousIndexMetadata,
+            IndexMetadata indexMetadata,
+            DocumentBuffer documentBuffer
+        ) throws IOException {
+            final Document document = new Document();
+            document.add(new StringField(TYPE_FIELD_NAME, INDEX_DIFF_TYPE_NAME, Field.Store.NO));
+            document.add(new StringField(INDEX_UUID_FIELD_NAME, indexMetadata.getIndexUUID(), Field.Store.YES));
+            document.add(new StoredField(FROM_VERSION_FIELD_NAME, previousIndexMetadata.getVersion()));
+
+            try (RecyclingBytesStreamOutput streamOutput = documentBuffer.streamOutput()) {
+                Version.writeVersion(Version.CURRENT, streamOutput);
+                indexMetadata.diff(previousIndexMetadata).writeTo(streamOutput);
+                document.add(new StoredField(DATA_FIELD_NAME, streamOutput.toBytesRef()));
+            }
+
+            return document;
+        }
+
+        private static Document makeMappingDocument(MappingMetadata mappingMetadata) {
+            final Document document = new Document();
+            document.add(new StringField(TYPE_FIELD_NAME, MAPPING_TYPE_NAME, Field.Store.NO));
+            document.add(new StringField(MAPPING_HASH_FIELD_NAME, mappingMetadata.getSha256(), Field.Store.YES));
+            document.add(new StoredField(DATA_FIELD_NAME, new BytesRef(mappingMetadata.source().compressed())));
+            return document;
+        }
+
         private Document makeGlobalMetadataDocument(Metadata metadata, DocumentBuffer documentBuffer) throws IOException {
-            return makeDocument(GLOBAL_TYPE_NAME, metadata, documentBuffer);
+            return makeDocument(GLOBAL_TYPE_NAME, metadata, documentBuffer, FORMAT_PARAMS);
         }
 
-        private Document makeDocument(String typeName, ToXContent metadata, DocumentBuffer documentBuffer) throws IOException {
+        private Document makeDocument(String typeName, ToXContent metadata, DocumentBuffer documentBuffer, ToXContent.Params params)
+            throws IOException {
             final Document document = new Document();
             document.add(new StringField(TYPE_FIELD_NAME, typeName, Field.Store.NO));
 
@@ -980,7 +1244,7 @@ public class PersistedClusterStateService {
                     )
                 ) {
                     xContentBuilder.startObject();
-                    metadata.toXContent(xContentBuilder, FORMAT_PARAMS);
+                    metadata.toXContent(xContentBuilder, params);
                     xContentBuilder.endObject();
                 }
                 document.add(new StoredField(DATA_FIELD_NAME, streamOutput.toBytesRef()));
@@ -99,6 +99,26 @@ public final class IndexSettings {
         Property.Dynamic,
         Property.IndexScope
     );
+    /**
+     * Whether the translog buffers the operations it hasn't written to disk yet in pooled direct buffers, which are written
+     * to the translog file with a single gathering write, rather than in heap buffers that are copied to an I/O buffer first.
+     */
+    public static final Setting<Boolean> INDEX_TRANSLOG_DIRECT_BUFFERS_SETTING = Setting.boolSetting(
+        "index.translog.direct_buffers",
+        false,
+        Property.Dynamic,
+        Property.IndexScope
+    );
+    /**
+     * Whether snapshots of the translog, which are used to replay the translog when a shard recovers, read the operations of
+     * the completed translog generations from a memory mapping of their files rather than from the file channel.
+     */
+    public static final Setting<Boolean> INDEX_TRANSLOG_MMAP_SNAPSHOTS_SETTING = Setting.boolSetting(
+        "index.translog.mmap_snapshots",
+        false,
+        Property.Dynamic,
+        Property.IndexScope
+    );
     public static final Setting<Boolean> INDEX_WARMER_ENABLED_SETTING = Setting.boolSetting(
         "index.warmer.enabled",
         true,
@@ -330,6 +350,18 @@ public final class IndexSettings {
         Property.Final
     );
 
+    /**
+     * Specifies if the index only accepts new documents with auto-generated ids, as the backing indices of data streams usually do.
+     * Operations that address an existing document by id (updates, deletes and indexing with an explicit id) are rejected on the
+     * primary, which lets the engine index without maintaining the live version map for the documents and without pruning it.
+     */
+    public static final Setting<Boolean> INDEX_APPEND_ONLY_SETTING = Setting.boolSetting(
+        "index.append_only",
+        false,
+        Property.IndexScope,
+        Property.Final
+    );
+
     /**
      * Controls how many soft-deleted documents will be kept around before being merged away. Keeping more deleted
      * documents increases the chance of operation-based recoveries and allows querying a longer history of documents.
@@ -576,6 +608,8 @@ public final class IndexSettings {
     private final boolean defaultAllowUnmappedFields;
     private volatile Translog.Durability durability;
     private volatile TimeValue syncInterval;
+    private volatile boolean translogDirectBuffers;
+    private volatile boolean translogMmapSnapshots;
     private volatile TimeValue refreshInterval;
     private volatile ByteSizeValue flushThresholdSize;
     private volatile ByteSizeValue generationThresholdSize;
@@ -586,6 +620,7 @@ public final class IndexSettings {
     private final IndexScopedSettings scopedSettings;
     private long gcDeletesInMillis = DEFAULT_GC_DELETES.millis();
     private final boolean softDeleteEnabled;
+    private final boolean appendOnly;
     private volatile long softDeleteRetentionOperations;
 
     private volatile long retentionLeaseMillis;
@@ -716,6 +751,8 @@ public final class IndexSettings {
         this.durability = scopedSettings.get(INDEX_TRANSLOG_DURABILITY_SETTING);
         defaultFields = scopedSettings.get(DEFAULT_FIELD_SETTING);
         syncInterval = INDEX_TRANSLOG_SYNC_INTERVAL_SETTING.get(settings);
+        translogDirectBuffers = scopedSettings.get(INDEX_TRANSLOG_DIRECT_BUFFERS_SETTING);
+        translogMmapSnapshots = scopedSettings.get(INDEX_TRANSLOG_MMAP_SNAPSHOTS_SETTING);
         refreshInterval = scopedSettings.get(INDEX_REFRESH_INTERVAL_SETTING);
         flushThresholdSize = scopedSettings.get(INDEX_TRANSLOG_FLUSH_THRESHOLD_SIZE_SETTING);
         generationThresholdSize = scopedSettings.get(INDEX_TRANSLOG_GENERATION_THRESHOLD_SIZE_SETTING);
@@ -724,6 +761,7 @@ public final class IndexSettings {
         gcDeletesInMillis = scopedSettings.get(INDEX_GC_DELETES_SETTING).getMillis();
         softDeleteEnabled = scopedSettings.get(INDEX_SOFT_DELETES_SETTING);
         assert softDeleteEnabled || version.before(Version.V_8_0_0) : "soft deletes must be enabled in version " + version;
+        appendOnly = scopedSettings.get(INDEX_APPEND_ONLY_SETTING);
         softDeleteRetentionOperations = scopedSettings.get(INDEX_SOFT_DELETES_RETENTION_OPERATIONS_SETTING);
         retentionLeaseMillis = scopedSettings.get(INDEX_SOFT_DELETES_RETENTION_LEASE_PERIOD_SETTING).millis();
         warmerEnabled = scopedSettings.get(INDEX_WARMER_ENABLED_SETTING);
@@ -786,6 +824,8 @@ public final class IndexSettings {
         scopedSettings.addSettingsUpdateConsumer(MergeSchedulerConfig.AUTO_THROTTLE_SETTING, mergeSchedulerConfig::setAutoThrottle);
         scopedSettings.addSettingsUpdateConsumer(INDEX_TRANSLOG_DURABILITY_SETTING, this::setTranslogDurability);
         scopedSettings.addSettingsUpdateConsumer(INDEX_TRANSLOG_SYNC_INTERVAL_SETTING, this::setTranslogSyncInterval);
+        scopedSettings.addSettingsUpdateConsumer(INDEX_TRANSLOG_DIRECT_BUFFERS_SETTING, this::setTranslogDirectBuffers);
+        scopedSettings.addSettingsUpdateConsumer(INDEX_TRANSLOG_MMAP_SNAPSHOTS_SETTING, this::setTranslogMmapSnapshots);
         scopedSettings.addSettingsUpdateConsumer(MAX_RESULT_WINDOW_SETTING, this::setMaxResultWindow);
         scopedSettings.addSettingsUpdateConsumer(MAX_INNER_RESULT_WINDOW_SETTING, this::setMaxInnerResultWindow);
         scopedSettings.addSettingsUpdateConsumer(MAX_RESCORE_WINDOW_SETTING, this::setMaxRescoreWindow);
@@ -1011,6 +1051,30 @@ public final class IndexSettings {
         this.syncInterval = translogSyncInterval;
     }
 
+    /**
+     * Returns <code>true</code> if the translog buffers operations in direct buffers, see {@link #INDEX_TRANSLOG_DIRECT_BUFFERS_SETTING}.
+     * The setting applies to the translog generations that are created after it is changed.
+     */
+    public boolean isTranslogDirectBuffers() {
+        return translogDirectBuffers;
+    }
+
+    private void setTranslogDirectBuffers(boolean translogDirectBuffers) {
+        this.translogDirectBuffers = translogDirectBuffers;
+    }
+
+    /**
+     * Returns <code>true</code> if translog snapshots map the completed translog generations, see
+     * {@link #INDEX_TRANSLOG_MMAP_SNAPSHOTS_SETTING}.
+     */
+    public boolean isTranslogMmapSnapshots() {
+        return translogMmapSnapshots;
+    }
+
+    private void setTranslogMmapSnapshots(boolean translogMmapSnapshots) {
+        this.translogMmapSnapshots = translogMmapSnapshots;
+    }
+
     /**
      * Returns this interval in which the shards of this index are asynchronously refreshed. {@code -1} means async refresh is disabled.
      */
@@ -1261,6 +1325,13 @@ public final class IndexSettings {
         return softDeleteEnabled;
     }
 
+    /**
+     * Returns <code>true</code> if the index only accepts new documents with auto-generated ids.
+     */
+    public boolean isAppendOnly() {
+        return appendOnly;
+    }
+
     private void setSoftDeleteRetentionOperations(long ops) {
         this.softDeleteRetentionOperations = ops;
     }
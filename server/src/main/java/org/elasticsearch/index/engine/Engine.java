@@ -65,6 +65,7 @@ import org.elasticsearch.search.suggest.completion.CompletionStats;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -286,6 +287,16 @@ public abstract class Engine implements Closeable {
      */
     public abstract boolean isThrottled();
 
+    /**
+     * Returns the number of documents that were indexed without being added to the live version map.
+     */
+    public abstract long getVersionMapBypassCount();
+
+    /**
+     * Returns the number of documents that were indexed without looking up whether a document with the same id exists.
+     */
+    public abstract long getIdLookupBypassCount();
+
     /**
      * Trims translog for terms below <code>belowTerm</code> and seq# above <code>aboveSeqNo</code>
      *
@@ -331,6 +342,24 @@ public abstract class Engine implements Closeable {
      */
     public abstract IndexResult index(Index index) throws IOException;
 
+    /**
+     * Perform a batch of document index operations on the engine, in order. Engines may index the operations in fewer calls
+     * to Lucene and to the translog than {@link #index(Index)} would, as long as the results are the same as if the
+     * operations were indexed one after the other.
+     *
+     * @param operations the operations to perform
+     * @return the {@link IndexResult} of each operation, in the order of the operations
+     *
+     * Note: engine level failures (i.e. persistent engine failures) are thrown
+     */
+    public List<IndexResult> indexBatch(List<Index> operations) throws IOException {
+        final List<IndexResult> results = new ArrayList<>(operations.size());
+        for (Index operation : operations) {
+            results.add(index(operation));
+        }
+        return results;
+    }
+
     /**
      * Perform document delete operation on the engine
      * @param delete operation to perform
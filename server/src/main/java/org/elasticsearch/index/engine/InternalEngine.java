@@ -58,6 +58,7 @@ import org.elasticsearch.common.util.concurrent.ReleasableLock;
 import org.elasticsearch.core.Booleans;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasable;
+import org.elasticsearch.core.Releasables;
 import org.elasticsearch.core.SuppressForbidden;
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.index.IndexSettings;
@@ -87,8 +88,10 @@ import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -156,6 +159,8 @@ public class InternalEngine extends Engine {
     private final CounterMetric numDocDeletes = new CounterMetric();
     private final CounterMetric numDocAppends = new CounterMetric();
     private final CounterMetric numDocUpdates = new CounterMetric();
+    private final CounterMetric numVersionMapBypasses = new CounterMetric();
+    private final CounterMetric numIdLookupBypasses = new CounterMetric();
     private final NumericDocValuesField softDeletesField = Lucene.newSoftDeletesField();
     private final SoftDeletesPolicy softDeletesPolicy;
     private final LastRefreshedCheckpointListener lastRefreshedCheckpointListener;
@@ -178,6 +183,9 @@ public class InternalEngine extends Engine {
 
     private final int maxDocs;
 
+    // true if documents can only be added with auto-generated ids, see IndexSettings#INDEX_APPEND_ONLY_SETTING
+    private final boolean appendOnly;
+
     @Nullable
     private final String historyUUID;
 
@@ -194,6 +202,7 @@ public class InternalEngine extends Engine {
     InternalEngine(EngineConfig engineConfig, int maxDocs, BiFunction<Long, Long, LocalCheckpointTracker> localCheckpointTrackerSupplier) {
         super(engineConfig);
         this.maxDocs = maxDocs;
+        this.appendOnly = engineConfig.getIndexSettings().isAppendOnly();
         final TranslogDeletionPolicy translogDeletionPolicy = new TranslogDeletionPolicy();
         store.incRef();
         IndexWriter writer = null;
@@ -967,20 +976,7 @@ public class InternalEngine extends Engine {
                 } else {
                     // generate or register sequence number
                     if (index.origin() == Operation.Origin.PRIMARY) {
-                        index = new Index(
-                            index.uid(),
-                            index.parsedDoc(),
-                            generateSeqNoForOperationOnPrimary(index),
-                            index.primaryTerm(),
-                            index.version(),
-                            index.versionType(),
-                            index.origin(),
-                            index.startTime(),
-                            index.getAutoGeneratedIdTimestamp(),
-                            index.isRetry(),
-                            index.getIfSeqNo(),
-                            index.getIfPrimaryTerm()
-                        );
+                        index = withSeqNoGeneratedOnPrimary(index);
 
                         final boolean toAppend = plan.indexIntoLucene && plan.useLuceneUpdateDocument == false;
                         if (toAppend == false) {
@@ -1024,10 +1020,13 @@ public class InternalEngine extends Engine {
                 }
                 if (plan.indexIntoLucene && indexResult.getResultType() == Result.Type.SUCCESS) {
                     final Translog.Location translogLocation = trackTranslogLocation.get() ? indexResult.getTranslogLocation() : null;
-                    versionMap.maybePutIndexUnderLock(
+                    final boolean putInVersionMap = versionMap.maybePutIndexUnderLock(
                         index.uid().bytes(),
                         new IndexVersionValue(translogLocation, plan.versionForIndexing, index.seqNo(), index.primaryTerm())
                     );
+                    if (putInVersionMap == false) {
+                        numVersionMapBypasses.inc();
+                    }
                 }
                 localCheckpointTracker.markSeqNoAsProcessed(indexResult.getSeqNo());
                 if (indexResult.getTranslogLocation() == null) {
@@ -1055,6 +1054,201 @@ public class InternalEngine extends Engine {
         }
     }
 
+    private Index withSeqNoGeneratedOnPrimary(Index index) {
+        return new Index(
+            index.uid(),
+            index.parsedDoc(),
+            generateSeqNoForOperationOnPrimary(index),
+            index.primaryTerm(),
+            index.version(),
+            index.versionType(),
+            index.origin(),
+            index.startTime(),
+            index.getAutoGeneratedIdTimestamp(),
+            index.isRetry(),
+            index.getIfSeqNo(),
+            index.getIfPrimaryTerm()
+        );
+    }
+
+    /**
+     * Indexes a batch of append-only operations, i.e. operations on the primary with auto-generated ids that are not retries,
+     * under a single acquisition of the engine lock and of the indexing throttle. Each operation is planned and gets its
+     * sequence number like in {@link #index(Index)}, but the documents of the operations that are added to Lucene are handed
+     * to the {@link IndexWriter} in one {@link IndexWriter#addDocuments} call and the operations are written to the translog
+     * in one buffered write. Other batches are indexed one operation after the other.
+     */
+    @Override
+    public List<IndexResult> indexBatch(List<Index> operations) throws IOException {
+        if (canIndexAsAppendOnlyBatch(operations) == false) {
+            return super.indexBatch(operations);
+        }
+        try (ReleasableLock releasableLock = readLock.acquire()) {
+            ensureOpen();
+            final List<Releasable> uidLocks = new ArrayList<>(operations.size());
+            try (Releasable ignored = () -> Releasables.close(uidLocks)) {
+                // acquire the locks in a consistent order so that concurrent batches can't deadlock, and before the throttle like
+                // single operations do
+                operations.stream().map(op -> op.uid().bytes()).sorted().forEach(uid -> uidLocks.add(versionMap.acquireLock(uid)));
+                try (Releasable indexThrottle = throttle.acquireThrottle()) {
+                    return indexAppendOnlyBatchUnderLock(operations);
+                }
+            }
+        } catch (RuntimeException | IOException e) {
+            try {
+                maybeFailEngine("index batch of [" + operations.size() + "] operations", e);
+            } catch (Exception inner) {
+                e.addSuppressed(inner);
+            }
+            throw e;
+        }
+    }
+
+    private List<IndexResult> indexAppendOnlyBatchUnderLock(List<Index> operations) throws IOException {
+        int reservedDocs = 0;
+        try {
+            final int size = operations.size();
+            final Index[] indices = new Index[size];
+            final IndexingStrategy[] plans = new IndexingStrategy[size];
+            final IndexResult[] results = new IndexResult[size];
+            final List<Integer> toAppend = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                Index index = operations.get(i);
+                assert assertIncomingSequenceNumber(index.origin(), index.seqNo());
+                lastWriteNanos = index.startTime();
+                final IndexingStrategy plan = indexingStrategyForOperation(index);
+                reservedDocs += plan.reservedDocs;
+                plans[i] = plan;
+                if (plan.earlyResultOnPreFlightError.isPresent()) {
+                    indices[i] = index;
+                    results[i] = plan.earlyResultOnPreFlightError.get();
+                    assert results[i].getResultType() == Result.Type.FAILURE : results[i].getResultType();
+                    continue;
+                }
+                index = withSeqNoGeneratedOnPrimary(index);
+                indices[i] = index;
+                if (plan.indexIntoLucene && plan.useLuceneUpdateDocument == false && plan.addStaleOpToLucene == false) {
+                    toAppend.add(i);
+                } else {
+                    advanceMaxSeqNoOfUpdatesOnPrimary(index.seqNo());
+                    if (plan.indexIntoLucene || plan.addStaleOpToLucene) {
+                        results[i] = indexIntoLucene(index, plan);
+                    } else {
+                        results[i] = new IndexResult(
+                            plan.versionForIndexing,
+                            index.primaryTerm(),
+                            index.seqNo(),
+                            plan.currentNotFoundOrDeleted
+                        );
+                    }
+                }
+            }
+            appendBatchToLucene(indices, plans, results, toAppend);
+
+            final List<Translog.Operation> translogOps = new ArrayList<>(size);
+            final List<Integer> translogSlots = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                final IndexResult indexResult = results[i];
+                if (indexResult.getResultType() == Result.Type.SUCCESS) {
+                    translogOps.add(new Translog.Index(indices[i], indexResult));
+                    translogSlots.add(i);
+                } else if (indexResult.getSeqNo() != SequenceNumbers.UNASSIGNED_SEQ_NO) {
+                    // if we have document failure, record it as a no-op in the translog and Lucene with the generated seq_no
+                    final NoOp noOp = new NoOp(
+                        indexResult.getSeqNo(),
+                        indices[i].primaryTerm(),
+                        indices[i].origin(),
+                        indices[i].startTime(),
+                        indexResult.getFailure().toString()
+                    );
+                    indexResult.setTranslogLocation(innerNoOp(noOp).getTranslogLocation());
+                }
+            }
+            final List<Translog.Location> locations = translog.add(translogOps);
+            for (int i = 0; i < translogSlots.size(); i++) {
+                results[translogSlots.get(i)].setTranslogLocation(locations.get(i));
+            }
+
+            for (int i = 0; i < size; i++) {
+                final Index index = indices[i];
+                final IndexResult indexResult = results[i];
+                if (plans[i].indexIntoLucene && indexResult.getResultType() == Result.Type.SUCCESS) {
+                    final Translog.Location translogLocation = trackTranslogLocation.get() ? indexResult.getTranslogLocation() : null;
+                    final boolean putInVersionMap = versionMap.maybePutIndexUnderLock(
+                        index.uid().bytes(),
+                        new IndexVersionValue(translogLocation, plans[i].versionForIndexing, index.seqNo(), index.primaryTerm())
+                    );
+                    if (putInVersionMap == false) {
+                        numVersionMapBypasses.inc();
+                    }
+                }
+                localCheckpointTracker.markSeqNoAsProcessed(indexResult.getSeqNo());
+                if (indexResult.getTranslogLocation() == null) {
+                    // the op does not have a sequence number
+                    assert indexResult.getSeqNo() == SequenceNumbers.UNASSIGNED_SEQ_NO;
+                    localCheckpointTracker.markSeqNoAsPersisted(indexResult.getSeqNo());
+                }
+                indexResult.setTook(System.nanoTime() - index.startTime());
+                indexResult.freeze();
+            }
+            return Arrays.asList(results);
+        } finally {
+            releaseInFlightDocs(reservedDocs);
+        }
+    }
+
+    private boolean canIndexAsAppendOnlyBatch(List<Index> operations) {
+        if (operations.size() < 2) {
+            return false;
+        }
+        final Set<BytesRef> uids = new HashSet<>();
+        for (Index index : operations) {
+            assert Objects.equals(index.uid().field(), IdFieldMapper.NAME) : index.uid().field();
+            if (index.origin() != Operation.Origin.PRIMARY
+                || index.getAutoGeneratedIdTimestamp() == IndexRequest.UNSET_AUTO_GENERATED_TIMESTAMP
+                || index.isRetry()
+                || uids.add(index.uid().bytes()) == false) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds the documents of the given operations to Lucene in one call. If a document fails, Lucene rolls back all the
+     * documents of the call, so they are added again one operation at a time to report the failure on the right operation.
+     */
+    private void appendBatchToLucene(Index[] indices, IndexingStrategy[] plans, IndexResult[] results, List<Integer> toAppend)
+        throws IOException {
+        if (toAppend.isEmpty()) {
+            return;
+        }
+        final List<LuceneDocument> docs = new ArrayList<>();
+        for (int slot : toAppend) {
+            final Index index = indices[slot];
+            index.parsedDoc().updateSeqID(index.seqNo(), index.primaryTerm());
+            index.parsedDoc().version().setLongValue(plans[slot].versionForIndexing);
+            assert assertDocDoesNotExist(index, canOptimizeAddDocument(index) == false);
+            docs.addAll(index.docs());
+        }
+        try {
+            addDocs(docs, indexWriter);
+        } catch (Exception ex) {
+            if (ex instanceof AlreadyClosedException == false && indexWriter.getTragicException() == null) {
+                for (int slot : toAppend) {
+                    results[slot] = indexIntoLucene(indices[slot], plans[slot]);
+                }
+                return;
+            }
+            throw ex;
+        }
+        for (int slot : toAppend) {
+            final Index index = indices[slot];
+            final IndexingStrategy plan = plans[slot];
+            results[slot] = new IndexResult(plan.versionForIndexing, index.primaryTerm(), index.seqNo(), plan.currentNotFoundOrDeleted);
+        }
+    }
+
     protected final IndexingStrategy planIndexingAsNonPrimary(Index index) throws IOException {
         assert assertNonPrimaryOrigin(index);
         // needs to maintain the auto_id timestamp in case this replica becomes primary
@@ -1079,6 +1273,7 @@ public class InternalEngine extends Engine {
             // see Engine#getMaxSeqNoOfUpdatesOrDeletes for the explanation of the optimization using sequence numbers
             assert maxSeqNoOfUpdatesOrDeletes < index.seqNo() : index.seqNo() + ">=" + maxSeqNoOfUpdatesOrDeletes;
             plan = IndexingStrategy.optimizedAppendOnly(index.version(), 0);
+            numIdLookupBypasses.inc();
         } else {
             versionMap.enforceSafeAccess();
             final OpVsLuceneDocStatus opVsLucene = compareOpToLuceneDocBasedOnSeqNo(index);
@@ -1109,10 +1304,17 @@ public class InternalEngine extends Engine {
         if (canOptimizeAddDocument && mayHaveBeenIndexedBefore(index) == false) {
             final Exception reserveError = tryAcquireInFlightDocs(index, reservingDocs);
             if (reserveError != null) {
-                plan = IndexingStrategy.failAsTooManyDocs(reserveError);
+                plan = IndexingStrategy.failAsError(reserveError);
             } else {
                 plan = IndexingStrategy.optimizedAppendOnly(1L, reservingDocs);
+                numIdLookupBypasses.inc();
             }
+        } else if (appendOnly && canOptimizeAddDocument == false) {
+            plan = IndexingStrategy.failAsError(
+                new IllegalArgumentException(
+                    "index [" + shardId.getIndexName() + "] is append-only, documents can only be added with auto-generated ids"
+                )
+            );
         } else {
             versionMap.enforceSafeAccess();
             // resolves incoming version
@@ -1158,7 +1360,7 @@ public class InternalEngine extends Engine {
                 } else {
                     final Exception reserveError = tryAcquireInFlightDocs(index, reservingDocs);
                     if (reserveError != null) {
-                        plan = IndexingStrategy.failAsTooManyDocs(reserveError);
+                        plan = IndexingStrategy.failAsError(reserveError);
                     } else {
                         plan = IndexingStrategy.processNormally(
                             currentNotFoundOrDeleted,
@@ -1341,7 +1543,7 @@ public class InternalEngine extends Engine {
             return new IndexingStrategy(false, false, false, true, versionForIndexing, reservedDocs, null);
         }
 
-        static IndexingStrategy failAsTooManyDocs(Exception e) {
+        static IndexingStrategy failAsError(Exception e) {
             final IndexResult result = new IndexResult(e, Versions.NOT_FOUND);
             return new IndexingStrategy(false, false, false, false, Versions.NOT_FOUND, 0, result);
         }
@@ -1380,7 +1582,9 @@ public class InternalEngine extends Engine {
 
     @Override
     public DeleteResult delete(Delete delete) throws IOException {
-        versionMap.enforceSafeAccess();
+        if (appendOnly == false || delete.origin() != Operation.Origin.PRIMARY) {
+            versionMap.enforceSafeAccess();
+        }
         assert Objects.equals(delete.uid().field(), IdFieldMapper.NAME) : delete.uid().field();
         assert assertIncomingSequenceNumber(delete.origin(), delete.seqNo());
         final DeleteResult deleteResult;
@@ -1528,6 +1732,11 @@ public class InternalEngine extends Engine {
 
     private DeletionStrategy planDeletionAsPrimary(Delete delete) throws IOException {
         assert delete.origin() == Operation.Origin.PRIMARY : "planing as primary but got " + delete.origin();
+        if (appendOnly) {
+            return DeletionStrategy.failAsError(
+                new IllegalArgumentException("index [" + shardId.getIndexName() + "] is append-only, documents can't be deleted")
+            );
+        }
         // resolve operation from external to internal
         final VersionValue versionValue = resolveDocVersion(delete, delete.getIfSeqNo() != SequenceNumbers.UNASSIGNED_SEQ_NO);
         assert incrementVersionLookup();
@@ -1573,7 +1782,7 @@ public class InternalEngine extends Engine {
             } else {
                 final Exception reserveError = tryAcquireInFlightDocs(delete, 1);
                 if (reserveError != null) {
-                    plan = DeletionStrategy.failAsTooManyDocs(reserveError);
+                    plan = DeletionStrategy.failAsError(reserveError);
                 } else {
                     final long versionOfDeletion = delete.versionType().updateVersion(currentVersion, delete.version());
                     plan = DeletionStrategy.processNormally(currentlyDeleted, versionOfDeletion, 1);
@@ -1680,7 +1889,7 @@ public class InternalEngine extends Engine {
             return new DeletionStrategy(false, true, false, versionOfDeletion, 0, null);
         }
 
-        static DeletionStrategy failAsTooManyDocs(Exception e) {
+        static DeletionStrategy failAsError(Exception e) {
             final DeleteResult deleteResult = new DeleteResult(
                 e,
                 Versions.NOT_FOUND,
@@ -1694,6 +1903,10 @@ public class InternalEngine extends Engine {
 
     @Override
     public void maybePruneDeletes() {
+        if (appendOnly && versionMap.getAllTombstones().isEmpty()) {
+            // deletes are rejected on append-only indices so there is nothing to prune
+            return;
+        }
         // It's expensive to prune because we walk the deletes map acquiring dirtyLock for each uid so we only do it
         // every 1/4 of gcDeletesInMillis:
         if (engineConfig.isEnableGcDeletes()
@@ -2460,6 +2673,16 @@ public class InternalEngine extends Engine {
         return throttle.getThrottleTimeInMillis();
     }
 
+    @Override
+    public long getVersionMapBypassCount() {
+        return numVersionMapBypasses.count();
+    }
+
+    @Override
+    public long getIdLookupBypassCount() {
+        return numIdLookupBypasses.count();
+    }
+
     long getGcDeletesInMillis() {
         return engineConfig.getIndexSettings().getGcDeletesInMillis();
     }
@@ -297,12 +297,15 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
 
     /**
      * Adds this uid/version to the pending adds map iff the map needs safe access.
+     *
+     * @return <code>true</code> if the uid/version was added to the map
      */
-    void maybePutIndexUnderLock(BytesRef uid, IndexVersionValue version) {
+    boolean maybePutIndexUnderLock(BytesRef uid, IndexVersionValue version) {
         assert assertKeyedLockHeldByCurrentThread(uid);
         Maps maps = this.maps;
         if (maps.isSafeAccessMode()) {
             putIndexUnderLock(uid, version);
+            return true;
         } else {
             // Even though we don't store a record of the indexing operation (and mark as unsafe),
             // we should still remove any previous delete for this uuid (avoid accidental accesses).
@@ -310,6 +313,7 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
             removeTombstoneUnderLock(uid);
             maps.current.markAsUnsafe();
             assert putAssertionMap(uid, version);
+            return false;
         }
     }
 
@@ -307,6 +307,16 @@ public class ReadOnlyEngine extends Engine {
         return false;
     }
 
+    @Override
+    public long getVersionMapBypassCount() {
+        return 0;
+    }
+
+    @Override
+    public long getIdLookupBypassCount() {
+        return 0;
+    }
+
     @Override
     public IndexResult index(Index index) {
         assert false : "this should not be called";
@@ -29,7 +29,7 @@ import org.elasticsearch.xcontent.DotExpandingXContentParser;
 import org.elasticsearch.xcontent.NamedXContentRegistry;
 import org.elasticsearch.xcontent.XContentBuilder;
 import org.elasticsearch.xcontent.XContentParser;
-import org.elasticsearch.xcontent.XContentType;
+import org.elasticsearch.xcontent.support.MapXContentParser;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -75,15 +75,7 @@ public final class DocumentParser {
      */
     public ParsedDocument parseDocument(SourceToParse source, MappingLookup mappingLookup) throws MapperParsingException {
         final InternalDocumentParserContext context;
-        final XContentType xContentType = source.getXContentType();
-        try (
-            XContentParser parser = XContentHelper.createParser(
-                xContentRegistry,
-                LoggingDeprecationHandler.INSTANCE,
-                source.source(),
-                xContentType
-            )
-        ) {
+        try (XContentParser parser = createParser(source)) {
             context = new InternalDocumentParserContext(mappingLookup, indexSettings, indexAnalyzers, dateParserContext, source, parser);
             validateStart(context.parser());
             MetadataFieldMapper[] metadataFieldsMappers = mappingLookup.getMapping().getSortedMetadataMappers();
@@ -109,6 +101,19 @@ public final class DocumentParser {
         );
     }
 
+    private XContentParser createParser(SourceToParse source) throws IOException {
+        if (source.sourceMap() != null) {
+            // the source was serialized from this map, walking the map saves parsing the source again
+            return new MapXContentParser(
+                xContentRegistry,
+                LoggingDeprecationHandler.INSTANCE,
+                source.sourceMap(),
+                source.getXContentType()
+            );
+        }
+        return XContentHelper.createParser(xContentRegistry, LoggingDeprecationHandler.INSTANCE, source.source(), source.getXContentType());
+    }
+
     private static void internalParseDocument(
         RootObjectMapper root,
         MetadataFieldMapper[] metadataFieldsMappers,
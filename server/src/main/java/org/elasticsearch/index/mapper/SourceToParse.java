@@ -28,12 +28,29 @@ public class SourceToParse {
 
     private final Map<String, String> dynamicTemplates;
 
+    private final @Nullable Map<String, Object> sourceMap;
+
     public SourceToParse(
         String id,
         BytesReference source,
         XContentType xContentType,
         @Nullable String routing,
         Map<String, String> dynamicTemplates
+    ) {
+        this(id, source, xContentType, routing, dynamicTemplates, null);
+    }
+
+    /**
+     * @param sourceMap a map that the source was serialized from, which the document is parsed from instead of the source if
+     *                  it is provided
+     */
+    public SourceToParse(
+        String id,
+        BytesReference source,
+        XContentType xContentType,
+        @Nullable String routing,
+        Map<String, String> dynamicTemplates,
+        @Nullable Map<String, Object> sourceMap
     ) {
         this.id = Objects.requireNonNull(id);
         // we always convert back to byte array, since we store it and Field only supports bytes..
@@ -42,6 +59,7 @@ public class SourceToParse {
         this.xContentType = Objects.requireNonNull(xContentType);
         this.routing = routing;
         this.dynamicTemplates = Objects.requireNonNull(dynamicTemplates);
+        this.sourceMap = sourceMap;
     }
 
     public SourceToParse(String id, BytesReference source, XContentType xContentType) {
@@ -70,4 +88,11 @@ public class SourceToParse {
     public XContentType getXContentType() {
         return this.xContentType;
     }
+
+    /**
+     * Returns the map that the source was serialized from, or <code>null</code> if the document must be parsed from the source.
+     */
+    public @Nullable Map<String, Object> sourceMap() {
+        return sourceMap;
+    }
 }
@@ -189,6 +189,7 @@ import java.util.stream.StreamSupport;
 
 import static org.elasticsearch.cluster.metadata.DataStream.TIMESERIES_LEAF_READERS_SORTER;
 import static org.elasticsearch.index.seqno.RetentionLeaseActions.RETAIN_ALL;
+import static org.elasticsearch.index.seqno.SequenceNumbers.UNASSIGNED_PRIMARY_TERM;
 import static org.elasticsearch.index.seqno.SequenceNumbers.UNASSIGNED_SEQ_NO;
 
 public class IndexShard extends AbstractIndexShardComponent implements IndicesClusterStateService.Shard {
@@ -886,6 +887,34 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         long ifPrimaryTerm,
         long autoGeneratedTimestamp,
         boolean isRetry
+    ) throws IOException {
+        return applyIndexOperationOnPrimary(
+            version,
+            versionType,
+            sourceToParse,
+            ifSeqNo,
+            ifPrimaryTerm,
+            autoGeneratedTimestamp,
+            isRetry,
+            null
+        );
+    }
+
+    /**
+     * Same as {@link #applyIndexOperationOnPrimary(long, VersionType, SourceToParse, long, long, long, boolean)} but reuses the
+     * provided document if it was parsed from the same source with the current mapping of the shard.
+     *
+     * @param preParsed the result of {@link #parseOnPrimary(SourceToParse)} for the source or <code>null</code> to parse it now
+     */
+    public Engine.IndexResult applyIndexOperationOnPrimary(
+        long version,
+        VersionType versionType,
+        SourceToParse sourceToParse,
+        long ifSeqNo,
+        long ifPrimaryTerm,
+        long autoGeneratedTimestamp,
+        boolean isRetry,
+        @Nullable PreParsedDocument preParsed
     ) throws IOException {
         assert versionType.validateVersionForWrites(version);
         return applyIndexOperation(
@@ -899,10 +928,110 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
             autoGeneratedTimestamp,
             isRetry,
             Engine.Operation.Origin.PRIMARY,
-            sourceToParse
+            sourceToParse,
+            preParsed
         );
     }
 
+    /**
+     * Prepares an index operation with an auto-generated id on the primary so that it can be indexed as part of a batch
+     * with {@link #applyIndexOperationsOnPrimary(List)}.
+     *
+     * @param preParsed the result of {@link #parseOnPrimary(SourceToParse)} for the source or <code>null</code> to parse it now
+     * @return the operation, or <code>null</code> if the source requires a mapping update or can't be parsed, in which case
+     *         it must be indexed on its own with {@link #applyIndexOperationOnPrimary} which reports these outcomes
+     */
+    @Nullable
+    public Engine.Index prepareAppendOnlyIndexOnPrimary(
+        long version,
+        SourceToParse sourceToParse,
+        long autoGeneratedTimestamp,
+        @Nullable PreParsedDocument preParsed
+    ) {
+        assert autoGeneratedTimestamp >= 0 : "append-only operations must have an auto-generated id, got " + autoGeneratedTimestamp;
+        final Engine.Index operation;
+        try {
+            operation = prepareIndex(
+                mapperService,
+                sourceToParse,
+                UNASSIGNED_SEQ_NO,
+                getOperationPrimaryTerm(),
+                version,
+                VersionType.INTERNAL,
+                Engine.Operation.Origin.PRIMARY,
+                autoGeneratedTimestamp,
+                false,
+                UNASSIGNED_SEQ_NO,
+                UNASSIGNED_PRIMARY_TERM,
+                preParsed
+            );
+        } catch (Exception e) {
+            return null;
+        }
+        return operation.parsedDoc().dynamicMappingsUpdate() == null ? operation : null;
+    }
+
+    /**
+     * Indexes the provided operations, as prepared by {@link #prepareAppendOnlyIndexOnPrimary}, on the primary with a single
+     * {@link Engine#indexBatch(List)} call.
+     *
+     * @return the result of each operation, in the order of the operations
+     */
+    public List<Engine.IndexResult> applyIndexOperationsOnPrimary(List<Engine.Index> operations) throws IOException {
+        ensureWriteAllowed(Engine.Operation.Origin.PRIMARY);
+        final Engine engine = getEngine();
+        active.set(true);
+        final List<Engine.Index> prepared = new ArrayList<>(operations.size());
+        for (Engine.Index operation : operations) {
+            assert operation.origin() == Engine.Operation.Origin.PRIMARY : operation.origin();
+            prepared.add(indexingOperationListeners.preIndex(shardId, operation));
+        }
+        final List<Engine.IndexResult> results;
+        try {
+            results = engine.indexBatch(prepared);
+        } catch (Exception e) {
+            logger.trace(() -> new ParameterizedMessage("index-batch-fail [{}] operations", prepared.size()), e);
+            for (Engine.Index operation : prepared) {
+                indexingOperationListeners.postIndex(shardId, operation, e);
+            }
+            throw e;
+        }
+        assert results.size() == prepared.size() : results.size() + " results for " + prepared.size() + " operations";
+        for (int i = 0; i < prepared.size(); i++) {
+            indexingOperationListeners.postIndex(shardId, prepared.get(i), results.get(i));
+        }
+        return results;
+    }
+
+    /**
+     * Parses the provided source with the current mapping of the shard, ahead of its indexing on the primary. The parsed
+     * document is only used if the mapping is still the same when the source is indexed, otherwise the source is parsed again.
+     *
+     * @return the parsed document or <code>null</code> if the shard has no mapping yet
+     */
+    @Nullable
+    public PreParsedDocument parseOnPrimary(SourceToParse sourceToParse) {
+        final DocumentMapper documentMapper = mapperService.documentMapper();
+        if (documentMapper == null) {
+            // the first document creates the mapping, see prepareIndex
+            return null;
+        }
+        return new PreParsedDocument(documentMapper, documentMapper.parse(sourceToParse));
+    }
+
+    /**
+     * A document that was parsed ahead of its indexing on the primary, see {@link #parseOnPrimary(SourceToParse)}.
+     */
+    public static final class PreParsedDocument {
+        private final DocumentMapper documentMapper;
+        private final ParsedDocument parsedDocument;
+
+        private PreParsedDocument(DocumentMapper documentMapper, ParsedDocument parsedDocument) {
+            this.documentMapper = documentMapper;
+            this.parsedDocument = parsedDocument;
+        }
+    }
+
     public Engine.IndexResult applyIndexOperationOnReplica(
         long seqNo,
         long opPrimaryTerm,
@@ -922,7 +1051,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
             autoGeneratedTimeStamp,
             isRetry,
             Engine.Operation.Origin.REPLICA,
-            sourceToParse
+            sourceToParse,
+            null
         );
     }
 
@@ -937,7 +1067,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         long autoGeneratedTimeStamp,
         boolean isRetry,
         Engine.Operation.Origin origin,
-        SourceToParse sourceToParse
+        SourceToParse sourceToParse,
+        @Nullable PreParsedDocument preParsed
     ) throws IOException {
         assert opPrimaryTerm <= getOperationPrimaryTerm()
             : "op term [ " + opPrimaryTerm + " ] > shard term [" + getOperationPrimaryTerm() + "]";
@@ -955,7 +1086,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
                 autoGeneratedTimeStamp,
                 isRetry,
                 ifSeqNo,
-                ifPrimaryTerm
+                ifPrimaryTerm,
+                preParsed
             );
             Mapping update = operation.parsedDoc().dynamicMappingsUpdate();
             if (update != null) {
@@ -985,6 +1117,36 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         boolean isRetry,
         long ifSeqNo,
         long ifPrimaryTerm
+    ) {
+        return prepareIndex(
+            mapperService,
+            source,
+            seqNo,
+            primaryTerm,
+            version,
+            versionType,
+            origin,
+            autoGeneratedIdTimestamp,
+            isRetry,
+            ifSeqNo,
+            ifPrimaryTerm,
+            null
+        );
+    }
+
+    private static Engine.Index prepareIndex(
+        MapperService mapperService,
+        SourceToParse source,
+        long seqNo,
+        long primaryTerm,
+        long version,
+        VersionType versionType,
+        Engine.Operation.Origin origin,
+        long autoGeneratedIdTimestamp,
+        boolean isRetry,
+        long ifSeqNo,
+        long ifPrimaryTerm,
+        @Nullable PreParsedDocument preParsed
     ) {
         long startTime = System.nanoTime();
         assert source.dynamicTemplates().isEmpty() || origin == Engine.Operation.Origin.PRIMARY
@@ -995,7 +1157,12 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
             documentMapper = DocumentMapper.createEmpty(mapperService);
             mapping = documentMapper.mapping();
         }
-        ParsedDocument doc = documentMapper.parse(source);
+        final ParsedDocument doc;
+        if (preParsed != null && preParsed.documentMapper == documentMapper) {
+            doc = preParsed.parsedDocument;
+        } else {
+            doc = documentMapper.parse(source);
+        }
         if (mapping != null) {
             // If we are indexing but there is no mapping we create one. This is to ensure that whenever at least a document is indexed
             // some mappings do exist. It covers for the case of indexing an empty doc (`{}`).
@@ -1261,14 +1428,20 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         Engine engine = getEngineOrNull();
         final boolean throttled;
         final long throttleTimeInMillis;
+        final long versionMapBypassCount;
+        final long idLookupBypassCount;
         if (engine == null) {
             throttled = false;
             throttleTimeInMillis = 0;
+            versionMapBypassCount = 0;
+            idLookupBypassCount = 0;
         } else {
             throttled = engine.isThrottled();
             throttleTimeInMillis = engine.getIndexThrottleTimeInMillis();
+            versionMapBypassCount = engine.getVersionMapBypassCount();
+            idLookupBypassCount = engine.getIdLookupBypassCount();
         }
-        return internalIndexingStats.stats(throttled, throttleTimeInMillis);
+        return internalIndexingStats.stats(throttled, throttleTimeInMillis, versionMapBypassCount, idLookupBypassCount);
     }
 
     public SearchStats searchStats(String... groups) {
@@ -1799,7 +1972,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
                     index.getAutoGeneratedIdTimestamp(),
                     true,
                     origin,
-                    new SourceToParse(index.id(), index.source(), XContentHelper.xContentType(index.source()), index.routing(), Map.of())
+                    new SourceToParse(index.id(), index.source(), XContentHelper.xContentType(index.source()), index.routing(), Map.of()),
+                    null
                 );
                 break;
             case DELETE:
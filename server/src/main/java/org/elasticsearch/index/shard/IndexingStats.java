@@ -36,6 +36,8 @@ public class IndexingStats implements Writeable, ToXContentFragment {
         private long noopUpdateCount;
         private long throttleTimeInMillis;
         private boolean isThrottled;
+        private long versionMapBypassCount;
+        private long idLookupBypassCount;
 
         Stats() {}
 
@@ -50,6 +52,10 @@ public class IndexingStats implements Writeable, ToXContentFragment {
             noopUpdateCount = in.readVLong();
             isThrottled = in.readBoolean();
             throttleTimeInMillis = in.readLong();
+            if (in.getVersion().onOrAfter(Version.V_8_1_0)) {
+                versionMapBypassCount = in.readVLong();
+                idLookupBypassCount = in.readVLong();
+            }
         }
 
         public Stats(
@@ -62,7 +68,9 @@ public class IndexingStats implements Writeable, ToXContentFragment {
             long deleteCurrent,
             long noopUpdateCount,
             boolean isThrottled,
-            long throttleTimeInMillis
+            long throttleTimeInMillis,
+            long versionMapBypassCount,
+            long idLookupBypassCount
         ) {
             this.indexCount = indexCount;
             this.indexTimeInMillis = indexTimeInMillis;
@@ -74,6 +82,8 @@ public class IndexingStats implements Writeable, ToXContentFragment {
             this.noopUpdateCount = noopUpdateCount;
             this.isThrottled = isThrottled;
             this.throttleTimeInMillis = throttleTimeInMillis;
+            this.versionMapBypassCount = versionMapBypassCount;
+            this.idLookupBypassCount = idLookupBypassCount;
         }
 
         public void add(Stats stats) {
@@ -91,6 +101,8 @@ public class IndexingStats implements Writeable, ToXContentFragment {
             if (isThrottled != stats.isThrottled) {
                 isThrottled = true; // When combining if one is throttled set result to throttled.
             }
+            versionMapBypassCount += stats.versionMapBypassCount;
+            idLookupBypassCount += stats.idLookupBypassCount;
         }
 
         /**
@@ -160,6 +172,20 @@ public class IndexingStats implements Writeable, ToXContentFragment {
             return noopUpdateCount;
         }
 
+        /**
+         * Returns the number of documents that were indexed without being added to the live version map
+         */
+        public long getVersionMapBypassCount() {
+            return versionMapBypassCount;
+        }
+
+        /**
+         * Returns the number of documents that were indexed without looking up an existing document with the same id
+         */
+        public long getIdLookupBypassCount() {
+            return idLookupBypassCount;
+        }
+
         @Override
         public void writeTo(StreamOutput out) throws IOException {
             out.writeVLong(indexCount);
@@ -172,7 +198,10 @@ public class IndexingStats implements Writeable, ToXContentFragment {
             out.writeVLong(noopUpdateCount);
             out.writeBoolean(isThrottled);
             out.writeLong(throttleTimeInMillis);
-
+            if (out.getVersion().onOrAfter(Version.V_8_1_0)) {
+                out.writeVLong(versionMapBypassCount);
+                out.writeVLong(idLookupBypassCount);
+            }
         }
 
         @Override
@@ -190,6 +219,9 @@ public class IndexingStats implements Writeable, ToXContentFragment {
 
             builder.field(Fields.IS_THROTTLED, isThrottled);
             builder.humanReadableField(Fields.THROTTLED_TIME_IN_MILLIS, Fields.THROTTLED_TIME, getThrottleTime());
+
+            builder.field(Fields.VERSION_MAP_BYPASS_TOTAL, versionMapBypassCount);
+            builder.field(Fields.ID_LOOKUP_BYPASS_TOTAL, idLookupBypassCount);
             return builder;
         }
     }
@@ -264,6 +296,8 @@ public class IndexingStats implements Writeable, ToXContentFragment {
         static final String IS_THROTTLED = "is_throttled";
         static final String THROTTLED_TIME_IN_MILLIS = "throttle_time_in_millis";
         static final String THROTTLED_TIME = "throttle_time";
+        static final String VERSION_MAP_BYPASS_TOTAL = "version_map_bypass_total";
+        static final String ID_LOOKUP_BYPASS_TOTAL = "id_lookup_bypass_total";
     }
 
     @Override
@@ -0,0 +1,119 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.translog;
+
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefIterator;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.DiskIoBufferPool;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.core.Releasable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Buffers the operations that a {@link TranslogWriter} hasn't written to its file yet in direct byte buffers, taken from a
+ * pool that is shared by all the writers of the node. The operations are copied once, into off-heap memory, and the buffers
+ * are then handed to the file channel all at once, without going through an intermediate I/O buffer.
+ */
+final class DirectTranslogBuffer implements Releasable {
+
+    static final int PAGE_SIZE = DiskIoBufferPool.BUFFER_SIZE;
+
+    /** the maximum number of free pages that are kept around for reuse, beyond that released pages are left to the GC */
+    static final int MAX_POOLED_PAGES = Math.max(1, (16 * 1024 * 1024) / PAGE_SIZE);
+
+    private static final Queue<ByteBuffer> POOL = ConcurrentCollections.newQueue();
+    private static final AtomicInteger POOLED_PAGES = new AtomicInteger();
+
+    private final List<ByteBuffer> pages = new ArrayList<>();
+    private long size;
+    private boolean released;
+
+    /**
+     * Copies the given bytes at the end of the buffer.
+     */
+    void append(BytesReference data) throws IOException {
+        assert released == false;
+        final BytesRefIterator iterator = data.iterator();
+        BytesRef current;
+        while ((current = iterator.next()) != null) {
+            int offset = current.offset;
+            int remaining = current.length;
+            while (remaining > 0) {
+                ByteBuffer page = pages.isEmpty() ? null : pages.get(pages.size() - 1);
+                if (page == null || page.hasRemaining() == false) {
+                    page = acquirePage();
+                    pages.add(page);
+                }
+                final int length = Math.min(remaining, page.remaining());
+                page.put(current.bytes, offset, length);
+                offset += length;
+                remaining -= length;
+            }
+        }
+        size += data.length();
+    }
+
+    /**
+     * The number of bytes in the buffer.
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * Prepares the buffers for a gathering write of their content and returns them. Nothing can be appended afterwards.
+     */
+    ByteBuffer[] flip() {
+        assert released == false;
+        final ByteBuffer[] buffers = pages.toArray(new ByteBuffer[0]);
+        for (ByteBuffer buffer : buffers) {
+            buffer.flip();
+        }
+        return buffers;
+    }
+
+    /**
+     * Returns the pages of the buffer to the pool.
+     */
+    @Override
+    public void close() {
+        if (released == false) {
+            released = true;
+            for (ByteBuffer page : pages) {
+                releasePage(page);
+            }
+            pages.clear();
+        }
+    }
+
+    private static ByteBuffer acquirePage() {
+        final ByteBuffer page = POOL.poll();
+        if (page == null) {
+            return ByteBuffer.allocateDirect(PAGE_SIZE);
+        }
+        POOLED_PAGES.decrementAndGet();
+        return page;
+    }
+
+    private static void releasePage(ByteBuffer page) {
+        if (POOLED_PAGES.incrementAndGet() <= MAX_POOLED_PAGES) {
+            page.clear();
+            POOL.offer(page);
+        } else {
+            POOLED_PAGES.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.index.translog;
+
+import org.apache.lucene.store.IndexInput;
+import org.elasticsearch.common.io.stream.StreamInput;
+
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * A {@link StreamInput} that reads from an {@link IndexInput}, used to decode translog operations straight from a slice of
+ * the mapped file of a generation. Multi-byte values are read byte by byte through {@link #readByte()} so they keep the
+ * big-endian order of {@link StreamInput}, unlike those of {@link IndexInput}. The input is not closed with the stream.
+ */
+final class IndexInputStreamInput extends StreamInput {
+
+    private final IndexInput input;
+    private long mark;
+
+    IndexInputStreamInput(IndexInput input) {
+        this.input = input;
+        this.mark = input.getFilePointer();
+    }
+
+    private long remaining() {
+        return input.length() - input.getFilePointer();
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        return input.readByte();
+    }
+
+    @Override
+    public void readBytes(byte[] b, int offset, int len) throws IOException {
+        input.readBytes(b, offset, len);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (remaining() <= 0) {
+            return -1;
+        }
+        return input.readByte() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        final long remaining = remaining();
+        if (remaining <= 0) {
+            return -1;
+        }
+        len = (int) Math.min(len, remaining);
+        input.readBytes(b, off, len);
+        return len;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        final long skipped = Math.max(0L, Math.min(n, remaining()));
+        input.seek(input.getFilePointer() + skipped);
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public void mark(int readlimit) {
+        mark = input.getFilePointer();
+    }
+
+    @Override
+    public void reset() throws IOException {
+        input.seek(mark);
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (int) Math.min(Integer.MAX_VALUE, remaining());
+    }
+
+    @Override
+    protected void ensureCanReadBytes(int length) throws EOFException {
+        final long remaining = remaining();
+        if (remaining < length) {
+            throw new EOFException("tried to read: " + length + " bytes but only " + remaining + " remaining");
+        }
+    }
+
+    @Override
+    public void close() {}
+}
@@ -10,6 +10,7 @@ package org.elasticsearch.index.translog;
 
 import com.carrotsearch.hppc.LongObjectHashMap;
 
+import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.index.seqno.CountedBitSet;
 import org.elasticsearch.index.seqno.SequenceNumbers;
 
@@ -70,7 +71,8 @@ final class MultiSnapshot implements Translog.Snapshot {
 
     @Override
     public void close() throws IOException {
-        onClose.close();
+        // release the mappings of the generations before they can be trimmed
+        IOUtils.close(() -> IOUtils.close(translogs), onClose);
     }
 
     static final class SeqNoSet {
@@ -549,7 +549,8 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
                 primaryTermSupplier.getAsLong(),
                 tragedy,
                 persistedSequenceNumberConsumer,
-                bigArrays
+                bigArrays,
+                indexSettings.isTranslogDirectBuffers()
             );
         } catch (final IOException e) {
             throw new TranslogException(shardId, "failed to create new translog file", e);
@@ -567,34 +568,11 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
     public Location add(final Operation operation) throws IOException {
         final ReleasableBytesStreamOutput out = new ReleasableBytesStreamOutput(bigArrays);
         try {
-            final long start = out.position();
-            out.skip(Integer.BYTES);
-            writeOperationNoSize(new BufferedChecksumStreamOutput(out), operation);
-            final long end = out.position();
-            final int operationSize = (int) (end - Integer.BYTES - start);
-            out.seek(start);
-            out.writeInt(operationSize);
-            out.seek(end);
+            writeOperationWithSize(out, operation);
             final BytesReference bytes = out.bytes();
             try (ReleasableLock ignored = readLock.acquire()) {
                 ensureOpen();
-                if (operation.primaryTerm() > current.getPrimaryTerm()) {
-                    assert false
-                        : "Operation term is newer than the current term; "
-                            + "current term["
-                            + current.getPrimaryTerm()
-                            + "], operation term["
-                            + operation
-                            + "]";
-                    throw new IllegalArgumentException(
-                        "Operation term is newer than the current term; "
-                            + "current term["
-                            + current.getPrimaryTerm()
-                            + "], operation term["
-                            + operation
-                            + "]"
-                    );
-                }
+                ensureOperationTermIsNotNewer(operation);
                 return current.add(bytes, operation.seqNo());
             }
         } catch (final AlreadyClosedException | IOException ex) {
@@ -608,6 +586,77 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
         }
     }
 
+    /**
+     * Adds a batch of operations to the transaction log. The operations are serialized into a single buffer that is then
+     * appended to the current generation under one acquisition of the translog lock.
+     *
+     * @param operations the operations to add
+     * @return the locations of the operations in the translog, in the order of the operations
+     * @throws IOException if adding the operations to the translog resulted in an I/O exception
+     */
+    public List<Location> add(final List<? extends Operation> operations) throws IOException {
+        final ReleasableBytesStreamOutput out = new ReleasableBytesStreamOutput(bigArrays);
+        try {
+            final int[] ends = new int[operations.size()];
+            for (int i = 0; i < operations.size(); i++) {
+                writeOperationWithSize(out, operations.get(i));
+                ends[i] = Math.toIntExact(out.position());
+            }
+            final BytesReference bytes = out.bytes();
+            try (ReleasableLock ignored = readLock.acquire()) {
+                ensureOpen();
+                final List<Location> locations = new ArrayList<>(operations.size());
+                int start = 0;
+                for (int i = 0; i < operations.size(); i++) {
+                    final Operation operation = operations.get(i);
+                    ensureOperationTermIsNotNewer(operation);
+                    locations.add(current.add(bytes.slice(start, ends[i] - start), operation.seqNo()));
+                    start = ends[i];
+                }
+                return locations;
+            }
+        } catch (final AlreadyClosedException | IOException ex) {
+            closeOnTragicEvent(ex);
+            throw ex;
+        } catch (final Exception ex) {
+            closeOnTragicEvent(ex);
+            throw new TranslogException(shardId, "Failed to write [" + operations.size() + "] operations", ex);
+        } finally {
+            Releasables.close(out);
+        }
+    }
+
+    private static void writeOperationWithSize(ReleasableBytesStreamOutput out, Operation operation) throws IOException {
+        final long start = out.position();
+        out.skip(Integer.BYTES);
+        writeOperationNoSize(new BufferedChecksumStreamOutput(out), operation);
+        final long end = out.position();
+        final int operationSize = (int) (end - Integer.BYTES - start);
+        out.seek(start);
+        out.writeInt(operationSize);
+        out.seek(end);
+    }
+
+    private void ensureOperationTermIsNotNewer(Operation operation) {
+        if (operation.primaryTerm() > current.getPrimaryTerm()) {
+            assert false
+                : "Operation term is newer than the current term; "
+                    + "current term["
+                    + current.getPrimaryTerm()
+                    + "], operation term["
+                    + operation
+                    + "]";
+            throw new IllegalArgumentException(
+                "Operation term is newer than the current term; "
+                    + "current term["
+                    + current.getPrimaryTerm()
+                    + "], operation term["
+                    + operation
+                    + "]"
+            );
+        }
+    }
+
     /**
      * Tests whether or not the translog generation should be rolled to a new generation. This test
      * is based on the size of the current generation compared to the configured generation
@@ -669,12 +718,25 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
         assert fromSeqNo >= 0 : "from_seq_no must be non-negative " + fromSeqNo;
         try (ReleasableLock ignored = readLock.acquire()) {
             ensureOpen();
-            TranslogSnapshot[] snapshots = Stream.concat(readers.stream(), Stream.of(current))
+            final boolean mmap = indexSettings.isTranslogMmapSnapshots();
+            final List<BaseTranslogReader> toSnapshot = Stream.concat(readers.stream(), Stream.of(current))
                 .filter(reader -> reader.getCheckpoint().minSeqNo <= toSeqNo && fromSeqNo <= reader.getCheckpoint().maxEffectiveSeqNo())
-                .map(BaseTranslogReader::newSnapshot)
-                .toArray(TranslogSnapshot[]::new);
-            final Snapshot snapshot = newMultiSnapshot(snapshots);
-            return new SeqNoFilterSnapshot(snapshot, fromSeqNo, toSeqNo);
+                .toList();
+            final List<TranslogSnapshot> snapshots = new ArrayList<>(toSnapshot.size());
+            boolean success = false;
+            try {
+                for (BaseTranslogReader reader : toSnapshot) {
+                    // completed generations are immutable and can be mapped, the current one is still being written
+                    snapshots.add(mmap && reader != current ? ((TranslogReader) reader).newMappedSnapshot() : reader.newSnapshot());
+                }
+                final Snapshot snapshot = newMultiSnapshot(snapshots.toArray(new TranslogSnapshot[0]));
+                success = true;
+                return new SeqNoFilterSnapshot(snapshot, fromSeqNo, toSeqNo);
+            } finally {
+                if (success == false) {
+                    IOUtils.closeWhileHandlingException(snapshots);
+                }
+            }
         }
     }
 
@@ -1972,7 +2034,8 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
             primaryTerm,
             new TragicExceptionHolder(),
             seqNo -> { throw new UnsupportedOperationException(); },
-            BigArrays.NON_RECYCLING_INSTANCE
+            BigArrays.NON_RECYCLING_INSTANCE,
+            false
         );
         writer.close();
         return uuid;
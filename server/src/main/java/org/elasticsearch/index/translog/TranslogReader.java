@@ -9,6 +9,10 @@
 package org.elasticsearch.index.translog;
 
 import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.store.NoLockFactory;
 import org.elasticsearch.common.io.Channels;
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.index.seqno.SequenceNumbers;
@@ -106,6 +110,23 @@ public class TranslogReader extends BaseTranslogReader implements Closeable {
         return length;
     }
 
+    /**
+     * Creates a snapshot that reads the operations of this generation from a read-only mapping of its file rather than
+     * from the file channel. The generation is immutable, so the mapping can be shared by all the operations of the snapshot.
+     * The mapping is released when the snapshot is closed. Falls back to a regular snapshot if mappings can't be released
+     * explicitly on this JVM.
+     */
+    TranslogSnapshot newMappedSnapshot() throws IOException {
+        ensureOpen();
+        if (MMapDirectory.UNMAP_SUPPORTED == false) {
+            return newSnapshot();
+        }
+        // closing the directory leaves the inputs it opened open, they are unmapped when they are closed themselves
+        try (Directory directory = new MMapDirectory(path.getParent(), NoLockFactory.INSTANCE)) {
+            return new TranslogSnapshot(this, length, directory.openInput(path.getFileName().toString(), IOContext.READ));
+        }
+    }
+
     public int totalOperations() {
         return totalOperations;
     }
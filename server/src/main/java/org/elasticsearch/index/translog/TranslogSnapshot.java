@@ -7,20 +7,26 @@
  */
 package org.elasticsearch.index.translog;
 
+import org.apache.lucene.store.IndexInput;
 import org.elasticsearch.common.io.Channels;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.index.seqno.SequenceNumbers;
 
+import java.io.Closeable;
 import java.io.EOFException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 
-final class TranslogSnapshot extends BaseTranslogReader {
+final class TranslogSnapshot extends BaseTranslogReader implements Closeable {
 
     private final int totalOperations;
     private final Checkpoint checkpoint;
     protected final long length;
 
     private final ByteBuffer reusableBuffer;
+    /* the mapped file of the generation, if the operations are read from it rather than from the channel */
+    @Nullable
+    private final IndexInput mapped;
     private long position;
     private int skippedOperations;
     private int readOperations;
@@ -30,10 +36,20 @@ final class TranslogSnapshot extends BaseTranslogReader {
      * Create a snapshot of translog file channel.
      */
     TranslogSnapshot(final BaseTranslogReader reader, final long length) {
+        this(reader, length, null);
+    }
+
+    /**
+     * Create a snapshot of translog file channel that reads the operations from the given mapping of the file, if not null.
+     * The snapshot takes ownership of the mapping and releases it on close.
+     */
+    TranslogSnapshot(final BaseTranslogReader reader, final long length, @Nullable final IndexInput mapped) {
         super(reader.generation, reader.channel, reader.path, reader.header);
+        assert mapped == null || mapped.length() >= length : "mapped [" + mapped + "] but length is [" + length + "]";
         this.length = length;
         this.totalOperations = reader.totalOperations();
         this.checkpoint = reader.getCheckpoint();
+        this.mapped = mapped;
         this.reusableBuffer = ByteBuffer.allocate(1024);
         this.readOperations = 0;
         this.position = reader.getFirstOperationOffset();
@@ -67,7 +83,13 @@ final class TranslogSnapshot extends BaseTranslogReader {
 
     private Translog.Operation readOperation() throws IOException {
         final int opSize = readSize(reusableBuffer, position);
-        reuse = checksummedStream(reusableBuffer, position, opSize, reuse);
+        if (mapped == null) {
+            reuse = checksummedStream(reusableBuffer, position, opSize, reuse);
+        } else {
+            // decodes the operation straight from the mapped file rather than copying it to the heap first
+            final IndexInput slice = mapped.slice("translog operation", position, opSize);
+            reuse = new BufferedChecksumStreamInput(new IndexInputStreamInput(slice), path.toString(), reuse);
+        }
         Translog.Operation op = read(reuse);
         position += opSize;
         readOperations++;
@@ -109,12 +131,29 @@ final class TranslogSnapshot extends BaseTranslogReader {
                         + "]"
                 );
             }
-            Channels.readFromFileChannelWithEofException(channel, position, buffer);
+            if (mapped == null) {
+                Channels.readFromFileChannelWithEofException(channel, position, buffer);
+            } else {
+                // only used for the size of the operations, see readOperation
+                mapped.seek(position);
+                mapped.readBytes(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+                buffer.position(buffer.limit());
+            }
         } catch (EOFException e) {
             throw new TranslogCorruptedException(path.toString(), "translog truncated", e);
         }
     }
 
+    /**
+     * Releases the mapping of the file, if any. The snapshot can't be read anymore once closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (mapped != null) {
+            mapped.close();
+        }
+    }
+
     @Override
     public String toString() {
         return "TranslogSnapshot{"
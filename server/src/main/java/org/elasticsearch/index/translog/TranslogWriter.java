@@ -24,6 +24,7 @@ import org.elasticsearch.common.io.stream.ReleasableBytesStreamOutput;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.concurrent.ReleasableLock;
+import org.elasticsearch.core.Releasable;
 import org.elasticsearch.core.Releasables;
 import org.elasticsearch.core.SuppressForbidden;
 import org.elasticsearch.core.Tuple;
@@ -79,6 +80,9 @@ public class TranslogWriter extends BaseTranslogReader implements Closeable {
     private final int forceWriteThreshold;
     private volatile long bufferedBytes;
     private ReleasableBytesStreamOutput buffer;
+    /* whether the buffered operations are kept in direct buffers and written with a gathering write */
+    private final boolean directBuffers;
+    private DirectTranslogBuffer directBuffer;
 
     private final Map<Long, Tuple<BytesReference, Exception>> seenSequenceNumbers;
 
@@ -95,7 +99,8 @@ public class TranslogWriter extends BaseTranslogReader implements Closeable {
         TranslogHeader header,
         final TragicExceptionHolder tragedy,
         final LongConsumer persistedSequenceNumberConsumer,
-        final BigArrays bigArrays
+        final BigArrays bigArrays,
+        final boolean directBuffers
     ) throws IOException {
         super(initialCheckpoint.generation, channel, path, header);
         assert initialCheckpoint.offset == channel.position()
@@ -119,6 +124,7 @@ public class TranslogWriter extends BaseTranslogReader implements Closeable {
         this.globalCheckpointSupplier = globalCheckpointSupplier;
         this.persistedSequenceNumberConsumer = persistedSequenceNumberConsumer;
         this.bigArrays = bigArrays;
+        this.directBuffers = directBuffers;
         this.seenSequenceNumbers = Assertions.ENABLED ? new HashMap<>() : null;
         this.tragedy = tragedy;
     }
@@ -137,7 +143,8 @@ public class TranslogWriter extends BaseTranslogReader implements Closeable {
         final long primaryTerm,
         TragicExceptionHolder tragedy,
         final LongConsumer persistedSequenceNumberConsumer,
-        final BigArrays bigArrays
+        final BigArrays bigArrays,
+        final boolean directBuffers
     ) throws IOException {
         final Path checkpointFile = file.getParent().resolve(Translog.CHECKPOINT_FILE_NAME);
 
@@ -178,7 +185,8 @@ public class TranslogWriter extends BaseTranslogReader implements Closeable {
                 header,
                 tragedy,
                 persistedSequenceNumberConsumer,
-                bigArrays
+                bigArrays,
+                directBuffers
             );
         } catch (Exception exception) {
             // if we fail to bake the file-generation into the checkpoint we stick with the file and once we recover and that
@@ -215,13 +223,21 @@ public class TranslogWriter extends BaseTranslogReader implements Closeable {
         final Translog.Location location;
         synchronized (this) {
             ensureOpen();
-            if (buffer == null) {
-                buffer = new ReleasableBytesStreamOutput(bigArrays);
-            }
-            assert bufferedBytes == buffer.size();
             final long offset = totalOffset;
+            if (directBuffers) {
+                if (directBuffer == null) {
+                    directBuffer = new DirectTranslogBuffer();
+                }
+                assert bufferedBytes == directBuffer.size();
+                directBuffer.append(data);
+            } else {
+                if (buffer == null) {
+                    buffer = new ReleasableBytesStreamOutput(bigArrays);
+                }
+                assert bufferedBytes == buffer.size();
+                data.writeTo(buffer);
+            }
             totalOffset += data.length();
-            data.writeTo(buffer);
 
             assert minSeqNo != SequenceNumbers.NO_OPS_PERFORMED || operationCounter == 0;
             assert maxSeqNo != SequenceNumbers.NO_OPS_PERFORMED || operationCounter == 0;
@@ -236,7 +252,7 @@ public class TranslogWriter extends BaseTranslogReader implements Closeable {
             assert assertNoSeqNumberConflict(seqNo, data);
 
             location = new Translog.Location(generation, offset, data.length());
-            bufferedBytes = buffer.size();
+            bufferedBytes = directBuffers ? directBuffer.size() : buffer.size();
         }
 
         return location;
@@ -391,7 +407,7 @@ public class TranslogWriter extends BaseTranslogReader implements Closeable {
                         throw ex;
                     }
                     // If we reached this point, all of the buffered ops should have been flushed successfully.
-                    assert buffer == null;
+                    assert buffer == null && directBuffer == null;
                     assert checkChannelPositionWhileHandlingException(totalOffset);
                     assert totalOffset == lastSyncedCheckpoint.offset;
                     if (closed.compareAndSet(false, true)) {
@@ -429,7 +445,7 @@ public class TranslogWriter extends BaseTranslogReader implements Closeable {
                         throw new TranslogException(shardId, "exception while syncing before creating a snapshot", e);
                     }
                     // If we reached this point, all of the buffered ops should have been flushed successfully.
-                    assert buffer == null;
+                    assert buffer == null && directBuffer == null;
                     assert checkChannelPositionWhileHandlingException(totalOffset);
                     assert totalOffset == lastSyncedCheckpoint.offset;
                     return super.newSnapshot();
@@ -455,7 +471,7 @@ public class TranslogWriter extends BaseTranslogReader implements Closeable {
                     // the lock we should check again since if this code is busy we might have fsynced enough already
                     final Checkpoint checkpointToSync;
                     final LongArrayList flushedSequenceNumbers;
-                    final ReleasableBytesReference toWrite;
+                    final Releasable toWrite;
                     try (ReleasableLock toClose = writeLock.acquire()) {
                         synchronized (this) {
                             ensureOpen();
@@ -506,9 +522,14 @@ public class TranslogWriter extends BaseTranslogReader implements Closeable {
         }
     }
 
-    private synchronized ReleasableBytesReference pollOpsToWrite() {
+    private synchronized Releasable pollOpsToWrite() {
         ensureOpen();
-        if (this.buffer != null) {
+        if (this.directBuffer != null) {
+            DirectTranslogBuffer toWrite = this.directBuffer;
+            this.directBuffer = null;
+            this.bufferedBytes = 0;
+            return toWrite;
+        } else if (this.buffer != null) {
             ReleasableBytesStreamOutput toWrite = this.buffer;
             this.buffer = null;
             this.bufferedBytes = 0;
@@ -518,6 +539,22 @@ public class TranslogWriter extends BaseTranslogReader implements Closeable {
         }
     }
 
+    private void writeAndReleaseOps(Releasable toWrite) throws IOException {
+        if (toWrite instanceof DirectTranslogBuffer directOps) {
+            writeAndReleaseOps(directOps);
+        } else {
+            writeAndReleaseOps((ReleasableBytesReference) toWrite);
+        }
+    }
+
+    private void writeAndReleaseOps(DirectTranslogBuffer toWrite) throws IOException {
+        try (DirectTranslogBuffer toClose = toWrite) {
+            assert writeLock.isHeldByCurrentThread();
+            // the buffers are already off-heap, so they are handed to the channel as they are
+            writeToFile(toWrite.flip());
+        }
+    }
+
     private void writeAndReleaseOps(ReleasableBytesReference toWrite) throws IOException {
         try (ReleasableBytesReference toClose = toWrite) {
             assert writeLock.isHeldByCurrentThread();
@@ -550,6 +587,18 @@ public class TranslogWriter extends BaseTranslogReader implements Closeable {
         }
     }
 
+    @SuppressForbidden(reason = "Channel#write")
+    private void writeToFile(ByteBuffer[] ioBuffers) throws IOException {
+        int first = 0;
+        while (first < ioBuffers.length) {
+            if (ioBuffers[first].hasRemaining()) {
+                channel.write(ioBuffers, first, ioBuffers.length - first);
+            } else {
+                first++;
+            }
+        }
+    }
+
     @Override
     protected void readBytes(ByteBuffer targetBuffer, long position) throws IOException {
         try {
@@ -601,8 +650,9 @@ public class TranslogWriter extends BaseTranslogReader implements Closeable {
     public final void close() throws IOException {
         if (closed.compareAndSet(false, true)) {
             synchronized (this) {
-                Releasables.closeWhileHandlingException(buffer);
+                Releasables.closeWhileHandlingException(buffer, directBuffer);
                 buffer = null;
+                directBuffer = null;
                 bufferedBytes = 0;
             }
             IOUtils.close(checkpointChannel, channel);
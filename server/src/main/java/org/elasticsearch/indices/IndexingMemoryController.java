@@ -12,6 +12,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.message.ParameterizedMessage;
 import org.apache.lucene.store.AlreadyClosedException;
+import org.elasticsearch.common.ExponentiallyWeightedMovingAverage;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
@@ -30,12 +31,16 @@ import org.elasticsearch.threadpool.ThreadPool.Names;
 
 import java.io.Closeable;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReentrantLock;
 
 public class IndexingMemoryController implements IndexingOperationListener, Closeable {
@@ -84,6 +89,44 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
         Property.NodeScope
     );
 
+    /**
+     * How the controller picks the shards whose indexing buffers it writes to disk.
+     */
+    public enum Mode {
+        /**
+         * Waits until the indexing buffers go over budget, then writes the largest ones to disk and throttles every shard it
+         * writes while segment writing can't keep up.
+         */
+        LARGEST_FIRST,
+        /**
+         * Tracks the rate at which the indexing buffer of each shard grows and shares the budget between the shards in
+         * proportion to their rates. The buffers of the shards that overshoot their share the most are written to disk
+         * before the budget is expected to be exceeded by the next check. Only the hottest shard and the shards that index
+         * faster than the average are throttled.
+         */
+        ADAPTIVE
+    }
+
+    /** How the controller picks the shards whose indexing buffers it writes to disk (default: largest_first). */
+    public static final Setting<Mode> CONTROLLER_MODE_SETTING = Setting.enumSetting(
+        Mode.class,
+        "indices.memory.controller_mode",
+        Mode.LARGEST_FIRST,
+        Property.NodeScope
+    );
+
+    /** Only applies to the adaptive mode, the weight of the latest sample in the write rate of a shard (default: 0.3). */
+    public static final Setting<Double> ADAPTIVE_EWMA_ALPHA_SETTING = Setting.doubleSetting(
+        "indices.memory.adaptive.ewma_alpha",
+        0.3,
+        0.01,
+        1.0,
+        Property.NodeScope
+    );
+
+    /** The number of shards with the highest write rates that are reported in the stats */
+    static final int HOTTEST_SHARDS_IN_STATS = 10;
+
     private final ThreadPool threadPool;
 
     private final Iterable<IndexShard> indexShards;
@@ -93,9 +136,22 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
     private final TimeValue inactiveTime;
     private final TimeValue interval;
 
+    private final Mode mode;
+    private final double ewmaAlpha;
+
     /** Contains shards currently being throttled because we can't write segments quickly enough */
     private final Set<IndexShard> throttled = new HashSet<>();
 
+    /** The write rates of the shards, only tracked in {@link Mode#ADAPTIVE} and guarded by the run lock of the checker */
+    private final Map<ShardId, ShardWriteRate> writeRates = new HashMap<>();
+
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder proactiveRefreshes = new LongAdder();
+    private final LongAdder throttleActivations = new LongAdder();
+    private volatile int throttledShards;
+    private volatile List<IndexingMemoryControllerStats.ShardStats> hottestShards = List.of();
+
     private final Cancellable scheduler;
 
     private static final EnumSet<IndexShardState> CAN_WRITE_INDEX_BUFFER_STATES = EnumSet.of(
@@ -130,15 +186,20 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
         // we need to have this relatively small to free up heap quickly enough
         this.interval = SHARD_MEMORY_INTERVAL_TIME_SETTING.get(settings);
 
+        this.mode = CONTROLLER_MODE_SETTING.get(settings);
+        this.ewmaAlpha = ADAPTIVE_EWMA_ALPHA_SETTING.get(settings);
+
         this.statusChecker = new ShardsIndicesStatusChecker();
 
         logger.debug(
-            "using indexing buffer size [{}] with {} [{}], {} [{}]",
+            "using indexing buffer size [{}] with {} [{}], {} [{}], {} [{}]",
             this.indexingBuffer,
             SHARD_INACTIVE_TIME_SETTING.getKey(),
             this.inactiveTime,
             SHARD_MEMORY_INTERVAL_TIME_SETTING.getKey(),
-            this.interval
+            this.interval,
+            CONTROLLER_MODE_SETTING.getKey(),
+            this.mode
         );
         this.scheduler = scheduleTask(threadPool);
 
@@ -199,11 +260,29 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
         });
     }
 
+    /** returns the current relative time in nanoseconds, used to compute the write rates of the shards */
+    protected long relativeTimeNanos() {
+        return System.nanoTime();
+    }
+
     /** force checker to run now */
     void forceCheck() {
         statusChecker.run();
     }
 
+    public IndexingMemoryControllerStats stats() {
+        return new IndexingMemoryControllerStats(
+            mode,
+            indexingBuffer.getBytes(),
+            checks.sum(),
+            refreshes.sum(),
+            proactiveRefreshes.sum(),
+            throttleActivations.sum(),
+            throttledShards,
+            hottestShards
+        );
+    }
+
     /** Asks this shard to throttle indexing to one thread */
     protected void activateThrottling(IndexShard shard) {
         shard.activateThrottling();
@@ -253,6 +332,9 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
         final AtomicLong bytesWrittenSinceCheck = new AtomicLong();
         final ReentrantLock runLock = new ReentrantLock();
 
+        /** The relative time of the last check in {@link Mode#ADAPTIVE}, guarded by the run lock */
+        private long lastCheckNanos = -1;
+
         /** Shard calls this on each indexing/delete op */
         public void bytesWritten(int bytes) {
             long totalBytes = bytesWrittenSinceCheck.addAndGet(bytes);
@@ -298,11 +380,13 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
         private void runUnlocked() {
             // NOTE: even if we hit an errant exc here, our ThreadPool.scheduledWithFixedDelay will log the exception and re-invoke us
             // again, on schedule
+            checks.increment();
 
             // First pass to sum up how much heap all shards' indexing buffers are using now, and how many bytes they are currently moving
             // to disk:
             long totalBytesUsed = 0;
             long totalBytesWriting = 0;
+            List<ShardAndBytesUsed> shardsBytesUsed = new ArrayList<>();
             for (IndexShard shard : availableShards()) {
 
                 // Give shard a chance to transition to inactive so we can flush
@@ -320,10 +404,12 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
                 // If the refresh completed just after we pulled shardWritingBytes and before we pulled shardBytesUsed, then we could
                 // have a negative value here. So we just skip this shard since that means it's now using very little heap:
                 if (shardBytesUsed < 0) {
+                    shardsBytesUsed.add(new ShardAndBytesUsed(0, shard));
                     continue;
                 }
 
                 totalBytesUsed += shardBytesUsed;
+                shardsBytesUsed.add(new ShardAndBytesUsed(shardBytesUsed, shard));
             }
 
             if (logger.isTraceEnabled()) {
@@ -340,6 +426,16 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
             // throttle the top shards to send back-pressure to ongoing indexing:
             boolean doThrottle = (totalBytesWriting + totalBytesUsed) > 1.5 * indexingBuffer.getBytes();
 
+            // The shards that may be throttled, all of them unless the adaptive mode restricts throttling to the hottest ones:
+            final Set<ShardId> throttleCandidates;
+            final Set<ShardId> written = new HashSet<>();
+            if (mode == Mode.ADAPTIVE) {
+                throttleCandidates = new HashSet<>();
+                totalBytesUsed = writeHottestIndexingBuffers(shardsBytesUsed, totalBytesUsed, doThrottle, throttleCandidates, written);
+            } else {
+                throttleCandidates = null;
+            }
+
             if (totalBytesUsed > indexingBuffer.getBytes()) {
                 // OK we are now over-budget; fill the priority queue and ask largest shard(s) to refresh:
                 PriorityQueue<ShardAndBytesUsed> queue = new PriorityQueue<>();
@@ -360,7 +456,8 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
                         continue;
                     }
 
-                    if (shardBytesUsed > 0) {
+                    // Skip the shards whose indexing buffers the adaptive pass already asked to write:
+                    if (shardBytesUsed > 0 && written.contains(shard.shardId()) == false) {
                         if (logger.isTraceEnabled()) {
                             if (shardWritingBytes != 0) {
                                 logger.trace(
@@ -395,11 +492,10 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
                         new ByteSizeValue(largest.bytesUsed)
                     );
                     writeIndexingBufferAsync(largest.shard);
+                    refreshes.increment();
                     totalBytesUsed -= largest.bytesUsed;
-                    if (doThrottle && throttled.contains(largest.shard) == false) {
-                        logger.info("now throttling indexing for shard [{}]: segment writing can't keep up", largest.shard.shardId());
-                        throttled.add(largest.shard);
-                        activateThrottling(largest.shard);
+                    if (doThrottle && (throttleCandidates == null || throttleCandidates.contains(largest.shard.shardId()))) {
+                        maybeActivateThrottling(largest.shard);
                     }
                 }
             }
@@ -411,6 +507,200 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
                 }
                 throttled.clear();
             }
+            throttledShards = throttled.size();
+            if (mode == Mode.ADAPTIVE) {
+                updateHottestShards(shardsBytesUsed);
+            }
+        }
+
+        /**
+         * Updates the write rates of the shards, then writes the indexing buffers of the shards that overshoot their share
+         * of the budget the most until the heap used by the indexing buffers is expected to stay within the budget by the
+         * next check. If throttling is needed, the hottest shard is always throttled.
+         *
+         * @param throttleCandidates receives the ids of the hottest shard and of the shards that index faster than the average
+         * @param written receives the ids of the shards whose indexing buffers were written to disk
+         * @return the heap used by the indexing buffers that aren't being written to disk yet
+         */
+        private long writeHottestIndexingBuffers(
+            List<ShardAndBytesUsed> shardsBytesUsed,
+            long totalBytesUsed,
+            boolean doThrottle,
+            Set<ShardId> throttleCandidates,
+            Set<ShardId> written
+        ) {
+            final long now = relativeTimeNanos();
+            // Besides every interval, checks run each time some bytes got indexed, so they are much more frequent under load. The
+            // time since the last check is the best guess of the time until the next one, beyond which it's too early to write:
+            final double horizonSeconds = lastCheckNanos < 0
+                ? interval.getSecondsFrac()
+                : Math.min(interval.getSecondsFrac(), Math.max(0L, now - lastCheckNanos) / 1_000_000_000.0);
+            lastCheckNanos = now;
+            final Set<ShardId> shardIds = new HashSet<>();
+            double totalRate = 0;
+            for (ShardAndBytesUsed shardBytesUsed : shardsBytesUsed) {
+                final ShardId shardId = shardBytesUsed.shard.shardId();
+                shardIds.add(shardId);
+                final ShardWriteRate writeRate = writeRates.computeIfAbsent(shardId, k -> new ShardWriteRate(ewmaAlpha));
+                writeRate.update(shardBytesUsed.bytesUsed, now);
+                totalRate += writeRate.bytesPerSecond();
+            }
+            writeRates.keySet().retainAll(shardIds);
+            if (shardsBytesUsed.isEmpty()) {
+                return totalBytesUsed;
+            }
+
+            final long budget = indexingBuffer.getBytes();
+            final double meanRate = totalRate / shardsBytesUsed.size();
+            ShardAndBytesUsed hottest = null;
+            for (ShardAndBytesUsed shardBytesUsed : shardsBytesUsed) {
+                final ShardWriteRate writeRate = writeRates.get(shardBytesUsed.shard.shardId());
+                if (hottest == null || compareHeat(shardBytesUsed, writeRate, hottest) > 0) {
+                    hottest = shardBytesUsed;
+                }
+                // share the budget in proportion to the write rates, evenly if no shard is indexing
+                writeRate.budget = totalRate > 0
+                    ? (long) (budget * (writeRate.bytesPerSecond() / totalRate))
+                    : budget / shardsBytesUsed.size();
+                if (writeRate.bytesPerSecond() > meanRate) {
+                    throttleCandidates.add(shardBytesUsed.shard.shardId());
+                }
+            }
+            // the write rates may be even, or there may be a single shard, but back-pressure must never be lost
+            throttleCandidates.add(hottest.shard.shardId());
+            if (doThrottle) {
+                maybeActivateThrottling(hottest.shard);
+            }
+
+            long predictedBytesUsed = totalBytesUsed + (long) (totalRate * horizonSeconds);
+            if (predictedBytesUsed <= budget) {
+                return totalBytesUsed;
+            }
+
+            // write the buffers of the shards that will exceed their share of the budget the most by the next check first
+            final PriorityQueue<ShardAndOvershoot> queue = new PriorityQueue<>(
+                Comparator.comparingDouble((ShardAndOvershoot s) -> s.overshoot).reversed()
+            );
+            for (ShardAndBytesUsed shardBytesUsed : shardsBytesUsed) {
+                if (shardBytesUsed.bytesUsed > 0) {
+                    final ShardWriteRate writeRate = writeRates.get(shardBytesUsed.shard.shardId());
+                    final double overshoot = shardBytesUsed.bytesUsed + writeRate.bytesPerSecond() * horizonSeconds - writeRate.budget;
+                    if (overshoot > 0) {
+                        queue.add(new ShardAndOvershoot(shardBytesUsed, overshoot));
+                    }
+                }
+            }
+
+            logger.debug(
+                "now write some indexing buffers: total indexing heap bytes used [{}] growing at [{}/s], predicted [{}] vs {} [{}]",
+                new ByteSizeValue(totalBytesUsed),
+                new ByteSizeValue((long) totalRate),
+                new ByteSizeValue(predictedBytesUsed),
+                INDEX_BUFFER_SIZE_SETTING.getKey(),
+                indexingBuffer
+            );
+
+            while (predictedBytesUsed > budget && queue.isEmpty() == false) {
+                final ShardAndBytesUsed hottest = queue.poll().shardAndBytesUsed;
+                logger.debug(
+                    "write indexing buffer to disk for shard [{}] to free up its [{}] indexing buffer ahead of the budget",
+                    hottest.shard.shardId(),
+                    new ByteSizeValue(hottest.bytesUsed)
+                );
+                writeIndexingBufferAsync(hottest.shard);
+                written.add(hottest.shard.shardId());
+                refreshes.increment();
+                if (totalBytesUsed <= budget) {
+                    proactiveRefreshes.increment();
+                }
+                totalBytesUsed -= hottest.bytesUsed;
+                predictedBytesUsed -= hottest.bytesUsed;
+                if (doThrottle && throttleCandidates.contains(hottest.shard.shardId())) {
+                    maybeActivateThrottling(hottest.shard);
+                }
+            }
+            return totalBytesUsed;
+        }
+
+        /**
+         * Compares how hot a shard is to how hot another one is, by write rate and then by the heap used by its indexing buffer.
+         */
+        private int compareHeat(ShardAndBytesUsed shardBytesUsed, ShardWriteRate writeRate, ShardAndBytesUsed other) {
+            final int byRate = Double.compare(writeRate.bytesPerSecond(), writeRates.get(other.shard.shardId()).bytesPerSecond());
+            return byRate != 0 ? byRate : Long.compare(shardBytesUsed.bytesUsed, other.bytesUsed);
+        }
+
+        private void maybeActivateThrottling(IndexShard shard) {
+            if (throttled.contains(shard) == false) {
+                logger.info("now throttling indexing for shard [{}]: segment writing can't keep up", shard.shardId());
+                throttled.add(shard);
+                throttleActivations.increment();
+                activateThrottling(shard);
+            }
+        }
+
+        private void updateHottestShards(List<ShardAndBytesUsed> shardsBytesUsed) {
+            final List<IndexingMemoryControllerStats.ShardStats> shardStats = new ArrayList<>(shardsBytesUsed.size());
+            for (ShardAndBytesUsed shardBytesUsed : shardsBytesUsed) {
+                final ShardWriteRate writeRate = writeRates.get(shardBytesUsed.shard.shardId());
+                if (writeRate != null) {
+                    shardStats.add(
+                        new IndexingMemoryControllerStats.ShardStats(
+                            shardBytesUsed.shard.shardId(),
+                            writeRate.bytesPerSecond(),
+                            shardBytesUsed.bytesUsed,
+                            writeRate.budget,
+                            throttled.contains(shardBytesUsed.shard)
+                        )
+                    );
+                }
+            }
+            shardStats.sort(
+                Comparator.comparingDouble(IndexingMemoryControllerStats.ShardStats::getWriteRateInBytesPerSecond).reversed()
+            );
+            hottestShards = List.copyOf(shardStats.subList(0, Math.min(HOTTEST_SHARDS_IN_STATS, shardStats.size())));
+        }
+    }
+
+    private static final class ShardAndOvershoot {
+        final ShardAndBytesUsed shardAndBytesUsed;
+        final double overshoot;
+
+        ShardAndOvershoot(ShardAndBytesUsed shardAndBytesUsed, double overshoot) {
+            this.shardAndBytesUsed = shardAndBytesUsed;
+            this.overshoot = overshoot;
+        }
+    }
+
+    /**
+     * The moving average of the rate at which the indexing buffer of a shard grows. The growth between two checks is the
+     * difference of the heap used by the buffer, or all of the heap it uses if it was written to disk in between.
+     */
+    private static final class ShardWriteRate {
+        private final ExponentiallyWeightedMovingAverage rate;
+        private long lastBytesUsed = -1;
+        private long lastTimeNanos;
+        long budget;
+
+        ShardWriteRate(double alpha) {
+            this.rate = new ExponentiallyWeightedMovingAverage(alpha, 0);
+        }
+
+        void update(long bytesUsed, long nowNanos) {
+            if (lastBytesUsed >= 0) {
+                if (nowNanos <= lastTimeNanos) {
+                    // checks may run back to back, keep accumulating the growth until some time elapsed
+                    return;
+                }
+                final long growth = bytesUsed >= lastBytesUsed ? bytesUsed - lastBytesUsed : bytesUsed;
+                rate.addValue(growth * 1_000_000_000.0 / (nowNanos - lastTimeNanos));
+            }
+            lastBytesUsed = bytesUsed;
+            lastTimeNanos = nowNanos;
+        }
+
+        double bytesPerSecond() {
+            return rate.getAverage();
         }
     }
 
@@ -0,0 +1,265 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices;
+
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.xcontent.ToXContentFragment;
+import org.elasticsearch.xcontent.ToXContentObject;
+import org.elasticsearch.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Statistics of the decisions of the {@link IndexingMemoryController} of a node.
+ */
+public class IndexingMemoryControllerStats implements Writeable, ToXContentFragment {
+
+    private final IndexingMemoryController.Mode mode;
+    private final long bufferSizeInBytes;
+    private final long checks;
+    private final long refreshes;
+    private final long proactiveRefreshes;
+    private final long throttleActivations;
+    private final int throttledShards;
+    private final List<ShardStats> hottestShards;
+
+    public IndexingMemoryControllerStats(
+        IndexingMemoryController.Mode mode,
+        long bufferSizeInBytes,
+        long checks,
+        long refreshes,
+        long proactiveRefreshes,
+        long throttleActivations,
+        int throttledShards,
+        List<ShardStats> hottestShards
+    ) {
+        this.mode = mode;
+        this.bufferSizeInBytes = bufferSizeInBytes;
+        this.checks = checks;
+        this.refreshes = refreshes;
+        this.proactiveRefreshes = proactiveRefreshes;
+        this.throttleActivations = throttleActivations;
+        this.throttledShards = throttledShards;
+        this.hottestShards = hottestShards;
+    }
+
+    public IndexingMemoryControllerStats(StreamInput in) throws IOException {
+        mode = in.readEnum(IndexingMemoryController.Mode.class);
+        bufferSizeInBytes = in.readVLong();
+        checks = in.readVLong();
+        refreshes = in.readVLong();
+        proactiveRefreshes = in.readVLong();
+        throttleActivations = in.readVLong();
+        throttledShards = in.readVInt();
+        hottestShards = in.readList(ShardStats::new);
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeEnum(mode);
+        out.writeVLong(bufferSizeInBytes);
+        out.writeVLong(checks);
+        out.writeVLong(refreshes);
+        out.writeVLong(proactiveRefreshes);
+        out.writeVLong(throttleActivations);
+        out.writeVInt(throttledShards);
+        out.writeList(hottestShards);
+    }
+
+    /** the mode of the controller */
+    public IndexingMemoryController.Mode getMode() {
+        return mode;
+    }
+
+    /** the budget for the indexing buffers of all the shards of the node */
+    public long getBufferSizeInBytes() {
+        return bufferSizeInBytes;
+    }
+
+    /** the number of times the controller checked the indexing buffers */
+    public long getChecks() {
+        return checks;
+    }
+
+    /** the number of times the controller asked a shard to write its indexing buffer to disk */
+    public long getRefreshes() {
+        return refreshes;
+    }
+
+    /** the number of refreshes that were asked for before the indexing buffers went over budget */
+    public long getProactiveRefreshes() {
+        return proactiveRefreshes;
+    }
+
+    /** the number of times the controller started to throttle indexing on a shard */
+    public long getThrottleActivations() {
+        return throttleActivations;
+    }
+
+    /** the number of shards that are currently throttled */
+    public int getThrottledShards() {
+        return throttledShards;
+    }
+
+    /** the shards with the highest write rates as of the last check, only tracked in {@link IndexingMemoryController.Mode#ADAPTIVE} */
+    public List<ShardStats> getHottestShards() {
+        return hottestShards;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject("indexing_memory");
+        builder.field("mode", mode.toString().toLowerCase(Locale.ROOT));
+        builder.humanReadableField("buffer_size_in_bytes", "buffer_size", new ByteSizeValue(bufferSizeInBytes));
+        builder.field("checks", checks);
+        builder.field("refreshes", refreshes);
+        builder.field("proactive_refreshes", proactiveRefreshes);
+        builder.field("throttle_activations", throttleActivations);
+        builder.field("throttled_shards", throttledShards);
+        builder.startArray("hottest_shards");
+        for (ShardStats shard : hottestShards) {
+            shard.toXContent(builder, params);
+        }
+        builder.endArray();
+        builder.endObject();
+        return builder;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        IndexingMemoryControllerStats that = (IndexingMemoryControllerStats) o;
+        return mode == that.mode
+            && bufferSizeInBytes == that.bufferSizeInBytes
+            && checks == that.checks
+            && refreshes == that.refreshes
+            && proactiveRefreshes == that.proactiveRefreshes
+            && throttleActivations == that.throttleActivations
+            && throttledShards == that.throttledShards
+            && hottestShards.equals(that.hottestShards);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(
+            mode,
+            bufferSizeInBytes,
+            checks,
+            refreshes,
+            proactiveRefreshes,
+            throttleActivations,
+            throttledShards,
+            hottestShards
+        );
+    }
+
+    @Override
+    public String toString() {
+        return Strings.toString(this, true, true);
+    }
+
+    /**
+     * The state of a shard as seen by the controller during its last check.
+     */
+    public static class ShardStats implements Writeable, ToXContentObject {
+
+        private final ShardId shardId;
+        private final double writeRateInBytesPerSecond;
+        private final long usedInBytes;
+        private final long budgetInBytes;
+        private final boolean throttled;
+
+        public ShardStats(ShardId shardId, double writeRateInBytesPerSecond, long usedInBytes, long budgetInBytes, boolean throttled) {
+            this.shardId = shardId;
+            this.writeRateInBytesPerSecond = writeRateInBytesPerSecond;
+            this.usedInBytes = usedInBytes;
+            this.budgetInBytes = budgetInBytes;
+            this.throttled = throttled;
+        }
+
+        public ShardStats(StreamInput in) throws IOException {
+            shardId = new ShardId(in);
+            writeRateInBytesPerSecond = in.readDouble();
+            usedInBytes = in.readVLong();
+            budgetInBytes = in.readVLong();
+            throttled = in.readBoolean();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            shardId.writeTo(out);
+            out.writeDouble(writeRateInBytesPerSecond);
+            out.writeVLong(usedInBytes);
+            out.writeVLong(budgetInBytes);
+            out.writeBoolean(throttled);
+        }
+
+        public ShardId getShardId() {
+            return shardId;
+        }
+
+        /** the moving average of the growth of the indexing buffer of the shard */
+        public double getWriteRateInBytesPerSecond() {
+            return writeRateInBytesPerSecond;
+        }
+
+        /** the heap used by the indexing buffer of the shard, excluding what it is writing to disk */
+        public long getUsedInBytes() {
+            return usedInBytes;
+        }
+
+        /** the share of the indexing buffer that was allocated to the shard */
+        public long getBudgetInBytes() {
+            return budgetInBytes;
+        }
+
+        public boolean isThrottled() {
+            return throttled;
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject();
+            builder.field("index", shardId.getIndexName());
+            builder.field("shard", shardId.id());
+            builder.field("write_rate_in_bytes_per_second", writeRateInBytesPerSecond);
+            builder.humanReadableField("used_in_bytes", "used", new ByteSizeValue(usedInBytes));
+            builder.humanReadableField("budget_in_bytes", "budget", new ByteSizeValue(budgetInBytes));
+            builder.field("throttled", throttled);
+            builder.endObject();
+            return builder;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            ShardStats that = (ShardStats) o;
+            return shardId.equals(that.shardId)
+                && Double.compare(writeRateInBytesPerSecond, that.writeRateInBytesPerSecond) == 0
+                && usedInBytes == that.usedInBytes
+                && budgetInBytes == that.budgetInBytes
+                && throttled == that.throttled;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(shardId, writeRateInBytesPerSecond, usedInBytes, budgetInBytes, throttled);
+        }
+    }
+}
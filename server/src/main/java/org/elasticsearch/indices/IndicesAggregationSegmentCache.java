@@ -0,0 +1,191 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.CheckedSupplier;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.NamedWriteableAwareStreamInput;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.mapper.MappingLookup;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The aggregation segment cache holds the partial aggregation results of a single segment. Unlike the
+ * {@link IndicesRequestCache}, which is keyed by the reader of the whole shard and misses after every refresh
+ * that changes the shard, entries of this cache are keyed by the reader of a segment, so only the segments
+ * that were created or that got new deletes since the last request need to be aggregated again.
+ * <p>
+ * The cache is only used for requests that could use the {@link IndicesRequestCache}, and can only be opted
+ * in on an index level setting that can be dynamically changed and defaults to false. Entries of segments
+ * that are closed are removed by the periodic cache cleaner.
+ */
+public final class IndicesAggregationSegmentCache implements Closeable {
+
+    /**
+     * A setting to enable or disable the aggregation segment cache on an index level.
+     */
+    public static final Setting<Boolean> INDEX_CACHE_AGGREGATION_SEGMENT_ENABLED_SETTING = Setting.boolSetting(
+        "index.aggregations.segment_cache.enable",
+        false,
+        Property.Dynamic,
+        Property.IndexScope
+    );
+    public static final Setting<ByteSizeValue> INDICES_CACHE_AGGREGATION_SEGMENT_SIZE = Setting.memorySizeSetting(
+        "indices.aggregations.segment_cache.size",
+        "1%",
+        Property.NodeScope
+    );
+
+    private final NamedWriteableRegistry namedWriteableRegistry;
+    private final Set<Object> registeredClosedListeners = ConcurrentCollections.newConcurrentSet();
+    private final Set<Object> keysToClean = ConcurrentCollections.newConcurrentSet();
+    private final Cache<Key, BytesReference> cache;
+
+    IndicesAggregationSegmentCache(Settings settings, NamedWriteableRegistry namedWriteableRegistry) {
+        this.namedWriteableRegistry = namedWriteableRegistry;
+        this.cache = CacheBuilder.<Key, BytesReference>builder()
+            .setMaximumWeight(INDICES_CACHE_AGGREGATION_SEGMENT_SIZE.get(settings).getBytes())
+            .weigher((k, v) -> k.ramBytesUsed() + v.length())
+            .build();
+    }
+
+    @Override
+    public void close() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Loads the cached aggregations of a segment, computing them with the provided loader if needed.
+     * @param cacheHelper the cache helper of the segment reader, used to invalidate the entry when the segment changes
+     * @param mappingCacheKey the key of the mappings the aggregations were computed with
+     * @param requestKey the key of the request within the shard
+     * @param loader computes the aggregations of the segment
+     */
+    InternalAggregations getOrCompute(
+        IndexReader.CacheHelper cacheHelper,
+        MappingLookup.CacheKey mappingCacheKey,
+        BytesReference requestKey,
+        CheckedSupplier<InternalAggregations, IOException> loader
+    ) throws IOException {
+        final Key key = new Key(cacheHelper.getKey(), mappingCacheKey, requestKey);
+        final BytesReference cached = cache.get(key);
+        if (cached != null) {
+            try (StreamInput in = new NamedWriteableAwareStreamInput(cached.streamInput(), namedWriteableRegistry)) {
+                return InternalAggregations.readFrom(in);
+            }
+        }
+        final InternalAggregations aggregations = loader.get();
+        // cache the serialized form since reductions are free to reuse the objects of the results they reduce
+        try (BytesStreamOutput out = new BytesStreamOutput(512)) {
+            aggregations.writeTo(out);
+            if (registeredClosedListeners.add(key.readerCacheKey)) {
+                cacheHelper.addClosedListener(readerCacheKey -> {
+                    if (registeredClosedListeners.remove(readerCacheKey)) {
+                        keysToClean.add(readerCacheKey);
+                    }
+                });
+            }
+            cache.put(key, out.bytes());
+        }
+        return aggregations;
+    }
+
+    /**
+     * Removes the entries of the segments that were closed since the last cleanup.
+     */
+    synchronized void cleanCache() {
+        final Set<Object> currentKeysToClean = new HashSet<>();
+        for (Iterator<Object> iterator = keysToClean.iterator(); iterator.hasNext();) {
+            currentKeysToClean.add(iterator.next());
+            iterator.remove();
+        }
+        if (currentKeysToClean.isEmpty() == false) {
+            for (Iterator<Key> iterator = cache.keys().iterator(); iterator.hasNext();) {
+                if (currentKeysToClean.contains(iterator.next().readerCacheKey)) {
+                    iterator.remove();
+                }
+            }
+        }
+        cache.refresh();
+    }
+
+    /**
+     * Returns the current size of the cache
+     */
+    int count() {
+        return cache.count();
+    }
+
+    int numRegisteredCloseListeners() { // for testing
+        return registeredClosedListeners.size();
+    }
+
+    static class Key implements Accountable {
+        private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(Key.class);
+
+        final Object readerCacheKey;
+        final MappingLookup.CacheKey mappingCacheKey;
+        final BytesReference requestKey;
+
+        Key(Object readerCacheKey, MappingLookup.CacheKey mappingCacheKey, BytesReference requestKey) {
+            this.readerCacheKey = Objects.requireNonNull(readerCacheKey);
+            this.mappingCacheKey = Objects.requireNonNull(mappingCacheKey);
+            this.requestKey = Objects.requireNonNull(requestKey);
+        }
+
+        @Override
+        public long ramBytesUsed() {
+            return BASE_RAM_BYTES_USED + requestKey.length();
+        }
+
+        @Override
+        public Collection<Accountable> getChildResources() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return readerCacheKey.equals(key.readerCacheKey)
+                && mappingCacheKey.equals(key.mappingCacheKey)
+                && requestKey.equals(key.requestKey);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = readerCacheKey.hashCode();
+            result = 31 * result + mappingCacheKey.hashCode();
+            result = 31 * result + requestKey.hashCode();
+            return result;
+        }
+    }
+}
@@ -121,6 +121,8 @@ import org.elasticsearch.plugins.IndexStorePlugin;
 import org.elasticsearch.plugins.PluginsService;
 import org.elasticsearch.repositories.RepositoriesService;
 import org.elasticsearch.script.ScriptService;
+import org.elasticsearch.search.SearchService;
+import org.elasticsearch.search.aggregations.AggregationPhase;
 import org.elasticsearch.search.aggregations.support.ValuesSourceRegistry;
 import org.elasticsearch.search.internal.AliasFilter;
 import org.elasticsearch.search.internal.SearchContext;
@@ -227,6 +229,7 @@ public class IndicesService extends AbstractLifecycleComponent
     private final IndexingMemoryController indexingMemoryController;
     private final TimeValue cleanInterval;
     final IndicesRequestCache indicesRequestCache; // pkg-private for testing
+    final IndicesAggregationSegmentCache aggregationSegmentCache; // pkg-private for testing
     private final IndicesQueryCache indicesQueryCache;
     private final MetaStateService metaStateService;
     private final Collection<Function<IndexSettings, Optional<EngineFactory>>> engineFactoryProviders;
@@ -297,6 +300,7 @@ public class IndicesService extends AbstractLifecycleComponent
         this.indicesQueryCache = new IndicesQueryCache(settings);
         this.mapperRegistry = mapperRegistry;
         this.namedWriteableRegistry = namedWriteableRegistry;
+        this.aggregationSegmentCache = new IndicesAggregationSegmentCache(settings, namedWriteableRegistry);
         indexingMemoryController = new IndexingMemoryController(
             settings,
             threadPool,
@@ -323,7 +327,14 @@ public class IndicesService extends AbstractLifecycleComponent
             }
         });
         this.cleanInterval = INDICES_CACHE_CLEAN_INTERVAL_SETTING.get(settings);
-        this.cacheCleaner = new CacheCleaner(indicesFieldDataCache, indicesRequestCache, logger, threadPool, this.cleanInterval);
+        this.cacheCleaner = new CacheCleaner(
+            indicesFieldDataCache,
+            indicesRequestCache,
+            aggregationSegmentCache,
+            logger,
+            threadPool,
+            this.cleanInterval
+        );
         this.metaStateService = metaStateService;
         this.engineFactoryProviders = engineFactoryProviders;
 
@@ -352,6 +363,7 @@ public class IndicesService extends AbstractLifecycleComponent
                     indicesFieldDataCache,
                     cacheCleaner,
                     indicesRequestCache,
+                    aggregationSegmentCache,
                     indicesQueryCache
                 );
             } catch (IOException e) {
@@ -1405,16 +1417,19 @@ public class IndicesService extends AbstractLifecycleComponent
         private final TimeValue interval;
         private final AtomicBoolean closed = new AtomicBoolean(false);
         private final IndicesRequestCache requestCache;
+        private final IndicesAggregationSegmentCache aggregationSegmentCache;
 
         CacheCleaner(
             IndicesFieldDataCache cache,
             IndicesRequestCache requestCache,
+            IndicesAggregationSegmentCache aggregationSegmentCache,
             Logger logger,
             ThreadPool threadPool,
             TimeValue interval
         ) {
             this.cache = cache;
             this.requestCache = requestCache;
+            this.aggregationSegmentCache = aggregationSegmentCache;
             this.logger = logger;
             this.threadPool = threadPool;
             this.interval = interval;
@@ -1443,6 +1458,12 @@ public class IndicesService extends AbstractLifecycleComponent
             } catch (Exception e) {
                 logger.warn("Exception during periodic request cache cleanup:", e);
             }
+
+            try {
+                this.aggregationSegmentCache.cleanCache();
+            } catch (Exception e) {
+                logger.warn("Exception during periodic aggregation segment cache cleanup:", e);
+            }
             // Reschedule itself to run again if not closed
             if (closed.get() == false) {
                 threadPool.scheduleUnlessShuttingDown(interval, ThreadPool.Names.SAME, this);
@@ -1516,6 +1537,17 @@ public class IndicesService extends AbstractLifecycleComponent
 
         boolean[] loadedFromCache = new boolean[] { true };
         BytesReference cacheKey = request.cacheKey(requestCacheKeyDifferentiator);
+        if (canCacheAggregationsPerSegment(request, context)) {
+            // if the shard level result is not cached, compute the aggregations of the segments that changed only
+            final MappingLookup.CacheKey mappingCacheKey = context.getSearchExecutionContext().mappingCacheKey();
+            context.aggregations().segmentCache((leaf, loader) -> {
+                CacheHelper cacheHelper = leaf.reader().getReaderCacheHelper();
+                if (cacheHelper == null) {
+                    return loader.get();
+                }
+                return aggregationSegmentCache.getOrCompute(cacheHelper, mappingCacheKey, cacheKey, loader);
+            });
+        }
         BytesReference bytesReference = cacheShardLevelResult(
             context.indexShard(),
             context.getSearchExecutionContext().mappingCacheKey(),
@@ -1558,10 +1590,36 @@ public class IndicesService extends AbstractLifecycleComponent
         }
     }
 
+    /**
+     * Can the aggregations of a cacheable shard request be computed and cached segment by segment?
+     */
+    private static boolean canCacheAggregationsPerSegment(ShardSearchRequest request, SearchContext context) {
+        if (context.aggregations() == null || context.aggregations().factories().context() == null) {
+            return false;
+        }
+        IndexSettings settings = context.indexShard().indexSettings();
+        if (settings.getValue(IndicesAggregationSegmentCache.INDEX_CACHE_AGGREGATION_SEGMENT_ENABLED_SETTING) == false) {
+            return false;
+        }
+        // these change the documents that the aggregations collect depending on the documents of other segments
+        if (context.minimumScore() != null || context.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER) {
+            return false;
+        }
+        // a timed out segment would be cached with partial results
+        if (context.timeout() != null && context.timeout().equals(SearchService.NO_TIMEOUT) == false) {
+            return false;
+        }
+        return AggregationPhase.canCachePerSegment(request.source().aggregations());
+    }
+
     public ByteSizeValue getTotalIndexingBufferBytes() {
         return indexingMemoryController.indexingBufferSize();
     }
 
+    public IndexingMemoryControllerStats indexingMemoryControllerStats() {
+        return indexingMemoryController.stats();
+    }
+
     /**
      * Cache something calculated at the shard level.
      * @param shard the shard this item is part of
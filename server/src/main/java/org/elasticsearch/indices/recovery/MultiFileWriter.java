@@ -9,6 +9,10 @@ package org.elasticsearch.indices.recovery;
 
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.lucene.index.CorruptIndexException;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.FilterDirectory;
 import org.apache.lucene.store.IOContext;
 import org.apache.lucene.store.IndexOutput;
 import org.apache.lucene.util.BytesRef;
@@ -16,10 +20,13 @@ import org.apache.lucene.util.BytesRefIterator;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.io.Channels;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.core.AbstractRefCounted;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.core.Releasables;
+import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.store.StoreFileMetadata;
 import org.elasticsearch.transport.Transports;
@@ -27,6 +34,10 @@ import org.elasticsearch.transport.Transports;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
@@ -35,6 +46,7 @@ import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
 
 public class MultiFileWriter extends AbstractRefCounted implements Releasable {
 
@@ -55,6 +67,7 @@ public class MultiFileWriter extends AbstractRefCounted implements Releasable {
 
     private final ConcurrentMap<String, IndexOutput> openIndexOutputs = ConcurrentCollections.newConcurrentMap();
     private final ConcurrentMap<String, FileChunkWriter> fileChunkWriters = ConcurrentCollections.newConcurrentMap();
+    private final ConcurrentMap<String, FileRangeWriter> fileRangeWriters = ConcurrentCollections.newConcurrentMap();
 
     final Map<String, String> tempFileNames = ConcurrentCollections.newConcurrentMap();
 
@@ -70,6 +83,66 @@ public class MultiFileWriter extends AbstractRefCounted implements Releasable {
         }
     }
 
+    /**
+     * Writes a range of a file that is sent in ranges, which can be received in any order. The range is verified against the CRC32
+     * checksum of its content and written at its position in the file as soon as it is received, so that ranges don't need to be
+     * buffered until the ranges before them are written. The whole file is verified against its checksum once all its ranges are
+     * written. If the store isn't backed by a file system directory, or doesn't create the file on disk, the ranges are written in
+     * order, like the chunks of other files.
+     */
+    public void writeFileRange(StoreFileMetadata fileMetadata, long position, ReleasableBytesReference content, long rangeChecksum)
+        throws IOException {
+        assert Transports.assertNotTransportThread("multi_file_writer");
+        incRef();
+        try {
+            verifyRangeChecksum(fileMetadata, position, content, rangeChecksum);
+            final Path directory = fileSystemDirectory();
+            if (directory == null) {
+                writeFileChunk(fileMetadata, position, content, position + content.length() == fileMetadata.length());
+            } else {
+                final FileRangeWriter writer = fileRangeWriters.computeIfAbsent(
+                    fileMetadata.name(),
+                    name -> new FileRangeWriter(fileMetadata, directory)
+                );
+                writer.writeRange(position, content);
+            }
+        } finally {
+            decRef();
+        }
+    }
+
+    private static void verifyRangeChecksum(StoreFileMetadata fileMetadata, long position, BytesReference content, long rangeChecksum)
+        throws IOException {
+        final CRC32 crc32 = new CRC32();
+        final BytesRefIterator iterator = content.iterator();
+        BytesRef scratch;
+        while ((scratch = iterator.next()) != null) {
+            crc32.update(scratch.bytes, scratch.offset, scratch.length);
+        }
+        if (crc32.getValue() != rangeChecksum) {
+            throw new CorruptIndexException(
+                "checksum mismatch in range ["
+                    + position
+                    + "-"
+                    + (position + content.length())
+                    + "]: expected ["
+                    + rangeChecksum
+                    + "] but was ["
+                    + crc32.getValue()
+                    + "]",
+                fileMetadata.name()
+            );
+        }
+    }
+
+    /**
+     * Returns the path of the file system directory the store writes to, or null if the files of the store can't be written directly.
+     */
+    private Path fileSystemDirectory() {
+        final Directory directory = FilterDirectory.unwrap(store.directory());
+        return directory instanceof FSDirectory fsDirectory ? fsDirectory.getDirectory() : null;
+    }
+
     public void writeFile(StoreFileMetadata fileMetadata, long readSnapshotFileBufferSize, InputStream stream) throws Exception {
         ensureOpen.run();
         assert Transports.assertNotTransportThread("multi_file_writer");
@@ -209,6 +282,8 @@ public class MultiFileWriter extends AbstractRefCounted implements Releasable {
     protected void closeInternal() {
         Releasables.close(fileChunkWriters.values());
         fileChunkWriters.clear();
+        Releasables.close(fileRangeWriters.values());
+        fileRangeWriters.clear();
         // clean open index outputs
         Iterator<Map.Entry<String, IndexOutput>> iterator = openIndexOutputs.entrySet().iterator();
         while (iterator.hasNext()) {
@@ -293,4 +368,119 @@ public class MultiFileWriter extends AbstractRefCounted implements Releasable {
             Releasables.close(pendingChunks);
         }
     }
+
+    /**
+     * Writes the ranges of a file at their position in its temporary file, which is verified once all the ranges are written.
+     * <p>
+     * The temporary file is created through the directory of the store and its {@link IndexOutput} stays open until the file is
+     * complete, so that the wrappers of the directory account for the write like for any other file, e.g. the cached size of the
+     * store is recomputed. As an {@link IndexOutput} can only append, the ranges themselves are written to the created file with
+     * positional writes.
+     */
+    private final class FileRangeWriter implements Releasable {
+        private final StoreFileMetadata md;
+        private final Path directory;
+        private final String tempFileName;
+        private IndexOutput output;
+        private FileChannel channel;
+        private boolean inOrder;
+        private long bytesWritten;
+        private boolean closed;
+
+        FileRangeWriter(StoreFileMetadata md, Path directory) {
+            this.md = md;
+            this.directory = directory;
+            this.tempFileName = getTempNameForFile(md.name());
+        }
+
+        void writeRange(long position, ReleasableBytesReference content) throws IOException {
+            final FileChannel channel = getOrOpenChannel();
+            if (channel == null) {
+                writeFileChunk(md, position, content, position + content.length() == md.length());
+                return;
+            }
+            // the ranges of a file don't overlap, so they can be written concurrently
+            long offset = position;
+            final BytesRefIterator iterator = content.iterator();
+            BytesRef scratch;
+            while ((scratch = iterator.next()) != null) {
+                Channels.writeToChannel(scratch.bytes, scratch.offset, scratch.length, channel, offset);
+                offset += scratch.length;
+            }
+            indexState.addRecoveredBytesToFile(md.name(), content.length());
+            final boolean complete;
+            synchronized (this) {
+                bytesWritten += content.length();
+                assert bytesWritten <= md.length() : "wrote [" + bytesWritten + "] bytes to [" + md + "]";
+                complete = bytesWritten == md.length();
+            }
+            if (complete) {
+                finish();
+            }
+        }
+
+        /**
+         * Returns the channel to write the ranges to, or null if they must be written in order
+         */
+        @Nullable
+        private synchronized FileChannel getOrOpenChannel() throws IOException {
+            ensureOpen.run();
+            if (inOrder) {
+                return null;
+            }
+            if (closed) {
+                throw new IllegalStateException("output for file [" + md.name() + "] is already closed");
+            }
+            if (channel == null) {
+                if (tempFileNames.containsKey(tempFileName)) {
+                    throw new IllegalStateException("output for file [" + md.name() + "] has already been created");
+                }
+                // add first, before it's created
+                tempFileNames.put(tempFileName, md.name());
+                output = store.directory().createOutput(tempFileName, IOContext.DEFAULT);
+                final Path file = directory.resolve(tempFileName);
+                if (Files.exists(file) == false) {
+                    // a wrapper of the directory holds the file elsewhere, e.g. in memory, so it can only be written in order
+                    IOUtils.close(output);
+                    output = null;
+                    store.directory().deleteFile(tempFileName);
+                    tempFileNames.remove(tempFileName);
+                    inOrder = true;
+                    return null;
+                }
+                boolean success = false;
+                try {
+                    channel = FileChannel.open(file, StandardOpenOption.WRITE);
+                    success = true;
+                } finally {
+                    if (success == false) {
+                        IOUtils.closeWhileHandlingException(output);
+                        output = null;
+                    }
+                }
+            }
+            return channel;
+        }
+
+        private void finish() throws IOException {
+            synchronized (this) {
+                closed = true;
+                // nothing was written to the output, closing it only tells the directory that the file is complete
+                IOUtils.close(channel, output);
+                channel = null;
+                output = null;
+            }
+            Store.checkIntegrity(new StoreFileMetadata(tempFileName, md.length(), md.checksum(), md.writtenBy()), store.directory());
+            store.directory().sync(Collections.singleton(tempFileName));
+            fileRangeWriters.remove(md.name(), this);
+        }
+
+        @Override
+        public synchronized void close() {
+            closed = true;
+            IOUtils.closeWhileHandlingException(channel, output);
+            channel = null;
+            output = null;
+        }
+    }
 }
@@ -362,6 +362,7 @@ public class PeerRecoverySourceService extends AbstractLifecycleComponent implem
                     request,
                     Math.toIntExact(recoverySettings.getChunkSize().getBytes()),
                     recoverySettings.getMaxConcurrentFileChunks(),
+                    recoverySettings.getMaxConcurrentFileRanges(),
                     recoverySettings.getMaxConcurrentOperations(),
                     recoverySettings.getMaxConcurrentSnapshotFileDownloads(),
                     recoverySettings.getUseSnapshotsDuringRecovery(),
@@ -577,14 +577,25 @@ public class PeerRecoveryTargetService implements IndexEventListener {
                         recoveryTarget.indexShard().recoveryStats().addThrottleTime(throttleTimeInNanos);
                     }
                 }
-                recoveryTarget.writeFileChunk(
-                    request.metadata(),
-                    request.position(),
-                    request.content(),
-                    request.lastChunk(),
-                    request.totalTranslogOps(),
-                    listener
-                );
+                if (request.rangeChecksum() != RecoveryFileChunkRequest.NO_RANGE_CHECKSUM) {
+                    recoveryTarget.writeFileRange(
+                        request.metadata(),
+                        request.position(),
+                        request.content(),
+                        request.rangeChecksum(),
+                        request.totalTranslogOps(),
+                        listener
+                    );
+                } else {
+                    recoveryTarget.writeFileChunk(
+                        request.metadata(),
+                        request.position(),
+                        request.content(),
+                        request.lastChunk(),
+                        request.totalTranslogOps(),
+                        listener
+                    );
+                }
             }
         }
     }
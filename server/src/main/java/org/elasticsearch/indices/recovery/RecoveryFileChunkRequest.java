@@ -8,6 +8,7 @@
 
 package org.elasticsearch.indices.recovery;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -18,6 +19,10 @@ import org.elasticsearch.index.store.StoreFileMetadata;
 import java.io.IOException;
 
 public final class RecoveryFileChunkRequest extends RecoveryTransportRequest implements RefCounted {
+
+    /** the range checksum of a chunk that is part of a file that is sent sequentially */
+    public static final long NO_RANGE_CHECKSUM = -1L;
+
     private final boolean lastChunk;
     private final long recoveryId;
     private final ShardId shardId;
@@ -25,6 +30,7 @@ public final class RecoveryFileChunkRequest extends RecoveryTransportRequest imp
     private final ReleasableBytesReference content;
     private final StoreFileMetadata metadata;
     private final long sourceThrottleTimeInNanos;
+    private final long rangeChecksum;
 
     private final int totalTranslogOps;
 
@@ -42,6 +48,11 @@ public final class RecoveryFileChunkRequest extends RecoveryTransportRequest imp
         lastChunk = in.readBoolean();
         totalTranslogOps = in.readVInt();
         sourceThrottleTimeInNanos = in.readLong();
+        if (in.getVersion().onOrAfter(Version.V_8_1_0)) {
+            rangeChecksum = in.readLong();
+        } else {
+            rangeChecksum = NO_RANGE_CHECKSUM;
+        }
     }
 
     public RecoveryFileChunkRequest(
@@ -54,6 +65,32 @@ public final class RecoveryFileChunkRequest extends RecoveryTransportRequest imp
         boolean lastChunk,
         int totalTranslogOps,
         long sourceThrottleTimeInNanos
+    ) {
+        this(
+            recoveryId,
+            requestSeqNo,
+            shardId,
+            metadata,
+            position,
+            content,
+            lastChunk,
+            totalTranslogOps,
+            sourceThrottleTimeInNanos,
+            NO_RANGE_CHECKSUM
+        );
+    }
+
+    public RecoveryFileChunkRequest(
+        long recoveryId,
+        final long requestSeqNo,
+        ShardId shardId,
+        StoreFileMetadata metadata,
+        long position,
+        ReleasableBytesReference content,
+        boolean lastChunk,
+        int totalTranslogOps,
+        long sourceThrottleTimeInNanos,
+        long rangeChecksum
     ) {
         super(requestSeqNo);
         this.recoveryId = recoveryId;
@@ -64,6 +101,7 @@ public final class RecoveryFileChunkRequest extends RecoveryTransportRequest imp
         this.lastChunk = lastChunk;
         this.totalTranslogOps = totalTranslogOps;
         this.sourceThrottleTimeInNanos = sourceThrottleTimeInNanos;
+        this.rangeChecksum = rangeChecksum;
     }
 
     public long recoveryId() {
@@ -112,6 +150,11 @@ public final class RecoveryFileChunkRequest extends RecoveryTransportRequest imp
         out.writeBoolean(lastChunk);
         out.writeVInt(totalTranslogOps);
         out.writeLong(sourceThrottleTimeInNanos);
+        if (out.getVersion().onOrAfter(Version.V_8_1_0)) {
+            out.writeLong(rangeChecksum);
+        } else {
+            assert rangeChecksum == NO_RANGE_CHECKSUM : "file ranges are not supported by nodes on version " + out.getVersion();
+        }
     }
 
     @Override
@@ -123,6 +166,14 @@ public final class RecoveryFileChunkRequest extends RecoveryTransportRequest imp
         return metadata;
     }
 
+    /**
+     * Returns the CRC32 checksum of the content of this chunk if it is a range of a file that is sent in ranges that are written at
+     * their position as they are received, or {@link #NO_RANGE_CHECKSUM} if the chunks of the file are sent sequentially.
+     */
+    public long rangeChecksum() {
+        return rangeChecksum;
+    }
+
     /**
      * Returns <code>true</code> if this chunk is the last chunk in the stream.
      */
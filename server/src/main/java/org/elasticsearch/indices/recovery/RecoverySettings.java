@@ -106,6 +106,20 @@ public class RecoverySettings {
         Property.NodeScope
     );
 
+    /**
+     * Controls the number of ranges of the files larger than a chunk that are read and sent concurrently from the source node to the
+     * target node, which writes each range at its offset in the file. Each range can have up to
+     * {@link #INDICES_RECOVERY_MAX_CONCURRENT_FILE_CHUNKS_SETTING} chunk requests in flight. Files are sent one after the other if 1.
+     */
+    public static final Setting<Integer> INDICES_RECOVERY_MAX_CONCURRENT_FILE_RANGES_SETTING = Setting.intSetting(
+        "indices.recovery.max_concurrent_file_ranges",
+        1,
+        1,
+        8,
+        Property.Dynamic,
+        Property.NodeScope
+    );
+
     /**
      * Controls the maximum number of operation chunk requests that can be sent concurrently from the source node to the target node.
      */
@@ -241,6 +255,7 @@ public class RecoverySettings {
 
     private volatile ByteSizeValue maxBytesPerSec;
     private volatile int maxConcurrentFileChunks;
+    private volatile int maxConcurrentFileRanges;
     private volatile int maxConcurrentOperations;
     private volatile SimpleRateLimiter rateLimiter;
     private volatile TimeValue retryDelayStateSync;
@@ -260,6 +275,7 @@ public class RecoverySettings {
     public RecoverySettings(Settings settings, ClusterSettings clusterSettings) {
         this.retryDelayStateSync = INDICES_RECOVERY_RETRY_DELAY_STATE_SYNC_SETTING.get(settings);
         this.maxConcurrentFileChunks = INDICES_RECOVERY_MAX_CONCURRENT_FILE_CHUNKS_SETTING.get(settings);
+        this.maxConcurrentFileRanges = INDICES_RECOVERY_MAX_CONCURRENT_FILE_RANGES_SETTING.get(settings);
         this.maxConcurrentOperations = INDICES_RECOVERY_MAX_CONCURRENT_OPERATIONS_SETTING.get(settings);
         // doesn't have to be fast as nodes are reconnected every 10s by default (see InternalClusterService.ReconnectToNodes)
         // and we want to give the master time to remove a faulty node
@@ -285,6 +301,7 @@ public class RecoverySettings {
 
         clusterSettings.addSettingsUpdateConsumer(INDICES_RECOVERY_MAX_BYTES_PER_SEC_SETTING, this::setMaxBytesPerSec);
         clusterSettings.addSettingsUpdateConsumer(INDICES_RECOVERY_MAX_CONCURRENT_FILE_CHUNKS_SETTING, this::setMaxConcurrentFileChunks);
+        clusterSettings.addSettingsUpdateConsumer(INDICES_RECOVERY_MAX_CONCURRENT_FILE_RANGES_SETTING, this::setMaxConcurrentFileRanges);
         clusterSettings.addSettingsUpdateConsumer(INDICES_RECOVERY_MAX_CONCURRENT_OPERATIONS_SETTING, this::setMaxConcurrentOperations);
         clusterSettings.addSettingsUpdateConsumer(INDICES_RECOVERY_RETRY_DELAY_STATE_SYNC_SETTING, this::setRetryDelayStateSync);
         clusterSettings.addSettingsUpdateConsumer(INDICES_RECOVERY_RETRY_DELAY_NETWORK_SETTING, this::setRetryDelayNetwork);
@@ -383,6 +400,14 @@ public class RecoverySettings {
         this.maxConcurrentFileChunks = maxConcurrentFileChunks;
     }
 
+    public int getMaxConcurrentFileRanges() {
+        return maxConcurrentFileRanges;
+    }
+
+    private void setMaxConcurrentFileRanges(int maxConcurrentFileRanges) {
+        this.maxConcurrentFileRanges = maxConcurrentFileRanges;
+    }
+
     public int getMaxConcurrentOperations() {
         return maxConcurrentOperations;
     }
@@ -24,6 +24,7 @@ import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.ActionRunnable;
 import org.elasticsearch.action.StepListener;
+import org.elasticsearch.action.support.GroupedActionListener;
 import org.elasticsearch.action.support.PlainActionFuture;
 import org.elasticsearch.action.support.ThreadedActionListener;
 import org.elasticsearch.action.support.replication.ReplicationResponse;
@@ -91,6 +92,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.function.IntSupplier;
 import java.util.stream.StreamSupport;
+import java.util.zip.CRC32;
 
 import static org.elasticsearch.common.util.CollectionUtils.concatLists;
 
@@ -116,6 +118,7 @@ public class RecoverySourceHandler {
     private final int chunkSizeInBytes;
     private final RecoveryTargetHandler recoveryTarget;
     private final int maxConcurrentFileChunks;
+    private final int maxConcurrentFileRanges;
     private final int maxConcurrentOperations;
     private final int maxConcurrentSnapshotFileDownloads;
     private final boolean useSnapshots;
@@ -136,6 +139,34 @@ public class RecoverySourceHandler {
         int maxConcurrentSnapshotFileDownloads,
         boolean useSnapshots,
         RecoveryPlannerService recoveryPlannerService
+    ) {
+        this(
+            shard,
+            recoveryTarget,
+            threadPool,
+            request,
+            fileChunkSizeInBytes,
+            maxConcurrentFileChunks,
+            1,
+            maxConcurrentOperations,
+            maxConcurrentSnapshotFileDownloads,
+            useSnapshots,
+            recoveryPlannerService
+        );
+    }
+
+    public RecoverySourceHandler(
+        IndexShard shard,
+        RecoveryTargetHandler recoveryTarget,
+        ThreadPool threadPool,
+        StartRecoveryRequest request,
+        int fileChunkSizeInBytes,
+        int maxConcurrentFileChunks,
+        int maxConcurrentFileRanges,
+        int maxConcurrentOperations,
+        int maxConcurrentSnapshotFileDownloads,
+        boolean useSnapshots,
+        RecoveryPlannerService recoveryPlannerService
     ) {
         this.shard = shard;
         this.recoveryTarget = recoveryTarget;
@@ -146,6 +177,7 @@ public class RecoverySourceHandler {
         this.logger = Loggers.getLogger(getClass(), request.shardId(), "recover to " + request.targetNode().getName());
         this.chunkSizeInBytes = fileChunkSizeInBytes;
         this.maxConcurrentFileChunks = maxConcurrentFileChunks;
+        this.maxConcurrentFileRanges = maxConcurrentFileRanges;
         this.maxConcurrentOperations = maxConcurrentOperations;
         this.maxConcurrentSnapshotFileDownloads = maxConcurrentSnapshotFileDownloads;
         this.useSnapshots = useSnapshots;
@@ -1298,13 +1330,19 @@ public class RecoverySourceHandler {
         final BytesReference content;
         final long position;
         final boolean lastChunk;
+        final long rangeChecksum;
         final Releasable onClose;
 
         FileChunk(StoreFileMetadata md, BytesReference content, long position, boolean lastChunk, Releasable onClose) {
+            this(md, content, position, lastChunk, RecoveryFileChunkRequest.NO_RANGE_CHECKSUM, onClose);
+        }
+
+        FileChunk(StoreFileMetadata md, BytesReference content, long position, boolean lastChunk, long rangeChecksum, Releasable onClose) {
             this.md = md;
             this.content = content;
             this.position = position;
             this.lastChunk = lastChunk;
+            this.rangeChecksum = rangeChecksum;
             this.onClose = onClose;
         }
 
@@ -1323,6 +1361,13 @@ public class RecoverySourceHandler {
         ArrayUtil.timSort(files, Comparator.comparingLong(StoreFileMetadata::length)); // send smallest first
         // use a smaller buffer than the configured chunk size if we only have files smaller than the chunk size
         final int bufferSize = files.length == 0 ? 0 : (int) Math.min(chunkSizeInBytes, files[files.length - 1].length());
+        if (maxConcurrentFileRanges > 1
+            && files.length > 0
+            && files[files.length - 1].length() > chunkSizeInBytes
+            && request.targetNode().getVersion().onOrAfter(Version.V_8_1_0)) {
+            sendFileRanges(store, files, bufferSize, translogOps, listener);
+            return;
+        }
         Releasable temporaryStoreRef = acquireStore(store);
         try {
             final Releasable storeRef = temporaryStoreRef;
@@ -1411,6 +1456,184 @@ public class RecoverySourceHandler {
         }
     }
 
+    /**
+     * Sends the files with {@link #maxConcurrentFileRanges} senders that run concurrently, rather than one chunk after the other. Each
+     * file that is larger than a chunk is split into one range per sender, made of whole chunks, and the chunks of the ranges are sent
+     * with the CRC32 checksum of their content so that the target can verify them and write them at their position in the file as
+     * they are received. The smaller files are spread over the senders and sent as usual.
+     */
+    private void sendFileRanges(
+        Store store,
+        StoreFileMetadata[] files,
+        int bufferSize,
+        IntSupplier translogOps,
+        ActionListener<Void> listener
+    ) {
+        final List<List<FileRange>> rangesPerSender = new ArrayList<>(maxConcurrentFileRanges);
+        for (int i = 0; i < maxConcurrentFileRanges; i++) {
+            rangesPerSender.add(new ArrayList<>());
+        }
+        int nextSender = 0;
+        for (StoreFileMetadata md : files) {
+            if (md.length() <= chunkSizeInBytes || md.hashEqualsContents()) {
+                rangesPerSender.get(nextSender).add(new FileRange(md, 0, md.length(), false));
+                nextSender = (nextSender + 1) % maxConcurrentFileRanges;
+            } else {
+                final long chunks = (md.length() + chunkSizeInBytes - 1) / chunkSizeInBytes;
+                final long chunksPerRange = (chunks + maxConcurrentFileRanges - 1) / maxConcurrentFileRanges;
+                long start = 0;
+                for (int i = 0; start < md.length(); i++) {
+                    final long end = Math.min(md.length(), start + chunksPerRange * chunkSizeInBytes);
+                    rangesPerSender.get(i).add(new FileRange(md, start, end, true));
+                    start = end;
+                }
+            }
+        }
+        rangesPerSender.removeIf(List::isEmpty);
+        final GroupedActionListener<Void> groupedListener = new GroupedActionListener<>(listener.map(r -> null), rangesPerSender.size());
+        for (List<FileRange> ranges : rangesPerSender) {
+            final Releasable storeRef = acquireStore(store);
+            final FileRangeSender sender;
+            try {
+                sender = new FileRangeSender(store, storeRef, bufferSize, translogOps, ranges, groupedListener);
+            } catch (Exception e) {
+                Releasables.close(storeRef);
+                throw e;
+            }
+            resources.add(sender);
+            sender.start();
+        }
+    }
+
+    private static class FileRange {
+        final StoreFileMetadata md;
+        final long start;
+        final long end;
+        final boolean sentInRanges;
+
+        FileRange(StoreFileMetadata md, long start, long end, boolean sentInRanges) {
+            this.md = md;
+            this.start = start;
+            this.end = end;
+            this.sentInRanges = sentInRanges;
+        }
+
+        @Override
+        public String toString() {
+            return "[" + md.name() + "][" + start + "-" + end + "]";
+        }
+    }
+
+    /**
+     * Sends its ranges one after the other, each range chunk by chunk with up to {@link #maxConcurrentFileChunks} chunks in flight.
+     */
+    private class FileRangeSender extends MultiChunkTransfer<FileRange, FileChunk> {
+        private final Store store;
+        private final Releasable storeRef;
+        private final int bufferSize;
+        private final IntSupplier translogOps;
+        private final Deque<byte[]> buffers = new ConcurrentLinkedDeque<>();
+        private IndexInput currentInput = null;
+        private long offset = 0;
+
+        FileRangeSender(
+            Store store,
+            Releasable storeRef,
+            int bufferSize,
+            IntSupplier translogOps,
+            List<FileRange> ranges,
+            ActionListener<Void> listener
+        ) {
+            super(logger, threadPool.getThreadContext(), listener, maxConcurrentFileChunks, ranges);
+            this.store = store;
+            this.storeRef = storeRef;
+            this.bufferSize = bufferSize;
+            this.translogOps = translogOps;
+        }
+
+        @Override
+        protected void onNewResource(FileRange range) throws IOException {
+            offset = range.start;
+            IOUtils.close(currentInput);
+            if (range.md.hashEqualsContents()) {
+                // we already have the file contents on heap no need to open the file again
+                currentInput = null;
+            } else {
+                currentInput = store.directory().openInput(range.md.name(), IOContext.READONCE);
+                currentInput.seek(range.start);
+            }
+        }
+
+        @Override
+        protected FileChunk nextChunkRequest(FileRange range) throws IOException {
+            assert Transports.assertNotTransportThread("read file chunk");
+            cancellableThreads.checkForCancel();
+            if (currentInput == null) {
+                // no input => reading directly from the metadata
+                assert range.md.hashEqualsContents() && range.sentInRanges == false;
+                return new FileChunk(range.md, new BytesArray(range.md.hash()), 0, true, () -> {});
+            }
+            final byte[] buffer = Objects.requireNonNullElseGet(buffers.pollFirst(), () -> new byte[bufferSize]);
+            final int toRead = Math.toIntExact(Math.min(range.end - offset, buffer.length));
+            currentInput.readBytes(buffer, 0, toRead, false);
+            final long rangeChecksum;
+            if (range.sentInRanges) {
+                final CRC32 crc32 = new CRC32();
+                crc32.update(buffer, 0, toRead);
+                rangeChecksum = crc32.getValue();
+            } else {
+                rangeChecksum = RecoveryFileChunkRequest.NO_RANGE_CHECKSUM;
+            }
+            final boolean lastChunk = offset + toRead == range.end;
+            final FileChunk chunk = new FileChunk(
+                range.md,
+                new BytesArray(buffer, 0, toRead),
+                offset,
+                lastChunk,
+                rangeChecksum,
+                () -> buffers.addFirst(buffer)
+            );
+            offset += toRead;
+            return chunk;
+        }
+
+        @Override
+        protected void executeChunkRequest(FileChunk request, ActionListener<Void> listener) {
+            cancellableThreads.checkForCancel();
+            final ReleasableBytesReference content = new ReleasableBytesReference(request.content, request);
+            final ActionListener<Void> releasingListener = ActionListener.runBefore(listener, content::close);
+            if (request.rangeChecksum != RecoveryFileChunkRequest.NO_RANGE_CHECKSUM) {
+                recoveryTarget.writeFileRange(
+                    request.md,
+                    request.position,
+                    content,
+                    request.rangeChecksum,
+                    translogOps.getAsInt(),
+                    releasingListener
+                );
+            } else {
+                recoveryTarget.writeFileChunk(
+                    request.md,
+                    request.position,
+                    content,
+                    request.lastChunk,
+                    translogOps.getAsInt(),
+                    releasingListener
+                );
+            }
+        }
+
+        @Override
+        protected void handleError(FileRange range, Exception e) throws Exception {
+            handleErrorOnSendFiles(store, e, new StoreFileMetadata[] { range.md });
+        }
+
+        @Override
+        public void close() throws IOException {
+            IOUtils.close(currentInput, storeRef);
+        }
+    }
+
     private void cleanFiles(
         Store store,
         Store.MetadataSnapshot sourceMetadata,
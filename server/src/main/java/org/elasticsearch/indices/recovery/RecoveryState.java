@@ -356,6 +356,7 @@ public class RecoveryState implements ToXContentFragment, Writeable {
         static final String SOURCE_THROTTLE_TIME_IN_MILLIS = "source_throttle_time_in_millis";
         static final String TARGET_THROTTLE_TIME = "target_throttle_time";
         static final String TARGET_THROTTLE_TIME_IN_MILLIS = "target_throttle_time_in_millis";
+        static final String THROUGHPUT_IN_BYTES_PER_SECOND = "throughput_in_bytes_per_second";
     }
 
     public static class Timer implements Writeable {
@@ -1008,6 +1009,14 @@ public class RecoveryState implements ToXContentFragment, Writeable {
             return recovered;
         }
 
+        /**
+         * @return the average number of bytes recovered per second since the start of the index stage, or 0 if it hasn't started yet
+         */
+        public synchronized long throughputInBytesPerSecond() {
+            final long timeInMillis = time();
+            return timeInMillis <= 0 ? 0 : recoveredBytes() * 1000 / timeInMillis;
+        }
+
         public synchronized long recoveredFromSnapshotBytes() {
             long recoveredFromSnapshot = 0;
             for (FileDetail fileDetail : fileDetails.values()) {
@@ -1114,6 +1123,7 @@ public class RecoveryState implements ToXContentFragment, Writeable {
             builder.humanReadableField(Fields.TOTAL_TIME_IN_MILLIS, Fields.TOTAL_TIME, new TimeValue(time()));
             builder.humanReadableField(Fields.SOURCE_THROTTLE_TIME_IN_MILLIS, Fields.SOURCE_THROTTLE_TIME, sourceThrottling());
             builder.humanReadableField(Fields.TARGET_THROTTLE_TIME_IN_MILLIS, Fields.TARGET_THROTTLE_TIME, targetThrottling());
+            builder.field(Fields.THROUGHPUT_IN_BYTES_PER_SECOND, throughputInBytesPerSecond());
             return builder;
         }
 
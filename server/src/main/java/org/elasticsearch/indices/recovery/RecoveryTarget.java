@@ -552,6 +552,24 @@ public class RecoveryTarget extends AbstractRefCounted implements RecoveryTarget
         }
     }
 
+    @Override
+    public void writeFileRange(
+        StoreFileMetadata fileMetadata,
+        long position,
+        ReleasableBytesReference content,
+        long rangeChecksum,
+        int totalTranslogOps,
+        ActionListener<Void> listener
+    ) {
+        try {
+            state().getTranslog().totalOperations(totalTranslogOps);
+            multiFileWriter.writeFileRange(fileMetadata, position, content, rangeChecksum);
+            listener.onResponse(null);
+        } catch (Exception e) {
+            listener.onFailure(e);
+        }
+    }
+
     @Override
     public void restoreFileFromSnapshot(
         String repository,
@@ -120,5 +120,18 @@ public interface RecoveryTargetHandler {
         ActionListener<Void> listener
     );
 
+    /**
+     * writes a range of a file that is sent in ranges to the target store, at the position of the range. The target verifies the range
+     * against the given CRC32 checksum of its content, and the whole file against its checksum once all of its ranges are written.
+     */
+    void writeFileRange(
+        StoreFileMetadata fileMetadata,
+        long position,
+        ReleasableBytesReference content,
+        long rangeChecksum,
+        int totalTranslogOps,
+        ActionListener<Void> listener
+    );
+
     default void cancel() {}
 }
@@ -253,6 +253,40 @@ public class RemoteRecoveryTargetHandler implements RecoveryTargetHandler {
         boolean lastChunk,
         int totalTranslogOps,
         ActionListener<Void> listener
+    ) {
+        sendFileChunk(
+            fileMetadata,
+            position,
+            content,
+            lastChunk,
+            totalTranslogOps,
+            RecoveryFileChunkRequest.NO_RANGE_CHECKSUM,
+            listener
+        );
+    }
+
+    @Override
+    public void writeFileRange(
+        StoreFileMetadata fileMetadata,
+        long position,
+        ReleasableBytesReference content,
+        long rangeChecksum,
+        int totalTranslogOps,
+        ActionListener<Void> listener
+    ) {
+        assert rangeChecksum != RecoveryFileChunkRequest.NO_RANGE_CHECKSUM;
+        assert targetNode.getVersion().onOrAfter(Version.V_8_1_0) : targetNode;
+        sendFileChunk(fileMetadata, position, content, false, totalTranslogOps, rangeChecksum, listener);
+    }
+
+    private void sendFileChunk(
+        StoreFileMetadata fileMetadata,
+        long position,
+        ReleasableBytesReference content,
+        boolean lastChunk,
+        int totalTranslogOps,
+        long rangeChecksum,
+        ActionListener<Void> listener
     ) {
         // Pause using the rate limiter, if desired, to throttle the recovery
         final long throttleTimeInNanos;
@@ -291,7 +325,8 @@ public class RemoteRecoveryTargetHandler implements RecoveryTargetHandler {
             content,
             lastChunk,
             totalTranslogOps,
-            throttleTimeInNanos
+            throttleTimeInNanos,
+            rangeChecksum
         );
         final Writeable.Reader<TransportResponse.Empty> reader = in -> TransportResponse.Empty.INSTANCE;
 
@@ -60,6 +60,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 import java.util.function.LongSupplier;
 
 final class DefaultSearchContext extends SearchContext {
@@ -135,6 +136,20 @@ final class DefaultSearchContext extends SearchContext {
         TimeValue timeout,
         FetchPhase fetchPhase,
         boolean lowLevelCancellation
+    ) throws IOException {
+        this(readerContext, request, shardTarget, relativeTimeSupplier, timeout, fetchPhase, lowLevelCancellation, null, 1);
+    }
+
+    DefaultSearchContext(
+        ReaderContext readerContext,
+        ShardSearchRequest request,
+        SearchShardTarget shardTarget,
+        LongSupplier relativeTimeSupplier,
+        TimeValue timeout,
+        FetchPhase fetchPhase,
+        boolean lowLevelCancellation,
+        @Nullable Executor searchWorkerExecutor,
+        int maximumNumberOfSlices
     ) throws IOException {
         this.readerContext = readerContext;
         this.request = request;
@@ -153,7 +168,9 @@ final class DefaultSearchContext extends SearchContext {
             engineSearcher.getSimilarity(),
             engineSearcher.getQueryCache(),
             engineSearcher.getQueryCachingPolicy(),
-            lowLevelCancellation
+            lowLevelCancellation,
+            searchWorkerExecutor,
+            maximumNumberOfSlices
         );
         releasables.addAll(List.of(engineSearcher, searcher));
 
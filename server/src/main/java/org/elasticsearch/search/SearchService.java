@@ -40,6 +40,7 @@ import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.CollectionUtils;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.core.Releasables;
 import org.elasticsearch.core.TimeValue;
@@ -211,6 +212,25 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         Property.NodeScope
     );
 
+    /**
+     * Enables collecting slices of a shard's segments concurrently on the {@link Names#SEARCH_WORKER} thread pool for searches
+     * that only need top hits. Other searches (aggregations, scrolls, profiling, ...) are still collected sequentially.
+     */
+    public static final Setting<Boolean> CONCURRENT_SEGMENT_SEARCH_ENABLED_SETTING = Setting.boolSetting(
+        "search.concurrent_segment_search.enabled",
+        false,
+        Property.Dynamic,
+        Property.NodeScope
+    );
+
+    public static final Setting<Integer> CONCURRENT_SEGMENT_SEARCH_MAX_SLICES_SETTING = new Setting<>(
+        "search.concurrent_segment_search.max_slices",
+        s -> Integer.toString(EsExecutors.allocatedProcessors(s)),
+        s -> Setting.parseInt(s, 1, "search.concurrent_segment_search.max_slices"),
+        Property.Dynamic,
+        Property.NodeScope
+    );
+
     public static final Setting<ByteSizeValue> MAX_ASYNC_SEARCH_RESPONSE_SIZE_SETTING = Setting.byteSizeSetting(
         "search.max_async_search_response_size",
         new ByteSizeValue(10, ByteSizeUnit.MB),
@@ -255,6 +275,10 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
 
     private volatile boolean enableRewriteAggsToFilterByFilter;
 
+    private volatile boolean concurrentSegmentSearchEnabled;
+
+    private volatile int concurrentSegmentSearchMaxSlices;
+
     private final Cancellable keepAliveReaper;
 
     private final AtomicLong idGenerator = new AtomicLong();
@@ -317,6 +341,14 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         enableRewriteAggsToFilterByFilter = ENABLE_REWRITE_AGGS_TO_FILTER_BY_FILTER.get(settings);
         clusterService.getClusterSettings()
             .addSettingsUpdateConsumer(ENABLE_REWRITE_AGGS_TO_FILTER_BY_FILTER, this::setEnableRewriteAggsToFilterByFilter);
+
+        concurrentSegmentSearchEnabled = CONCURRENT_SEGMENT_SEARCH_ENABLED_SETTING.get(settings);
+        clusterService.getClusterSettings()
+            .addSettingsUpdateConsumer(CONCURRENT_SEGMENT_SEARCH_ENABLED_SETTING, this::setConcurrentSegmentSearchEnabled);
+
+        concurrentSegmentSearchMaxSlices = CONCURRENT_SEGMENT_SEARCH_MAX_SLICES_SETTING.get(settings);
+        clusterService.getClusterSettings()
+            .addSettingsUpdateConsumer(CONCURRENT_SEGMENT_SEARCH_MAX_SLICES_SETTING, this::setConcurrentSegmentSearchMaxSlices);
     }
 
     private void validateKeepAlives(TimeValue defaultKeepAlive, TimeValue maxKeepAlive) {
@@ -367,6 +399,14 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         this.enableRewriteAggsToFilterByFilter = enableRewriteAggsToFilterByFilter;
     }
 
+    private void setConcurrentSegmentSearchEnabled(boolean concurrentSegmentSearchEnabled) {
+        this.concurrentSegmentSearchEnabled = concurrentSegmentSearchEnabled;
+    }
+
+    private void setConcurrentSegmentSearchMaxSlices(int concurrentSegmentSearchMaxSlices) {
+        this.concurrentSegmentSearchMaxSlices = concurrentSegmentSearchMaxSlices;
+    }
+
     @Override
     public void afterIndexRemoved(Index index, IndexSettings indexSettings, IndexRemovalReason reason) {
         // once an index is removed due to deletion or closing, we can just clean up all the pending search context information
@@ -1013,7 +1053,9 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
                 threadPool::relativeTimeInMillis,
                 timeout,
                 fetchPhase,
-                lowLevelCancellation
+                lowLevelCancellation,
+                concurrentSegmentSearchEnabled ? threadPool.executor(Names.SEARCH_WORKER) : null,
+                concurrentSegmentSearchMaxSlices
             );
             // we clone the query shard context here just for rewriting otherwise we
             // might end up with incorrect state since we are using now() or script services
@@ -1220,7 +1262,7 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
             context.addReleasable(aggContext);
             try {
                 AggregatorFactories factories = source.aggregations().build(aggContext, null);
-                context.aggregations(new SearchContextAggregations(factories));
+                context.aggregations(new SearchContextAggregations(factories, source.aggregations().isInSortOrderExecutionRequired()));
             } catch (IOException e) {
                 throw new AggregationInitializationException("Failed to create aggregators", e);
             }
@@ -180,6 +180,15 @@ public abstract class AggregationBuilder
         return DEFAULT_PREALLOCATION;
     }
 
+    /**
+     * Return {@code true} if the {@link Aggregator}s built by this builder need to
+     * see the documents of the shard in {@code _tsid} and {@code @timestamp} order
+     * rather than one segment after the other.
+     */
+    public boolean isInSortOrderExecutionRequired() {
+        return false;
+    }
+
     /** Common xcontent fields shared among aggregator builders */
     public static final class CommonFields extends ParseField.CommonFields {
         public static final ParseField VALUE_TYPE = new ParseField("value_type");
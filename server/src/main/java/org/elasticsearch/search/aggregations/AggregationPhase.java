@@ -7,21 +7,53 @@
  */
 package org.elasticsearch.search.aggregations;
 
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.Weight;
 import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.core.Releasable;
+import org.elasticsearch.search.aggregations.MultiBucketConsumerService.MultiBucketConsumer;
+import org.elasticsearch.search.aggregations.support.AggregationContext;
+import org.elasticsearch.search.aggregations.timeseries.TimeSeriesIndexSearcher;
+import org.elasticsearch.search.internal.ContextIndexSearcher;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.profile.query.CollectorResult;
 import org.elasticsearch.search.profile.query.InternalProfileCollector;
+import org.elasticsearch.tasks.TaskCancelledException;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Aggregation phase of a search request, used to collect aggregations
  */
 public class AggregationPhase {
 
+    /**
+     * The aggregations whose results can be computed segment by segment and then reduced without changing
+     * the result of the shard. Aggregations that prune their buckets on the shard, like {@code terms}, are
+     * not part of this list since the pruning of each segment would not be the same as the pruning of the shard.
+     */
+    private static final Set<String> SEGMENT_CACHEABLE_TYPES = Set.of(
+        "date_histogram",
+        "histogram",
+        "range",
+        "date_range",
+        "filter",
+        "filters",
+        "missing",
+        "min",
+        "max",
+        "sum",
+        "avg",
+        "stats",
+        "extended_stats",
+        "value_count"
+    );
+
     @Inject
     public AggregationPhase() {}
 
@@ -29,6 +61,10 @@ public class AggregationPhase {
         if (context.aggregations() == null) {
             return;
         }
+        if (context.aggregations().segmentCache() != null) {
+            // the aggregations are collected segment by segment in execute
+            return;
+        }
         BucketCollector bucketCollector;
         try {
             context.aggregations().aggregators(context.aggregations().factories().createTopLevelAggregators());
@@ -37,6 +73,10 @@ public class AggregationPhase {
         } catch (IOException e) {
             throw new AggregationInitializationException("Could not initialize aggregators", e);
         }
+        if (context.aggregations().isInSortOrderExecutionRequired()) {
+            // the documents are collected in _tsid order in execute
+            return;
+        }
         Collector collector = context.getProfilers() == null
             ? bucketCollector
             : new InternalProfileCollector(bucketCollector, CollectorResult.REASON_AGGREGATION, List.of());
@@ -54,14 +94,141 @@ public class AggregationPhase {
             return;
         }
 
-        Aggregator[] aggregators = context.aggregations().aggregators();
+        if (context.aggregations().segmentCache() != null) {
+            context.queryResult().aggregations(executePerSegment(context));
+        } else {
+            if (context.aggregations().isInSortOrderExecutionRequired()) {
+                executeInSortOrder(context);
+            }
+            if (context.aggregations().factories().context() != null) {
+                // Rollup can end up here with a null context but not null factories.....
+                context.aggregations().factories().context().multiBucketConsumer().reset();
+            }
+            context.queryResult().aggregations(buildTopLevel(context.aggregations().aggregators()));
+        }
 
-        List<InternalAggregation> aggregations = new ArrayList<>(aggregators.length);
-        if (context.aggregations().factories().context() != null) {
-            // Rollup can end up here with a null context but not null factories.....
-            context.aggregations().factories().context().multiBucketConsumer().reset();
+        // disable aggregations so that they don't run on next pages in case of scrolling
+        context.aggregations(null);
+        context.queryCollectors().remove(AggregationPhase.class);
+    }
+
+    /**
+     * Collects the documents that match the query in {@code _tsid} and {@code @timestamp} order, across all segments.
+     */
+    private static void executeInSortOrder(SearchContext context) {
+        TimeSeriesIndexSearcher searcher = new TimeSeriesIndexSearcher(context.searcher(), () -> {
+            if (context.isCancelled()) {
+                throw new TaskCancelledException("cancelled");
+            }
+        });
+        try {
+            searcher.search(context.rewrittenQuery(), MultiBucketCollector.wrap(true, List.of(context.aggregations().aggregators())));
+        } catch (IOException e) {
+            throw new AggregationExecutionException("Could not collect aggregations in time series order", e);
+        }
+    }
+
+    /**
+     * Returns whether the provided aggregations can be computed per segment and cached with a
+     * {@link SearchContextAggregations.SegmentCache}.
+     */
+    public static boolean canCachePerSegment(AggregatorFactories.Builder aggregations) {
+        if (aggregations == null || aggregations.count() == 0) {
+            return false;
+        }
+        return canCachePerSegment(aggregations.getAggregatorFactories());
+    }
+
+    private static boolean canCachePerSegment(Collection<AggregationBuilder> builders) {
+        for (AggregationBuilder builder : builders) {
+            if (SEGMENT_CACHEABLE_TYPES.contains(builder.getType()) == false) {
+                return false;
+            }
+            if (canCachePerSegment(builder.getSubAggregations()) == false) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Computes the results of each segment independently, loading the ones that are already known from the
+     * {@link SearchContextAggregations.SegmentCache}, and reduces them into the results of the shard.
+     */
+    private static InternalAggregations executePerSegment(SearchContext context) {
+        final SearchContextAggregations.SegmentCache cache = context.aggregations().segmentCache();
+        final AggregationContext aggregationContext = context.aggregations().factories().context();
+        final MultiBucketConsumer bucketConsumer = aggregationContext.multiBucketConsumer();
+        final ContextIndexSearcher searcher = context.searcher();
+        final List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+        if (leaves.isEmpty()) {
+            return collectSegment(context, null, null);
+        }
+        final Weight[] weight = new Weight[1];
+        AggregationReduceContext reduceContext = new AggregationReduceContext.ForPartial(
+            aggregationContext.bigArrays(),
+            null,
+            aggregationContext::isCancelled
+        );
+        InternalAggregations shardResults = null;
+        for (LeafReaderContext leaf : leaves) {
+            final InternalAggregations segmentResults;
+            try {
+                segmentResults = cache.getOrCompute(leaf, () -> collectSegment(context, leaf, weight));
+            } catch (IOException e) {
+                throw new AggregationExecutionException("Failed to load the aggregations of segment [" + leaf.ord + "]", e);
+            }
+            shardResults = shardResults == null
+                ? segmentResults
+                : InternalAggregations.topLevelReduce(List.of(shardResults, segmentResults), reduceContext);
+            // the limit applies to the buckets of the shard, so buckets that several segments share are only counted once
+            bucketConsumer.reset();
+            bucketConsumer.accept(countBuckets(shardResults));
+        }
+        return shardResults;
+    }
+
+    /**
+     * Collects a fresh set of top level aggregators on a single segment, or on none if {@code leaf} is null.
+     * The aggregators are released as soon as their results are built.
+     */
+    private static InternalAggregations collectSegment(SearchContext context, LeafReaderContext leaf, Weight[] weight) {
+        final AggregationContext aggregationContext = context.aggregations().factories().context();
+        try (Releasable ignored = aggregationContext.newReleasableScope()) {
+            final Aggregator[] aggregators;
+            try {
+                aggregators = context.aggregations().factories().createTopLevelAggregators();
+                BucketCollector bucketCollector = MultiBucketCollector.wrap(true, List.of(aggregators));
+                bucketCollector.preCollection();
+                if (leaf != null) {
+                    ContextIndexSearcher searcher = context.searcher();
+                    if (weight[0] == null) {
+                        // every segment creates the same aggregators so they all share the score mode of the first one
+                        weight[0] = searcher.createWeight(context.rewrittenQuery(), bucketCollector.scoreMode(), 1f);
+                    }
+                    searcher.search(List.of(leaf), weight[0], bucketCollector);
+                }
+            } catch (IOException e) {
+                throw new AggregationExecutionException("Failed to collect aggregations on segment", e);
+            }
+            // a segment can't have more buckets than the shard, so its buckets are checked on their own and the
+            // count of the shard is restored once they are reduced into the results of the shard
+            aggregationContext.multiBucketConsumer().reset();
+            return buildTopLevel(aggregators);
+        }
+    }
+
+    private static int countBuckets(InternalAggregations aggregations) {
+        int count = 0;
+        for (Aggregation aggregation : aggregations) {
+            count += InternalMultiBucketAggregation.countInnerBucket(aggregation);
         }
-        for (Aggregator aggregator : context.aggregations().aggregators()) {
+        return count;
+    }
+
+    private static InternalAggregations buildTopLevel(Aggregator[] aggregators) {
+        List<InternalAggregation> aggregations = new ArrayList<>(aggregators.length);
+        for (Aggregator aggregator : aggregators) {
             try {
                 aggregator.postCollection();
                 aggregations.add(aggregator.buildTopLevel());
@@ -69,10 +236,6 @@ public class AggregationPhase {
                 throw new AggregationExecutionException("Failed to build aggregation [" + aggregator.name() + "]", e);
             }
         }
-        context.queryResult().aggregations(InternalAggregations.from(aggregations));
-
-        // disable aggregations so that they don't run on next pages in case of scrolling
-        context.aggregations(null);
-        context.queryCollectors().remove(AggregationPhase.class);
+        return InternalAggregations.from(aggregations);
     }
 }
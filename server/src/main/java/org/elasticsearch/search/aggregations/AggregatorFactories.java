@@ -330,6 +330,19 @@ public class AggregatorFactories {
             return false;
         }
 
+        /**
+         * Return {@code true} if any of the top level aggregations needs to see the
+         * documents of the shard in {@code _tsid} and {@code @timestamp} order.
+         */
+        public boolean isInSortOrderExecutionRequired() {
+            for (AggregationBuilder builder : aggregationBuilders) {
+                if (builder.isInSortOrderExecutionRequired()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
         public Builder addAggregator(AggregationBuilder factory) {
             if (names.add(factory.name) == false) {
                 throw new IllegalArgumentException("Two sibling aggregations cannot have the same name: [" + factory.name + "]");
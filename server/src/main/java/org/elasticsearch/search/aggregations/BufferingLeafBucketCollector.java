@@ -0,0 +1,85 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.apache.lucene.search.Scorable;
+
+import java.io.IOException;
+
+/**
+ * A {@link LeafBucketCollector} that buffers the docs collected one at a time
+ * and hands them to its delegate in blocks through
+ * {@link LeafBucketCollector#collect(int[], long[], int)}.
+ * <p>
+ * Buffering delays collection, so it must only wrap collectors that don't
+ * need scores, and the owner must {@link #flush()} before moving to the next
+ * segment and before post collection. One instance can be reused across
+ * segments with {@link #reset(LeafBucketCollector)}.
+ */
+public final class BufferingLeafBucketCollector extends LeafBucketCollector {
+    /**
+     * The default number of docs in a block. Big enough to amortize the
+     * per block overhead and small enough to stay in cache.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 512;
+
+    private final int[] docs;
+    private final long[] owningBucketOrds;
+    private LeafBucketCollector delegate;
+    private int count;
+
+    public BufferingLeafBucketCollector(int blockSize) {
+        this.docs = new int[blockSize];
+        this.owningBucketOrds = new long[blockSize];
+    }
+
+    /**
+     * Start buffering for a new delegate. The docs buffered for the previous
+     * delegate must have been {@link #flush() flushed}.
+     */
+    public BufferingLeafBucketCollector reset(LeafBucketCollector delegate) {
+        assert count == 0 : "reset with [" + count + "] buffered docs";
+        this.delegate = delegate;
+        return this;
+    }
+
+    @Override
+    public void setScorer(Scorable scorer) throws IOException {
+        delegate.setScorer(scorer);
+    }
+
+    @Override
+    public void collect(int doc, long owningBucketOrd) throws IOException {
+        docs[count] = doc;
+        owningBucketOrds[count] = owningBucketOrd;
+        if (++count == docs.length) {
+            flush();
+        }
+    }
+
+    /**
+     * Hand the buffered docs to the delegate. A {@link CollectionTerminatedException}
+     * thrown by the delegate means it doesn't need any more docs from this segment
+     * and is propagated so that the segment can be terminated.
+     */
+    public void flush() throws IOException {
+        if (count == 0) {
+            return;
+        }
+        final int toFlush = count;
+        count = 0;
+        delegate.collect(docs, owningBucketOrds, toFlush);
+    }
+
+    @Override
+    public boolean isNoop() {
+        return delegate.isNoop();
+    }
+}
@@ -38,6 +38,11 @@ public abstract class LeafBucketCollector implements LeafCollector {
             // no-op
         }
 
+        @Override
+        public void collect(int[] docs, long[] owningBucketOrds, int count) {
+            // no-op
+        }
+
         @Override
         public boolean isNoop() {
             return true;
@@ -73,6 +78,35 @@ public abstract class LeafBucketCollector implements LeafCollector {
      */
     public abstract void collect(int doc, long owningBucketOrd) throws IOException;
 
+    /**
+     * Collect a block of {@code count} docs, each of them in the bucket owned
+     * by the ordinal at the same index in {@code owningBucketOrds}. Docs are
+     * in increasing order, just like when they are collected one at a time.
+     * <p>
+     * The default implementation calls {@link #collect(int, long)} for each
+     * doc. Collectors that can amortize work across docs, like resizing their
+     * arrays once per block or keeping a running value while consecutive docs
+     * fall in the same bucket, should override it. The arrays are owned by
+     * the caller and may be reused once this method returns.
+     */
+    public void collect(int[] docs, long[] owningBucketOrds, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            collect(docs[i], owningBucketOrds[i]);
+        }
+    }
+
+    /**
+     * The maximum owning bucket ordinal in the first {@code count} entries
+     * of a block, useful to resize arrays once per block.
+     */
+    protected static long maxOwningBucketOrd(long[] owningBucketOrds, int count) {
+        long max = 0;
+        for (int i = 0; i < count; i++) {
+            max = Math.max(max, owningBucketOrds[i]);
+        }
+        return max;
+    }
+
     /**
      * Does this collector collect anything? If this returns true we can safely
      * just never call {@link #collect}.
@@ -245,5 +245,24 @@ public class MultiBucketCollector extends BucketCollector {
                 }
             }
         }
+
+        @Override
+        public void collect(int[] docs, long[] owningBucketOrds, int count) throws IOException {
+            final LeafBucketCollector[] collectors = this.collectors;
+            int numCollectors = this.numCollectors;
+            for (int i = 0; i < numCollectors;) {
+                final LeafBucketCollector collector = collectors[i];
+                try {
+                    collector.collect(docs, owningBucketOrds, count);
+                    ++i;
+                } catch (CollectionTerminatedException e) {
+                    removeCollector(i);
+                    numCollectors = this.numCollectors;
+                    if (numCollectors == 0) {
+                        throw new CollectionTerminatedException();
+                    }
+                }
+            }
+        }
     }
 }
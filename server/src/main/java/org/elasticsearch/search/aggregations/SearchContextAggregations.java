@@ -7,25 +7,51 @@
  */
 package org.elasticsearch.search.aggregations;
 
+import org.apache.lucene.index.LeafReaderContext;
+import org.elasticsearch.common.CheckedSupplier;
+import org.elasticsearch.core.Nullable;
+
+import java.io.IOException;
+
 /**
  * The aggregation context that is part of the search context.
  */
 public class SearchContextAggregations {
 
     private final AggregatorFactories factories;
+    private final boolean inSortOrderExecutionRequired;
     private Aggregator[] aggregators;
+    private SegmentCache segmentCache;
 
     /**
      * Creates a new aggregation context with the parsed aggregator factories
      */
     public SearchContextAggregations(AggregatorFactories factories) {
+        this(factories, false);
+    }
+
+    /**
+     * Creates a new aggregation context with the parsed aggregator factories
+     *
+     * @param inSortOrderExecutionRequired whether the aggregators need to collect the documents of the shard in
+     *                                     {@code _tsid} and {@code @timestamp} order
+     */
+    public SearchContextAggregations(AggregatorFactories factories, boolean inSortOrderExecutionRequired) {
         this.factories = factories;
+        this.inSortOrderExecutionRequired = inSortOrderExecutionRequired;
     }
 
     public AggregatorFactories factories() {
         return factories;
     }
 
+    /**
+     * Returns whether the aggregators need to collect the documents of the shard in {@code _tsid} and {@code @timestamp} order.
+     */
+    public boolean isInSortOrderExecutionRequired() {
+        return inSortOrderExecutionRequired;
+    }
+
     public Aggregator[] aggregators() {
         return aggregators;
     }
@@ -38,4 +64,32 @@ public class SearchContextAggregations {
     public void aggregators(Aggregator[] aggregators) {
         this.aggregators = aggregators;
     }
+
+    /**
+     * The cache of per segment results, or {@code null} if the aggregations are collected over the whole shard at once.
+     */
+    @Nullable
+    public SegmentCache segmentCache() {
+        return segmentCache;
+    }
+
+    /**
+     * Sets the cache that the {@link AggregationPhase} uses to load the results of each segment of the shard
+     * instead of collecting the aggregations over the whole shard at once.
+     */
+    public void segmentCache(@Nullable SegmentCache segmentCache) {
+        this.segmentCache = segmentCache;
+    }
+
+    /**
+     * Caches the partial aggregation results of a single segment.
+     */
+    @FunctionalInterface
+    public interface SegmentCache {
+        /**
+         * Returns the cached results for the provided segment, or computes them with the provided loader.
+         */
+        InternalAggregations getOrCompute(LeafReaderContext leaf, CheckedSupplier<InternalAggregations, IOException> loader)
+            throws IOException;
+    }
 }
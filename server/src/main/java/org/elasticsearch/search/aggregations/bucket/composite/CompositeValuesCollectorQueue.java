@@ -55,9 +55,11 @@ final class CompositeValuesCollectorQueue extends PriorityQueue<Integer> impleme
     private final int maxSize;
     private final Map<Slot, Integer> map;
     private final SingleDimensionValuesSource<?>[] arrays;
+    private final boolean rehashOnNewLeaf;
 
     private LongArray docCounts;
     private boolean afterKeyIsSet = false;
+    private LeafReaderContext currentLeaf;
 
     /**
      * Constructs a composite queue with the specified size and sources.
@@ -71,6 +73,11 @@ final class CompositeValuesCollectorQueue extends PriorityQueue<Integer> impleme
         this.maxSize = size;
         this.arrays = sources;
         this.map = new HashMap<>(size);
+        boolean rehashOnNewLeaf = false;
+        for (SingleDimensionValuesSource<?> source : sources) {
+            rehashOnNewLeaf |= source.isHashCodeLeafDependent();
+        }
+        this.rehashOnNewLeaf = rehashOnNewLeaf;
         this.docCounts = bigArrays.newLongArray(1, false);
     }
 
@@ -242,9 +249,23 @@ final class CompositeValuesCollectorQueue extends PriorityQueue<Integer> impleme
         } else {
             collector = arrays[last].getLeafCollector(context, collector);
         }
+        if (rehashOnNewLeaf && context != currentLeaf) {
+            rehash();
+        }
+        currentLeaf = context;
         return collector;
     }
 
+    /**
+     * Rebuilds the map of the slots with the hash codes of the current segment.
+     */
+    private void rehash() {
+        map.clear();
+        for (int slot = 0; slot < size(); slot++) {
+            map.put(new Slot(slot), slot);
+        }
+    }
+
     /**
      * Check if the current candidate should be added in the queue.
      * @return <code>true</code> if the candidate is competitive (added or already in the queue).
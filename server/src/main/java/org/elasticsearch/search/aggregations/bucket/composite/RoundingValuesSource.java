@@ -56,9 +56,12 @@ class RoundingValuesSource extends ValuesSource.Numeric {
     public SortedNumericDocValues longValues(LeafReaderContext context) throws IOException {
         SortedNumericDocValues values = vs.longValues(context);
         return new SortedNumericDocValues() {
+            private long[] rounded = new long[1];
+            private int index;
+
             @Override
             public long nextValue() throws IOException {
-                return round(values.nextValue());
+                return rounded[index++];
             }
 
             @Override
@@ -68,7 +71,26 @@ class RoundingValuesSource extends ValuesSource.Numeric {
 
             @Override
             public boolean advanceExact(int target) throws IOException {
-                return values.advanceExact(target);
+                if (values.advanceExact(target) == false) {
+                    return false;
+                }
+                roundValues();
+                return true;
+            }
+
+            /**
+             * Rounds all the values of the current doc at once so the rounding can reuse its lookups between them.
+             */
+            private void roundValues() throws IOException {
+                int count = values.docValueCount();
+                if (rounded.length < count) {
+                    rounded = new long[count];
+                }
+                for (int i = 0; i < count; i++) {
+                    rounded[i] = values.nextValue();
+                }
+                rounding.round(rounded, count);
+                index = 0;
             }
 
             @Override
@@ -78,12 +100,20 @@ class RoundingValuesSource extends ValuesSource.Numeric {
 
             @Override
             public int nextDoc() throws IOException {
-                return values.nextDoc();
+                int doc = values.nextDoc();
+                if (doc != NO_MORE_DOCS) {
+                    roundValues();
+                }
+                return doc;
             }
 
             @Override
             public int advance(int target) throws IOException {
-                return values.advance(target);
+                int doc = values.advance(target);
+                if (doc != NO_MORE_DOCS) {
+                    roundValues();
+                }
+                return doc;
             }
 
             @Override
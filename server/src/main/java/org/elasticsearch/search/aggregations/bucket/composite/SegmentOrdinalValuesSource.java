@@ -0,0 +1,273 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.composite;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.common.util.ObjectArray;
+import org.elasticsearch.core.CheckedFunction;
+import org.elasticsearch.core.Releasables;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.StringFieldType;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.LeafBucketCollector;
+
+import java.io.IOException;
+import java.util.function.LongConsumer;
+
+import static org.apache.lucene.index.SortedSetDocValues.NO_MORE_ORDS;
+
+/**
+ * A {@link SingleDimensionValuesSource} for segment ordinals.
+ * <p>
+ * Slots hold the terms themselves so they survive the move from one segment to the
+ * next, but the values of the documents are compared with the slots and the after
+ * value using the ordinals of the current segment. Every time the collection moves
+ * to a new segment the terms of the slots and the after value are resolved to that
+ * segment's ordinals, which costs a lookup per slot rather than the building of the
+ * global ordinals of the whole shard. A term that isn't in the segment is resolved to
+ * its insertion point so that it still sorts correctly against the terms that are.
+ * <p>
+ * Because the ordinals are only comparable within a segment the hash codes of the
+ * slots change from a segment to the next, see {@link #isHashCodeLeafDependent()}.
+ */
+class SegmentOrdinalValuesSource extends SingleDimensionValuesSource<BytesRef> {
+    static final long MISSING_VALUE_FLAG = -1L;
+
+    private final LongConsumer breakerConsumer;
+    private final CheckedFunction<LeafReaderContext, SortedSetDocValues, IOException> docValuesFunc;
+    private ObjectArray<BytesRef> values;
+    private ObjectArray<BytesRefBuilder> valueBuilders;
+    /**
+     * The {@link #encode encoded} ordinal of the term of each slot in the current segment.
+     */
+    private LongArray ords;
+    private int numSlots;
+
+    private LeafReaderContext currentLeaf;
+    private SortedSetDocValues lookup;
+    private long currentValue;
+    private long afterValueOrd = MISSING_VALUE_FLAG;
+
+    SegmentOrdinalValuesSource(
+        BigArrays bigArrays,
+        LongConsumer breakerConsumer,
+        MappedFieldType type,
+        CheckedFunction<LeafReaderContext, SortedSetDocValues, IOException> docValuesFunc,
+        DocValueFormat format,
+        boolean missingBucket,
+        MissingOrder missingOrder,
+        int size,
+        int reverseMul
+    ) {
+        super(bigArrays, format, type, missingBucket, missingOrder, size, reverseMul);
+        this.breakerConsumer = breakerConsumer;
+        this.docValuesFunc = docValuesFunc;
+        boolean success = false;
+        try {
+            this.values = bigArrays.newObjectArray(Math.min(size, 100));
+            this.valueBuilders = bigArrays.newObjectArray(Math.min(size, 100));
+            this.ords = bigArrays.newLongArray(Math.min(size, 100), false);
+            success = true;
+        } finally {
+            if (success == false) {
+                close();
+            }
+        }
+    }
+
+    /**
+     * Encodes the result of {@link SortedSetDocValues#lookupTerm} so that terms that are in the
+     * segment and terms that aren't compare correctly with each other: a term with the ordinal
+     * {@code o} is encoded as {@code 2 * o + 2} and a term that would be inserted at {@code i}
+     * as {@code 2 * i + 1}, between the encoded ordinals of its neighbours.
+     */
+    private static long encode(long lookupResult) {
+        if (lookupResult >= 0) {
+            return 2 * lookupResult + 2;
+        }
+        long insertionPoint = -lookupResult - 1;
+        return 2 * insertionPoint + 1;
+    }
+
+    private long encode(BytesRef term) throws IOException {
+        return term == null ? MISSING_VALUE_FLAG : encode(lookup.lookupTerm(term));
+    }
+
+    @Override
+    void copyCurrent(int slot) {
+        values = bigArrays.grow(values, slot + 1);
+        valueBuilders = bigArrays.grow(valueBuilders, slot + 1);
+        ords = bigArrays.grow(ords, slot + 1);
+        numSlots = Math.max(numSlots, slot + 1);
+        ords.set(slot, currentValue);
+        if (missingBucket && currentValue == MISSING_VALUE_FLAG) {
+            values.set(slot, null);
+            return;
+        }
+        assert currentValue >= 2 && (currentValue & 1) == 0 : "the current value must be an ordinal of the segment";
+        BytesRefBuilder builder = valueBuilders.get(slot);
+        int byteSize = builder == null ? 0 : builder.bytes().length;
+        if (builder == null) {
+            builder = new BytesRefBuilder();
+            valueBuilders.set(slot, builder);
+        }
+        try {
+            builder.copyBytes(lookup.lookupOrd((currentValue - 2) / 2));
+        } catch (IOException e) {
+            throw new IllegalStateException("failed to lookup the term of ordinal [" + (currentValue - 2) / 2 + "]", e);
+        }
+        breakerConsumer.accept(builder.bytes().length - byteSize);
+        values.set(slot, builder.get());
+    }
+
+    private int compareInternal(long lhs, long rhs) {
+        int mul = (lhs == MISSING_VALUE_FLAG || rhs == MISSING_VALUE_FLAG) ? missingOrder.compareAnyValueToMissing(reverseMul) : reverseMul;
+        return Long.compare(lhs, rhs) * mul;
+    }
+
+    @Override
+    int compare(int from, int to) {
+        // two terms that aren't in the current segment can share an insertion point so the slots compare on their terms
+        BytesRef fromValue = values.get(from);
+        BytesRef toValue = values.get(to);
+        if (missingBucket) {
+            if (fromValue == null) {
+                return toValue == null ? 0 : -1 * missingOrder.compareAnyValueToMissing(reverseMul);
+            } else if (toValue == null) {
+                return missingOrder.compareAnyValueToMissing(reverseMul);
+            }
+        }
+        return fromValue.compareTo(toValue) * reverseMul;
+    }
+
+    @Override
+    int compareCurrent(int slot) {
+        return compareInternal(currentValue, ords.get(slot));
+    }
+
+    @Override
+    int compareCurrentWithAfter() {
+        // the current value is always an ordinal of the segment so it can't be equal to an insertion point
+        return compareInternal(currentValue, afterValueOrd);
+    }
+
+    @Override
+    int hashCode(int slot) {
+        return Long.hashCode(ords.get(slot));
+    }
+
+    @Override
+    int hashCodeCurrent() {
+        return Long.hashCode(currentValue);
+    }
+
+    @Override
+    boolean isHashCodeLeafDependent() {
+        return true;
+    }
+
+    @Override
+    void setAfter(Comparable<?> value) {
+        if (missingBucket && value == null) {
+            afterValue = null;
+        } else if (value.getClass() == String.class || (missingBucket && fieldType == null)) {
+            // the value might be not string if this field is missing in this shard but present in other shards
+            // and doesn't have a string type
+            afterValue = format.parseBytesRef(value.toString());
+        } else {
+            throw new IllegalArgumentException("invalid value, expected string, got " + value.getClass().getSimpleName());
+        }
+        // the after value must be resolved again in the next segment, even if it is the current one
+        currentLeaf = null;
+    }
+
+    @Override
+    BytesRef toComparable(int slot) {
+        return values.get(slot);
+    }
+
+    /**
+     * Resolves the terms of the slots and the after value to the ordinals of a new segment.
+     */
+    private void setLeaf(LeafReaderContext context) throws IOException {
+        if (context == currentLeaf) {
+            return;
+        }
+        currentLeaf = context;
+        lookup = docValuesFunc.apply(context);
+        for (int slot = 0; slot < numSlots; slot++) {
+            ords.set(slot, encode(values.get(slot)));
+        }
+        afterValueOrd = encode(afterValue);
+    }
+
+    @Override
+    LeafBucketCollector getLeafCollector(LeafReaderContext context, LeafBucketCollector next) throws IOException {
+        setLeaf(context);
+        final SortedSetDocValues dvs = docValuesFunc.apply(context);
+        return new LeafBucketCollector() {
+            @Override
+            public void collect(int doc, long bucket) throws IOException {
+                if (dvs.advanceExact(doc)) {
+                    long ord;
+                    while ((ord = dvs.nextOrd()) != NO_MORE_ORDS) {
+                        currentValue = encode(ord);
+                        next.collect(doc, bucket);
+                    }
+                } else if (missingBucket) {
+                    currentValue = MISSING_VALUE_FLAG;
+                    next.collect(doc, bucket);
+                }
+            }
+        };
+    }
+
+    @Override
+    LeafBucketCollector getLeafCollector(Comparable<BytesRef> value, LeafReaderContext context, LeafBucketCollector next)
+        throws IOException {
+        if (value.getClass() != BytesRef.class) {
+            throw new IllegalArgumentException("Expected BytesRef, got " + value.getClass());
+        }
+        setLeaf(context);
+        final long ord = lookup.lookupTerm((BytesRef) value);
+        if (ord < 0) {
+            throw new IllegalArgumentException("Expected a term of the segment, got [" + value + "]");
+        }
+        return new LeafBucketCollector() {
+            @Override
+            public void collect(int doc, long bucket) throws IOException {
+                currentValue = encode(ord);
+                next.collect(doc, bucket);
+            }
+        };
+    }
+
+    @Override
+    SortedDocsProducer createSortedDocsProducerOrNull(IndexReader reader, Query query) {
+        if (checkIfSortedDocsIsApplicable(reader, fieldType) == false
+            || fieldType instanceof StringFieldType == false
+            || (query != null && query.getClass() != MatchAllDocsQuery.class)) {
+            return null;
+        }
+        return new TermsSortedDocsProducer(fieldType.name());
+    }
+
+    @Override
+    public void close() {
+        Releasables.close(values, valueBuilders, ords);
+    }
+}
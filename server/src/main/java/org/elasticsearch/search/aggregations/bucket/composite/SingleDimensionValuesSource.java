@@ -106,6 +106,15 @@ abstract class SingleDimensionValuesSource<T extends Comparable<T>> implements R
      */
     abstract int hashCodeCurrent();
 
+    /**
+     * Returns true if the hash codes of the slots and of the current value are only valid in the
+     * segment of the last {@link LeafBucketCollector} created by this source. In that case
+     * they must be computed again every time the collection moves to a new segment.
+     */
+    boolean isHashCodeLeafDependent() {
+        return false;
+    }
+
     /**
      * Sets the after value for this source. Values that compares smaller are filtered.
      */
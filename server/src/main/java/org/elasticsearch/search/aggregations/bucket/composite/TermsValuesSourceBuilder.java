@@ -166,7 +166,23 @@ public class TermsValuesSourceBuilder extends CompositeValuesSourceBuilder<Terms
                     LongConsumer addRequestCircuitBreakerBytes,
                     CompositeValuesSourceConfig compositeValuesSourceConfig) -> {
 
-                    if (valuesSourceConfig.hasOrdinals() && reader instanceof DirectoryReader) {
+                    if (valuesSourceConfig.hasOrdinals() && reader instanceof DirectoryReader && reader.leaves().size() > 1) {
+                        // resolving the slots to the ordinals of each segment is much cheaper than building the
+                        // global ordinals of the shard, which are lost every time the index is refreshed
+                        ValuesSource.Bytes.WithOrdinals vs = (ValuesSource.Bytes.WithOrdinals) compositeValuesSourceConfig.valuesSource();
+                        return new SegmentOrdinalValuesSource(
+                            bigArrays,
+                            addRequestCircuitBreakerBytes,
+                            compositeValuesSourceConfig.fieldType(),
+                            vs::ordinalsValues,
+                            compositeValuesSourceConfig.format(),
+                            compositeValuesSourceConfig.missingBucket(),
+                            compositeValuesSourceConfig.missingOrder(),
+                            size,
+                            compositeValuesSourceConfig.reverseMul()
+                        );
+                    } else if (valuesSourceConfig.hasOrdinals() && reader instanceof DirectoryReader) {
+                        // the global ordinals of a single segment are its ordinals
                         ValuesSource.Bytes.WithOrdinals vs = (ValuesSource.Bytes.WithOrdinals) compositeValuesSourceConfig.valuesSource();
                         return new GlobalOrdinalValuesSource(
                             bigArrays,
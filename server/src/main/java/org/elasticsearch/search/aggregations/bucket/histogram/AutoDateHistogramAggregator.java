@@ -283,12 +283,15 @@ abstract class AutoDateHistogramAggregator extends DeferableBucketAggregator {
                             long[] mergeMap = new long[Math.toIntExact(oldOrds.size())];
                             bucketOrds = new LongKeyedBucketOrds.FromSingle(bigArrays());
                             success = true; // now it is safe to close oldOrds after we finish
+                            long[] keys = new long[mergeMap.length];
                             LongKeyedBucketOrds.BucketOrdsEnum ordsEnum = oldOrds.ordsEnum(0);
                             while (ordsEnum.next()) {
-                                long oldKey = ordsEnum.value();
-                                long newKey = preparedRounding.round(oldKey);
-                                long newBucketOrd = bucketOrds.add(0, newKey);
-                                mergeMap[(int) ordsEnum.ord()] = newBucketOrd >= 0 ? newBucketOrd : -1 - newBucketOrd;
+                                keys[(int) ordsEnum.ord()] = ordsEnum.value();
+                            }
+                            preparedRounding.round(keys, keys.length);
+                            for (int ord = 0; ord < keys.length; ord++) {
+                                long newBucketOrd = bucketOrds.add(0, keys[ord]);
+                                mergeMap[ord] = newBucketOrd >= 0 ? newBucketOrd : -1 - newBucketOrd;
                             }
                             merge(mergeMap, bucketOrds.size());
                         } finally {
@@ -540,14 +543,24 @@ abstract class AutoDateHistogramAggregator extends DeferableBucketAggregator {
                 long[] mergeMap = new long[Math.toIntExact(oldOrds.size())];
                 bucketOrds = new LongKeyedBucketOrds.FromMany(bigArrays());
                 success = true;
+                long[] keys = new long[0];
+                int[] oldBucketOrds = new int[0];
                 for (long owningBucketOrd = 0; owningBucketOrd <= oldOrds.maxOwningBucketOrd(); owningBucketOrd++) {
+                    int numKeys = Math.toIntExact(oldOrds.bucketsInOrd(owningBucketOrd));
+                    if (keys.length < numKeys) {
+                        keys = new long[numKeys];
+                        oldBucketOrds = new int[numKeys];
+                    }
                     LongKeyedBucketOrds.BucketOrdsEnum ordsEnum = oldOrds.ordsEnum(owningBucketOrd);
-                    Rounding.Prepared preparedRounding = preparedRoundings[roundingIndexFor(owningBucketOrd)];
-                    while (ordsEnum.next()) {
-                        long oldKey = ordsEnum.value();
-                        long newKey = preparedRounding.round(oldKey);
-                        long newBucketOrd = bucketOrds.add(owningBucketOrd, newKey);
-                        mergeMap[(int) ordsEnum.ord()] = newBucketOrd >= 0 ? newBucketOrd : -1 - newBucketOrd;
+                    for (int i = 0; ordsEnum.next(); i++) {
+                        keys[i] = ordsEnum.value();
+                        oldBucketOrds[i] = (int) ordsEnum.ord();
+                    }
+                    // round all the keys of the owning bucket at once so the rounding can reuse its lookups between them
+                    preparedRoundings[roundingIndexFor(owningBucketOrd)].round(keys, numKeys);
+                    for (int i = 0; i < numKeys; i++) {
+                        long newBucketOrd = bucketOrds.add(owningBucketOrd, keys[i]);
+                        mergeMap[oldBucketOrds[i]] = newBucketOrd >= 0 ? newBucketOrd : -1 - newBucketOrd;
                     }
                     liveBucketCountUnderestimate = bigArrays().grow(liveBucketCountUnderestimate, owningBucketOrd + 1);
                     liveBucketCountUnderestimate.set(owningBucketOrd, Math.toIntExact(bucketOrds.bucketsInOrd(owningBucketOrd)));
@@ -9,6 +9,7 @@ package org.elasticsearch.search.aggregations.bucket.histogram;
 
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.search.CollectionTerminatedException;
 import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.util.CollectionUtil;
 import org.elasticsearch.common.Rounding;
@@ -21,6 +22,7 @@ import org.elasticsearch.search.aggregations.AdaptingAggregator;
 import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.AggregatorFactories;
 import org.elasticsearch.search.aggregations.BucketOrder;
+import org.elasticsearch.search.aggregations.BufferingLeafBucketCollector;
 import org.elasticsearch.search.aggregations.CardinalityUpperBound;
 import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.InternalAggregations;
@@ -219,6 +221,12 @@ class DateHistogramAggregator extends BucketsAggregator implements SizedBucketAg
 
     private final LongKeyedBucketOrds bucketOrds;
 
+    /**
+     * Buffers the docs collected in each bucket so that sub-aggregations receive
+     * them in blocks, or {@code null} if the sub-aggregations need scores.
+     */
+    private final BufferingLeafBucketCollector subBuffer;
+
     DateHistogramAggregator(
         String name,
         AggregatorFactories factories,
@@ -249,6 +257,10 @@ class DateHistogramAggregator extends BucketsAggregator implements SizedBucketAg
         this.formatter = valuesSourceConfig.format();
 
         bucketOrds = LongKeyedBucketOrds.build(bigArrays(), cardinality);
+        // buffering delays collection so it only works if the sub-aggregations don't need scores
+        subBuffer = super.scoreMode().needsScores()
+            ? null
+            : new BufferingLeafBucketCollector(BufferingLeafBucketCollector.DEFAULT_BLOCK_SIZE);
     }
 
     @Override
@@ -259,38 +271,122 @@ class DateHistogramAggregator extends BucketsAggregator implements SizedBucketAg
         return super.scoreMode();
     }
 
+    @Override
+    protected void preGetSubLeafCollectors(LeafReaderContext ctx) throws IOException {
+        // the buffered docs belong to the previous segment
+        flushSubBuffer();
+        super.preGetSubLeafCollectors(ctx);
+    }
+
+    @Override
+    protected void doPostCollection() throws IOException {
+        flushSubBuffer();
+    }
+
+    private void flushSubBuffer() throws IOException {
+        if (subBuffer == null) {
+            return;
+        }
+        try {
+            subBuffer.flush();
+        } catch (CollectionTerminatedException e) {
+            // the sub-aggregations don't need any more docs from this segment
+        }
+    }
+
     @Override
     public LeafBucketCollector getLeafCollector(LeafReaderContext ctx, LeafBucketCollector sub) throws IOException {
         if (valuesSource == null) {
             return LeafBucketCollector.NO_OP_COLLECTOR;
         }
         SortedNumericDocValues values = valuesSource.longValues(ctx);
+        final LeafBucketCollector bucketSub = subBuffer == null || sub.isNoop() ? sub : subBuffer.reset(sub);
         return new LeafBucketCollectorBase(sub, values) {
+            private long lastOwningBucketOrd = -1;
+            private long lastRounded;
+            private long lastBucketOrd;
+            private int[] blockIndices = new int[0];
+            private long[] blockValues = new long[0];
+
             @Override
             public void collect(int doc, long owningBucketOrd) throws IOException {
                 if (values.advanceExact(doc)) {
-                    int valuesCount = values.docValueCount();
-
-                    long previousRounded = Long.MIN_VALUE;
-                    for (int i = 0; i < valuesCount; ++i) {
-                        long value = values.nextValue();
-                        long rounded = preparedRounding.round(value);
-                        assert rounded >= previousRounded;
-                        if (rounded == previousRounded) {
-                            continue;
-                        }
-                        if (hardBounds == null || hardBounds.contain(rounded)) {
-                            long bucketOrd = bucketOrds.add(owningBucketOrd, rounded);
-                            if (bucketOrd < 0) { // already seen
-                                bucketOrd = -1 - bucketOrd;
-                                collectExistingBucket(sub, doc, bucketOrd);
-                            } else {
-                                collectBucket(sub, doc, bucketOrd);
-                            }
+                    collectValues(doc, owningBucketOrd);
+                }
+            }
+
+            @Override
+            public void collect(int[] docs, long[] owningBucketOrds, int count) throws IOException {
+                if (blockValues.length < count) {
+                    blockIndices = new int[count];
+                    blockValues = new long[count];
+                }
+                // read the values of single valued docs for the whole block before rounding and collecting them in tight loops
+                int numSingleValued = 0;
+                for (int i = 0; i < count; i++) {
+                    if (values.advanceExact(docs[i])) {
+                        if (values.docValueCount() == 1) {
+                            blockIndices[numSingleValued] = i;
+                            blockValues[numSingleValued++] = values.nextValue();
+                        } else {
+                            // docs must reach the sub-aggregations in order
+                            collectSingleValued(docs, owningBucketOrds, numSingleValued);
+                            numSingleValued = 0;
+                            collectValues(docs[i], owningBucketOrds[i]);
                         }
-                        previousRounded = rounded;
                     }
                 }
+                collectSingleValued(docs, owningBucketOrds, numSingleValued);
+            }
+
+            private void collectSingleValued(int[] docs, long[] owningBucketOrds, int numValues) throws IOException {
+                preparedRounding.round(blockValues, numValues);
+                for (int j = 0; j < numValues; j++) {
+                    final long rounded = blockValues[j];
+                    if (hardBounds == null || hardBounds.contain(rounded)) {
+                        final int i = blockIndices[j];
+                        collectRounded(docs[i], owningBucketOrds[i], rounded);
+                    }
+                }
+            }
+
+            /**
+             * Collect the values of a doc that the values are positioned on.
+             */
+            private void collectValues(int doc, long owningBucketOrd) throws IOException {
+                int valuesCount = values.docValueCount();
+
+                long previousRounded = Long.MIN_VALUE;
+                for (int i = 0; i < valuesCount; ++i) {
+                    long value = values.nextValue();
+                    long rounded = preparedRounding.round(value);
+                    assert rounded >= previousRounded;
+                    if (rounded == previousRounded) {
+                        continue;
+                    }
+                    if (hardBounds == null || hardBounds.contain(rounded)) {
+                        collectRounded(doc, owningBucketOrd, rounded);
+                    }
+                    previousRounded = rounded;
+                }
+            }
+
+            private void collectRounded(int doc, long owningBucketOrd, long rounded) throws IOException {
+                if (owningBucketOrd == lastOwningBucketOrd && rounded == lastRounded) {
+                    // consecutive docs often fall in the same bucket, skip the hash lookup
+                    collectExistingBucket(bucketSub, doc, lastBucketOrd);
+                    return;
+                }
+                long bucketOrd = bucketOrds.add(owningBucketOrd, rounded);
+                if (bucketOrd < 0) { // already seen
+                    bucketOrd = -1 - bucketOrd;
+                    collectExistingBucket(bucketSub, doc, bucketOrd);
+                } else {
+                    collectBucket(bucketSub, doc, bucketOrd);
+                }
+                lastOwningBucketOrd = owningBucketOrd;
+                lastRounded = rounded;
+                lastBucketOrd = bucketOrd;
             }
         };
     }
@@ -0,0 +1,199 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.terms;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.ScoreMode;
+import org.elasticsearch.common.util.ObjectArray;
+import org.elasticsearch.core.Releasables;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.search.aggregations.BucketOrder;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.InternalOrder;
+import org.elasticsearch.search.aggregations.LeafBucketCollector;
+import org.elasticsearch.search.aggregations.support.AggregationContext;
+import org.elasticsearch.search.aggregations.support.ValuesSourceConfig;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * An approximate {@code terms} aggregator that counts the terms of each bucket with a
+ * {@link SpaceSavingSketch} so it runs in memory bounded by the {@code shard_size}
+ * rather than by the number of distinct terms.
+ * <p>
+ * The doc count of each bucket is the number of documents that the term is guaranteed
+ * to be in, and its {@code doc_count_error_upper_bound} is how many more it could be in.
+ * The error of the whole result is the largest count that any term missing from it could
+ * have, so the results of the shards merge like the results of the exact aggregators.
+ */
+class SketchStringTermsAggregator extends AbstractStringTermsAggregator {
+    /**
+     * The hint that selects this aggregator.
+     */
+    static final String EXECUTION_HINT = "sketch";
+    /**
+     * The number of terms the sketch tracks for each bucket the shard returns. Terms that
+     * are more frequent than one in {@code shard_size * CAPACITY_PER_BUCKET} values are
+     * always tracked.
+     */
+    static final int CAPACITY_PER_BUCKET = 4;
+
+    private final MapStringTermsAggregator.CollectorSource collectorSource;
+    private final IncludeExclude.StringFilter includeExclude;
+    private final int capacity;
+    private ObjectArray<SpaceSavingSketch> sketches;
+
+    SketchStringTermsAggregator(
+        String name,
+        ValuesSourceConfig valuesSourceConfig,
+        BucketOrder order,
+        DocValueFormat format,
+        BucketCountThresholds bucketCountThresholds,
+        IncludeExclude.StringFilter includeExclude,
+        AggregationContext context,
+        Aggregator parent,
+        boolean showTermDocCountError,
+        Map<String, Object> metadata
+    ) throws IOException {
+        super(
+            name,
+            AggregatorFactories.EMPTY,
+            context,
+            parent,
+            order,
+            format,
+            bucketCountThresholds,
+            SubAggCollectionMode.DEPTH_FIRST,
+            showTermDocCountError,
+            metadata
+        );
+        assert InternalOrder.isCountDesc(order);
+        this.includeExclude = includeExclude;
+        this.capacity = (int) Math.min(Integer.MAX_VALUE, (long) bucketCountThresholds.getShardSize() * CAPACITY_PER_BUCKET);
+        this.sketches = bigArrays().newObjectArray(1);
+        // set last because if there is an error during construction the collector gets release outside the constructor.
+        this.collectorSource = new MapStringTermsAggregator.ValuesSourceCollectorSource(valuesSourceConfig);
+    }
+
+    @Override
+    public ScoreMode scoreMode() {
+        if (collectorSource.needsScores()) {
+            return ScoreMode.COMPLETE;
+        }
+        return super.scoreMode();
+    }
+
+    @Override
+    public LeafBucketCollector getLeafCollector(LeafReaderContext ctx, LeafBucketCollector sub) throws IOException {
+        return collectorSource.getLeafCollector(
+            includeExclude,
+            ctx,
+            sub,
+            this::addRequestCircuitBreakerBytes,
+            (s, doc, owningBucketOrd, bytes) -> addRequestCircuitBreakerBytes(sketch(owningBucketOrd).add(bytes))
+        );
+    }
+
+    private SpaceSavingSketch sketch(long owningBucketOrd) {
+        sketches = bigArrays().grow(sketches, owningBucketOrd + 1);
+        SpaceSavingSketch sketch = sketches.get(owningBucketOrd);
+        if (sketch == null) {
+            sketch = new SpaceSavingSketch(capacity);
+            sketches.set(owningBucketOrd, sketch);
+        }
+        return sketch;
+    }
+
+    @Override
+    public InternalAggregation[] buildAggregations(long[] owningBucketOrds) throws IOException {
+        InternalAggregation[] results = new InternalAggregation[owningBucketOrds.length];
+        for (int ordIdx = 0; ordIdx < owningBucketOrds.length; ordIdx++) {
+            SpaceSavingSketch sketch = owningBucketOrds[ordIdx] < sketches.size() ? sketches.get(owningBucketOrds[ordIdx]) : null;
+            results[ordIdx] = sketch == null ? buildEmptyAggregation() : buildResult(sketch);
+        }
+        return results;
+    }
+
+    private StringTerms buildResult(SpaceSavingSketch sketch) {
+        List<StringTerms.Bucket> candidates = new ArrayList<>(sketch.size());
+        // no term that isn't in the sketch can have a larger count than the smallest count of the sketch
+        long docCountError = sketch.minCount();
+        for (int i = 0; i < sketch.size(); i++) {
+            SpaceSavingSketch.Counter counter = sketch.get(i);
+            long docCount = counter.count() - counter.error();
+            if (docCount < bucketCountThresholds.getShardMinDocCount()) {
+                docCountError = Math.max(docCountError, counter.count());
+                continue;
+            }
+            candidates.add(
+                new StringTerms.Bucket(
+                    counter.term(),
+                    docCount,
+                    InternalAggregations.EMPTY,
+                    showTermDocCountError,
+                    counter.error(),
+                    format
+                )
+            );
+        }
+        candidates.sort(order.comparator());
+        int size = Math.min(candidates.size(), bucketCountThresholds.getShardSize());
+        long otherDocCount = sketch.total();
+        for (int i = 0; i < candidates.size(); i++) {
+            StringTerms.Bucket bucket = candidates.get(i);
+            if (i < size) {
+                otherDocCount -= bucket.getDocCount();
+            } else {
+                docCountError = Math.max(docCountError, bucket.getDocCount() + bucket.docCountError);
+            }
+        }
+        List<StringTerms.Bucket> topBuckets = new ArrayList<>(candidates.subList(0, size));
+        BucketOrder reduceOrder = InternalOrder.key(true);
+        topBuckets.sort(reduceOrder.comparator());
+        return new StringTerms(
+            name,
+            reduceOrder,
+            order,
+            bucketCountThresholds.getRequiredSize(),
+            bucketCountThresholds.getMinDocCount(),
+            metadata(),
+            format,
+            bucketCountThresholds.getShardSize(),
+            showTermDocCountError,
+            otherDocCount,
+            topBuckets,
+            docCountError
+        );
+    }
+
+    @Override
+    public InternalAggregation buildEmptyAggregation() {
+        return buildEmptyTermsAggregation();
+    }
+
+    @Override
+    public void collectDebugInfo(BiConsumer<String, Object> add) {
+        super.collectDebugInfo(add);
+        add.accept("collection_strategy", collectorSource.describe());
+        add.accept("result_strategy", "sketch");
+        add.accept("sketch_capacity", capacity);
+    }
+
+    @Override
+    public void doClose() {
+        Releasables.close(collectorSource, sketches);
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.terms;
+
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Bounded memory summary of the most frequent terms of a stream using the
+ * Space-Saving algorithm. It tracks at most {@code capacity} terms. When a
+ * term that isn't tracked arrives and the summary is full it takes over the
+ * counter of the tracked term with the smallest count. The count it inherits
+ * is the most that the count of the new term can be overestimated by.
+ * <p>
+ * Every term whose count is larger than {@code total / capacity} is guaranteed
+ * to be tracked, and a term that isn't tracked can't have a count larger than
+ * the {@link #minCount() smallest count} of the summary.
+ */
+final class SpaceSavingSketch {
+    // the node holds the hash, the key, the value and the next node and the table holds a reference to it
+    private static final long HASH_MAP_ENTRY_RAM_BYTES_USED = RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + Integer.BYTES
+        + 4L * RamUsageEstimator.NUM_BYTES_OBJECT_REF;
+
+    /**
+     * Estimated memory used by each tracked term on top of its bytes: the
+     * counter, its key, the entry in the map and the slot in the heap.
+     */
+    static final long COUNTER_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(Counter.class)
+        + RamUsageEstimator.shallowSizeOfInstance(BytesRef.class)
+        + RamUsageEstimator.NUM_BYTES_ARRAY_HEADER
+        + HASH_MAP_ENTRY_RAM_BYTES_USED
+        + RamUsageEstimator.NUM_BYTES_OBJECT_REF;
+
+    static final class Counter {
+        private BytesRef term;
+        private long count;
+        private long error;
+        private int heapIndex;
+
+        private Counter(BytesRef term, int heapIndex) {
+            this.term = term;
+            this.heapIndex = heapIndex;
+        }
+
+        /**
+         * The tracked term.
+         */
+        BytesRef term() {
+            return term;
+        }
+
+        /**
+         * The estimated count of the term, which is never smaller than its actual count.
+         */
+        long count() {
+            return count;
+        }
+
+        /**
+         * The maximum overestimation of {@link #count()}.
+         */
+        long error() {
+            return error;
+        }
+    }
+
+    private final int capacity;
+    private final Map<BytesRef, Counter> counters = new HashMap<>();
+    /**
+     * Min-heap of the counters on their count.
+     */
+    private Counter[] heap = new Counter[0];
+    private int size;
+    private long total;
+    private boolean replacedTerms;
+
+    SpaceSavingSketch(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least [1] but was [" + capacity + "]");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Counts one occurrence of a term.
+     * @return the number of bytes the summary grew by
+     */
+    long add(BytesRef term) {
+        total++;
+        Counter counter = counters.get(term);
+        if (counter != null) {
+            counter.count++;
+            siftDown(counter.heapIndex);
+            return 0;
+        }
+        if (size < capacity) {
+            if (size == heap.length) {
+                int newLength = Math.min(capacity, ArrayUtil.oversize(size + 1, RamUsageEstimator.NUM_BYTES_OBJECT_REF));
+                heap = ArrayUtil.growExact(heap, newLength);
+            }
+            counter = new Counter(BytesRef.deepCopyOf(term), size);
+            counter.count = 1;
+            heap[size++] = counter;
+            counters.put(counter.term, counter);
+            // a new counter has the smallest possible count so it can only move up
+            siftUp(counter.heapIndex);
+            return COUNTER_RAM_BYTES_USED + term.length;
+        }
+        // take over the counter with the smallest count
+        counter = heap[0];
+        counters.remove(counter.term);
+        long grownBy = term.length - counter.term.length;
+        counter.term = BytesRef.deepCopyOf(term);
+        counter.error = counter.count;
+        counter.count++;
+        counters.put(counter.term, counter);
+        replacedTerms = true;
+        siftDown(0);
+        return grownBy;
+    }
+
+    /**
+     * The number of tracked terms.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * A tracked term, in no particular order.
+     */
+    Counter get(int index) {
+        return heap[index];
+    }
+
+    /**
+     * The number of occurrences of all terms that have been counted.
+     */
+    long total() {
+        return total;
+    }
+
+    /**
+     * The upper bound of the count of any term that isn't tracked.
+     */
+    long minCount() {
+        return replacedTerms ? heap[0].count : 0;
+    }
+
+    private void siftUp(int index) {
+        Counter counter = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent].count <= counter.count) {
+                break;
+            }
+            place(heap[parent], index);
+            index = parent;
+        }
+        place(counter, index);
+    }
+
+    private void siftDown(int index) {
+        Counter counter = heap[index];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1].count < heap[child].count) {
+                child++;
+            }
+            if (counter.count <= heap[child].count) {
+                break;
+            }
+            place(heap[child], index);
+            index = child;
+        }
+        place(counter, index);
+    }
+
+    private void place(Counter counter, int index) {
+        heap[index] = counter;
+        counter.heapIndex = index;
+    }
+}
@@ -98,6 +98,20 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory {
                 CardinalityUpperBound cardinality,
                 Map<String, Object> metadata
             ) throws IOException {
+                if (SketchStringTermsAggregator.EXECUTION_HINT.equals(executionHint)) {
+                    return sketchAggregator(
+                        name,
+                        factories,
+                        valuesSourceConfig,
+                        order,
+                        bucketCountThresholds,
+                        includeExclude,
+                        context,
+                        parent,
+                        showTermDocCountError,
+                        metadata
+                    );
+                }
                 ValuesSource valuesSource = valuesSourceConfig.getValuesSource();
                 ExecutionMode execution = null;
                 if (executionHint != null) {
@@ -146,6 +160,61 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory {
         };
     }
 
+    /**
+     * Build the approximate aggregator selected by the {@code sketch} execution hint. Unlike
+     * the other hints it isn't ignored when it isn't applicable because it changes the results.
+     */
+    private static Aggregator sketchAggregator(
+        String name,
+        AggregatorFactories factories,
+        ValuesSourceConfig valuesSourceConfig,
+        BucketOrder order,
+        TermsAggregator.BucketCountThresholds bucketCountThresholds,
+        IncludeExclude includeExclude,
+        AggregationContext context,
+        Aggregator parent,
+        boolean showTermDocCountError,
+        Map<String, Object> metadata
+    ) throws IOException {
+        if (factories != AggregatorFactories.EMPTY) {
+            throw new IllegalArgumentException(
+                "Aggregation ["
+                    + name
+                    + "] cannot have sub-aggregations with [execution_hint] ["
+                    + SketchStringTermsAggregator.EXECUTION_HINT
+                    + "]"
+            );
+        }
+        if (InternalOrder.isCountDesc(order) == false) {
+            throw new IllegalArgumentException(
+                "Aggregation [" + name + "] can only be sorted by descending [_count] with [execution_hint] ["
+                    + SketchStringTermsAggregator.EXECUTION_HINT
+                    + "]"
+            );
+        }
+        if ((includeExclude != null) && (includeExclude.isRegexBased()) && valuesSourceConfig.format() != DocValueFormat.RAW) {
+            throw new AggregationExecutionException(
+                "Aggregation ["
+                    + name
+                    + "] cannot support regular expression style "
+                    + "include/exclude settings as they can only be applied to string fields. Use an array of values for "
+                    + "include/exclude clauses"
+            );
+        }
+        return new SketchStringTermsAggregator(
+            name,
+            valuesSourceConfig,
+            order,
+            valuesSourceConfig.format(),
+            bucketCountThresholds,
+            includeExclude == null ? null : includeExclude.convertToStringFilter(valuesSourceConfig.format()),
+            context,
+            parent,
+            showTermDocCountError,
+            metadata
+        );
+    }
+
     /**
      * This supplier is used for all fields that expect to be aggregated as a numeric value.
      * This includes floating points, and formatted types that use numerics internally for storage (date, boolean, etc)
@@ -535,7 +604,9 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory {
                 case "map":
                     return MAP;
                 default:
-                    throw new IllegalArgumentException("Unknown `execution_hint`: [" + value + "], expected any of [map, global_ordinals]");
+                    throw new IllegalArgumentException(
+                        "Unknown `execution_hint`: [" + value + "], expected any of [map, global_ordinals, sketch]"
+                    );
             }
         }
 
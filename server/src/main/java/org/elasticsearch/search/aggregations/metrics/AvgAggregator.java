@@ -93,6 +93,43 @@ class AvgAggregator extends NumericMetricsAggregator.SingleValue {
                     compensations.set(bucket, kahanSummation.delta());
                 }
             }
+
+            @Override
+            public void collect(int[] docs, long[] owningBucketOrds, int count) throws IOException {
+                final long maxBucket = maxOwningBucketOrd(owningBucketOrds, count);
+                counts = bigArrays().grow(counts, maxBucket + 1);
+                sums = bigArrays().grow(sums, maxBucket + 1);
+                compensations = bigArrays().grow(compensations, maxBucket + 1);
+
+                // keep a running count and sum while consecutive docs fall in the same bucket
+                long bucket = -1;
+                long valueCount = 0;
+                for (int i = 0; i < count; i++) {
+                    if (values.advanceExact(docs[i]) == false) {
+                        continue;
+                    }
+                    if (owningBucketOrds[i] != bucket) {
+                        if (bucket >= 0) {
+                            counts.increment(bucket, valueCount);
+                            sums.set(bucket, kahanSummation.value());
+                            compensations.set(bucket, kahanSummation.delta());
+                        }
+                        bucket = owningBucketOrds[i];
+                        valueCount = 0;
+                        kahanSummation.reset(sums.get(bucket), compensations.get(bucket));
+                    }
+                    final int docValueCount = values.docValueCount();
+                    valueCount += docValueCount;
+                    for (int j = 0; j < docValueCount; j++) {
+                        kahanSummation.add(values.nextValue());
+                    }
+                }
+                if (bucket >= 0) {
+                    counts.increment(bucket, valueCount);
+                    sums.set(bucket, kahanSummation.value());
+                    compensations.set(bucket, kahanSummation.delta());
+                }
+            }
         };
     }
 
@@ -103,6 +103,35 @@ class MaxAggregator extends NumericMetricsAggregator.SingleValue {
                 }
             }
 
+            @Override
+            public void collect(int[] docs, long[] owningBucketOrds, int count) throws IOException {
+                final long maxBucket = maxOwningBucketOrd(owningBucketOrds, count);
+                if (maxBucket >= maxes.size()) {
+                    long from = maxes.size();
+                    maxes = bigArrays().grow(maxes, maxBucket + 1);
+                    maxes.fill(from, maxes.size(), Double.NEGATIVE_INFINITY);
+                }
+                // keep a running max while consecutive docs fall in the same bucket
+                long bucket = -1;
+                double max = Double.NEGATIVE_INFINITY;
+                for (int i = 0; i < count; i++) {
+                    if (values.advanceExact(docs[i]) == false) {
+                        continue;
+                    }
+                    if (owningBucketOrds[i] != bucket) {
+                        if (bucket >= 0) {
+                            maxes.set(bucket, max);
+                        }
+                        bucket = owningBucketOrds[i];
+                        max = maxes.get(bucket);
+                    }
+                    max = Math.max(max, values.doubleValue());
+                }
+                if (bucket >= 0) {
+                    maxes.set(bucket, max);
+                }
+            }
+
         };
     }
 
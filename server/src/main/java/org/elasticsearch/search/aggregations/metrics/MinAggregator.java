@@ -102,6 +102,35 @@ public class MinAggregator extends NumericMetricsAggregator.SingleValue {
                 }
             }
 
+            @Override
+            public void collect(int[] docs, long[] owningBucketOrds, int count) throws IOException {
+                final long maxBucket = maxOwningBucketOrd(owningBucketOrds, count);
+                if (maxBucket >= mins.size()) {
+                    long from = mins.size();
+                    mins = bigArrays().grow(mins, maxBucket + 1);
+                    mins.fill(from, mins.size(), Double.POSITIVE_INFINITY);
+                }
+                // keep a running min while consecutive docs fall in the same bucket
+                long bucket = -1;
+                double min = Double.POSITIVE_INFINITY;
+                for (int i = 0; i < count; i++) {
+                    if (values.advanceExact(docs[i]) == false) {
+                        continue;
+                    }
+                    if (owningBucketOrds[i] != bucket) {
+                        if (bucket >= 0) {
+                            mins.set(bucket, min);
+                        }
+                        bucket = owningBucketOrds[i];
+                        min = mins.get(bucket);
+                    }
+                    min = Math.min(min, values.doubleValue());
+                }
+                if (bucket >= 0) {
+                    mins.set(bucket, min);
+                }
+            }
+
         };
     }
 
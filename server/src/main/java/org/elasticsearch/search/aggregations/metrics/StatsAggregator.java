@@ -110,6 +110,62 @@ class StatsAggregator extends NumericMetricsAggregator.MultiValue {
                     maxes.set(bucket, max);
                 }
             }
+
+            @Override
+            public void collect(int[] docs, long[] owningBucketOrds, int count) throws IOException {
+                final long maxBucket = maxOwningBucketOrd(owningBucketOrds, count);
+                if (maxBucket >= counts.size()) {
+                    final long from = counts.size();
+                    final long overSize = BigArrays.overSize(maxBucket + 1);
+                    counts = bigArrays().resize(counts, overSize);
+                    sums = bigArrays().resize(sums, overSize);
+                    compensations = bigArrays().resize(compensations, overSize);
+                    mins = bigArrays().resize(mins, overSize);
+                    maxes = bigArrays().resize(maxes, overSize);
+                    mins.fill(from, overSize, Double.POSITIVE_INFINITY);
+                    maxes.fill(from, overSize, Double.NEGATIVE_INFINITY);
+                }
+
+                // keep running stats while consecutive docs fall in the same bucket
+                long bucket = -1;
+                long valueCount = 0;
+                double min = Double.POSITIVE_INFINITY;
+                double max = Double.NEGATIVE_INFINITY;
+                for (int i = 0; i < count; i++) {
+                    if (values.advanceExact(docs[i]) == false) {
+                        continue;
+                    }
+                    if (owningBucketOrds[i] != bucket) {
+                        if (bucket >= 0) {
+                            counts.increment(bucket, valueCount);
+                            sums.set(bucket, kahanSummation.value());
+                            compensations.set(bucket, kahanSummation.delta());
+                            mins.set(bucket, min);
+                            maxes.set(bucket, max);
+                        }
+                        bucket = owningBucketOrds[i];
+                        valueCount = 0;
+                        kahanSummation.reset(sums.get(bucket), compensations.get(bucket));
+                        min = mins.get(bucket);
+                        max = maxes.get(bucket);
+                    }
+                    final int docValueCount = values.docValueCount();
+                    valueCount += docValueCount;
+                    for (int j = 0; j < docValueCount; j++) {
+                        double value = values.nextValue();
+                        kahanSummation.add(value);
+                        min = Math.min(min, value);
+                        max = Math.max(max, value);
+                    }
+                }
+                if (bucket >= 0) {
+                    counts.increment(bucket, valueCount);
+                    sums.set(bucket, kahanSummation.value());
+                    compensations.set(bucket, kahanSummation.delta());
+                    mins.set(bucket, min);
+                    maxes.set(bucket, max);
+                }
+            }
         };
     }
 
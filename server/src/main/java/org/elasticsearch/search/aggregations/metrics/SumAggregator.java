@@ -68,22 +68,53 @@ public class SumAggregator extends NumericMetricsAggregator.SingleValue {
                 compensations = bigArrays().grow(compensations, bucket + 1);
 
                 if (values.advanceExact(doc)) {
-                    final int valuesCount = values.docValueCount();
                     // Compute the sum of double values with Kahan summation algorithm which is more
                     // accurate than naive summation.
                     double sum = sums.get(bucket);
                     double compensation = compensations.get(bucket);
                     kahanSummation.reset(sum, compensation);
 
-                    for (int i = 0; i < valuesCount; i++) {
-                        double value = values.nextValue();
-                        kahanSummation.add(value);
-                    }
+                    addValues();
+
+                    compensations.set(bucket, kahanSummation.delta());
+                    sums.set(bucket, kahanSummation.value());
+                }
+            }
+
+            @Override
+            public void collect(int[] docs, long[] owningBucketOrds, int count) throws IOException {
+                final long maxBucket = maxOwningBucketOrd(owningBucketOrds, count);
+                sums = bigArrays().grow(sums, maxBucket + 1);
+                compensations = bigArrays().grow(compensations, maxBucket + 1);
 
+                // keep a running sum while consecutive docs fall in the same bucket
+                long bucket = -1;
+                for (int i = 0; i < count; i++) {
+                    if (values.advanceExact(docs[i]) == false) {
+                        continue;
+                    }
+                    if (owningBucketOrds[i] != bucket) {
+                        if (bucket >= 0) {
+                            compensations.set(bucket, kahanSummation.delta());
+                            sums.set(bucket, kahanSummation.value());
+                        }
+                        bucket = owningBucketOrds[i];
+                        kahanSummation.reset(sums.get(bucket), compensations.get(bucket));
+                    }
+                    addValues();
+                }
+                if (bucket >= 0) {
                     compensations.set(bucket, kahanSummation.delta());
                     sums.set(bucket, kahanSummation.value());
                 }
             }
+
+            private void addValues() throws IOException {
+                final int valuesCount = values.docValueCount();
+                for (int i = 0; i < valuesCount; i++) {
+                    kahanSummation.add(values.nextValue());
+                }
+            }
         };
     }
 
@@ -225,6 +225,13 @@ public abstract class AggregationContext implements Releasable {
      */
     public abstract void addReleasable(Aggregator aggregator);
 
+    /**
+     * Cause the aggregations that are {@link #addReleasable added} from now on to be released when the returned
+     * {@link Releasable} is closed rather than when the search is finished. Scopes must be closed in the reverse
+     * order of their creation.
+     */
+    public abstract Releasable newReleasableScope();
+
     public abstract MultiBucketConsumer multiBucketConsumer();
 
     /**
@@ -480,6 +487,19 @@ public abstract class AggregationContext implements Releasable {
             releaseMe.add(aggregator);
         }
 
+        @Override
+        public Releasable newReleasableScope() {
+            final int start = releaseMe.size();
+            return () -> {
+                List<Aggregator> scope = releaseMe.subList(start, releaseMe.size());
+                try {
+                    Releasables.close(scope);
+                } finally {
+                    scope.clear();
+                }
+            };
+        }
+
         @Override
         public MultiBucketConsumer multiBucketConsumer() {
             return multiBucketConsumer;
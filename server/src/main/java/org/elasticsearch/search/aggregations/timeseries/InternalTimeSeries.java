@@ -0,0 +1,230 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.timeseries;
+
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.PriorityQueue;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.AggregationReduceContext;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.InternalMultiBucketAggregation;
+import org.elasticsearch.search.aggregations.bucket.IteratorAndCurrent;
+import org.elasticsearch.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Results of the {@code time_series} aggregation: one bucket per time series, sorted by {@code _tsid}.
+ */
+public class InternalTimeSeries extends InternalMultiBucketAggregation<InternalTimeSeries, InternalTimeSeries.InternalBucket> {
+
+    public static class InternalBucket extends InternalMultiBucketAggregation.InternalBucket {
+        private final BytesRef key;
+        private final long docCount;
+        private final InternalAggregations aggregations;
+
+        public InternalBucket(BytesRef key, long docCount, InternalAggregations aggregations) {
+            this.key = key;
+            this.docCount = docCount;
+            this.aggregations = aggregations;
+        }
+
+        /**
+         * Read from a stream.
+         */
+        public InternalBucket(StreamInput in) throws IOException {
+            key = in.readBytesRef();
+            docCount = in.readVLong();
+            aggregations = InternalAggregations.readFrom(in);
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeBytesRef(key);
+            out.writeVLong(docCount);
+            aggregations.writeTo(out);
+        }
+
+        /**
+         * The dimensions of the time series.
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map<String, Object> getKey() {
+            return (Map<String, Object>) DocValueFormat.TIME_SERIES_ID.format(key);
+        }
+
+        @Override
+        public String getKeyAsString() {
+            return getKey().toString();
+        }
+
+        @Override
+        public long getDocCount() {
+            return docCount;
+        }
+
+        @Override
+        public InternalAggregations getAggregations() {
+            return aggregations;
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject();
+            builder.field(CommonFields.KEY.getPreferredName(), getKey());
+            builder.field(CommonFields.DOC_COUNT.getPreferredName(), docCount);
+            aggregations.toXContentInternal(builder, params);
+            builder.endObject();
+            return builder;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (other == null || getClass() != other.getClass()) {
+                return false;
+            }
+            InternalBucket that = (InternalBucket) other;
+            return Objects.equals(key, that.key) && docCount == that.docCount && Objects.equals(aggregations, that.aggregations);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(getClass(), key, docCount, aggregations);
+        }
+    }
+
+    private final List<InternalBucket> buckets;
+
+    public InternalTimeSeries(String name, List<InternalBucket> buckets, Map<String, Object> metadata) {
+        super(name, metadata);
+        this.buckets = buckets;
+    }
+
+    /**
+     * Read from a stream.
+     */
+    public InternalTimeSeries(StreamInput in) throws IOException {
+        super(in);
+        buckets = in.readList(InternalBucket::new);
+    }
+
+    @Override
+    protected void doWriteTo(StreamOutput out) throws IOException {
+        out.writeList(buckets);
+    }
+
+    @Override
+    public String getWriteableName() {
+        return TimeSeriesAggregationBuilder.NAME;
+    }
+
+    @Override
+    public InternalTimeSeries create(List<InternalBucket> buckets) {
+        return new InternalTimeSeries(name, buckets, metadata);
+    }
+
+    @Override
+    public InternalBucket createBucket(InternalAggregations aggregations, InternalBucket prototype) {
+        return new InternalBucket(prototype.key, prototype.docCount, aggregations);
+    }
+
+    @Override
+    public List<InternalBucket> getBuckets() {
+        return buckets;
+    }
+
+    /**
+     * The buckets of each result are sorted by {@code _tsid} so they are merged
+     * one time series at a time without collecting all the buckets by key first.
+     */
+    @Override
+    public InternalAggregation reduce(List<InternalAggregation> aggregations, AggregationReduceContext reduceContext) {
+        PriorityQueue<IteratorAndCurrent<InternalBucket>> pq = new PriorityQueue<>(aggregations.size()) {
+            @Override
+            protected boolean lessThan(IteratorAndCurrent<InternalBucket> a, IteratorAndCurrent<InternalBucket> b) {
+                return a.current().key.compareTo(b.current().key) < 0;
+            }
+        };
+        for (InternalAggregation aggregation : aggregations) {
+            InternalTimeSeries timeSeries = (InternalTimeSeries) aggregation;
+            if (timeSeries.buckets.isEmpty() == false) {
+                pq.add(new IteratorAndCurrent<>(timeSeries.buckets.iterator()));
+            }
+        }
+
+        List<InternalBucket> reducedBuckets = new ArrayList<>();
+        List<InternalBucket> sameKeyBuckets = new ArrayList<>();
+        while (pq.size() > 0) {
+            sameKeyBuckets.clear();
+            BytesRef key = pq.top().current().key;
+            do {
+                IteratorAndCurrent<InternalBucket> top = pq.top();
+                sameKeyBuckets.add(top.current());
+                if (top.hasNext()) {
+                    top.next();
+                    assert top.current().key.compareTo(key) > 0 : "buckets must be sorted by _tsid";
+                    pq.updateTop();
+                } else {
+                    pq.pop();
+                }
+            } while (pq.size() > 0 && pq.top().current().key.equals(key));
+            reducedBuckets.add(reduceBucket(sameKeyBuckets, reduceContext));
+        }
+        reduceContext.consumeBucketsAndMaybeBreak(reducedBuckets.size());
+        return new InternalTimeSeries(name, reducedBuckets, metadata);
+    }
+
+    @Override
+    protected InternalBucket reduceBucket(List<InternalBucket> buckets, AggregationReduceContext context) {
+        assert buckets.size() > 0;
+        long docCount = 0;
+        List<InternalAggregations> aggregationsList = new ArrayList<>(buckets.size());
+        for (InternalBucket bucket : buckets) {
+            docCount += bucket.docCount;
+            aggregationsList.add(bucket.aggregations);
+        }
+        return new InternalBucket(buckets.get(0).key, docCount, InternalAggregations.reduce(aggregationsList, context));
+    }
+
+    @Override
+    public XContentBuilder doXContentBody(XContentBuilder builder, Params params) throws IOException {
+        builder.startArray(CommonFields.BUCKETS.getPreferredName());
+        for (InternalBucket bucket : buckets) {
+            bucket.toXContent(builder, params);
+        }
+        builder.endArray();
+        return builder;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), buckets);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        if (super.equals(obj) == false) return false;
+
+        InternalTimeSeries that = (InternalTimeSeries) obj;
+        return Objects.equals(buckets, that.buckets);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.timeseries;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.search.aggregations.AbstractAggregationBuilder;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.AggregatorFactories.Builder;
+import org.elasticsearch.search.aggregations.AggregatorFactory;
+import org.elasticsearch.search.aggregations.support.AggregationContext;
+import org.elasticsearch.xcontent.ObjectParser;
+import org.elasticsearch.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Buckets the documents of a time series index by time series. The documents are collected in
+ * {@code _tsid} order so each time series is finished before the next one starts and the buckets
+ * don't need to be looked up by key.
+ */
+public class TimeSeriesAggregationBuilder extends AbstractAggregationBuilder<TimeSeriesAggregationBuilder> {
+    public static final String NAME = "time_series";
+
+    public static final ObjectParser<TimeSeriesAggregationBuilder, String> PARSER = ObjectParser.fromBuilder(
+        NAME,
+        TimeSeriesAggregationBuilder::new
+    );
+
+    public TimeSeriesAggregationBuilder(String name) {
+        super(name);
+    }
+
+    protected TimeSeriesAggregationBuilder(TimeSeriesAggregationBuilder clone, Builder factoriesBuilder, Map<String, Object> metadata) {
+        super(clone, factoriesBuilder, metadata);
+    }
+
+    /**
+     * Read from a stream.
+     */
+    public TimeSeriesAggregationBuilder(StreamInput in) throws IOException {
+        super(in);
+    }
+
+    @Override
+    protected AggregationBuilder shallowCopy(Builder factoriesBuilder, Map<String, Object> metadata) {
+        return new TimeSeriesAggregationBuilder(this, factoriesBuilder, metadata);
+    }
+
+    @Override
+    protected void doWriteTo(StreamOutput out) throws IOException {
+        // Nothing to write
+    }
+
+    @Override
+    public BucketCardinality bucketCardinality() {
+        return BucketCardinality.MANY;
+    }
+
+    @Override
+    public boolean isInSortOrderExecutionRequired() {
+        return true;
+    }
+
+    @Override
+    protected AggregatorFactory doBuild(AggregationContext context, AggregatorFactory parent, Builder subFactoriesBuilder)
+        throws IOException {
+        return new TimeSeriesAggregatorFactory(name, context, parent, subFactoriesBuilder, metadata);
+    }
+
+    @Override
+    protected XContentBuilder internalXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject();
+        builder.endObject();
+        return builder;
+    }
+
+    @Override
+    public String getType() {
+        return NAME;
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.timeseries;
+
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
+import org.elasticsearch.common.util.ObjectArray;
+import org.elasticsearch.core.Releasables;
+import org.elasticsearch.index.mapper.TimeSeriesIdFieldMapper;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.search.aggregations.CardinalityUpperBound;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.LeafBucketCollector;
+import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
+import org.elasticsearch.search.aggregations.bucket.BucketsAggregator;
+import org.elasticsearch.search.aggregations.support.AggregationContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects one bucket per time series. The documents are collected by the {@link TimeSeriesIndexSearcher} in
+ * {@code _tsid} order so a new time series always gets the next bucket ordinal and the ordinals don't need a
+ * hash table: the only state is the {@code _tsid} of the time series that is being collected.
+ */
+public class TimeSeriesAggregator extends BucketsAggregator {
+
+    private final BytesRefBuilder currentTsid = new BytesRefBuilder();
+    private ObjectArray<BytesRef> tsids;
+    private long currentBucket = -1;
+
+    public TimeSeriesAggregator(String name, AggregatorFactories factories, AggregationContext context, Map<String, Object> metadata)
+        throws IOException {
+        super(name, factories, context, null, CardinalityUpperBound.MANY, metadata);
+        tsids = bigArrays().newObjectArray(1);
+    }
+
+    @Override
+    protected LeafBucketCollector getLeafCollector(LeafReaderContext ctx, LeafBucketCollector sub) throws IOException {
+        SortedSetDocValues docValues = DocValues.getSortedSet(ctx.reader(), TimeSeriesIdFieldMapper.NAME);
+        return new LeafBucketCollectorBase(sub, null) {
+            private long leafOrd = -1;
+            private long leafBucket = -1;
+
+            @Override
+            public void collect(int doc, long owningBucketOrd) throws IOException {
+                assert owningBucketOrd == 0 : "time_series aggregations can only be top level aggregations";
+                if (docValues.advanceExact(doc) == false) {
+                    return;
+                }
+                long ord = docValues.nextOrd();
+                if (ord != leafOrd) {
+                    BytesRef tsid = docValues.lookupOrd(ord);
+                    if (currentBucket < 0 || tsid.equals(currentTsid.get()) == false) {
+                        assert currentBucket < 0 || tsid.compareTo(currentTsid.get()) > 0 : "documents must be collected in _tsid order";
+                        currentTsid.copyBytes(tsid);
+                        currentBucket++;
+                        tsids = bigArrays().grow(tsids, currentBucket + 1);
+                        tsids.set(currentBucket, BytesRef.deepCopyOf(tsid));
+                    }
+                    // the same ordinal in the same segment is the same time series, which is still the current one
+                    leafOrd = ord;
+                    leafBucket = currentBucket;
+                }
+                collectBucket(sub, doc, leafBucket);
+            }
+        };
+    }
+
+    @Override
+    public InternalAggregation[] buildAggregations(long[] owningBucketOrds) throws IOException {
+        assert owningBucketOrds.length == 1 && owningBucketOrds[0] == 0 : "time_series aggregator can only be a top level aggregator";
+        long[] bucketOrds = new long[Math.toIntExact(currentBucket + 1)];
+        for (int i = 0; i < bucketOrds.length; i++) {
+            bucketOrds[i] = i;
+        }
+        InternalAggregations[] subAggregationResults = buildSubAggsForBuckets(bucketOrds);
+        List<InternalTimeSeries.InternalBucket> buckets = new ArrayList<>(bucketOrds.length);
+        for (int i = 0; i < bucketOrds.length; i++) {
+            buckets.add(new InternalTimeSeries.InternalBucket(tsids.get(i), bucketDocCount(i), subAggregationResults[i]));
+        }
+        return new InternalAggregation[] { new InternalTimeSeries(name, buckets, metadata()) };
+    }
+
+    @Override
+    public InternalAggregation buildEmptyAggregation() {
+        return new InternalTimeSeries(name, new ArrayList<>(), metadata());
+    }
+
+    @Override
+    protected void doClose() {
+        Releasables.close(tsids);
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.timeseries;
+
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.TwoPhaseIterator;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.PriorityQueue;
+import org.elasticsearch.index.mapper.DataStreamTimestampFieldMapper;
+import org.elasticsearch.index.mapper.TimeSeriesIdFieldMapper;
+import org.elasticsearch.search.aggregations.BucketCollector;
+import org.elasticsearch.search.aggregations.LeafBucketCollector;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Collects the documents that match a query in {@code _tsid} and {@code @timestamp} order across all
+ * the segments of a shard, so that a {@link BucketCollector} sees all the documents of a time series
+ * before the documents of the next one. The segments of a time series index are already sorted in
+ * that order so they only need to be merged.
+ */
+public class TimeSeriesIndexSearcher {
+    // Number of documents to collect between two checks for cancellation
+    private static final int CHECK_CANCELLED_INTERVAL = 1 << 11;
+
+    private final IndexSearcher searcher;
+    private final Runnable checkCancelled;
+
+    public TimeSeriesIndexSearcher(IndexSearcher searcher, Runnable checkCancelled) {
+        this.searcher = searcher;
+        this.checkCancelled = checkCancelled;
+    }
+
+    public void search(Query query, BucketCollector bucketCollector) throws IOException {
+        Weight weight = searcher.createWeight(searcher.rewrite(query), bucketCollector.scoreMode(), 1f);
+        List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+        PriorityQueue<LeafWalker> queue = new PriorityQueue<>(Math.max(1, leaves.size())) {
+            @Override
+            protected boolean lessThan(LeafWalker a, LeafWalker b) {
+                int cmp = a.tsid.compareTo(b.tsid);
+                if (cmp == 0) {
+                    return a.timestamp < b.timestamp;
+                }
+                return cmp < 0;
+            }
+        };
+        for (LeafReaderContext leaf : leaves) {
+            Scorer scorer = weight.scorer(leaf);
+            if (scorer == null) {
+                continue;
+            }
+            final LeafBucketCollector leafCollector;
+            try {
+                leafCollector = bucketCollector.getLeafCollector(leaf);
+            } catch (CollectionTerminatedException e) {
+                continue;
+            }
+            leafCollector.setScorer(scorer);
+            LeafWalker walker = new LeafWalker(leaf, scorer, leafCollector);
+            if (walker.next()) {
+                queue.add(walker);
+            }
+        }
+        int collected = 0;
+        while (queue.size() > 0) {
+            if (++collected % CHECK_CANCELLED_INTERVAL == 0) {
+                checkCancelled.run();
+            }
+            LeafWalker walker = queue.top();
+            boolean more;
+            try {
+                walker.collector.collect(walker.docId);
+                more = walker.next();
+            } catch (CollectionTerminatedException e) {
+                more = false;
+            }
+            if (more) {
+                queue.updateTop();
+            } else {
+                queue.pop();
+            }
+        }
+    }
+
+    /**
+     * Iterates the matching documents of a single segment, which are in {@code _tsid} and {@code @timestamp} order.
+     */
+    private static class LeafWalker {
+        private final LeafBucketCollector collector;
+        private final DocIdSetIterator iterator;
+        private final Bits liveDocs;
+        private final SortedSetDocValues tsids;
+        private final SortedNumericDocValues timestamps;
+        private long tsidOrd = -1;
+        private BytesRef tsid;
+        private long timestamp;
+        private int docId;
+
+        LeafWalker(LeafReaderContext context, Scorer scorer, LeafBucketCollector collector) throws IOException {
+            this.collector = collector;
+            TwoPhaseIterator twoPhase = scorer.twoPhaseIterator();
+            this.iterator = twoPhase == null ? scorer.iterator() : TwoPhaseIterator.asDocIdSetIterator(twoPhase);
+            this.liveDocs = context.reader().getLiveDocs();
+            this.tsids = DocValues.getSortedSet(context.reader(), TimeSeriesIdFieldMapper.NAME);
+            this.timestamps = DocValues.getSortedNumeric(context.reader(), DataStreamTimestampFieldMapper.DEFAULT_PATH);
+        }
+
+        /**
+         * Moves to the next live matching document that has a {@code _tsid}.
+         */
+        boolean next() throws IOException {
+            for (docId = iterator.nextDoc(); docId != DocIdSetIterator.NO_MORE_DOCS; docId = iterator.nextDoc()) {
+                if ((liveDocs == null || liveDocs.get(docId)) && tsids.advanceExact(docId)) {
+                    long ord = tsids.nextOrd();
+                    if (ord != tsidOrd) {
+                        // the _tsid only changes between runs of documents since the segment is sorted by it
+                        tsid = tsids.lookupOrd(ord);
+                        tsidOrd = ord;
+                    }
+                    timestamp = timestamps.advanceExact(docId) ? timestamps.nextValue() : Long.MIN_VALUE;
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -16,6 +16,7 @@ import org.apache.lucene.search.BulkScorer;
 import org.apache.lucene.search.CollectionStatistics;
 import org.apache.lucene.search.CollectionTerminatedException;
 import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.CollectorManager;
 import org.apache.lucene.search.ConjunctionUtils;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.Explanation;
@@ -33,6 +34,7 @@ import org.apache.lucene.util.BitSet;
 import org.apache.lucene.util.BitSetIterator;
 import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.SparseFixedBitSet;
+import org.apache.lucene.util.ThreadInterruptedException;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.lucene.util.CombinedBitSet;
 import org.elasticsearch.search.dfs.AggregatedDfs;
@@ -43,11 +45,19 @@ import org.elasticsearch.search.profile.query.QueryProfiler;
 import org.elasticsearch.search.profile.query.QueryTimingType;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Context-aware extension of {@link IndexSearcher}.
@@ -59,9 +69,18 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
      */
     private static int CHECK_CANCELLED_SCORER_INTERVAL = 1 << 11;
 
+    /**
+     * The minimum number of documents a slice should hold when collecting concurrently. Forking collection
+     * for smaller slices costs more than it saves. See {@link #computeSlices}.
+     */
+    static final int MINIMUM_DOCS_PER_SLICE = 50_000;
+
     private AggregatedDfs aggregatedDfs;
     private QueryProfiler profiler;
     private MutableQueryTimeout cancellable;
+    private final Executor executor;
+    private final int maximumNumberOfSlices;
+    private int minimumDocsPerSlice = MINIMUM_DOCS_PER_SLICE;
 
     public ContextIndexSearcher(
         IndexReader reader,
@@ -70,7 +89,33 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
         QueryCachingPolicy queryCachingPolicy,
         boolean wrapWithExitableDirectoryReader
     ) throws IOException {
-        this(reader, similarity, queryCache, queryCachingPolicy, new MutableQueryTimeout(), wrapWithExitableDirectoryReader);
+        this(reader, similarity, queryCache, queryCachingPolicy, wrapWithExitableDirectoryReader, null, 1);
+    }
+
+    /**
+     * Creates a searcher that may partition its leaves into up to <code>maximumNumberOfSlices</code> slices and
+     * collect them concurrently on the provided <code>executor</code> when searching with a {@link CollectorManager}.
+     * A <code>null</code> executor or a single slice disables concurrent collection.
+     */
+    public ContextIndexSearcher(
+        IndexReader reader,
+        Similarity similarity,
+        QueryCache queryCache,
+        QueryCachingPolicy queryCachingPolicy,
+        boolean wrapWithExitableDirectoryReader,
+        Executor executor,
+        int maximumNumberOfSlices
+    ) throws IOException {
+        this(
+            reader,
+            similarity,
+            queryCache,
+            queryCachingPolicy,
+            new MutableQueryTimeout(),
+            wrapWithExitableDirectoryReader,
+            executor,
+            maximumNumberOfSlices
+        );
     }
 
     private ContextIndexSearcher(
@@ -79,13 +124,20 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
         QueryCache queryCache,
         QueryCachingPolicy queryCachingPolicy,
         MutableQueryTimeout cancellable,
-        boolean wrapWithExitableDirectoryReader
+        boolean wrapWithExitableDirectoryReader,
+        Executor executor,
+        int maximumNumberOfSlices
     ) throws IOException {
         super(wrapWithExitableDirectoryReader ? new ExitableDirectoryReader((DirectoryReader) reader, cancellable) : reader);
         setSimilarity(similarity);
         setQueryCache(queryCache);
         setQueryCachingPolicy(queryCachingPolicy);
         this.cancellable = cancellable;
+        if (maximumNumberOfSlices < 1) {
+            throw new IllegalArgumentException("maximumNumberOfSlices must be at least 1 but was [" + maximumNumberOfSlices + "]");
+        }
+        this.executor = executor;
+        this.maximumNumberOfSlices = maximumNumberOfSlices;
     }
 
     public void setProfiler(QueryProfiler profiler) {
@@ -162,6 +214,158 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
         }
     }
 
+    // pkg-private for testing
+    void setMinimumDocsPerSlice(int minimumDocsPerSlice) {
+        this.minimumDocsPerSlice = minimumDocsPerSlice;
+    }
+
+    /**
+     * Returns whether searches with a {@link CollectorManager} may collect slices of the leaves concurrently.
+     * Profiled searches are always collected sequentially since the profile breakdowns are not thread-safe.
+     */
+    public boolean isConcurrent() {
+        return executor != null && maximumNumberOfSlices > 1 && profiler == null;
+    }
+
+    /**
+     * Searches the provided query with one collector per slice of the leaves. When this searcher {@link #isConcurrent() is concurrent}
+     * all slices but the first are collected on the search worker executor while the first is collected on the calling thread,
+     * then the collectors are reduced through the provided manager. Cancellation and timeouts are honoured per slice
+     * exactly like for sequential collection. If a slice fails, the other slices are still awaited before the failure is
+     * rethrown, so that none of the collectors is in use anymore and the caller can still reduce what they collected.
+     */
+    @Override
+    public <C extends Collector, T> T search(Query query, CollectorManager<C, T> collectorManager) throws IOException {
+        if (isConcurrent() == false) {
+            return super.search(query, collectorManager);
+        }
+        final List<List<LeafReaderContext>> slices = computeSlices(
+            getIndexReader().leaves(),
+            maximumNumberOfSlices,
+            minimumDocsPerSlice
+        );
+        if (slices.size() <= 1) {
+            return super.search(query, collectorManager);
+        }
+        final List<C> collectors = new ArrayList<>(slices.size());
+        ScoreMode scoreMode = null;
+        for (int i = 0; i < slices.size(); i++) {
+            final C collector = collectorManager.newCollector();
+            if (scoreMode == null) {
+                scoreMode = collector.scoreMode();
+            } else if (scoreMode != collector.scoreMode()) {
+                throw new IllegalStateException("CollectorManager does not always produce collectors with the same score mode");
+            }
+            collectors.add(collector);
+        }
+        final Weight weight = createWeight(rewrite(query), scoreMode, 1);
+        final List<FutureTask<Void>> tasks = new ArrayList<>(slices.size() - 1);
+        for (int i = 1; i < slices.size(); i++) {
+            final List<LeafReaderContext> slice = slices.get(i);
+            final C collector = collectors.get(i);
+            final FutureTask<Void> task = new FutureTask<>(() -> {
+                search(slice, weight, collector);
+                return null;
+            });
+            tasks.add(task);
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                task.run();
+            }
+        }
+        Exception failure = null;
+        try {
+            search(slices.get(0), weight, collectors.get(0));
+        } catch (Exception e) {
+            failure = e;
+        }
+        // always wait for the forked slices, they must not outlive the search context that owns the reader
+        for (FutureTask<Void> task : tasks) {
+            try {
+                task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ThreadInterruptedException(e);
+            } catch (ExecutionException e) {
+                final Exception cause = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                if (failure == null) {
+                    failure = cause;
+                } else {
+                    failure.addSuppressed(cause);
+                }
+            }
+        }
+        if (failure != null) {
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            } else if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+            throw new UncheckedIOException(new IOException(failure));
+        }
+        return collectorManager.reduce(collectors);
+    }
+
+    /**
+     * Partitions the provided leaves into at most <code>maximumNumberOfSlices</code> slices of comparable document counts,
+     * each holding at least <code>minimumDocsPerSlice</code> documents when possible. Leaves are assigned largest first
+     * to the slice that currently holds the fewest documents and are kept in index order within each slice.
+     */
+    static List<List<LeafReaderContext>> computeSlices(
+        List<LeafReaderContext> leaves,
+        int maximumNumberOfSlices,
+        int minimumDocsPerSlice
+    ) {
+        long totalDocs = 0;
+        for (LeafReaderContext leaf : leaves) {
+            totalDocs += leaf.reader().maxDoc();
+        }
+        final int numSlices = (int) Math.max(
+            1,
+            Math.min(Math.min(maximumNumberOfSlices, leaves.size()), totalDocs / Math.max(1, minimumDocsPerSlice))
+        );
+        if (numSlices == 1) {
+            return List.of(leaves);
+        }
+        final List<LeafReaderContext> sortedLeaves = new ArrayList<>(leaves);
+        sortedLeaves.sort(Comparator.comparingInt((LeafReaderContext l) -> l.reader().maxDoc()).reversed());
+        final PriorityQueue<Slice> queue = new PriorityQueue<>(numSlices, Comparator.comparingLong((Slice slice) -> slice.numDocs));
+        for (int i = 0; i < numSlices; i++) {
+            queue.add(new Slice());
+        }
+        for (LeafReaderContext leaf : sortedLeaves) {
+            final Slice smallest = queue.poll();
+            smallest.leaves.add(leaf);
+            smallest.numDocs += leaf.reader().maxDoc();
+            queue.add(smallest);
+        }
+        final List<List<LeafReaderContext>> slices = new ArrayList<>(numSlices);
+        for (Slice slice : queue) {
+            if (slice.leaves.isEmpty()) {
+                continue;
+            }
+            slice.leaves.sort(Comparator.comparingInt((LeafReaderContext l) -> l.ord));
+            slices.add(slice.leaves);
+        }
+        slices.sort(Comparator.comparingInt((List<LeafReaderContext> slice) -> slice.get(0).ord));
+        return slices;
+    }
+
+    private static class Slice {
+        private final List<LeafReaderContext> leaves = new ArrayList<>();
+        private long numDocs;
+    }
+
+    /**
+     * Searches the provided query on the provided leaves, in the order of the list. Callers may reorder the leaves of the
+     * reader or leave out the ones that cannot hold a document of interest.
+     */
+    public void search(Query query, Collector collector, List<LeafReaderContext> leaves) throws IOException {
+        final Weight weight = createWeight(rewrite(query), collector.scoreMode(), 1);
+        search(leaves, weight, collector);
+    }
+
     public void search(List<LeafReaderContext> leaves, Weight weight, Collector collector) throws IOException {
         for (LeafReaderContext ctx : leaves) { // search each subreader
             searchLeaf(ctx, weight, collector);
@@ -34,6 +34,16 @@ public class ProfilingLeafBucketCollector extends LeafBucketCollector {
         }
     }
 
+    @Override
+    public void collect(int[] docs, long[] owningBucketOrds, int count) throws IOException {
+        collectTimer.start();
+        try {
+            delegate.collect(docs, owningBucketOrds, count);
+        } finally {
+            collectTimer.stop();
+        }
+    }
+
     @Override
     public void setScorer(Scorable scorer) throws IOException {
         delegate.setScorer(scorer);
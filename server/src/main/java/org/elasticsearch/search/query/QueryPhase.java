@@ -10,8 +10,10 @@ package org.elasticsearch.search.query;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PointValues;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.Collector;
@@ -19,35 +21,48 @@ import org.apache.lucene.search.FieldDoc;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.TotalHits;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
 import org.elasticsearch.common.util.concurrent.EWMATrackingEsThreadPoolExecutor;
 import org.elasticsearch.common.util.concurrent.EsThreadPoolExecutor;
+import org.elasticsearch.index.IndexSortConfig;
+import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
 import org.elasticsearch.lucene.queries.SearchAfterSortedDocQuery;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.SearchContextSourcePrinter;
 import org.elasticsearch.search.SearchService;
+import org.elasticsearch.search.SearchSortValuesAndFormats;
 import org.elasticsearch.search.aggregations.AggregationPhase;
 import org.elasticsearch.search.internal.ContextIndexSearcher;
 import org.elasticsearch.search.internal.ScrollContext;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.profile.query.InternalProfileCollector;
 import org.elasticsearch.search.rescore.RescorePhase;
+import org.elasticsearch.search.sort.MinAndMax;
 import org.elasticsearch.search.sort.SortAndFormats;
+import org.elasticsearch.search.sort.SortOrder;
 import org.elasticsearch.search.suggest.SuggestPhase;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 
+import static org.elasticsearch.core.Types.forciblyCast;
 import static org.elasticsearch.search.query.QueryCollectorContext.createEarlyTerminationCollectorContext;
 import static org.elasticsearch.search.query.QueryCollectorContext.createFilteredCollectorContext;
 import static org.elasticsearch.search.query.QueryCollectorContext.createMinScoreCollectorContext;
 import static org.elasticsearch.search.query.QueryCollectorContext.createMultiCollectorContext;
 import static org.elasticsearch.search.query.TopDocsCollectorContext.createTopDocsCollectorContext;
+import static org.elasticsearch.search.query.TopDocsCollectorContext.createTopDocsCollectorManager;
 
 /**
  * Query phase of a search request, used to run the query and get back from each shard information about the matching documents
@@ -184,7 +199,12 @@ public class QueryPhase {
             }
 
             try {
-                boolean shouldRescore = searchWithCollector(searchContext, searcher, query, collectors, hasFilterCollector, timeoutSet);
+                final boolean shouldRescore;
+                if (collectors.isEmpty() && canCollectConcurrently(searchContext, searcher)) {
+                    shouldRescore = searchWithCollectorManager(searchContext, searcher, query, timeoutSet);
+                } else {
+                    shouldRescore = searchWithCollector(searchContext, searcher, query, collectors, hasFilterCollector, timeoutSet);
+                }
                 ExecutorService executor = searchContext.indexShard().getThreadPool().executor(ThreadPool.Names.SEARCH);
                 assert executor instanceof EWMATrackingEsThreadPoolExecutor
                     || (executor instanceof EsThreadPoolExecutor == false /* in case thread pool is mocked out in tests */)
@@ -230,7 +250,15 @@ public class QueryPhase {
         }
         QuerySearchResult queryResult = searchContext.queryResult();
         try {
-            searcher.search(query, queryCollector);
+            // the leaves can only be reordered or skipped if the top docs are the only thing we collect
+            final List<LeafReaderContext> leaves = collectors.size() == 1
+                ? sortLeavesOrNull(searchContext, searcher.getIndexReader())
+                : null;
+            if (leaves == null) {
+                searcher.search(query, queryCollector);
+            } else {
+                searcher.search(query, queryCollector, leaves);
+            }
         } catch (EarlyTerminatingCollector.EarlyTerminationException e) {
             queryResult.terminatedEarly(true);
         } catch (TimeExceededException e) {
@@ -250,6 +278,44 @@ public class QueryPhase {
         return topDocsFactory.shouldRescore();
     }
 
+    /**
+     * Returns whether the query of the provided <code>searchContext</code> can be collected concurrently across
+     * slices of the shard: the searcher must be concurrent and the request must only retrieve top hits, without
+     * scrolling, collapsing or profiling. Callers must also make sure that no other collector is needed.
+     */
+    static boolean canCollectConcurrently(SearchContext searchContext, ContextIndexSearcher searcher) {
+        return searcher.isConcurrent()
+            && searchContext.getProfilers() == null
+            && searchContext.size() > 0
+            && searchContext.scrollContext() == null
+            && searchContext.collapse() == null;
+    }
+
+    private static boolean searchWithCollectorManager(
+        SearchContext searchContext,
+        ContextIndexSearcher searcher,
+        Query query,
+        boolean timeoutSet
+    ) throws IOException {
+        final TopDocsCollectorManager collectorManager = createTopDocsCollectorManager(searchContext);
+        final QuerySearchResult queryResult = searchContext.queryResult();
+        try {
+            final TopDocsAndMaxScore topDocs = searcher.search(query, collectorManager);
+            queryResult.topDocs(topDocs, searchContext.sort() == null ? null : searchContext.sort().formats);
+        } catch (TimeExceededException e) {
+            assert timeoutSet : "TimeExceededException thrown even though timeout wasn't set";
+            if (searchContext.request().allowPartialSearchResults() == false) {
+                // Can't rethrow TimeExceededException because not serializable
+                throw new QueryPhaseExecutionException(searchContext.shardTarget(), "Time exceeded");
+            }
+            queryResult.searchTimedOut(true);
+            // like a sequential search that timed out, report the top docs that the slices collected before the timeout
+            final TopDocsAndMaxScore topDocs = collectorManager.reduceCollected();
+            queryResult.topDocs(topDocs, searchContext.sort() == null ? null : searchContext.sort().formats);
+        }
+        return searchContext.rescore().isEmpty() == false;
+    }
+
     /**
      * Returns whether collection within the provided <code>reader</code> can be early-terminated if it sorts
      * with <code>sortAndFormats</code>.
@@ -268,5 +334,132 @@ public class QueryPhase {
         return true;
     }
 
+    /**
+     * Returns the leaves of the provided <code>reader</code> in the order they should be searched in or <code>null</code> to search
+     * them in index order. When the primary sort is on a numeric field that is indexed with points, the leaves whose values are the
+     * most competitive are searched first so that the top docs fill up early and the comparators can skip the documents of the
+     * following leaves. When the total hits are not tracked, the leaves that cannot hold a value as competitive as the bottom sort
+     * value reported by the shards that were already queried are not searched at all.
+     */
+    static List<LeafReaderContext> sortLeavesOrNull(SearchContext searchContext, IndexReader reader) throws IOException {
+        final SortAndFormats sortAndFormats = searchContext.sort();
+        if (reader.leaves().size() <= 1
+            || sortAndFormats == null
+            || searchContext.scrollContext() != null
+            || searchContext.collapse() != null
+            || searchContext.getSearchExecutionContext() == null
+            || canEarlyTerminate(reader, sortAndFormats)) {
+            return null;
+        }
+        final SortField sortField = sortAndFormats.sort.getSort()[0];
+        if (sortField.getField() == null) {
+            return null;
+        }
+        final MappedFieldType fieldType = searchContext.getSearchExecutionContext().getFieldType(sortField.getField());
+        if (fieldType == null || fieldType.isSearchable() == false) {
+            return null;
+        }
+        final List<MinAndMax<?>> minAndMaxes = new ArrayList<>(reader.leaves().size());
+        boolean hasMinAndMax = false;
+        for (LeafReaderContext leaf : reader.leaves()) {
+            final MinAndMax<?> minAndMax = leafMinAndMaxOrNull(leaf, sortField, fieldType);
+            hasMinAndMax |= minAndMax != null;
+            minAndMaxes.add(minAndMax);
+        }
+        if (hasMinAndMax == false) {
+            return null;
+        }
+        final SortOrder order = sortField.getReverse() ? SortOrder.DESC : SortOrder.ASC;
+        final Comparator<MinAndMax<?>> comparator = forciblyCast(MinAndMax.getComparator(order));
+        final List<LeafReaderContext> leaves = new ArrayList<>(reader.leaves());
+        // the sort is stable so leaves with the same values are still searched in index order
+        leaves.sort((a, b) -> comparator.compare(minAndMaxes.get(a.ord), minAndMaxes.get(b.ord)));
+
+        final Object bottomSortValue = bottomSortValueOrNull(searchContext);
+        if (bottomSortValue != null && searchContext.trackTotalHitsUpTo() == SearchContext.TRACK_TOTAL_HITS_DISABLED) {
+            leaves.removeIf(leaf -> isLeafNotCompetitive(minAndMaxes.get(leaf.ord), bottomSortValue, order));
+        }
+        return leaves;
+    }
+
+    /**
+     * Returns the bottom value of the primary sort that the shards that were already queried reported or <code>null</code>
+     * if it is unknown or if it was formatted differently than the values of this shard.
+     */
+    private static Object bottomSortValueOrNull(SearchContext searchContext) {
+        if (searchContext.request() == null) {
+            return null;
+        }
+        final SearchSortValuesAndFormats bottomSortValues = searchContext.request().getBottomSortValues();
+        if (bottomSortValues == null
+            || bottomSortValues.getRawSortValues().length == 0
+            || bottomSortValues.getSortValueFormats()[0].equals(searchContext.sort().formats[0]) == false) {
+            return null;
+        }
+        return bottomSortValues.getRawSortValues()[0];
+    }
+
+    private static boolean isLeafNotCompetitive(MinAndMax<?> minAndMax, Object bottomSortValue, SortOrder order) {
+        if (minAndMax == null || minAndMax.getMin().getClass() != bottomSortValue.getClass()) {
+            return false;
+        }
+        final Comparable<Object> value = forciblyCast(order == SortOrder.DESC ? minAndMax.getMax() : minAndMax.getMin());
+        final int cmp = value.compareTo(bottomSortValue);
+        // values that are equal to the bottom may still win the tie on the shard index
+        return order == SortOrder.DESC ? cmp < 0 : cmp > 0;
+    }
+
+    /**
+     * Returns the range of the values the documents of the provided <code>leaf</code> sort on, including the missing
+     * value if some documents have no value, or <code>null</code> if it cannot be extracted from the points.
+     */
+    private static MinAndMax<?> leafMinAndMaxOrNull(LeafReaderContext leaf, SortField sortField, MappedFieldType fieldType)
+        throws IOException {
+        final PointValues points = leaf.reader().getPointValues(sortField.getField());
+        if (points == null || points.size() == 0) {
+            return null;
+        }
+        final Number minPoint;
+        final Number maxPoint;
+        if (fieldType instanceof NumberFieldMapper.NumberFieldType) {
+            minPoint = ((NumberFieldMapper.NumberFieldType) fieldType).parsePoint(points.getMinPackedValue());
+            maxPoint = ((NumberFieldMapper.NumberFieldType) fieldType).parsePoint(points.getMaxPackedValue());
+        } else if (fieldType instanceof DateFieldMapper.DateFieldType) {
+            minPoint = LongPoint.decodeDimension(points.getMinPackedValue(), 0);
+            maxPoint = LongPoint.decodeDimension(points.getMaxPackedValue(), 0);
+        } else {
+            return null;
+        }
+        final MinAndMax<?> minAndMax;
+        switch (IndexSortConfig.getSortFieldType(sortField)) {
+            case LONG:
+                minAndMax = new MinAndMax<>(minPoint.longValue(), maxPoint.longValue());
+                break;
+            case INT:
+                minAndMax = new MinAndMax<>(minPoint.intValue(), maxPoint.intValue());
+                break;
+            case DOUBLE:
+                minAndMax = new MinAndMax<>(minPoint.doubleValue(), maxPoint.doubleValue());
+                break;
+            case FLOAT:
+                minAndMax = new MinAndMax<>(minPoint.floatValue(), maxPoint.floatValue());
+                break;
+            default:
+                // custom comparators may convert the values so they cannot be compared to the points
+                return null;
+        }
+        if (points.getDocCount() == leaf.reader().maxDoc()) {
+            return minAndMax;
+        }
+        final Object missingValue = sortField.getMissingValue();
+        if (missingValue == null || missingValue.getClass() != minAndMax.getMin().getClass()) {
+            return null;
+        }
+        final Comparable<Object> missing = forciblyCast(missingValue);
+        final Comparable<Object> min = forciblyCast(minAndMax.getMin());
+        final Comparable<Object> max = forciblyCast(minAndMax.getMax());
+        return new MinAndMax<>(missing.compareTo(min) < 0 ? missing : min, missing.compareTo(max) > 0 ? missing : max);
+    }
+
     static class TimeExceededException extends RuntimeException {}
 }
@@ -505,6 +505,56 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
         }
     }
 
+    /**
+     * Creates a {@link TopDocsCollectorManager} that collects the top docs of the provided <code>searchContext</code>
+     * concurrently. Only applicable to requests that would use a {@link SimpleTopDocsCollectorContext} with no filter
+     * collector in the chain.
+     */
+    static TopDocsCollectorManager createTopDocsCollectorManager(SearchContext searchContext) throws IOException {
+        assert searchContext.size() > 0 && searchContext.scrollContext() == null && searchContext.collapse() == null;
+        final IndexReader reader = searchContext.searcher().getIndexReader();
+        final Query query = searchContext.rewrittenQuery();
+        final SortAndFormats sortAndFormats = searchContext.sort();
+        // top collectors don't like a size of 0
+        final int totalNumDocs = Math.max(1, reader.numDocs());
+        int numDocs = Math.min(searchContext.from() + searchContext.size(), totalNumDocs);
+        for (RescoreContext rescoreContext : searchContext.rescore()) {
+            numDocs = Math.max(numDocs, rescoreContext.getWindowSize());
+        }
+        final int trackTotalHitsUpTo = searchContext.trackTotalHitsUpTo();
+        final int hitCountThreshold;
+        final TotalHits totalHits;
+        if ((sortAndFormats == null || SortField.FIELD_SCORE.equals(sortAndFormats.sort.getSort()[0])) && hasInfMaxScore(query)) {
+            // disable max score optimization since we have a mandatory clause
+            // that doesn't track the maximum score
+            hitCountThreshold = Integer.MAX_VALUE;
+            totalHits = null;
+        } else if (trackTotalHitsUpTo == SearchContext.TRACK_TOTAL_HITS_DISABLED) {
+            // don't compute hit counts via the collectors
+            hitCountThreshold = 1;
+            totalHits = new TotalHits(0, TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO);
+        } else {
+            final int hitCount = shortcutTotalHitCount(reader, query);
+            if (hitCount == -1) {
+                // each slice counts up to the threshold, the merged count is accurate if no slice reached it
+                hitCountThreshold = trackTotalHitsUpTo;
+                totalHits = null;
+            } else {
+                // don't compute hit counts via the collectors
+                hitCountThreshold = 1;
+                totalHits = new TotalHits(hitCount, TotalHits.Relation.EQUAL_TO);
+            }
+        }
+        return new TopDocsCollectorManager(
+            sortAndFormats,
+            searchContext.searchAfter(),
+            numDocs,
+            hitCountThreshold,
+            searchContext.trackScores(),
+            totalHits
+        );
+    }
+
     /**
      * Return true if the provided query contains a mandatory clauses (MUST)
      * that doesn't track the maximum scores per block
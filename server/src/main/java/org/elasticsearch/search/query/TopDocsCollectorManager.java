@@ -0,0 +1,141 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.query;
+
+import org.apache.lucene.search.CollectorManager;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.FilterCollector;
+import org.apache.lucene.search.MultiCollector;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopDocsCollector;
+import org.apache.lucene.search.TopFieldCollector;
+import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.search.TopScoreDocCollector;
+import org.apache.lucene.search.TotalHits;
+import org.elasticsearch.action.search.MaxScoreCollector;
+import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.search.sort.SortAndFormats;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A {@link CollectorManager} that collects the top docs of each slice of a shard with its own
+ * {@link TopDocsCollector} and merges them into the top docs of the shard. This is the concurrent
+ * counterpart of {@link TopDocsCollectorContext.SimpleTopDocsCollectorContext}.
+ */
+class TopDocsCollectorManager implements CollectorManager<TopDocsCollectorManager.SliceCollector, TopDocsAndMaxScore> {
+    private final @Nullable SortAndFormats sortAndFormats;
+    private final @Nullable ScoreDoc searchAfter;
+    private final int numHits;
+    private final int hitCountThreshold;
+    private final boolean trackMaxScore;
+    private final @Nullable TotalHits totalHits;
+    // the searcher creates the collectors on the calling thread before it collects any slice
+    private final List<SliceCollector> collectors = new ArrayList<>();
+
+    /**
+     * @param sortAndFormats The query sort
+     * @param searchAfter The doc this request should "search after"
+     * @param numHits The number of top hits to retrieve
+     * @param hitCountThreshold The number of hits to count accurately in each slice
+     * @param trackMaxScore True if max score should be tracked
+     * @param totalHits The total hits to report instead of the ones counted by the collectors, or null to use the collected ones
+     */
+    TopDocsCollectorManager(
+        @Nullable SortAndFormats sortAndFormats,
+        @Nullable ScoreDoc searchAfter,
+        int numHits,
+        int hitCountThreshold,
+        boolean trackMaxScore,
+        @Nullable TotalHits totalHits
+    ) {
+        this.sortAndFormats = sortAndFormats;
+        this.searchAfter = searchAfter;
+        this.numHits = numHits;
+        this.hitCountThreshold = hitCountThreshold;
+        this.trackMaxScore = trackMaxScore;
+        this.totalHits = totalHits;
+    }
+
+    @Override
+    public SliceCollector newCollector() {
+        final TopDocsCollector<?> topDocsCollector;
+        if (sortAndFormats == null) {
+            topDocsCollector = TopScoreDocCollector.create(numHits, searchAfter, hitCountThreshold);
+        } else {
+            topDocsCollector = TopFieldCollector.create(sortAndFormats.sort, numHits, (FieldDoc) searchAfter, hitCountThreshold);
+        }
+        final MaxScoreCollector maxScoreCollector = sortAndFormats != null && trackMaxScore ? new MaxScoreCollector() : null;
+        final SliceCollector collector = new SliceCollector(topDocsCollector, maxScoreCollector);
+        collectors.add(collector);
+        return collector;
+    }
+
+    /**
+     * Reduces what the collectors that this manager created have collected so far. This is used when the search is
+     * interrupted, for instance by a timeout, before the searcher reduced the collectors. Like the collector of a sequential
+     * search, the collectors keep the top docs of the documents they collected before the interruption.
+     */
+    TopDocsAndMaxScore reduceCollected() throws IOException {
+        return reduce(collectors);
+    }
+
+    @Override
+    public TopDocsAndMaxScore reduce(Collection<SliceCollector> collectors) throws IOException {
+        float maxScore = Float.NaN;
+        final TopDocs merged;
+        if (sortAndFormats == null) {
+            final TopDocs[] topDocs = new TopDocs[collectors.size()];
+            int i = 0;
+            for (SliceCollector collector : collectors) {
+                topDocs[i++] = collector.topDocsCollector.topDocs();
+            }
+            merged = TopDocs.merge(0, numHits, topDocs);
+            if (merged.scoreDocs.length > 0) {
+                maxScore = merged.scoreDocs[0].score;
+            }
+        } else {
+            final TopFieldDocs[] topDocs = new TopFieldDocs[collectors.size()];
+            int i = 0;
+            for (SliceCollector collector : collectors) {
+                topDocs[i++] = (TopFieldDocs) collector.topDocsCollector.topDocs();
+                if (collector.maxScoreCollector != null) {
+                    final float sliceMaxScore = collector.maxScoreCollector.getMaxScore();
+                    if (Float.isNaN(maxScore) || sliceMaxScore > maxScore) {
+                        maxScore = sliceMaxScore;
+                    }
+                }
+            }
+            merged = TopDocs.merge(sortAndFormats.sort, 0, numHits, topDocs);
+        }
+        if (totalHits != null) {
+            merged.totalHits = totalHits;
+        }
+        return new TopDocsAndMaxScore(merged, maxScore);
+    }
+
+    /**
+     * The collector of a single slice.
+     */
+    static class SliceCollector extends FilterCollector {
+        private final TopDocsCollector<?> topDocsCollector;
+        private final @Nullable MaxScoreCollector maxScoreCollector;
+
+        private SliceCollector(TopDocsCollector<?> topDocsCollector, @Nullable MaxScoreCollector maxScoreCollector) {
+            super(MultiCollector.wrap(topDocsCollector, maxScoreCollector));
+            this.topDocsCollector = topDocsCollector;
+            this.maxScoreCollector = maxScoreCollector;
+        }
+    }
+}
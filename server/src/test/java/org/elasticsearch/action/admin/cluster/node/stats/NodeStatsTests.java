@@ -335,6 +335,10 @@ public class NodeStatsTests extends ESTestCase {
                             publishStats.getIncompatibleClusterStateDiffReceivedCount(),
                             deserializedPublishStats.getIncompatibleClusterStateDiffReceivedCount()
                         );
+                        assertEquals(
+                            publishStats.getClusterStateSerializationStats().getPeakBufferedBytes(),
+                            deserializedPublishStats.getClusterStateSerializationStats().getPeakBufferedBytes()
+                        );
                     }
 
                     final ClusterStateUpdateStats clusterStateUpdateStats = discoveryStats.getClusterStateUpdateStats();
@@ -761,6 +765,7 @@ public class NodeStatsTests extends ESTestCase {
                             randomNonNegativeLong(),
                             randomNonNegativeLong(),
                             randomNonNegativeLong(),
+                            randomNonNegativeLong(),
                             randomNonNegativeLong()
                         )
                     )
@@ -902,7 +907,8 @@ public class NodeStatsTests extends ESTestCase {
             ingestStats,
             adaptiveSelectionStats,
             scriptCacheStats,
-            indexingPressureStats
+            indexingPressureStats,
+            null
         );
     }
 
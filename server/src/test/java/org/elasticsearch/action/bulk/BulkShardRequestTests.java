@@ -8,10 +8,17 @@
 
 package org.elasticsearch.action.bulk;
 
+import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.support.WriteRequest.RefreshPolicy;
+import org.elasticsearch.client.Requests;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.test.ESTestCase;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import static org.apache.lucene.util.TestUtil.randomSimpleString;
 
 public class BulkShardRequestTests extends ESTestCase {
@@ -31,4 +38,35 @@ public class BulkShardRequestTests extends ESTestCase {
         assertEquals("BulkShardRequest [" + shardId + "] containing [" + count + "] requests blocking until refresh", r.toString());
         assertEquals("requests[" + count + "], index[" + index + "][0], refresh[WAIT_UNTIL]", r.getDescription());
     }
+
+    public void testSourcesAreReleasedWithTheRequest() throws Exception {
+        final ShardId shardId = new ShardId("index", "_na_", 0);
+        final BulkItemRequest[] items = new BulkItemRequest[between(1, 10)];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = new BulkItemRequest(i, new IndexRequest("index").id("id_" + i).source(Requests.INDEX_CONTENT_TYPE, "field", i));
+        }
+        final BytesStreamOutput out = new BytesStreamOutput();
+        new BulkShardRequest(shardId, RefreshPolicy.NONE, items).writeTo(out);
+
+        final AtomicBoolean released = new AtomicBoolean();
+        final ReleasableBytesReference buffer = new ReleasableBytesReference(out.bytes(), () -> released.set(true));
+        final BulkShardRequest request;
+        try (StreamInput in = buffer.streamInput()) {
+            request = new BulkShardRequest(in);
+        }
+        buffer.close();
+        // the sources are slices of the buffer so it must not be released before the request
+        assertFalse(released.get());
+        for (int i = 0; i < items.length; i++) {
+            final IndexRequest indexRequest = (IndexRequest) request.items()[i].request();
+            assertEquals(((IndexRequest) items[i].request()).source(), indexRequest.source());
+        }
+
+        request.incRef();
+        assertFalse(request.decRef());
+        assertFalse(released.get());
+        assertTrue(request.decRef());
+        assertTrue(released.get());
+        assertFalse(request.hasReferences());
+    }
 }
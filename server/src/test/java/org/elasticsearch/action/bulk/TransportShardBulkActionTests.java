@@ -182,6 +182,60 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
         closeShards(shard);
     }
 
+    public void testExecuteAppendOnlyBatches() throws Exception {
+        IndexShard shard = newStartedShard(true);
+
+        BulkItemRequest[] items = new BulkItemRequest[randomIntBetween(2, 10)];
+        final int explicitId = randomIntBetween(0, items.length - 1);
+        for (int i = 0; i < items.length; i++) {
+            IndexRequest writeRequest = new IndexRequest("index").source(Requests.INDEX_CONTENT_TYPE)
+                .opType(randomFrom(DocWriteRequest.OpType.INDEX, DocWriteRequest.OpType.CREATE));
+            if (i == explicitId) {
+                // breaks the run of requests with auto-generated ids
+                writeRequest.id("explicit");
+            }
+            writeRequest.process();
+            items[i] = new BulkItemRequest(i, writeRequest);
+        }
+        BulkShardRequest bulkShardRequest = new BulkShardRequest(shardId, RefreshPolicy.NONE, items);
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        TransportShardBulkAction.performOnPrimary(
+            bulkShardRequest,
+            shard,
+            null,
+            threadPool::absoluteTimeInMillis,
+            new NoopMappingUpdatePerformer(),
+            listener -> {},
+            ActionListener.runAfter(ActionTestUtils.assertNoFailureListener(result -> {
+                assertThat(((WritePrimaryResult<BulkShardRequest, BulkShardResponse>) result).location, notNullValue());
+                assertThat(result.finalResponseIfSuccessful.getResponses(), arrayWithSize(items.length));
+                for (int i = 0; i < items.length; i++) {
+                    BulkItemResponse response = result.finalResponseIfSuccessful.getResponses()[i];
+                    assertThat(response.getItemId(), equalTo(i));
+                    assertFalse(response.isFailed());
+                    assertThat(response.getResponse().getResult(), equalTo(DocWriteResponse.Result.CREATED));
+                    // the sequence numbers follow the order of the items
+                    assertThat(response.getResponse().getSeqNo(), equalTo((long) i));
+                    assertThat(response.getId(), equalTo(((IndexRequest) items[i].request()).id()));
+                }
+                try {
+                    assertDocCount(shard, items.length);
+                    closeShards(shard);
+                } catch (IOException e) {
+                    throw new AssertionError(e);
+                }
+            }), latch::countDown),
+            threadPool,
+            Names.WRITE,
+            0,
+            null,
+            randomIntBetween(2, 5)
+        );
+
+        latch.await();
+    }
+
     public void testSkipBulkIndexRequestIfAborted() throws Exception {
         IndexShard shard = newStartedShard(true);
 
@@ -246,6 +300,67 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
         latch.await();
     }
 
+    public void testParseAheadKeepsItemOrder() throws Exception {
+        IndexShard shard = newStartedShard(true);
+
+        BulkItemRequest[] items = new BulkItemRequest[randomIntBetween(2, 50)];
+        int parsedAhead = 0;
+        for (int i = 0; i < items.length; i++) {
+            final DocWriteRequest<?> writeRequest;
+            if (i > 0 && rarely()) {
+                writeRequest = new DeleteRequest("index").id("id_" + randomIntBetween(0, i - 1));
+            } else {
+                writeRequest = new IndexRequest("index").id("id_" + i)
+                    .source(Requests.INDEX_CONTENT_TYPE)
+                    .opType(randomFrom(DocWriteRequest.OpType.INDEX, DocWriteRequest.OpType.CREATE));
+                if (i > 0) {
+                    // the first item is executed before anything is parsed ahead
+                    parsedAhead++;
+                }
+            }
+            items[i] = new BulkItemRequest(i, writeRequest);
+        }
+        BulkShardRequest bulkShardRequest = new BulkShardRequest(shardId, RefreshPolicy.NONE, items);
+        final int maxPermits = randomIntBetween(1, 8);
+        final BulkParseAheadPermits permits = new BulkParseAheadPermits(maxPermits);
+        final int expectedTaken = parsedAhead;
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        TransportShardBulkAction.performOnPrimary(
+            bulkShardRequest,
+            shard,
+            null,
+            threadPool::absoluteTimeInMillis,
+            new NoopMappingUpdatePerformer(),
+            listener -> {},
+            ActionListener.runAfter(ActionTestUtils.assertNoFailureListener(result -> {
+                assertThat(result.finalResponseIfSuccessful.getResponses(), arrayWithSize(items.length));
+                // the items are executed one after the other so their sequence numbers follow the order of the items
+                for (int i = 0; i < items.length; i++) {
+                    BulkItemResponse response = result.finalResponseIfSuccessful.getResponses()[i];
+                    assertThat(response.getItemId(), equalTo(i));
+                    assertFalse(response.isFailed());
+                    assertThat(response.getResponse().getSeqNo(), equalTo((long) i));
+                }
+                // the parsing runs on the thread of the bulk, so every item that was parsed ahead is complete when it is taken
+                assertThat(permits.takenCount(), equalTo((long) expectedTaken));
+                assertThat(permits.availablePermits(), equalTo(maxPermits));
+                try {
+                    closeShards(shard);
+                } catch (IOException e) {
+                    throw new AssertionError(e);
+                }
+            }), latch::countDown),
+            threadPool,
+            Names.SAME,
+            randomIntBetween(1, 8),
+            permits,
+            0
+        );
+
+        latch.await();
+    }
+
     public void testExecuteBulkIndexRequestWithMappingUpdates() throws Exception {
 
         BulkItemRequest[] items = new BulkItemRequest[1];
@@ -261,7 +376,7 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
 
         IndexShard shard = mock(IndexShard.class);
         when(shard.shardId()).thenReturn(shardId);
-        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean())).thenReturn(
+        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean(), any())).thenReturn(
             mappingUpdate
         );
         when(shard.mapperService()).thenReturn(mock(MapperService.class));
@@ -283,9 +398,9 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
         assertThat("mappings were \"updated\" once", updateCalled.get(), equalTo(1));
 
         // Verify that the shard "executed" the operation once
-        verify(shard, times(1)).applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean());
+        verify(shard, times(1)).applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean(), any());
 
-        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean())).thenReturn(
+        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean(), any())).thenReturn(
             success
         );
 
@@ -300,7 +415,7 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
 
         // Verify that the shard "executed" the operation only once (1 for previous invocations plus
         // 1 for this execution)
-        verify(shard, times(2)).applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean());
+        verify(shard, times(2)).applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean(), any());
 
         BulkItemResponse primaryResponse = bulkShardRequest.items()[0].getPrimaryResponse();
 
@@ -525,7 +640,7 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
         Exception err = new ElasticsearchException("I'm dead <(x.x)>");
         Engine.IndexResult indexResult = new Engine.IndexResult(err, 0, 0, 0);
         IndexShard shard = mock(IndexShard.class);
-        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean())).thenReturn(
+        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean(), any())).thenReturn(
             indexResult
         );
         when(shard.indexSettings()).thenReturn(indexSettings);
@@ -582,7 +697,7 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
         Exception err = new VersionConflictEngineException(shardId, "id", "I'm conflicted <(;_;)>");
         Engine.IndexResult indexResult = new Engine.IndexResult(err, 0, 0, 0);
         IndexShard shard = mock(IndexShard.class);
-        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean())).thenReturn(
+        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean(), any())).thenReturn(
             indexResult
         );
         when(shard.indexSettings()).thenReturn(indexSettings);
@@ -638,7 +753,7 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
         Translog.Location resultLocation = new Translog.Location(42, 42, 42);
         Engine.IndexResult indexResult = new FakeIndexResult(1, 1, 13, created, resultLocation);
         IndexShard shard = mock(IndexShard.class);
-        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean())).thenReturn(
+        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean(), any())).thenReturn(
             indexResult
         );
         when(shard.indexSettings()).thenReturn(indexSettings);
@@ -856,7 +971,9 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
         Engine.IndexResult success = new FakeIndexResult(1, 1, 13, true, resultLocation);
 
         IndexShard shard = mock(IndexShard.class);
-        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean())).thenAnswer(ir -> {
+        when(
+            shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean(), any())
+        ).thenAnswer(ir -> {
             if (randomBoolean()) {
                 return conflictedResult;
             }
@@ -950,7 +1067,9 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
 
             IndexShard shard = mock(IndexShard.class);
             when(shard.shardId()).thenReturn(shardId);
-            when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean())).thenReturn(
+            when(
+                shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean(), any())
+            ).thenReturn(
                 success1,
                 mappingUpdate,
                 success2
@@ -992,7 +1111,16 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
 
             assertThat("mappings were \"updated\" once", updateCalled.get(), equalTo(1));
 
-            verify(shard, times(2)).applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean());
+            verify(shard, times(2)).applyIndexOperationOnPrimary(
+                anyLong(),
+                any(),
+                any(),
+                anyLong(),
+                anyLong(),
+                anyLong(),
+                anyBoolean(),
+                any()
+            );
 
             BulkItemResponse primaryResponse1 = bulkShardRequest.items()[0].getPrimaryResponse();
             assertThat(primaryResponse1.getItemId(), equalTo(0));
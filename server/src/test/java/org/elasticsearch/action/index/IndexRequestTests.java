@@ -27,7 +27,9 @@ import org.elasticsearch.xcontent.XContentType;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -193,6 +195,33 @@ public class IndexRequestTests extends ESTestCase {
         }
     }
 
+    public void testIngestedSourceKeepsSourceMap() throws IOException {
+        Map<String, Object> source = new HashMap<>();
+        source.put("string", "value");
+        source.put("number", randomLongBetween(Integer.MAX_VALUE + 1L, Long.MAX_VALUE));
+        source.put("object", Map.of("list", List.of(1, 2.5d, true)));
+        IndexRequest request = new IndexRequest("index").ingestedSource(source, XContentType.JSON);
+        assertSame(source, request.sourceMap());
+        assertThat(request.sourceAsMap(), equalTo(source));
+
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            request.writeTo(out);
+            try (StreamInput in = out.bytes().streamInput()) {
+                IndexRequest serialized = new IndexRequest(in);
+                assertNull(serialized.sourceMap());
+                assertThat(serialized.sourceAsMap(), equalTo(source));
+            }
+        }
+
+        request.source("{}", XContentType.JSON);
+        assertNull(request.sourceMap());
+
+        // floats and other objects don't parse back as they are
+        source.put("float", 1.5f);
+        request.ingestedSource(source, XContentType.JSON);
+        assertNull(request.sourceMap());
+    }
+
     public void testSerializeDynamicTemplates() throws Exception {
         IndexRequest indexRequest = new IndexRequest("foo").id("1");
         indexRequest.source("{}", XContentType.JSON);
@@ -20,9 +20,12 @@ import org.elasticsearch.common.util.concurrent.EsThreadPoolExecutor;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.SearchShardTarget;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
 import org.elasticsearch.search.aggregations.AggregationReduceContext;
 import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.metrics.InternalMax;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.query.QuerySearchResult;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.threadpool.TestThreadPool;
@@ -127,6 +130,70 @@ public class QueryPhaseResultConsumerTests extends ESTestCase {
         assertEquals(1, searchProgressListener.onFinalReduce.get());
     }
 
+    public void testConcurrentPartialReduces() throws Exception {
+        int numShards = randomIntBetween(20, 200);
+        int maxConcurrentMerges = randomIntBetween(2, 4);
+        EsThreadPoolExecutor mergeExecutor = EsExecutors.newFixed(
+            "test_merge",
+            maxConcurrentMerges,
+            numShards,
+            EsExecutors.daemonThreadFactory("test_merge"),
+            threadPool.getThreadContext(),
+            randomBoolean()
+        );
+        try {
+            SearchRequest searchRequest = new SearchRequest("index");
+            searchRequest.source(new SearchSourceBuilder().aggregation(AggregationBuilders.max("test").field("number")));
+            searchRequest.setBatchedReduceSize(randomIntBetween(2, 10));
+            AtomicInteger numReducePhases = new AtomicInteger();
+            SearchProgressListener progressListener = new SearchProgressListener() {
+                @Override
+                protected void onPartialReduce(List<SearchShard> shards, TotalHits totalHits, InternalAggregations aggs, int reducePhase) {
+                    // partial reduces that are notified always cover all the previous ones
+                    assertEquals(numReducePhases.incrementAndGet(), reducePhase);
+                }
+            };
+            AtomicReference<Exception> onPartialMergeFailure = new AtomicReference<>();
+            QueryPhaseResultConsumer consumer = new QueryPhaseResultConsumer(
+                searchRequest,
+                mergeExecutor,
+                new NoopCircuitBreaker(CircuitBreaker.REQUEST),
+                searchPhaseController,
+                () -> false,
+                progressListener,
+                numShards,
+                maxConcurrentMerges,
+                onPartialMergeFailure::set
+            );
+
+            CountDownLatch latch = new CountDownLatch(numShards);
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < numShards; i++) {
+                double value = randomDouble();
+                max = Math.max(max, value);
+                QuerySearchResult result = new QuerySearchResult();
+                TopDocs topDocs = new TopDocs(new TotalHits(1, TotalHits.Relation.EQUAL_TO), new ScoreDoc[0]);
+                result.topDocs(new TopDocsAndMaxScore(topDocs, Float.NaN), new DocValueFormat[0]);
+                InternalMax internalMax = new InternalMax("test", value, DocValueFormat.RAW, Collections.emptyMap());
+                result.aggregations(InternalAggregations.from(Collections.singletonList(internalMax)));
+                result.setSearchShardTarget(new SearchShardTarget("node", new ShardId("index", "uuid", i), null));
+                result.setShardIndex(i);
+                consumer.consumeResult(result, latch::countDown);
+            }
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            assertNull(onPartialMergeFailure.get());
+
+            SearchPhaseController.ReducedQueryPhase reduce = consumer.reduce();
+            assertEquals(numShards, reduce.totalHits.value);
+            assertEquals(numReducePhases.get() + 1, reduce.numReducePhases);
+            InternalMax internalMax = (InternalMax) reduce.aggregations.asList().get(0);
+            assertEquals(max, internalMax.getValue(), 0.0D);
+            consumer.close();
+        } finally {
+            mergeExecutor.shutdownNow();
+        }
+    }
+
     private static class ThrowingSearchProgressListener extends SearchProgressListener {
         private final AtomicInteger onQueryResult = new AtomicInteger(0);
         private final AtomicInteger onPartialReduce = new AtomicInteger(0);
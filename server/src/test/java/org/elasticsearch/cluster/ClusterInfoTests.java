@@ -24,7 +24,9 @@ public class ClusterInfoTests extends ESTestCase {
             randomShardSizes(),
             randomDataSetSizes(),
             randomRoutingToDataPath(),
-            randomReservedSpace()
+            randomReservedSpace(),
+            randomShardLoads(),
+            randomShardLoads()
         );
         BytesStreamOutput output = new BytesStreamOutput();
         clusterInfo.writeTo(output);
@@ -36,6 +38,8 @@ public class ClusterInfoTests extends ESTestCase {
         assertEquals(clusterInfo.shardDataSetSizes, result.shardDataSetSizes);
         assertEquals(clusterInfo.routingToDataPath, result.routingToDataPath);
         assertEquals(clusterInfo.reservedSpace, result.reservedSpace);
+        assertEquals(clusterInfo.shardWriteLoads, result.shardWriteLoads);
+        assertEquals(clusterInfo.shardSearchLoads, result.shardSearchLoads);
     }
 
     private static ImmutableOpenMap<String, DiskUsage> randomDiskUsage() {
@@ -77,6 +81,16 @@ public class ClusterInfoTests extends ESTestCase {
         return builder.build();
     }
 
+    private static ImmutableOpenMap<ShardId, Double> randomShardLoads() {
+        int numEntries = randomIntBetween(0, 128);
+        ImmutableOpenMap.Builder<ShardId, Double> builder = ImmutableOpenMap.builder(numEntries);
+        for (int i = 0; i < numEntries; i++) {
+            ShardId key = new ShardId(randomAlphaOfLength(10), randomAlphaOfLength(10), between(0, Integer.MAX_VALUE));
+            builder.put(key, randomDoubleBetween(0.0, 64.0, true));
+        }
+        return builder.build();
+    }
+
     private static ImmutableOpenMap<ShardRouting, String> randomRoutingToDataPath() {
         int numEntries = randomIntBetween(0, 128);
         ImmutableOpenMap.Builder<ShardRouting, String> builder = ImmutableOpenMap.builder(numEntries);
@@ -19,6 +19,8 @@ import org.elasticsearch.cluster.routing.ShardRoutingHelper;
 import org.elasticsearch.cluster.routing.UnassignedInfo;
 import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.index.Index;
+import org.elasticsearch.index.search.stats.SearchStats;
+import org.elasticsearch.index.shard.IndexingStats;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.shard.ShardPath;
 import org.elasticsearch.index.store.StoreStats;
@@ -29,6 +31,7 @@ import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
@@ -140,6 +143,58 @@ public class DiskUsageTests extends ESTestCase {
         assertEquals(test1Path.getParent().getParent().getParent().toAbsolutePath().toString(), routingToPath.get(test_1));
     }
 
+    public void testFillShardLoads() {
+        final Index index = new Index("test", "0xdeadbeef");
+        ShardRouting primary = ShardRouting.newUnassigned(
+            new ShardId(index, 0),
+            true,
+            PeerRecoverySource.INSTANCE,
+            new UnassignedInfo(UnassignedInfo.Reason.INDEX_CREATED, "foo")
+        );
+        primary = ShardRoutingHelper.moveToStarted(ShardRoutingHelper.initialize(primary, "node1"));
+        ShardRouting replica = ShardRouting.newUnassigned(
+            new ShardId(index, 0),
+            false,
+            PeerRecoverySource.INSTANCE,
+            new UnassignedInfo(UnassignedInfo.Reason.INDEX_CREATED, "foo")
+        );
+        replica = ShardRoutingHelper.moveToStarted(ShardRoutingHelper.initialize(replica, "node2"));
+        final Path path = createTempDir().resolve("indices").resolve(index.getUUID()).resolve("0");
+        final ShardPath shardPath = new ShardPath(false, path, path, primary.shardId());
+
+        final ShardStats[] firstStats = new ShardStats[] {
+            new ShardStats(primary, shardPath, loadStats(1000, 500), null, null, null),
+            new ShardStats(replica, shardPath, loadStats(900, 100), null, null, null) };
+        ImmutableOpenMap.Builder<ShardId, Double> writeLoads = ImmutableOpenMap.builder();
+        ImmutableOpenMap.Builder<ShardId, Double> searchLoads = ImmutableOpenMap.builder();
+        final InternalClusterInfoService.ShardLoadSample firstSample = InternalClusterInfoService.buildShardLoadInfo(
+            firstStats,
+            InternalClusterInfoService.ShardLoadSample.EMPTY,
+            TimeUnit.SECONDS.toNanos(10),
+            writeLoads,
+            searchLoads
+        );
+        // nothing to compare the first sample against
+        assertEquals(0, writeLoads.size());
+        assertEquals(0, searchLoads.size());
+
+        final ShardStats[] secondStats = new ShardStats[] {
+            new ShardStats(primary, shardPath, loadStats(21000, 10500), null, null, null),
+            new ShardStats(replica, shardPath, loadStats(10900, 30100), null, null, null) };
+        InternalClusterInfoService.buildShardLoadInfo(secondStats, firstSample, TimeUnit.SECONDS.toNanos(20), writeLoads, searchLoads);
+        assertEquals(1, writeLoads.size());
+        assertEquals(2.0, writeLoads.get(primary.shardId()), 0.0);
+        assertEquals(1, searchLoads.size());
+        assertEquals(2.0, searchLoads.get(primary.shardId()), 0.0);
+    }
+
+    private static CommonStats loadStats(long indexTimeInMillis, long queryTimeInMillis) {
+        final CommonStats commonStats = new CommonStats();
+        commonStats.indexing = new IndexingStats(new IndexingStats.Stats(0, indexTimeInMillis, 0, 0, 0, 0, 0, 0, false, 0, 0, 0));
+        commonStats.search = new SearchStats(new SearchStats.Stats(0, queryTimeInMillis, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0), 0, null);
+        return commonStats;
+    }
+
     public void testFillDiskUsage() {
         ImmutableOpenMap.Builder<String, DiskUsage> newLeastAvaiableUsages = ImmutableOpenMap.builder();
         ImmutableOpenMap.Builder<String, DiskUsage> newMostAvaiableUsages = ImmutableOpenMap.builder();
@@ -170,6 +225,7 @@ public class DiskUsageTests extends ESTestCase {
                 null,
                 null,
                 null,
+                null,
                 null
             ),
             new NodeStats(
@@ -189,6 +245,7 @@ public class DiskUsageTests extends ESTestCase {
                 null,
                 null,
                 null,
+                null,
                 null
             ),
             new NodeStats(
@@ -208,6 +265,7 @@ public class DiskUsageTests extends ESTestCase {
                 null,
                 null,
                 null,
+                null,
                 null
             )
         );
@@ -258,6 +316,7 @@ public class DiskUsageTests extends ESTestCase {
                 null,
                 null,
                 null,
+                null,
                 null
             ),
             new NodeStats(
@@ -277,6 +336,7 @@ public class DiskUsageTests extends ESTestCase {
                 null,
                 null,
                 null,
+                null,
                 null
             ),
             new NodeStats(
@@ -296,6 +356,7 @@ public class DiskUsageTests extends ESTestCase {
                 null,
                 null,
                 null,
+                null,
                 null
             )
         );
@@ -11,16 +11,20 @@ import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.support.PlainActionFuture;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.ClusterStatePublicationEvent;
 import org.elasticsearch.cluster.Diff;
 import org.elasticsearch.cluster.IncompatibleClusterStateVersionException;
 import org.elasticsearch.cluster.coordination.CoordinationMetadata.VotingConfiguration;
+import org.elasticsearch.cluster.metadata.Metadata;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
 import org.elasticsearch.common.UUIDs;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.compress.Compressor;
 import org.elasticsearch.common.compress.CompressorFactory;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.InputStreamStreamInput;
 import org.elasticsearch.common.io.stream.RecyclerBytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -38,7 +42,10 @@ import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.BytesRefRecycler;
 import org.elasticsearch.transport.BytesTransportRequest;
 import org.elasticsearch.transport.RemoteTransportException;
+import org.elasticsearch.transport.RequestHandlerRegistry;
+import org.elasticsearch.transport.TestTransportChannel;
 import org.elasticsearch.transport.TransportRequest;
+import org.elasticsearch.transport.TransportResponse;
 import org.elasticsearch.transport.TransportService;
 
 import java.io.IOException;
@@ -48,10 +55,14 @@ import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -65,6 +76,7 @@ public class PublicationTransportHandlerTests extends ESTestCase {
         when(transportService.newNetworkBytesStream()).then(invocation -> new RecyclerBytesStreamOutput(recycler));
 
         final PublicationTransportHandler handler = new PublicationTransportHandler(
+            Settings.EMPTY,
             transportService,
             writableRegistry(),
             pu -> null,
@@ -189,6 +201,7 @@ public class PublicationTransportHandlerTests extends ESTestCase {
                 Collections.emptySet()
             );
             final PublicationTransportHandler handler = new PublicationTransportHandler(
+                Settings.EMPTY,
                 transportService,
                 writableRegistry(),
                 pu -> null,
@@ -311,4 +324,206 @@ public class PublicationTransportHandlerTests extends ESTestCase {
         }
     }
 
+    public void testSendsLargeStatesInChunks() throws Exception {
+        final ThreadPool threadPool = new TestThreadPool("test");
+        try {
+            threadPool.getThreadContext().markAsSystemContext();
+
+            final Settings settings = Settings.builder()
+                .put(PublicationTransportHandler.PUBLISH_CHUNK_SIZE_SETTING.getKey(), "1kb")
+                .build();
+            final DiscoveryNode localNode = new DiscoveryNode("localNode", buildNewFakeTransportAddress(), Version.CURRENT);
+            final DiscoveryNode otherNode = new DiscoveryNode("otherNode", buildNewFakeTransportAddress(), Version.CURRENT);
+            final BytesRefRecycler recycler = new BytesRefRecycler(new MockPageCacheRecycler(Settings.EMPTY));
+            final AtomicReference<TransportService> otherTransportService = new AtomicReference<>();
+            final AtomicInteger chunkCount = new AtomicInteger();
+
+            final MockTransport mockTransport = new MockTransport() {
+                @Override
+                protected void onSendRequest(long requestId, String action, TransportRequest request, DiscoveryNode node) {
+                    assertThat(node, equalTo(otherNode));
+                    assertThat(action, equalTo(PublicationTransportHandler.PUBLISH_STATE_CHUNK_ACTION_NAME));
+                    chunkCount.incrementAndGet();
+                    final TransportService receiver = otherTransportService.get();
+                    @SuppressWarnings("unchecked")
+                    final RequestHandlerRegistry<TransportRequest> handler = (RequestHandlerRegistry<TransportRequest>) receiver
+                        .getRequestHandler(action);
+                    try {
+                        handler.processMessageReceived(
+                            request,
+                            new TestTransportChannel(
+                                ActionListener.wrap(
+                                    response -> handleResponse(requestId, response),
+                                    e -> handleError(requestId, new RemoteTransportException(node.getName(), node.getAddress(), action, e))
+                                )
+                            )
+                        );
+                    } catch (Exception e) {
+                        throw new AssertionError("unexpected", e);
+                    }
+                }
+
+                @Override
+                public RecyclerBytesStreamOutput newNetworkBytesStream() {
+                    return new RecyclerBytesStreamOutput(recycler);
+                }
+            };
+
+            final TransportService transportService = mockTransport.createTransportService(
+                settings,
+                threadPool,
+                TransportService.NOOP_TRANSPORT_INTERCEPTOR,
+                x -> localNode,
+                new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS),
+                Collections.emptySet()
+            );
+            final PublicationTransportHandler handler = new PublicationTransportHandler(
+                settings,
+                transportService,
+                writableRegistry(),
+                pu -> null,
+                (pu, l) -> {}
+            );
+            transportService.start();
+            transportService.acceptIncomingRequests();
+
+            otherTransportService.set(
+                new MockTransport().createTransportService(
+                    settings,
+                    threadPool,
+                    TransportService.NOOP_TRANSPORT_INTERCEPTOR,
+                    x -> otherNode,
+                    new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS),
+                    Collections.emptySet()
+                )
+            );
+            final AtomicReference<ClusterState> receivedState = new AtomicReference<>();
+            new PublicationTransportHandler(settings, otherTransportService.get(), writableRegistry(), publishRequest -> {
+                final ClusterState acceptedState = publishRequest.getAcceptedState();
+                assertTrue(receivedState.compareAndSet(null, acceptedState));
+                return new PublishWithJoinResponse(new PublishResponse(acceptedState.term(), acceptedState.version()), Optional.empty());
+            }, (pu, l) -> {});
+            otherTransportService.get().start();
+            otherTransportService.get().acceptIncomingRequests();
+
+            final ClusterState prevClusterState = CoordinationStateTests.clusterState(
+                1L,
+                1L,
+                DiscoveryNodes.builder().add(localNode).localNodeId(localNode.getId()).build(),
+                VotingConfiguration.EMPTY_CONFIG,
+                VotingConfiguration.EMPTY_CONFIG,
+                0L
+            );
+            final ClusterState clusterState = CoordinationStateTests.clusterState(
+                1L,
+                2L,
+                DiscoveryNodes.builder().add(localNode).add(otherNode).localNodeId(localNode.getId()).build(),
+                VotingConfiguration.EMPTY_CONFIG,
+                VotingConfiguration.EMPTY_CONFIG,
+                0L
+            );
+            final String largeValue = randomAlphaOfLength(between(10000, 50000));
+            final ClusterState nextClusterState = ClusterState.builder(clusterState)
+                .metadata(
+                    Metadata.builder(clusterState.metadata())
+                        .persistentSettings(
+                            Settings.builder().put(clusterState.metadata().persistentSettings()).put("large", largeValue).build()
+                        )
+                )
+                .build();
+
+            final PublicationTransportHandler.PublicationContext context = handler.newPublicationContext(
+                new ClusterStatePublicationEvent("test", prevClusterState, nextClusterState, 0L, 0L)
+            );
+            final CountDownLatch responseLatch = new CountDownLatch(1);
+            final AtomicReference<PublishWithJoinResponse> response = new AtomicReference<>();
+            try {
+                context.sendPublishRequest(
+                    otherNode,
+                    new PublishRequest(nextClusterState),
+                    ActionListener.runAfter(
+                        ActionListener.wrap(response::set, e -> { throw new AssertionError("unexpected", e); }),
+                        responseLatch::countDown
+                    )
+                );
+            } finally {
+                context.decRef();
+            }
+            assertTrue(responseLatch.await(10, TimeUnit.SECONDS));
+
+            assertThat(chunkCount.get(), greaterThan(1));
+            assertThat(response.get().getPublishResponse().getVersion(), equalTo(nextClusterState.version()));
+            assertThat(receivedState.get().stateUUID(), equalTo(nextClusterState.stateUUID()));
+            assertThat(receivedState.get().metadata().persistentSettings().get("large"), equalTo(largeValue));
+            assertThat(handler.stats().getClusterStateSerializationStats().getPeakBufferedBytes(), greaterThan(0L));
+        } finally {
+            assertTrue(ThreadPool.terminate(threadPool, 10, TimeUnit.SECONDS));
+        }
+    }
+
+    public void testRejectsChunksThatDoNotFollowOnFromThePreviousOne() throws Exception {
+        final ThreadPool threadPool = new TestThreadPool("test");
+        try {
+            final DiscoveryNode localNode = new DiscoveryNode("localNode", buildNewFakeTransportAddress(), Version.CURRENT);
+            final TransportService transportService = new MockTransport().createTransportService(
+                Settings.EMPTY,
+                threadPool,
+                TransportService.NOOP_TRANSPORT_INTERCEPTOR,
+                x -> localNode,
+                new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS),
+                Collections.emptySet()
+            );
+            new PublicationTransportHandler(Settings.EMPTY, transportService, writableRegistry(), pu -> null, (pu, l) -> {});
+            transportService.start();
+            transportService.acceptIncomingRequests();
+
+            final String publicationId = UUIDs.randomBase64UUID();
+            final int firstChunkLength = between(1, 100);
+            assertThat(
+                sendChunk(transportService, publicationId, 0L, false, firstChunkLength),
+                sameInstance(TransportResponse.Empty.INSTANCE)
+            );
+
+            // a gap, an overlap or a chunk that was sent again
+            final long wrongOffset = randomValueOtherThan((long) firstChunkLength, () -> randomLongBetween(1L, 200L));
+            final ElasticsearchException wrongOffsetException = expectThrows(
+                ElasticsearchException.class,
+                () -> sendChunk(transportService, publicationId, wrongOffset, randomBoolean(), between(1, 100))
+            );
+            assertThat(wrongOffsetException.getMessage(), containsString("but expected offset [" + firstChunkLength + "]"));
+
+            // the publication was dropped, so even the chunk that it expected is rejected now
+            final ElasticsearchException unknownPublicationException = expectThrows(
+                ElasticsearchException.class,
+                () -> sendChunk(transportService, publicationId, firstChunkLength, true, between(1, 100))
+            );
+            assertThat(unknownPublicationException.getMessage(), containsString("unknown publication [" + publicationId + "]"));
+        } finally {
+            assertTrue(ThreadPool.terminate(threadPool, 10, TimeUnit.SECONDS));
+        }
+    }
+
+    private static TransportResponse sendChunk(
+        TransportService transportService,
+        String publicationId,
+        long offset,
+        boolean lastChunk,
+        int length
+    ) throws Exception {
+        final BytesStreamOutput out = new BytesStreamOutput();
+        out.writeString(publicationId);
+        out.writeVLong(offset);
+        out.writeBoolean(lastChunk);
+        out.writeBytes(randomByteArrayOfLength(length));
+        @SuppressWarnings("unchecked")
+        final RequestHandlerRegistry<TransportRequest> handler = (RequestHandlerRegistry<TransportRequest>) transportService
+            .getRequestHandler(PublicationTransportHandler.PUBLISH_STATE_CHUNK_ACTION_NAME);
+        final PlainActionFuture<TransportResponse> future = new PlainActionFuture<>();
+        handler.processMessageReceived(
+            new BytesTransportRequest(ReleasableBytesReference.wrap(out.bytes()), Version.CURRENT),
+            new TestTransportChannel(future)
+        );
+        return future.actionGet(10, TimeUnit.SECONDS);
+    }
+
 }
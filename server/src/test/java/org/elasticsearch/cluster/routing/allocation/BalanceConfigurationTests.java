@@ -12,6 +12,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.util.ArrayUtil;
 import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterInfo;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.ESAllocationTestCase;
 import org.elasticsearch.cluster.EmptyClusterInfoService;
@@ -27,15 +28,21 @@ import org.elasticsearch.cluster.routing.ShardRoutingState;
 import org.elasticsearch.cluster.routing.allocation.allocator.BalancedShardsAllocator;
 import org.elasticsearch.cluster.routing.allocation.allocator.ShardsAllocator;
 import org.elasticsearch.cluster.routing.allocation.decider.ClusterRebalanceAllocationDecider;
+import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.snapshots.EmptySnapshotsInfoService;
 import org.elasticsearch.test.gateway.TestGatewayAllocator;
 import org.hamcrest.Matchers;
 
+import java.util.List;
+import java.util.Random;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
 import static org.elasticsearch.cluster.routing.RoutingNodesHelper.shardsWithState;
+import static org.elasticsearch.cluster.routing.ShardRoutingState.INITIALIZING;
 import static org.elasticsearch.cluster.routing.ShardRoutingState.STARTED;
 import static org.elasticsearch.cluster.routing.ShardRoutingState.UNASSIGNED;
 
@@ -62,6 +69,7 @@ public class BalanceConfigurationTests extends ESAllocationTestCase {
         settings.put(BalancedShardsAllocator.INDEX_BALANCE_FACTOR_SETTING.getKey(), indexBalance);
         settings.put(BalancedShardsAllocator.SHARD_BALANCE_FACTOR_SETTING.getKey(), replicaBalance);
         settings.put(BalancedShardsAllocator.THRESHOLD_SETTING.getKey(), balanceThreshold);
+        settings.put(BalancedShardsAllocator.INCREMENTAL_BALANCE_SETTING.getKey(), randomBoolean());
 
         AllocationService strategy = createAllocationService(settings.build(), new TestGatewayAllocator());
 
@@ -113,6 +121,7 @@ public class BalanceConfigurationTests extends ESAllocationTestCase {
         settings.put(BalancedShardsAllocator.INDEX_BALANCE_FACTOR_SETTING.getKey(), indexBalance);
         settings.put(BalancedShardsAllocator.SHARD_BALANCE_FACTOR_SETTING.getKey(), replicaBalance);
         settings.put(BalancedShardsAllocator.THRESHOLD_SETTING.getKey(), balanceThreshold);
+        settings.put(BalancedShardsAllocator.INCREMENTAL_BALANCE_SETTING.getKey(), randomBoolean());
 
         AllocationService strategy = createAllocationService(settings.build(), new TestGatewayAllocator());
 
@@ -188,10 +197,12 @@ public class BalanceConfigurationTests extends ESAllocationTestCase {
     }
 
     private ClusterState addNode(ClusterState clusterState, AllocationService strategy) {
+        return addNode(clusterState, strategy, "node" + numberOfNodes);
+    }
+
+    private ClusterState addNode(ClusterState clusterState, AllocationService strategy, String nodeId) {
         logger.info("now, start 1 more node, check that rebalancing will happen because we set it to always");
-        clusterState = ClusterState.builder(clusterState)
-            .nodes(DiscoveryNodes.builder(clusterState.nodes()).add(newNode("node" + numberOfNodes)))
-            .build();
+        clusterState = ClusterState.builder(clusterState).nodes(DiscoveryNodes.builder(clusterState.nodes()).add(newNode(nodeId))).build();
 
         RoutingTable routingTable = strategy.reroute(clusterState, "reroute").routingTable();
         clusterState = ClusterState.builder(clusterState).routingTable(routingTable).build();
@@ -292,6 +303,10 @@ public class BalanceConfigurationTests extends ESAllocationTestCase {
         assertThat(allocator.getIndexBalance(), Matchers.equalTo(0.2f));
         assertThat(allocator.getShardBalance(), Matchers.equalTo(0.3f));
         assertThat(allocator.getThreshold(), Matchers.equalTo(2.0f));
+        assertThat(allocator.getWriteLoadBalance(), Matchers.equalTo(0.0f));
+        assertThat(allocator.getSearchLoadBalance(), Matchers.equalTo(0.0f));
+        assertThat(allocator.getDiskUsageBalance(), Matchers.equalTo(0.0f));
+        assertFalse(allocator.isIncremental());
 
         settings = Settings.builder();
         settings.put(BalancedShardsAllocator.INDEX_BALANCE_FACTOR_SETTING.getKey(), 0.2);
@@ -310,10 +325,190 @@ public class BalanceConfigurationTests extends ESAllocationTestCase {
         settings.put(BalancedShardsAllocator.INDEX_BALANCE_FACTOR_SETTING.getKey(), 0.5);
         settings.put(BalancedShardsAllocator.SHARD_BALANCE_FACTOR_SETTING.getKey(), 0.1);
         settings.put(BalancedShardsAllocator.THRESHOLD_SETTING.getKey(), 3.0);
+        settings.put(BalancedShardsAllocator.INCREMENTAL_BALANCE_SETTING.getKey(), true);
+        settings.put(BalancedShardsAllocator.WRITE_LOAD_BALANCE_FACTOR_SETTING.getKey(), 0.4);
+        settings.put(BalancedShardsAllocator.SEARCH_LOAD_BALANCE_FACTOR_SETTING.getKey(), 0.6);
+        settings.put(BalancedShardsAllocator.DISK_USAGE_BALANCE_FACTOR_SETTING.getKey(), 0.7);
         service.applySettings(settings.build());
         assertThat(allocator.getIndexBalance(), Matchers.equalTo(0.5f));
         assertThat(allocator.getShardBalance(), Matchers.equalTo(0.1f));
         assertThat(allocator.getThreshold(), Matchers.equalTo(3.0f));
+        assertThat(allocator.getWriteLoadBalance(), Matchers.equalTo(0.4f));
+        assertThat(allocator.getSearchLoadBalance(), Matchers.equalTo(0.6f));
+        assertThat(allocator.getDiskUsageBalance(), Matchers.equalTo(0.7f));
+        assertTrue(allocator.isIncremental());
+    }
+
+    public void testBalanceByShardResources() {
+        final String resource = randomFrom("write_load", "search_load", "disk_usage");
+        final Settings settings = Settings.builder()
+            .put(
+                ClusterRebalanceAllocationDecider.CLUSTER_ROUTING_ALLOCATION_ALLOW_REBALANCE_SETTING.getKey(),
+                ClusterRebalanceAllocationDecider.ClusterRebalanceType.ALWAYS.toString()
+            )
+            .put(BalancedShardsAllocator.INDEX_BALANCE_FACTOR_SETTING.getKey(), 0.0f)
+            .put(BalancedShardsAllocator.SHARD_BALANCE_FACTOR_SETTING.getKey(), 0.0f)
+            .put("cluster.routing.allocation.balance." + resource, 1.0f)
+            .put(BalancedShardsAllocator.INCREMENTAL_BALANCE_SETTING.getKey(), randomBoolean())
+            .build();
+
+        final Metadata metadata = Metadata.builder()
+            .put(IndexMetadata.builder("hot").settings(settings(Version.CURRENT)).numberOfShards(2).numberOfReplicas(0))
+            .put(IndexMetadata.builder("cold").settings(settings(Version.CURRENT)).numberOfShards(2).numberOfReplicas(0))
+            .build();
+        final RoutingTable routingTable = RoutingTable.builder()
+            .addAsNew(metadata.index("hot"))
+            .addAsNew(metadata.index("cold"))
+            .build();
+
+        // only the shards of the hot index use any resources, so they must end up on different nodes
+        final ImmutableOpenMap.Builder<String, Long> shardSizes = ImmutableOpenMap.builder();
+        final ImmutableOpenMap.Builder<ShardId, Double> shardLoads = ImmutableOpenMap.builder();
+        for (int i = 0; i < 2; i++) {
+            final ShardId shardId = new ShardId(metadata.index("hot").getIndex(), i);
+            shardSizes.put(shardId + "[p]", 1024L);
+            shardLoads.put(shardId, 1.0);
+        }
+        final ImmutableOpenMap<ShardId, Double> loads = shardLoads.build();
+        final ClusterInfo clusterInfo = new ClusterInfo(
+            ImmutableOpenMap.of(),
+            ImmutableOpenMap.of(),
+            resource.equals("disk_usage") ? shardSizes.build() : ImmutableOpenMap.of(),
+            ImmutableOpenMap.of(),
+            ImmutableOpenMap.of(),
+            ImmutableOpenMap.of(),
+            resource.equals("write_load") ? loads : ImmutableOpenMap.of(),
+            resource.equals("search_load") ? loads : ImmutableOpenMap.of()
+        );
+        final AllocationService strategy = createAllocationService(settings, () -> clusterInfo);
+
+        ClusterState clusterState = ClusterState.builder(
+            org.elasticsearch.cluster.ClusterName.CLUSTER_NAME_SETTING.getDefault(Settings.EMPTY)
+        ).nodes(DiscoveryNodes.builder().add(newNode("node0"))).metadata(metadata).routingTable(routingTable).build();
+        clusterState = strategy.reroute(clusterState, "reroute");
+        clusterState = applyStartedShardsUntilNoChange(clusterState, strategy);
+        assertThat(clusterState.getRoutingNodes().node("node0").numberOfShardsWithState(STARTED), Matchers.equalTo(4));
+
+        clusterState = addNode(clusterState, strategy, "node1");
+        for (RoutingNode node : clusterState.getRoutingNodes()) {
+            assertThat(node.shardsWithState("hot", STARTED).size(), Matchers.equalTo(1));
+        }
+        assertThat(shardsWithState(clusterState.getRoutingNodes(), STARTED).size(), Matchers.equalTo(4));
+    }
+
+    public void testIncrementalBalanceMakesTheSameDecisions() {
+        final Settings.Builder settings = Settings.builder()
+            .put(
+                ClusterRebalanceAllocationDecider.CLUSTER_ROUTING_ALLOCATION_ALLOW_REBALANCE_SETTING.getKey(),
+                ClusterRebalanceAllocationDecider.ClusterRebalanceType.ALWAYS.toString()
+            )
+            .put(BalancedShardsAllocator.INDEX_BALANCE_FACTOR_SETTING.getKey(), randomFrom(0.0f, 0.55f, 1.0f))
+            .put(BalancedShardsAllocator.SHARD_BALANCE_FACTOR_SETTING.getKey(), randomFrom(0.45f, 1.0f))
+            .put(BalancedShardsAllocator.THRESHOLD_SETTING.getKey(), randomFrom(1.0f, 2.0f));
+        // the deciders of both services are shuffled in the same way
+        final long seed = randomLong();
+        final AllocationService exhaustive = createAllocationService(
+            settings.put(BalancedShardsAllocator.INCREMENTAL_BALANCE_SETTING.getKey(), false).build(),
+            new Random(seed)
+        );
+        final AllocationService incremental = createAllocationService(
+            settings.put(BalancedShardsAllocator.INCREMENTAL_BALANCE_SETTING.getKey(), true).build(),
+            new Random(seed)
+        );
+
+        final Metadata.Builder metadataBuilder = Metadata.builder();
+        final int indexCount = between(1, 10);
+        for (int i = 0; i < indexCount; i++) {
+            metadataBuilder.put(
+                IndexMetadata.builder("test" + i)
+                    .settings(settings(Version.CURRENT))
+                    .numberOfShards(between(1, 5))
+                    .numberOfReplicas(between(0, 2))
+            );
+        }
+        final Metadata metadata = metadataBuilder.build();
+        final RoutingTable.Builder routingTableBuilder = RoutingTable.builder();
+        for (IndexMetadata indexMetadata : metadata.indices().values()) {
+            routingTableBuilder.addAsNew(indexMetadata);
+        }
+        final int nodeCount = between(3, 20);
+        final DiscoveryNodes.Builder nodes = DiscoveryNodes.builder();
+        for (int i = 0; i < nodeCount; i++) {
+            nodes.add(newNode("node" + i));
+        }
+        ClusterState clusterState = ClusterState.builder(
+            org.elasticsearch.cluster.ClusterName.CLUSTER_NAME_SETTING.getDefault(Settings.EMPTY)
+        ).nodes(nodes).metadata(metadata).routingTable(routingTableBuilder.build()).build();
+
+        logger.info("allocating [{}] indices to [{}] nodes", indexCount, nodeCount);
+        clusterState = assertSameDecisions(clusterState, exhaustive, incremental, (service, state) -> service.reroute(state, "reroute"));
+        clusterState = startShardsWithSameDecisions(clusterState, exhaustive, incremental);
+
+        final int addedNodeCount = between(1, 5);
+        logger.info("adding [{}] nodes", addedNodeCount);
+        final DiscoveryNodes.Builder moreNodes = DiscoveryNodes.builder(clusterState.nodes());
+        for (int i = 0; i < addedNodeCount; i++) {
+            moreNodes.add(newNode("node" + (nodeCount + i)));
+        }
+        clusterState = ClusterState.builder(clusterState).nodes(moreNodes).build();
+        clusterState = assertSameDecisions(clusterState, exhaustive, incremental, (service, state) -> service.reroute(state, "reroute"));
+        clusterState = startShardsWithSameDecisions(clusterState, exhaustive, incremental);
+
+        final int removedNodeCount = between(1, nodeCount - 1);
+        logger.info("removing [{}] nodes", removedNodeCount);
+        final DiscoveryNodes.Builder fewerNodes = DiscoveryNodes.builder(clusterState.nodes());
+        for (int i = 0; i < removedNodeCount; i++) {
+            fewerNodes.remove("node" + i);
+        }
+        clusterState = ClusterState.builder(clusterState).nodes(fewerNodes).build();
+        clusterState = assertSameDecisions(
+            clusterState,
+            exhaustive,
+            incremental,
+            (service, state) -> service.disassociateDeadNodes(state, true, "removed nodes")
+        );
+        startShardsWithSameDecisions(clusterState, exhaustive, incremental);
+    }
+
+    private static ClusterState startShardsWithSameDecisions(
+        ClusterState clusterState,
+        AllocationService exhaustive,
+        AllocationService incremental
+    ) {
+        while (shardsWithState(clusterState.getRoutingNodes(), INITIALIZING).isEmpty() == false) {
+            clusterState = assertSameDecisions(
+                clusterState,
+                exhaustive,
+                incremental,
+                ESAllocationTestCase::startInitializingShardsAndReroute
+            );
+        }
+        return clusterState;
+    }
+
+    /**
+     * Applies the same change to the given state with both services, checks that they put every shard in the same place, and returns
+     * the state that the exhaustive service computed so that both services see the same state in the next step.
+     */
+    private static ClusterState assertSameDecisions(
+        ClusterState clusterState,
+        AllocationService exhaustive,
+        AllocationService incremental,
+        BiFunction<AllocationService, ClusterState, ClusterState> change
+    ) {
+        final ClusterState exhaustiveState = change.apply(exhaustive, clusterState);
+        final ClusterState incrementalState = change.apply(incremental, clusterState);
+        assertThat(assignments(incrementalState), Matchers.equalTo(assignments(exhaustiveState)));
+        return exhaustiveState;
+    }
+
+    private static List<String> assignments(ClusterState clusterState) {
+        return clusterState.routingTable()
+            .allShards()
+            .stream()
+            .map(shard -> shard.shardId() + (shard.primary() ? "[P]" : "[R]") + " " + shard.state() + " " + shard.currentNodeId())
+            .sorted()
+            .collect(Collectors.toList());
     }
 
     public void testNoRebalanceOnPrimaryOverload() {
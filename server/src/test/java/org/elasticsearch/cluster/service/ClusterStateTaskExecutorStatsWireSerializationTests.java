@@ -0,0 +1,143 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.cluster.service;
+
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.test.AbstractWireSerializingTestCase;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class ClusterStateTaskExecutorStatsWireSerializationTests extends AbstractWireSerializingTestCase<ClusterStateTaskExecutorStats> {
+
+    @Override
+    protected Writeable.Reader<ClusterStateTaskExecutorStats> instanceReader() {
+        return ClusterStateTaskExecutorStats::new;
+    }
+
+    @Override
+    protected ClusterStateTaskExecutorStats createTestInstance() {
+        return randomExecutorStats();
+    }
+
+    static ClusterStateTaskExecutorStats randomExecutorStats() {
+        return new ClusterStateTaskExecutorStats(
+            randomNonNegativeLong(),
+            randomNonNegativeLong(),
+            randomNonNegativeLong(),
+            randomNonNegativeLong(),
+            randomNonNegativeLong(),
+            randomHistogram()
+        );
+    }
+
+    private static long[] randomHistogram() {
+        final long[] histogram = new long[ClusterStateTaskExecutorStats.BATCH_SIZE_BUCKETS];
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = randomBoolean() ? 0L : randomNonNegativeLong();
+        }
+        return histogram;
+    }
+
+    private static long not(long l) {
+        return randomValueOtherThan(l, ESTestCase::randomNonNegativeLong);
+    }
+
+    @Override
+    protected ClusterStateTaskExecutorStats mutateInstance(ClusterStateTaskExecutorStats instance) throws IOException {
+        switch (between(1, 6)) {
+            case 1:
+                return new ClusterStateTaskExecutorStats(
+                    not(instance.getBatchCount()),
+                    instance.getCoalescedBatchCount(),
+                    instance.getTaskCount(),
+                    instance.getQueueElapsedMillis(),
+                    instance.getComputationElapsedMillis(),
+                    instance.getBatchSizeHistogram()
+                );
+            case 2:
+                return new ClusterStateTaskExecutorStats(
+                    instance.getBatchCount(),
+                    not(instance.getCoalescedBatchCount()),
+                    instance.getTaskCount(),
+                    instance.getQueueElapsedMillis(),
+                    instance.getComputationElapsedMillis(),
+                    instance.getBatchSizeHistogram()
+                );
+            case 3:
+                return new ClusterStateTaskExecutorStats(
+                    instance.getBatchCount(),
+                    instance.getCoalescedBatchCount(),
+                    not(instance.getTaskCount()),
+                    instance.getQueueElapsedMillis(),
+                    instance.getComputationElapsedMillis(),
+                    instance.getBatchSizeHistogram()
+                );
+            case 4:
+                return new ClusterStateTaskExecutorStats(
+                    instance.getBatchCount(),
+                    instance.getCoalescedBatchCount(),
+                    instance.getTaskCount(),
+                    not(instance.getQueueElapsedMillis()),
+                    instance.getComputationElapsedMillis(),
+                    instance.getBatchSizeHistogram()
+                );
+            case 5:
+                return new ClusterStateTaskExecutorStats(
+                    instance.getBatchCount(),
+                    instance.getCoalescedBatchCount(),
+                    instance.getTaskCount(),
+                    instance.getQueueElapsedMillis(),
+                    not(instance.getComputationElapsedMillis()),
+                    instance.getBatchSizeHistogram()
+                );
+            case 6:
+                final long[] histogram = instance.getBatchSizeHistogram().clone();
+                final int bucket = between(0, histogram.length - 1);
+                histogram[bucket] = not(histogram[bucket]);
+                return new ClusterStateTaskExecutorStats(
+                    instance.getBatchCount(),
+                    instance.getCoalescedBatchCount(),
+                    instance.getTaskCount(),
+                    instance.getQueueElapsedMillis(),
+                    instance.getComputationElapsedMillis(),
+                    histogram
+                );
+        }
+        throw new AssertionError("impossible");
+    }
+
+    public void testBatchSizeBuckets() {
+        assertThat(ClusterStateTaskExecutorStats.batchSizeBucket(1), equalTo(0));
+        assertThat(ClusterStateTaskExecutorStats.batchSizeBucket(2), equalTo(1));
+        assertThat(ClusterStateTaskExecutorStats.batchSizeBucket(3), equalTo(1));
+        assertThat(ClusterStateTaskExecutorStats.batchSizeBucket(4), equalTo(2));
+        assertThat(ClusterStateTaskExecutorStats.batchSizeBucket(1023), equalTo(9));
+        assertThat(ClusterStateTaskExecutorStats.batchSizeBucket(1024), equalTo(10));
+        assertThat(ClusterStateTaskExecutorStats.batchSizeBucket(Integer.MAX_VALUE), equalTo(10));
+    }
+
+    public void testToXContentOmitsEmptyBuckets() {
+        final long[] histogram = new long[ClusterStateTaskExecutorStats.BATCH_SIZE_BUCKETS];
+        histogram[0] = 3;
+        histogram[2] = 1;
+        histogram[10] = 2;
+        final ClusterStateTaskExecutorStats stats = new ClusterStateTaskExecutorStats(6, 1, 3010, 20, 30, histogram);
+        assertThat(
+            Strings.toString(stats),
+            equalTo(
+                "{\"batch_count\":6,\"coalesced_batch_count\":1,\"task_count\":3010,\"queue_time_millis\":20,"
+                    + "\"computation_time_millis\":30,\"batch_sizes\":{\"1\":3,\"4-7\":1,\"1024+\":2}}"
+            )
+        );
+    }
+}
@@ -13,6 +13,8 @@ import org.elasticsearch.test.AbstractWireSerializingTestCase;
 import org.elasticsearch.test.ESTestCase;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 
 public class ClusterStateUpdateStatsWireSerializationTests extends AbstractWireSerializingTestCase<ClusterStateUpdateStats> {
 
@@ -42,17 +44,27 @@ public class ClusterStateUpdateStatsWireSerializationTests extends AbstractWireS
             randomNonNegativeLong(),
             randomNonNegativeLong(),
             randomNonNegativeLong(),
-            randomNonNegativeLong()
+            randomNonNegativeLong(),
+            randomExecutorStats()
         );
     }
 
+    private static Map<String, ClusterStateTaskExecutorStats> randomExecutorStats() {
+        final Map<String, ClusterStateTaskExecutorStats> executorStats = new HashMap<>();
+        final int executorCount = between(0, 3);
+        for (int i = 0; i < executorCount; i++) {
+            executorStats.put(randomAlphaOfLength(10), ClusterStateTaskExecutorStatsWireSerializationTests.randomExecutorStats());
+        }
+        return executorStats;
+    }
+
     private static long not(long l) {
         return randomValueOtherThan(l, ESTestCase::randomNonNegativeLong);
     }
 
     @Override
     protected ClusterStateUpdateStats mutateInstance(ClusterStateUpdateStats instance) throws IOException {
-        switch (between(1, 19)) {
+        switch (between(1, 20)) {
             case 1:
                 return new ClusterStateUpdateStats(
                     not(instance.getUnchangedTaskCount()),
@@ -471,6 +483,29 @@ public class ClusterStateUpdateStatsWireSerializationTests extends AbstractWireS
                     instance.getFailedMasterApplyElapsedMillis(),
                     not(instance.getFailedNotificationElapsedMillis())
                 );
+            case 20:
+                return new ClusterStateUpdateStats(
+                    instance.getUnchangedTaskCount(),
+                    instance.getPublicationSuccessCount(),
+                    instance.getPublicationFailureCount(),
+                    instance.getUnchangedComputationElapsedMillis(),
+                    instance.getUnchangedNotificationElapsedMillis(),
+                    instance.getSuccessfulComputationElapsedMillis(),
+                    instance.getSuccessfulPublicationElapsedMillis(),
+                    instance.getSuccessfulContextConstructionElapsedMillis(),
+                    instance.getSuccessfulCommitElapsedMillis(),
+                    instance.getSuccessfulCompletionElapsedMillis(),
+                    instance.getSuccessfulMasterApplyElapsedMillis(),
+                    instance.getSuccessfulNotificationElapsedMillis(),
+                    instance.getFailedComputationElapsedMillis(),
+                    instance.getFailedPublicationElapsedMillis(),
+                    instance.getFailedContextConstructionElapsedMillis(),
+                    instance.getFailedCommitElapsedMillis(),
+                    instance.getFailedCompletionElapsedMillis(),
+                    instance.getFailedMasterApplyElapsedMillis(),
+                    instance.getFailedNotificationElapsedMillis(),
+                    randomValueOtherThan(instance.getExecutorStats(), ClusterStateUpdateStatsWireSerializationTests::randomExecutorStats)
+                );
         }
         throw new AssertionError("impossible");
     }
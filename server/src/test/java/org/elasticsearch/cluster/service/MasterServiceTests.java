@@ -74,6 +74,7 @@ import static org.hamcrest.Matchers.anyOf;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.hasSize;
 
 public class MasterServiceTests extends ESTestCase {
 
@@ -667,6 +668,148 @@ public class MasterServiceTests extends ESTestCase {
         }
     }
 
+    private static class CoalescingExecutor implements ClusterStateTaskExecutor<Object> {
+        private final boolean changesState;
+        @Nullable
+        private final CountDownLatch blockLatch;
+        private final CountDownLatch executingLatch = new CountDownLatch(1);
+        private final List<Long> publishedVersions = Collections.synchronizedList(new ArrayList<>());
+
+        CoalescingExecutor(boolean changesState, @Nullable CountDownLatch blockLatch) {
+            this.changesState = changesState;
+            this.blockLatch = blockLatch;
+        }
+
+        @Override
+        public ClusterTasksResult<Object> execute(ClusterState currentState, List<Object> tasks) throws Exception {
+            executingLatch.countDown();
+            if (blockLatch != null) {
+                blockLatch.await();
+            }
+            return ClusterTasksResult.<Object>builder()
+                .successes(tasks)
+                .build(changesState ? ClusterState.builder(currentState).build() : currentState);
+        }
+
+        @Override
+        public boolean allowsCoalescing() {
+            return true;
+        }
+
+        @Override
+        public void clusterStatePublished(ClusterStatePublicationEvent clusterStatePublicationEvent) {
+            publishedVersions.add(clusterStatePublicationEvent.getNewState().version());
+        }
+    }
+
+    private static final ClusterStateTaskListener FAILING_TASK_LISTENER = new ClusterStateTaskListener() {
+        @Override
+        public void onFailure(String source, Exception e) {
+            throw new AssertionError(source, e);
+        }
+    };
+
+    private static void submitCoalescingTask(MasterService masterService, String source, Priority priority, CoalescingExecutor executor) {
+        masterService.submitStateUpdateTask(source, new Object(), ClusterStateTaskConfig.build(priority), executor, FAILING_TASK_LISTENER);
+    }
+
+    private static void submitNonCoalescingTask(
+        MasterService masterService,
+        String source,
+        Priority priority,
+        AtomicReference<ClusterState> processedState,
+        CountDownLatch processedLatch
+    ) {
+        masterService.submitStateUpdateTask(source, new ClusterStateUpdateTask(priority) {
+            @Override
+            public ClusterState execute(ClusterState currentState) {
+                return ClusterState.builder(currentState).build();
+            }
+
+            @Override
+            public void clusterStateProcessed(String source, ClusterState oldState, ClusterState newState) {
+                processedState.set(newState);
+                processedLatch.countDown();
+            }
+
+            @Override
+            public void onFailure(String source, Exception e) {
+                throw new AssertionError(source, e);
+            }
+        });
+    }
+
+    public void testCoalescesBatchesOfCompatibleExecutors() throws Exception {
+        try (MasterService masterService = createMasterService(true)) {
+            final CountDownLatch blockLatch = new CountDownLatch(1);
+            final CoalescingExecutor blockingExecutor = new CoalescingExecutor(false, blockLatch) {
+                @Override
+                public boolean allowsCoalescing() {
+                    return false;
+                }
+            };
+            submitCoalescingTask(masterService, "block", Priority.NORMAL, blockingExecutor);
+
+            final CoalescingExecutor firstExecutor = new CoalescingExecutor(true, null);
+            final CoalescingExecutor secondExecutor = new CoalescingExecutor(true, null);
+            final CoalescingExecutor unchangedExecutor = new CoalescingExecutor(false, null);
+            final AtomicReference<ClusterState> nonCoalescedState = new AtomicReference<>();
+            final CountDownLatch processedLatch = new CountDownLatch(1);
+            submitCoalescingTask(masterService, "first", Priority.NORMAL, firstExecutor);
+            submitNonCoalescingTask(masterService, "not coalesced", Priority.NORMAL, nonCoalescedState, processedLatch);
+            submitCoalescingTask(masterService, "second", Priority.NORMAL, secondExecutor);
+            submitCoalescingTask(masterService, "unchanged", Priority.NORMAL, unchangedExecutor);
+            blockLatch.countDown();
+            assertTrue(processedLatch.await(10, TimeUnit.SECONDS));
+
+            // the batches of the other executors were computed along with the first one, ahead of the task that doesn't allow coalescing,
+            // and every executor that took part in the update is notified of its publication even if its batch changed nothing
+            assertThat(firstExecutor.publishedVersions, hasSize(1));
+            assertThat(secondExecutor.publishedVersions, equalTo(firstExecutor.publishedVersions));
+            assertThat(unchangedExecutor.publishedVersions, equalTo(firstExecutor.publishedVersions));
+            assertThat(nonCoalescedState.get().version(), equalTo(firstExecutor.publishedVersions.get(0) + 1));
+
+            final ClusterStateTaskExecutorStats executorStats = masterService.getClusterStateUpdateStats()
+                .getExecutorStats()
+                .get("CoalescingExecutor");
+            assertNotNull(executorStats);
+            assertThat(executorStats.getBatchCount(), equalTo(3L));
+            assertThat(executorStats.getCoalescedBatchCount(), equalTo(3L));
+            assertThat(executorStats.getTaskCount(), equalTo(3L));
+            assertThat(executorStats.getBatchSizeHistogram()[0], equalTo(3L));
+        }
+    }
+
+    public void testDoesNotCoalesceAheadOfMoreUrgentTasks() throws Exception {
+        try (MasterService masterService = createMasterService(true)) {
+            final CountDownLatch blockLatch = new CountDownLatch(1);
+            final CoalescingExecutor firstExecutor = new CoalescingExecutor(true, blockLatch);
+            submitCoalescingTask(masterService, "first", Priority.NORMAL, firstExecutor);
+            assertTrue(firstExecutor.executingLatch.await(10, TimeUnit.SECONDS));
+
+            // while the first batch is being computed, queue a coalescible batch behind an urgent task that doesn't allow coalescing
+            final CoalescingExecutor secondExecutor = new CoalescingExecutor(true, null);
+            final AtomicReference<ClusterState> urgentState = new AtomicReference<>();
+            final CountDownLatch urgentLatch = new CountDownLatch(1);
+            submitCoalescingTask(masterService, "second", randomFrom(Priority.HIGH, Priority.NORMAL), secondExecutor);
+            submitNonCoalescingTask(masterService, "urgent", randomFrom(Priority.URGENT, Priority.IMMEDIATE), urgentState, urgentLatch);
+            blockLatch.countDown();
+            assertTrue(urgentLatch.await(10, TimeUnit.SECONDS));
+
+            assertBusy(() -> assertThat(secondExecutor.publishedVersions, hasSize(1)));
+            assertThat(firstExecutor.publishedVersions, hasSize(1));
+            final long firstVersion = firstExecutor.publishedVersions.get(0);
+            assertThat(urgentState.get().version(), equalTo(firstVersion + 1));
+            assertThat(secondExecutor.publishedVersions.get(0), equalTo(firstVersion + 2));
+
+            final ClusterStateTaskExecutorStats executorStats = masterService.getClusterStateUpdateStats()
+                .getExecutorStats()
+                .get("CoalescingExecutor");
+            assertThat(executorStats.getBatchCount(), equalTo(2L));
+            assertThat(executorStats.getCoalescedBatchCount(), equalTo(0L));
+        }
+    }
+
     public void testBlockingCallInClusterStateTaskListenerFails() throws InterruptedException {
         assumeTrue("assertions must be enabled for this test to work", BaseFuture.class.desiredAssertionStatus());
         final CountDownLatch latch = new CountDownLatch(1);
@@ -1223,6 +1223,37 @@ public class RoundingTests extends ESTestCase {
         );
     }
 
+    public void testBulkRoundingSameAsSingleValue() {
+        for (int i = 0; i < 100; i++) {
+            Rounding.Builder builder = randomBoolean()
+                ? Rounding.builder(randomFrom(Rounding.DateTimeUnit.values()))
+                : Rounding.builder(TimeValue.timeValueMinutes(randomIntBetween(1, 365 * 24 * 60)));
+            if (randomBoolean()) {
+                builder.offset(randomLongBetween(-TimeUnit.DAYS.toMillis(1), TimeUnit.DAYS.toMillis(1)));
+            }
+            Rounding rounding = builder.timeZone(randomZone()).build();
+            long min = randomDate();
+            long max = min + randomLongBetween(1, TimeUnit.DAYS.toMillis(randomFrom(1, 31, 365 * 10)));
+            Rounding.Prepared prepared = randomBoolean() ? rounding.prepare(min, max) : rounding.prepareForUnknown();
+
+            long[] values = new long[randomIntBetween(0, 1000)];
+            for (int v = 0; v < values.length; v++) {
+                values[v] = dateBetween(min, max);
+            }
+            if (randomBoolean()) {
+                // doc values of sorted indices are rounded in order
+                Arrays.sort(values);
+            }
+            int count = randomIntBetween(0, values.length);
+            long[] rounded = Arrays.copyOf(values, values.length);
+            prepared.round(rounded, count);
+            for (int v = 0; v < values.length; v++) {
+                long expected = v < count ? prepared.round(values[v]) : values[v];
+                assertThat(rounding + " rounding " + Instant.ofEpochMilli(values[v]), rounded[v], equalTo(expected));
+            }
+        }
+    }
+
     private void assertFixedRoundingPoints(Rounding.Prepared prepared, String... expected) {
         assertThat(
             Arrays.stream(prepared.fixedRoundingPoints()).mapToObj(Instant::ofEpochMilli).collect(toList()),
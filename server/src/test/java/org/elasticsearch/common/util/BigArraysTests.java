@@ -31,6 +31,7 @@ import java.util.function.Function;
 import static org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService.REQUEST_CIRCUIT_BREAKER_LIMIT_SETTING;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
 
@@ -489,6 +490,74 @@ public class BigArraysTests extends ESTestCase {
         return Arrays.asList(byteHelper, intHelper, longHelper, floatHelper, doubleHelper, objectHelper);
     }
 
+    public void testOffHeapArrays() {
+        HierarchyCircuitBreakerService hcbs = new HierarchyCircuitBreakerService(
+            Settings.builder().put(HierarchyCircuitBreakerService.USE_REAL_MEMORY_USAGE_SETTING.getKey(), false).build(),
+            Collections.emptyList(),
+            new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS)
+        );
+        BigArrays offHeapBigArrays = new BigArrays(
+            new MockPageCacheRecycler(Settings.builder().put(PageCacheRecycler.OFF_HEAP_SETTING.getKey(), true).build()),
+            hcbs,
+            CircuitBreaker.REQUEST
+        );
+        CircuitBreaker breaker = hcbs.getBreaker(CircuitBreaker.REQUEST);
+        final int totalLen = randomIntBetween(PageCacheRecycler.BYTE_PAGE_SIZE + 1, 100000);
+
+        LongArray longs = offHeapBigArrays.newLongArray(randomIntBetween(1, totalLen), randomBoolean());
+        IntArray ints = offHeapBigArrays.newIntArray(randomIntBetween(1, totalLen), randomBoolean());
+        DoubleArray doubles = offHeapBigArrays.newDoubleArray(randomIntBetween(1, totalLen), randomBoolean());
+        ByteArray bytes = offHeapBigArrays.newByteArray(randomIntBetween(1, totalLen), randomBoolean());
+        long[] longRef = new long[totalLen];
+        int[] intRef = new int[totalLen];
+        double[] doubleRef = new double[totalLen];
+        byte[] byteRef = new byte[totalLen];
+        for (int i = 0; i < totalLen; ++i) {
+            longs = offHeapBigArrays.grow(longs, i + 1);
+            ints = offHeapBigArrays.grow(ints, i + 1);
+            doubles = offHeapBigArrays.grow(doubles, i + 1);
+            bytes = offHeapBigArrays.grow(bytes, i + 1);
+            longRef[i] = randomLong();
+            intRef[i] = randomInt();
+            doubleRef[i] = randomDouble();
+            byteRef[i] = randomByte();
+            longs.set(i, longRef[i]);
+            ints.set(i, intRef[i]);
+            doubles.set(i, doubleRef[i]);
+            bytes.set(i, byteRef[i]);
+        }
+        assertThat(longs, instanceOf(DirectBigLongArray.class));
+        assertThat(ints, instanceOf(DirectBigIntArray.class));
+        assertThat(doubles, instanceOf(DirectBigDoubleArray.class));
+        assertThat(bytes, instanceOf(DirectBigByteArray.class));
+
+        final int from = randomIntBetween(0, totalLen - 1);
+        final int to = randomIntBetween(from, totalLen);
+        longs.fill(from, to, 42L);
+        Arrays.fill(longRef, from, to, 42L);
+        ints.increment(from, 7);
+        intRef[from] += 7;
+        doubles.fill(from, to, 0.5d);
+        Arrays.fill(doubleRef, from, to, 0.5d);
+        bytes.fill(from, to, (byte) 3);
+        Arrays.fill(byteRef, from, to, (byte) 3);
+        for (int i = 0; i < totalLen; ++i) {
+            assertEquals(longRef[i], longs.get(i));
+            assertEquals(intRef[i], ints.get(i));
+            assertEquals(doubleRef[i], doubles.get(i), 0.0d);
+            assertEquals(byteRef[i], bytes.get(i));
+        }
+        final int len = randomIntBetween(0, totalLen - from);
+        BytesRef ref = new BytesRef();
+        assertTrue(bytes.get(from, len, ref));
+        assertEquals(new BytesRef(byteRef, from, len), ref);
+
+        final long expectedBytes = longs.ramBytesUsed() + ints.ramBytesUsed() + doubles.ramBytesUsed() + bytes.ramBytesUsed();
+        assertEquals(expectedBytes, breaker.getUsed());
+        Releasables.close(longs, ints, doubles, bytes);
+        assertEquals(0, breaker.getUsed());
+    }
+
     private BigArrays newBigArraysInstance(final long maxSize, final boolean withBreaking) {
         HierarchyCircuitBreakerService hcbs = new HierarchyCircuitBreakerService(
             Settings.builder()
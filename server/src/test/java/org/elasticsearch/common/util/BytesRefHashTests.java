@@ -39,37 +39,62 @@ public class BytesRefHashTests extends ESTestCase {
 
     public void testDuel() {
         try (BytesRefHash hash = randomHash()) {
-            final int len = randomIntBetween(1, 100000);
-            final BytesRef[] values = new BytesRef[len];
-            for (int i = 0; i < values.length; ++i) {
-                values[i] = new BytesRef(randomAlphaOfLength(5));
-            }
-            final ObjectLongMap<BytesRef> valueToId = new ObjectLongHashMap<>();
-            final BytesRef[] idToValue = new BytesRef[values.length];
-            final int iters = randomInt(1000000);
-            for (int i = 0; i < iters; ++i) {
-                final BytesRef value = randomFrom(values);
-                if (valueToId.containsKey(value)) {
-                    assertEquals(-1 - valueToId.get(value), hash.add(value, value.hashCode()));
-                } else {
-                    assertEquals(valueToId.size(), hash.add(value, value.hashCode()));
-                    idToValue[valueToId.size()] = value;
-                    valueToId.put(value, valueToId.size());
-                }
+            duel(hash, randomIntBetween(1, 100000), randomInt(1000000));
+        }
+    }
+
+    public void testDuelOffHeap() {
+        BigArrays offHeapBigArrays = new MockBigArrays(
+            new MockPageCacheRecycler(Settings.builder().put(PageCacheRecycler.OFF_HEAP_SETTING.getKey(), true).build()),
+            new NoneCircuitBreakerService()
+        );
+        final float maxLoadFactor = 0.6f + randomFloat() * 0.39f;
+        try (BytesRefHash hash = new BytesRefHash(randomIntBetween(0, 100), maxLoadFactor, offHeapBigArrays)) {
+            // enough distinct values for the keys to span several direct pages
+            final int len = randomIntBetween(PageCacheRecycler.BYTE_PAGE_SIZE, 100000);
+            duel(hash, len, 2 * len);
+
+            // the bytes of the given ref belong to the caller, reading keys back must never write into them
+            final byte[] foreign = randomByteArrayOfLength(randomIntBetween(5, 64));
+            final byte[] expected = foreign.clone();
+            final BytesRef spare = new BytesRef(foreign);
+            for (long id = 0; id < hash.size(); id++) {
+                hash.get(id, spare);
+                assertEquals(id, hash.find(spare));
             }
+            assertArrayEquals(expected, foreign);
+        }
+    }
 
-            assertEquals(valueToId.size(), hash.size());
-            for (final ObjectLongCursor<BytesRef> next : valueToId) {
-                assertEquals(next.value, hash.find(next.key, next.key.hashCode()));
+    private void duel(BytesRefHash hash, int len, int iters) {
+        final BytesRef[] values = new BytesRef[len];
+        for (int i = 0; i < values.length; ++i) {
+            values[i] = new BytesRef(randomAlphaOfLength(5));
+        }
+        final ObjectLongMap<BytesRef> valueToId = new ObjectLongHashMap<>();
+        final BytesRef[] idToValue = new BytesRef[values.length];
+        for (int i = 0; i < iters; ++i) {
+            final BytesRef value = randomFrom(values);
+            if (valueToId.containsKey(value)) {
+                assertEquals(-1 - valueToId.get(value), hash.add(value, value.hashCode()));
+            } else {
+                assertEquals(valueToId.size(), hash.add(value, value.hashCode()));
+                idToValue[valueToId.size()] = value;
+                valueToId.put(value, valueToId.size());
             }
+        }
 
-            for (long i = 0; i < hash.capacity(); ++i) {
-                final long id = hash.id(i);
-                BytesRef spare = new BytesRef();
-                if (id >= 0) {
-                    hash.get(id, spare);
-                    assertEquals(idToValue[(int) id], spare);
-                }
+        assertEquals(valueToId.size(), hash.size());
+        for (final ObjectLongCursor<BytesRef> next : valueToId) {
+            assertEquals(next.value, hash.find(next.key, next.key.hashCode()));
+        }
+
+        for (long i = 0; i < hash.capacity(); ++i) {
+            final long id = hash.id(i);
+            BytesRef spare = new BytesRef();
+            if (id >= 0) {
+                hash.get(id, spare);
+                assertEquals(idToValue[(int) id], spare);
             }
         }
     }
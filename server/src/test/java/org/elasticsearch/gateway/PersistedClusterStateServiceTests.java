@@ -72,16 +72,25 @@ import static org.hamcrest.Matchers.endsWith;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.hamcrest.Matchers.startsWith;
 
 public class PersistedClusterStateServiceTests extends ESTestCase {
 
     private PersistedClusterStateService newPersistedClusterStateService(NodeEnvironment nodeEnvironment) {
+        final Settings settings = Settings.builder()
+            .put(PersistedClusterStateService.INCREMENTAL_PERSISTENCE_SETTING.getKey(), randomBoolean())
+            .put(PersistedClusterStateService.MAX_DIFFS_PER_INDEX_SETTING.getKey(), between(1, 5))
+            .build();
+        return newPersistedClusterStateService(nodeEnvironment, settings);
+    }
+
+    private PersistedClusterStateService newPersistedClusterStateService(NodeEnvironment nodeEnvironment, Settings settings) {
         return new PersistedClusterStateService(
             nodeEnvironment,
             xContentRegistry(),
             getBigArrays(),
-            new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS),
+            new ClusterSettings(settings, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS),
             () -> 0L
         );
     }
@@ -1006,6 +1015,83 @@ public class PersistedClusterStateServiceTests extends ESTestCase {
         }
     }
 
+    public void testPersistsIndexMetadataDiffsAndSharedMappings() throws IOException {
+        final Settings settings = Settings.builder()
+            .put(PersistedClusterStateService.INCREMENTAL_PERSISTENCE_SETTING.getKey(), true)
+            .put(PersistedClusterStateService.MAX_DIFFS_PER_INDEX_SETTING.getKey(), between(1, 3))
+            .build();
+        try (NodeEnvironment nodeEnvironment = newNodeEnvironment(createDataPaths())) {
+            final PersistedClusterStateService persistedClusterStateService = newPersistedClusterStateService(nodeEnvironment, settings);
+            final String sharedMapping = "{\"_doc\":{\"properties\":{\"field\":{\"type\":\"keyword\"}}}}";
+            final String otherMapping = "{\"_doc\":{\"properties\":{\"field\":{\"type\":\"long\"}}}}";
+            final int indexCount = between(2, 10);
+
+            ClusterState clusterState = loadPersistedClusterState(persistedClusterStateService);
+            try (Writer writer = persistedClusterStateService.createWriter()) {
+                final Metadata.Builder metadata = Metadata.builder(clusterState.metadata()).version(1L);
+                for (int i = 0; i < indexCount; i++) {
+                    metadata.put(
+                        IndexMetadata.builder("test-" + i)
+                            .putMapping(sharedMapping)
+                            .settings(
+                                Settings.builder()
+                                    .put(IndexMetadata.INDEX_NUMBER_OF_SHARDS_SETTING.getKey(), 1)
+                                    .put(IndexMetadata.INDEX_NUMBER_OF_REPLICAS_SETTING.getKey(), 0)
+                                    .put(IndexMetadata.SETTING_VERSION_CREATED, Version.CURRENT)
+                                    .put(IndexMetadata.SETTING_INDEX_UUID, UUIDs.randomBase64UUID(random()))
+                            )
+                    );
+                }
+                ClusterState previousState = clusterState;
+                clusterState = ClusterState.builder(clusterState).metadata(metadata).incrementVersion().build();
+                writer.writeFullStateAndCommit(0L, clusterState);
+
+                final int updates = between(1, 10);
+                for (int update = 0; update < updates; update++) {
+                    final Metadata.Builder updatedMetadata = Metadata.builder(clusterState.metadata())
+                        .version(clusterState.metadata().version() + 1);
+                    for (IndexMetadata indexMetadata : clusterState.metadata().indices().values()) {
+                        if (randomBoolean()) {
+                            final IndexMetadata.Builder builder = IndexMetadata.builder(indexMetadata)
+                                .settings(
+                                    Settings.builder()
+                                        .put(indexMetadata.getSettings())
+                                        .put(IndexMetadata.INDEX_NUMBER_OF_REPLICAS_SETTING.getKey(), between(0, 5))
+                                )
+                                .settingsVersion(indexMetadata.getSettingsVersion() + 1);
+                            if (rarely()) {
+                                builder.putMapping(randomFrom(sharedMapping, otherMapping))
+                                    .mappingVersion(indexMetadata.getMappingVersion() + 1);
+                            }
+                            updatedMetadata.put(builder);
+                        }
+                    }
+                    previousState = clusterState;
+                    clusterState = ClusterState.builder(clusterState).metadata(updatedMetadata).incrementVersion().build();
+                    writer.writeIncrementalStateAndCommit(0L, previousState, clusterState);
+                }
+            }
+
+            final ClusterState loadedState = loadPersistedClusterState(persistedClusterStateService);
+            assertThat(loadedState.metadata().indices().size(), equalTo(indexCount));
+            IndexMetadata previousIndexMetadata = null;
+            for (IndexMetadata indexMetadata : clusterState.metadata().indices().values()) {
+                final IndexMetadata loadedIndexMetadata = loadedState.metadata().index(indexMetadata.getIndex());
+                assertThat(loadedIndexMetadata, equalTo(indexMetadata));
+                assertThat(loadedIndexMetadata.getVersion(), equalTo(indexMetadata.getVersion()));
+                assertThat(loadedIndexMetadata.getSettingsVersion(), equalTo(indexMetadata.getSettingsVersion()));
+                if (previousIndexMetadata != null && previousIndexMetadata.mapping().equals(loadedIndexMetadata.mapping())) {
+                    assertThat(loadedIndexMetadata.mapping(), sameInstance(previousIndexMetadata.mapping()));
+                }
+                previousIndexMetadata = loadedIndexMetadata;
+            }
+            assertThat(
+                loadedState.metadata().getMappingsByHash().keySet(),
+                equalTo(clusterState.metadata().getMappingsByHash().keySet())
+            );
+        }
+    }
+
     @TestLogging(value = "org.elasticsearch.gateway:WARN", reason = "to ensure that we log gateway events on WARN level")
     public void testSlowLogging() throws IOException, IllegalAccessException {
         final long slowWriteLoggingThresholdMillis;
@@ -20,6 +20,7 @@ import org.apache.lucene.document.Field;
 import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexCommit;
@@ -4075,6 +4076,99 @@ public class InternalEngineTests extends EngineTestCase {
         }
     }
 
+    public void testAppendOnlyIndexBypassesVersionMap() throws IOException {
+        Settings.Builder settings = Settings.builder()
+            .put(defaultSettings.getSettings())
+            .put(IndexSettings.INDEX_APPEND_ONLY_SETTING.getKey(), true);
+        final IndexMetadata indexMetadata = IndexMetadata.builder(defaultSettings.getIndexMetadata()).settings(settings).build();
+        final IndexSettings indexSettings = IndexSettingsModule.newIndexSettings(indexMetadata);
+        try (
+            Store store = createStore();
+            InternalEngine engine = createEngine(indexSettings, store, createTempDir(), newMergePolicy())
+        ) {
+            final int numDocs = scaledRandomIntBetween(1, 100);
+            for (int i = 0; i < numDocs; i++) {
+                ParsedDocument doc = testParsedDocument(Integer.toString(i), null, testDocumentWithTextField(), B_1, null);
+                Engine.IndexResult result = engine.index(appendOnlyPrimary(doc, false, i));
+                assertThat(result.getResultType(), equalTo(Engine.Result.Type.SUCCESS));
+            }
+            assertThat(engine.getVersionMapBypassCount(), equalTo((long) numDocs));
+            assertThat(engine.getIdLookupBypassCount(), equalTo((long) numDocs));
+            assertFalse(engine.isSafeAccessRequired());
+
+            // a retry switches the version map to safe access so that further retries and realtime gets don't force a refresh
+            ParsedDocument retried = testParsedDocument("0", null, testDocumentWithTextField(), B_1, null);
+            Engine.IndexResult retryResult = engine.index(appendOnlyPrimary(retried, true, 0, false));
+            assertThat(retryResult.getResultType(), equalTo(Engine.Result.Type.SUCCESS));
+            assertTrue(engine.isSafeAccessRequired());
+            assertThat(engine.getVersionMapBypassCount(), equalTo((long) numDocs));
+            assertThat(engine.getIdLookupBypassCount(), equalTo((long) numDocs));
+            engine.refresh("test");
+            try (Engine.Searcher searcher = engine.acquireSearcher("test")) {
+                assertEquals(numDocs, searcher.getIndexReader().numDocs());
+            }
+
+            ParsedDocument doc = testParsedDocument("explicit", null, testDocumentWithTextField(), B_1, null);
+            Engine.IndexResult indexResult = engine.index(indexForDoc(doc));
+            assertThat(indexResult.getResultType(), equalTo(Engine.Result.Type.FAILURE));
+            assertThat(indexResult.getFailure(), instanceOf(IllegalArgumentException.class));
+            assertThat(indexResult.getFailure().getMessage(), containsString("is append-only"));
+
+            Engine.DeleteResult deleteResult = engine.delete(new Engine.Delete("0", newUid("0"), primaryTerm.get()));
+            assertThat(deleteResult.getResultType(), equalTo(Engine.Result.Type.FAILURE));
+            assertThat(deleteResult.getFailure(), instanceOf(IllegalArgumentException.class));
+            assertThat(engine.getVersionMap().isEmpty(), equalTo(true));
+        }
+    }
+
+    public void testIndexBatchOfAppendOnlyOperations() throws IOException {
+        final int numDocs = randomIntBetween(2, 50);
+        final int failingDoc = randomBoolean() ? randomIntBetween(0, numDocs - 1) : -1;
+        final List<Engine.Index> operations = new ArrayList<>(numDocs);
+        for (int i = 0; i < numDocs; i++) {
+            LuceneDocument document = testDocumentWithTextField();
+            if (i == failingDoc) {
+                // a term that is too long fails the document in Lucene, but not the other documents of the batch
+                document.add(new StringField("huge", randomAlphaOfLength(IndexWriter.MAX_TERM_LENGTH + 1), Field.Store.NO));
+            }
+            ParsedDocument doc = testParsedDocument(Integer.toString(i), null, document, B_1, null);
+            operations.add(appendOnlyPrimary(doc, false, i));
+        }
+        final List<Engine.IndexResult> results = engine.indexBatch(operations);
+        assertThat(results.size(), equalTo(numDocs));
+        for (int i = 0; i < numDocs; i++) {
+            final Engine.IndexResult result = results.get(i);
+            assertThat(result.getSeqNo(), equalTo((long) i));
+            assertNotNull(result.getTranslogLocation());
+            if (i == failingDoc) {
+                assertThat(result.getResultType(), equalTo(Engine.Result.Type.FAILURE));
+                assertThat(result.getFailure(), instanceOf(IllegalArgumentException.class));
+            } else {
+                assertThat(result.getResultType(), equalTo(Engine.Result.Type.SUCCESS));
+                assertThat(result.getVersion(), equalTo(1L));
+            }
+        }
+        assertThat(engine.getProcessedLocalCheckpoint(), equalTo((long) numDocs - 1));
+        assertThat(getTranslog(engine).stats().getUncommittedOperations(), equalTo(numDocs));
+        assertThat(engine.getIdLookupBypassCount(), equalTo((long) numDocs));
+        engine.refresh("test");
+        try (Engine.Searcher searcher = engine.acquireSearcher("test")) {
+            assertEquals(failingDoc == -1 ? numDocs : numDocs - 1, searcher.getIndexReader().numDocs());
+        }
+
+        // a retry in the batch makes it index the operations one after the other
+        final List<Engine.Index> retries = new ArrayList<>();
+        retries.add(appendOnlyPrimary(testParsedDocument("0", null, testDocumentWithTextField(), B_1, null), true, 0, false));
+        retries.add(appendOnlyPrimary(testParsedDocument("new", null, testDocumentWithTextField(), B_1, null), false, numDocs));
+        final List<Engine.IndexResult> retryResults = engine.indexBatch(retries);
+        assertThat(retryResults.get(0).getSeqNo(), equalTo((long) numDocs));
+        assertThat(retryResults.get(1).getSeqNo(), equalTo((long) numDocs + 1));
+        engine.refresh("test");
+        try (Engine.Searcher searcher = engine.acquireSearcher("test")) {
+            assertEquals(failingDoc <= 0 ? numDocs + 1 : numDocs, searcher.getIndexReader().numDocs());
+        }
+    }
+
     public void testRetryWithAutogeneratedIdWorksAndNoDuplicateDocs() throws IOException {
 
         final ParsedDocument doc = testParsedDocument(
@@ -34,8 +34,10 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
@@ -297,6 +299,29 @@ public class DocumentParserTests extends MapperServiceTestCase {
 
     }
 
+    public void testParseFromSourceMap() throws Exception {
+        DocumentMapper mapper = createDocumentMapper(mapping(b -> {
+            b.startObject("keyword").field("type", "keyword").endObject();
+            b.startObject("binary").field("type", "binary").field("store", true).endObject();
+            b.startObject("double").field("type", "double").endObject();
+        }));
+        Map<String, Object> source = new LinkedHashMap<>();
+        source.put("keyword", 42);
+        source.put("binary", Base64.getEncoder().encodeToString(randomByteArrayOfLength(16)));
+        source.put("double", 1.5d);
+        source.put("dynamic_long", randomLong());
+        source.put("dynamic_object", Map.of("flag", true, "strings", List.of("a", "b")));
+        source.put("dotted.field", "value");
+        source.put("null_value", null);
+        BytesReference bytes = BytesReference.bytes(XContentFactory.jsonBuilder().map(source));
+
+        ParsedDocument fromBytes = mapper.parse(new SourceToParse("1", bytes, XContentType.JSON));
+        ParsedDocument fromMap = mapper.parse(new SourceToParse("1", bytes, XContentType.JSON, null, Map.of(), source));
+        assertThat(fromMap.rootDoc().toString(), equalTo(fromBytes.rootDoc().toString()));
+        assertThat(fromMap.dynamicMappingsUpdate().toString(), equalTo(fromBytes.dynamicMappingsUpdate().toString()));
+        assertThat(fromMap.source(), equalTo(bytes));
+    }
+
     public void testFieldDisabled() throws Exception {
         DocumentMapper mapper = createDocumentMapper(mapping(b -> {
             b.startObject("foo").field("enabled", false).endObject();
@@ -23,6 +23,7 @@ import org.apache.lucene.mockfile.FilterFileSystemProvider;
 import org.apache.lucene.store.AlreadyClosedException;
 import org.apache.lucene.store.ByteArrayDataOutput;
 import org.apache.lucene.store.DataOutput;
+import org.apache.lucene.store.MMapDirectory;
 import org.apache.lucene.store.MockDirectoryWrapper;
 import org.apache.lucene.util.LineFileDocs;
 import org.apache.lucene.util.LuceneTestCase;
@@ -249,7 +250,11 @@ public class TranslogTests extends ESTestCase {
     }
 
     private TranslogConfig getTranslogConfig(final Path path) {
-        final Settings settings = Settings.builder().put(IndexMetadata.SETTING_VERSION_CREATED, org.elasticsearch.Version.CURRENT).build();
+        final Settings settings = Settings.builder()
+            .put(IndexMetadata.SETTING_VERSION_CREATED, org.elasticsearch.Version.CURRENT)
+            .put(IndexSettings.INDEX_TRANSLOG_DIRECT_BUFFERS_SETTING.getKey(), randomBoolean())
+            .put(IndexSettings.INDEX_TRANSLOG_MMAP_SNAPSHOTS_SETTING.getKey(), randomBoolean())
+            .build();
         return getTranslogConfig(path, settings);
     }
 
@@ -631,6 +636,98 @@ public class TranslogTests extends ESTestCase {
         assertNull(translog.readOperation(new Location(100, 0, 0)));
     }
 
+    public void testMappedSnapshotsOfCompletedGenerations() throws IOException {
+        final Settings settings = Settings.builder()
+            .put(IndexMetadata.SETTING_VERSION_CREATED, org.elasticsearch.Version.CURRENT)
+            .put(IndexSettings.INDEX_TRANSLOG_MMAP_SNAPSHOTS_SETTING.getKey(), true)
+            .build();
+        try (Translog mappedTranslog = createTranslog(getTranslogConfig(createTempDir(), settings))) {
+            final List<Translog.Operation> ops = new ArrayList<>();
+            final int generations = randomIntBetween(1, 4);
+            long seqNo = 0;
+            for (int gen = 0; gen < generations; gen++) {
+                final int numOps = randomIntBetween(1, 50);
+                for (int i = 0; i < numOps; i++) {
+                    final byte[] source = randomByteArrayOfLength(randomIntBetween(0, 4096));
+                    addToTranslogAndList(mappedTranslog, ops, new Translog.Index(Long.toString(seqNo), seqNo, primaryTerm.get(), source));
+                    seqNo++;
+                }
+                mappedTranslog.rollGeneration();
+            }
+            // an operation in the current generation, which is read from the channel
+            addToTranslogAndList(mappedTranslog, ops, new Translog.Delete("0", seqNo, primaryTerm.get()));
+            try (Translog.Snapshot snapshot = mappedTranslog.newSnapshot()) {
+                assertThat(snapshot, SnapshotMatchers.equalsTo(ops));
+                assertThat(snapshot.totalOperations(), equalTo(ops.size()));
+            }
+        }
+    }
+
+    public void testGenerationIsTrimmedOnceMappedSnapshotIsClosed() throws IOException {
+        assumeTrue("mappings can't be released on this JVM", MMapDirectory.UNMAP_SUPPORTED);
+        final Settings settings = Settings.builder()
+            .put(IndexMetadata.SETTING_VERSION_CREATED, org.elasticsearch.Version.CURRENT)
+            .put(IndexSettings.INDEX_TRANSLOG_MMAP_SNAPSHOTS_SETTING.getKey(), true)
+            .build();
+        try (Translog mappedTranslog = createTranslog(getTranslogConfig(createTempDir(), settings))) {
+            final int numOps = randomIntBetween(2, 50);
+            for (int i = 0; i < numOps; i++) {
+                mappedTranslog.add(new Translog.Index(Integer.toString(i), i, primaryTerm.get(), new byte[] { 1 }));
+            }
+            final long mappedGeneration = mappedTranslog.currentFileGeneration();
+            mappedTranslog.rollGeneration();
+
+            // only covers the completed generation, which is read from its mapping
+            final Translog.Snapshot snapshot = mappedTranslog.newSnapshot(0, numOps - 1);
+            assertNotNull(snapshot.next());
+            mappedTranslog.getDeletionPolicy().setLocalCheckpointOfSafeCommit(numOps - 1);
+            mappedTranslog.trimUnreferencedReaders();
+            assertFileIsPresent(mappedTranslog, mappedGeneration);
+
+            snapshot.close();
+            // the mapping is released, reading from it fails cleanly rather than touching unmapped memory
+            expectThrows(AlreadyClosedException.class, snapshot::next);
+            mappedTranslog.trimUnreferencedReaders();
+            assertFileDeleted(mappedTranslog, mappedGeneration);
+        }
+    }
+
+    public void testMappedSnapshotVerifiesChecksums() throws IOException {
+        final Settings settings = Settings.builder()
+            .put(IndexMetadata.SETTING_VERSION_CREATED, org.elasticsearch.Version.CURRENT)
+            .put(IndexSettings.INDEX_TRANSLOG_MMAP_SNAPSHOTS_SETTING.getKey(), true)
+            .build();
+        try (Translog mappedTranslog = createTranslog(getTranslogConfig(createTempDir(), settings))) {
+            final int numOps = randomIntBetween(1, 50);
+            for (int i = 0; i < numOps; i++) {
+                final byte[] source = randomByteArrayOfLength(randomIntBetween(0, 4096));
+                mappedTranslog.add(new Translog.Index(Integer.toString(i), i, primaryTerm.get(), source));
+            }
+            final long mappedGeneration = mappedTranslog.currentFileGeneration();
+            mappedTranslog.rollGeneration();
+
+            // flips a bit of the checksum of the last operation of the completed generation
+            final Path file = mappedTranslog.location().resolve(Translog.getFilename(mappedGeneration));
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                final long position = channel.size() - 1;
+                final ByteBuffer lastByte = ByteBuffer.allocate(1);
+                assertThat(channel.read(lastByte, position), equalTo(1));
+                lastByte.put(0, (byte) (lastByte.get(0) ^ 1)).rewind();
+                assertThat(channel.write(lastByte, position), equalTo(1));
+            }
+
+            try (Translog.Snapshot snapshot = mappedTranslog.newSnapshot(0, numOps - 1)) {
+                for (int i = 0; i < numOps - 1; i++) {
+                    assertNotNull(snapshot.next());
+                }
+                assertThat(
+                    expectThrows(TranslogCorruptedException.class, snapshot::next).getMessage(),
+                    containsString("checksum verification failed")
+                );
+            }
+        }
+    }
+
     public void testSnapshotWithNewTranslog() throws IOException {
         List<Closeable> toClose = new ArrayList<>();
         try {
@@ -14,6 +14,7 @@ import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.codec.CodecService;
 import org.elasticsearch.index.engine.EngineConfig;
 import org.elasticsearch.index.engine.InternalEngine;
@@ -42,6 +43,7 @@ import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 
 public class IndexingMemoryControllerTests extends IndexShardTestCase {
 
@@ -56,6 +58,9 @@ public class IndexingMemoryControllerTests extends IndexShardTestCase {
         // Shards that are currently throttled
         final Set<IndexShard> throttled = new HashSet<>();
 
+        // The relative time seen by the controller
+        long relativeTimeNanos;
+
         MockController(Settings settings) {
             super(
                 Settings.builder()
@@ -141,6 +146,11 @@ public class IndexingMemoryControllerTests extends IndexShardTestCase {
         }
 
         public void simulateIndexing(IndexShard shard) {
+            simulateIndexingWithoutCheck(shard);
+            forceCheck();
+        }
+
+        public void simulateIndexingWithoutCheck(IndexShard shard) {
             Long bytes = indexBufferRAMBytesUsed.get(shard);
             if (bytes == null) {
                 bytes = 0L;
@@ -150,13 +160,21 @@ public class IndexingMemoryControllerTests extends IndexShardTestCase {
             // Each doc we index takes up a megabyte!
             bytes += 1024 * 1024;
             indexBufferRAMBytesUsed.put(shard, bytes);
-            forceCheck();
         }
 
         @Override
         protected Cancellable scheduleTask(ThreadPool threadPool) {
             return null;
         }
+
+        @Override
+        protected long relativeTimeNanos() {
+            return relativeTimeNanos;
+        }
+
+        public void advanceTime(TimeValue time) {
+            relativeTimeNanos += time.nanos();
+        }
     }
 
     public void testShardAdditionAndRemoval() throws IOException {
@@ -340,6 +358,174 @@ public class IndexingMemoryControllerTests extends IndexShardTestCase {
         closeShards(shard0, shard1);
     }
 
+    public void testAdaptiveModeWritesAndThrottlesHottestShards() throws Exception {
+        MockController controller = new MockController(
+            Settings.builder()
+                .put("indices.memory.index_buffer_size", "10mb")
+                .put("indices.memory.interval", "1s")
+                .put("indices.memory.controller_mode", "adaptive")
+                .put("indices.memory.adaptive.ewma_alpha", 1.0)
+                .build()
+        );
+        IndexShard shard0 = newStartedShard();
+        IndexShard shard1 = newStartedShard();
+        controller.simulateIndexing(shard0);
+        controller.simulateIndexing(shard1);
+
+        controller.advanceTime(TimeValue.timeValueSeconds(1));
+        for (int i = 0; i < 6; i++) {
+            controller.simulateIndexing(shard0);
+        }
+        // 8 MB used, growing by 1 MB/s, stays within budget until the next check:
+        controller.assertBuffer(shard0, 7);
+        controller.assertBuffer(shard1, 1);
+
+        controller.advanceTime(TimeValue.timeValueSeconds(1));
+        controller.simulateIndexing(shard0);
+        // 9 MB used is still within budget, but shard0 now grows by 6 MB/s so it is written ahead of the next check:
+        controller.assertWriting(shard0, 8);
+        controller.assertBuffer(shard0, 0);
+        controller.assertBuffer(shard1, 1);
+        controller.assertNotThrottled(shard0);
+
+        controller.advanceTime(TimeValue.timeValueSeconds(1));
+        for (int i = 0; i < 6; i++) {
+            controller.simulateIndexing(shard0);
+        }
+        controller.simulateIndexing(shard1);
+        controller.assertBuffer(shard0, 6);
+        controller.assertBuffer(shard1, 2);
+
+        controller.advanceTime(TimeValue.timeValueSeconds(1));
+        controller.simulateIndexing(shard0);
+        // shard0 is written again and, since 8 MB are still being written, throttled; shard1 indexes slowly so it is left alone:
+        controller.assertWriting(shard0, 15);
+        controller.assertBuffer(shard0, 0);
+        controller.assertBuffer(shard1, 2);
+        controller.assertThrottled(shard0);
+        controller.assertNotThrottled(shard1);
+
+        IndexingMemoryControllerStats stats = controller.stats();
+        assertThat(stats.getMode(), equalTo(IndexingMemoryController.Mode.ADAPTIVE));
+        assertThat(stats.getBufferSizeInBytes(), equalTo(new ByteSizeValue(10, ByteSizeUnit.MB).getBytes()));
+        assertThat(stats.getRefreshes(), equalTo(2L));
+        assertThat(stats.getProactiveRefreshes(), equalTo(2L));
+        assertThat(stats.getThrottleActivations(), equalTo(1L));
+        assertThat(stats.getThrottledShards(), equalTo(1));
+        assertThat(stats.getHottestShards().size(), equalTo(2));
+        IndexingMemoryControllerStats.ShardStats hottest = stats.getHottestShards().get(0);
+        assertThat(hottest.getShardId(), equalTo(shard0.shardId()));
+        assertThat(hottest.getWriteRateInBytesPerSecond(), equalTo(6.0 * 1024 * 1024));
+        assertTrue(hottest.isThrottled());
+        assertThat(stats.getHottestShards().get(1).getShardId(), equalTo(shard1.shardId()));
+
+        controller.doneWriting(shard0);
+        controller.forceCheck();
+        controller.assertNotThrottled(shard0);
+        assertThat(controller.stats().getThrottledShards(), equalTo(0));
+        closeShards(shard0, shard1);
+    }
+
+    public void testAdaptiveModeThrottlesSingleShard() throws Exception {
+        MockController controller = new MockController(
+            Settings.builder()
+                .put("indices.memory.index_buffer_size", "4mb")
+                .put("indices.memory.interval", "1s")
+                .put("indices.memory.controller_mode", "adaptive")
+                .put("indices.memory.adaptive.ewma_alpha", 1.0)
+                .build()
+        );
+        IndexShard shard0 = newStartedShard();
+        controller.simulateIndexing(shard0);
+        for (int i = 0; i < 3; i++) {
+            controller.advanceTime(TimeValue.timeValueSeconds(1));
+            controller.simulateIndexing(shard0);
+        }
+        // 4 MB used, growing by 1 MB/s, so the buffer is written ahead of the next check:
+        controller.assertWriting(shard0, 4);
+        controller.assertBuffer(shard0, 0);
+        controller.assertNotThrottled(shard0);
+
+        for (int i = 0; i < 3; i++) {
+            controller.advanceTime(TimeValue.timeValueSeconds(1));
+            controller.simulateIndexing(shard0);
+        }
+        // 4 MB are still being written and 3 MB are used, more than 1.5 times the budget, so the only shard is throttled even though
+        // it doesn't index faster than the average:
+        controller.assertWriting(shard0, 4);
+        controller.assertBuffer(shard0, 3);
+        controller.assertThrottled(shard0);
+
+        controller.doneWriting(shard0);
+        controller.forceCheck();
+        controller.assertNotThrottled(shard0);
+        closeShards(shard0);
+    }
+
+    public void testAdaptiveModeThrottlesEvenlyLoadedShards() throws Exception {
+        MockController controller = new MockController(
+            Settings.builder()
+                .put("indices.memory.index_buffer_size", "4mb")
+                .put("indices.memory.interval", "1s")
+                .put("indices.memory.controller_mode", "adaptive")
+                .put("indices.memory.adaptive.ewma_alpha", 1.0)
+                .build()
+        );
+        IndexShard shard0 = newStartedShard();
+        IndexShard shard1 = newStartedShard();
+        for (int i = 0; i < 4; i++) {
+            if (i > 0) {
+                controller.advanceTime(TimeValue.timeValueSeconds(1));
+            }
+            controller.simulateIndexingWithoutCheck(shard0);
+            controller.simulateIndexingWithoutCheck(shard1);
+            controller.forceCheck();
+        }
+
+        // both shards index at 1 MB/s, one was written after 2 seconds and now the indexing buffers and the bytes being written exceed
+        // 1.5 times the budget, so the hottest shard is throttled although neither indexes faster than the average:
+        assertThat(controller.throttled.size(), equalTo(1));
+        assertThat(controller.stats().getThrottleActivations(), equalTo(1L));
+
+        controller.doneWriting(shard0);
+        controller.doneWriting(shard1);
+        controller.forceCheck();
+        assertThat(controller.throttled.size(), equalTo(0));
+        closeShards(shard0, shard1);
+    }
+
+    public void testAdaptiveModeConvergesUnderFrequentChecks() throws Exception {
+        MockController controller = new MockController(
+            Settings.builder()
+                .put("indices.memory.index_buffer_size", "10mb")
+                .put("indices.memory.interval", "5s")
+                .put("indices.memory.controller_mode", "adaptive")
+                .put("indices.memory.adaptive.ewma_alpha", 1.0)
+                .build()
+        );
+        IndexShard shard0 = newStartedShard();
+        IndexShard shard1 = newStartedShard();
+        final long budget = new ByteSizeValue(10, ByteSizeUnit.MB).getBytes();
+        for (int i = 0; i < 40; i++) {
+            // checks triggered by the indexed bytes run much more often than the interval, here every 100ms at 10 MB/s per shard:
+            controller.advanceTime(TimeValue.timeValueMillis(100));
+            controller.simulateIndexingWithoutCheck(shard0);
+            controller.simulateIndexingWithoutCheck(shard1);
+            controller.forceCheck();
+            controller.doneWriting(shard0);
+            controller.doneWriting(shard1);
+            assertThat(
+                controller.indexBufferRAMBytesUsed.get(shard0) + controller.indexBufferRAMBytesUsed.get(shard1),
+                lessThanOrEqualTo(budget)
+            );
+        }
+        // predicting the growth over the whole interval would write both buffers on almost every check, instead each buffer is
+        // written about once every 5 checks, just before the budget would be exceeded:
+        assertThat(controller.stats().getRefreshes(), lessThanOrEqualTo(20L));
+        assertThat(controller.stats().getRefreshes(), greaterThanOrEqualTo(10L));
+        closeShards(shard0, shard1);
+    }
+
     public void testTranslogRecoveryWorksWithIMC() throws IOException {
         IndexShard shard = newStartedShard(true);
         for (int i = 0; i < 100; i++) {
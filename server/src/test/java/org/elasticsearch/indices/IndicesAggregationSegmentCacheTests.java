@@ -0,0 +1,134 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.index.mapper.MappingLookup;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.SearchModule;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.metrics.InternalMax;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class IndicesAggregationSegmentCacheTests extends ESTestCase {
+
+    private final NamedWriteableRegistry namedWriteableRegistry = new NamedWriteableRegistry(
+        new SearchModule(Settings.EMPTY, List.of()).getNamedWriteables()
+    );
+
+    public void testOnlyNewSegmentsAreComputed() throws Exception {
+        IndicesAggregationSegmentCache cache = new IndicesAggregationSegmentCache(Settings.EMPTY, namedWriteableRegistry);
+        MappingLookup.CacheKey mappingKey = MappingLookup.EMPTY.cacheKey();
+        BytesReference requestKey = new BytesArray("request");
+        Directory dir = newDirectory();
+        IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE));
+        writer.addDocument(newDoc("0"));
+        writer.flush();
+        writer.addDocument(newDoc("1"));
+        DirectoryReader reader = DirectoryReader.open(writer);
+        assertEquals(2, reader.leaves().size());
+
+        AtomicInteger loads = new AtomicInteger();
+        for (LeafReaderContext leaf : reader.leaves()) {
+            InternalAggregations aggs = getOrCompute(cache, leaf, mappingKey, requestKey, loads);
+            assertEquals(leaf.ord, ((InternalMax) aggs.get("max")).value(), 0d);
+        }
+        assertEquals(2, loads.get());
+        assertEquals(2, cache.count());
+        assertEquals(2, cache.numRegisteredCloseListeners());
+
+        // the unchanged segments are loaded from the cache
+        writer.addDocument(newDoc("2"));
+        DirectoryReader newReader = DirectoryReader.openIfChanged(reader, writer);
+        assertEquals(3, newReader.leaves().size());
+        loads.set(0);
+        for (LeafReaderContext leaf : newReader.leaves()) {
+            InternalAggregations aggs = getOrCompute(cache, leaf, mappingKey, requestKey, loads);
+            assertEquals(leaf.ord, ((InternalMax) aggs.get("max")).value(), 0d);
+        }
+        assertEquals(1, loads.get());
+        assertEquals(3, cache.count());
+
+        // a different request is computed again
+        loads.set(0);
+        getOrCompute(cache, newReader.leaves().get(0), mappingKey, new BytesArray("other"), loads);
+        assertEquals(1, loads.get());
+        assertEquals(4, cache.count());
+
+        // closing the old reader keeps the entries of the segments that are still used
+        reader.close();
+        cache.cleanCache();
+        assertEquals(4, cache.count());
+
+        newReader.close();
+        cache.cleanCache();
+        assertEquals(0, cache.count());
+        assertEquals(0, cache.numRegisteredCloseListeners());
+        IOUtils.close(writer, dir, cache);
+    }
+
+    public void testDeletesInvalidateSegment() throws Exception {
+        IndicesAggregationSegmentCache cache = new IndicesAggregationSegmentCache(Settings.EMPTY, namedWriteableRegistry);
+        MappingLookup.CacheKey mappingKey = MappingLookup.EMPTY.cacheKey();
+        BytesReference requestKey = new BytesArray("request");
+        Directory dir = newDirectory();
+        IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE));
+        writer.addDocument(newDoc("0"));
+        writer.addDocument(newDoc("1"));
+        DirectoryReader reader = DirectoryReader.open(writer);
+
+        AtomicInteger loads = new AtomicInteger();
+        getOrCompute(cache, reader.leaves().get(0), mappingKey, requestKey, loads);
+        assertEquals(1, loads.get());
+
+        writer.deleteDocuments(new Term("id", "1"));
+        DirectoryReader newReader = DirectoryReader.openIfChanged(reader, writer);
+        getOrCompute(cache, newReader.leaves().get(0), mappingKey, requestKey, loads);
+        assertEquals(2, loads.get());
+
+        IOUtils.close(reader, newReader, writer, dir, cache);
+    }
+
+    private static InternalAggregations getOrCompute(
+        IndicesAggregationSegmentCache cache,
+        LeafReaderContext leaf,
+        MappingLookup.CacheKey mappingKey,
+        BytesReference requestKey,
+        AtomicInteger loads
+    ) throws IOException {
+        return cache.getOrCompute(leaf.reader().getReaderCacheHelper(), mappingKey, requestKey, () -> {
+            loads.incrementAndGet();
+            return InternalAggregations.from(List.of(new InternalMax("max", leaf.ord, DocValueFormat.RAW, Map.of())));
+        });
+    }
+
+    private static Document newDoc(String id) {
+        Document doc = new Document();
+        doc.add(new StringField("id", id, Field.Store.NO));
+        return doc;
+    }
+}
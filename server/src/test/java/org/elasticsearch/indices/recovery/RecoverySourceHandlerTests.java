@@ -111,6 +111,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import java.util.function.IntSupplier;
+import java.util.function.LongUnaryOperator;
 import java.util.stream.Collectors;
 import java.util.zip.CRC32;
 
@@ -119,6 +120,7 @@ import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
@@ -226,6 +228,98 @@ public class RecoverySourceHandlerTests extends ESTestCase {
         IOUtils.close(reader, store, multiFileWriter, targetStore);
     }
 
+    public void testSendFilesInRanges() throws Throwable {
+        final StartRecoveryRequest request = getStartRecoveryRequest();
+        Store store = newStore(createTempDir());
+        Directory dir = store.directory();
+        RandomIndexWriter writer = new RandomIndexWriter(random(), dir, newIndexWriterConfig());
+        int numDocs = randomIntBetween(10, 100);
+        for (int i = 0; i < numDocs; i++) {
+            Document document = new Document();
+            document.add(new StringField("id", Integer.toString(i), Field.Store.YES));
+            document.add(newField("field", randomUnicodeOfCodepointLengthBetween(1, 100), TextField.TYPE_STORED));
+            writer.addDocument(document);
+        }
+        writer.commit();
+        writer.close();
+
+        Store.MetadataSnapshot metadata = store.getMetadata(null);
+        List<StoreFileMetadata> metas = new ArrayList<>();
+        for (StoreFileMetadata md : metadata) {
+            metas.add(md);
+        }
+        Store targetStore = newStore(createTempDir());
+        MultiFileWriter multiFileWriter = new MultiFileWriter(targetStore, mock(RecoveryState.Index.class), "", logger, () -> {});
+        final AtomicInteger rangeRequests = new AtomicInteger();
+        RecoveryTargetHandler target = new TestRecoveryTargetHandler() {
+            @Override
+            public void writeFileChunk(
+                StoreFileMetadata md,
+                long position,
+                ReleasableBytesReference content,
+                boolean lastChunk,
+                int totalTranslogOps,
+                ActionListener<Void> listener
+            ) {
+                ActionListener.completeWith(listener, () -> {
+                    multiFileWriter.writeFileChunk(md, position, content, lastChunk);
+                    return null;
+                });
+            }
+
+            @Override
+            public void writeFileRange(
+                StoreFileMetadata md,
+                long position,
+                ReleasableBytesReference content,
+                long rangeChecksum,
+                int totalTranslogOps,
+                ActionListener<Void> listener
+            ) {
+                rangeRequests.incrementAndGet();
+                ActionListener.completeWith(listener, () -> {
+                    multiFileWriter.writeFileRange(md, position, content, rangeChecksum);
+                    return null;
+                });
+            }
+        };
+        // small chunks so that most files are sent in ranges
+        final int chunkSizeInBytes = between(64, 1024);
+        RecoverySourceHandler handler = new RecoverySourceHandler(
+            null,
+            new AsyncRecoveryTarget(target, recoveryExecutor),
+            threadPool,
+            request,
+            chunkSizeInBytes,
+            between(1, 5),
+            between(2, 4),
+            between(1, 5),
+            between(1, 5),
+            false,
+            recoveryPlannerService
+        );
+        // caches the size of the empty target store, which must be recomputed once the files are written
+        final long sizeBeforeRecovery = targetStore.stats(0L, LongUnaryOperator.identity()).getSizeInBytes();
+        PlainActionFuture<Void> sendFilesFuture = new PlainActionFuture<>();
+        handler.sendFiles(store, metas.toArray(new StoreFileMetadata[0]), () -> 0, sendFilesFuture);
+        sendFilesFuture.actionGet();
+        if (metas.stream().anyMatch(md -> md.length() > chunkSizeInBytes && md.hashEqualsContents() == false)) {
+            assertThat(rangeRequests.get(), greaterThan(0));
+        }
+        assertThat(
+            targetStore.stats(0L, LongUnaryOperator.identity()).getSizeInBytes(),
+            equalTo(sizeBeforeRecovery + metas.stream().mapToLong(StoreFileMetadata::length).sum())
+        );
+        Store.MetadataSnapshot targetStoreMetadata = targetStore.getMetadata(null);
+        Store.RecoveryDiff recoveryDiff = targetStoreMetadata.recoveryDiff(metadata);
+        assertEquals(metas.size(), recoveryDiff.identical.size());
+        assertEquals(0, recoveryDiff.different.size());
+        assertEquals(0, recoveryDiff.missing.size());
+        IndexReader reader = DirectoryReader.open(targetStore.directory());
+        assertEquals(numDocs, reader.maxDoc());
+        IOUtils.close(reader, store, multiFileWriter, targetStore);
+    }
+
     public StartRecoveryRequest getStartRecoveryRequest() throws IOException {
         Store.MetadataSnapshot metadataSnapshot = randomBoolean()
             ? Store.MetadataSnapshot.EMPTY
@@ -1831,6 +1925,16 @@ public class RecoverySourceHandlerTests extends ESTestCase {
             int totalTranslogOps,
             ActionListener<Void> listener
         ) {}
+
+        @Override
+        public void writeFileRange(
+            StoreFileMetadata fileMetadata,
+            long position,
+            ReleasableBytesReference content,
+            long rangeChecksum,
+            int totalTranslogOps,
+            ActionListener<Void> listener
+        ) {}
     }
 
     class Phase1RecoveryTargetHandler extends TestRecoveryTargetHandler {
@@ -1858,6 +1962,18 @@ public class RecoverySourceHandlerTests extends ESTestCase {
             listener.onResponse(null);
         }
 
+        @Override
+        public void writeFileRange(
+            StoreFileMetadata fileMetadata,
+            long position,
+            ReleasableBytesReference content,
+            long rangeChecksum,
+            int totalTranslogOps,
+            ActionListener<Void> listener
+        ) {
+            listener.onResponse(null);
+        }
+
         @Override
         public void cleanFiles(
             int totalTranslogOps,
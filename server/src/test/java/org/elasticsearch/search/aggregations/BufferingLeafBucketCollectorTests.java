@@ -0,0 +1,75 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class BufferingLeafBucketCollectorTests extends ESTestCase {
+    public void testCollectsInBlocks() throws IOException {
+        int blockSize = between(1, 20);
+        List<Integer> blockSizes = new ArrayList<>();
+        List<Integer> docs = new ArrayList<>();
+        List<Long> ords = new ArrayList<>();
+        LeafBucketCollector delegate = new LeafBucketCollector() {
+            @Override
+            public void collect(int doc, long owningBucketOrd) {
+                fail("docs should be collected in blocks");
+            }
+
+            @Override
+            public void collect(int[] blockDocs, long[] owningBucketOrds, int count) {
+                blockSizes.add(count);
+                for (int i = 0; i < count; i++) {
+                    docs.add(blockDocs[i]);
+                    ords.add(owningBucketOrds[i]);
+                }
+            }
+        };
+        BufferingLeafBucketCollector buffer = new BufferingLeafBucketCollector(blockSize).reset(delegate);
+        int numDocs = between(0, 100);
+        for (int doc = 0; doc < numDocs; doc++) {
+            buffer.collect(doc, doc % 3);
+        }
+        assertThat(docs.size(), equalTo(numDocs / blockSize * blockSize));
+        buffer.flush();
+        assertThat(docs.size(), equalTo(numDocs));
+        for (int doc = 0; doc < numDocs; doc++) {
+            assertThat(docs.get(doc), equalTo(doc));
+            assertThat(ords.get(doc), equalTo((long) doc % 3));
+        }
+        for (int size : blockSizes) {
+            assertThat(size, lessThanOrEqualTo(blockSize));
+        }
+
+        // flushing an empty buffer is a noop
+        int numBlocks = blockSizes.size();
+        buffer.flush();
+        assertThat(blockSizes.size(), equalTo(numBlocks));
+    }
+
+    public void testDefaultBlockCollectionCollectsEachDoc() throws IOException {
+        List<Integer> docs = new ArrayList<>();
+        LeafBucketCollector collector = new LeafBucketCollector() {
+            @Override
+            public void collect(int doc, long owningBucketOrd) {
+                assertThat(owningBucketOrd, equalTo((long) doc));
+                docs.add(doc);
+            }
+        };
+        collector.collect(new int[] { 1, 4, 7, 9 }, new long[] { 1, 4, 7, 9 }, 3);
+        assertThat(docs, equalTo(List.of(1, 4, 7)));
+    }
+}
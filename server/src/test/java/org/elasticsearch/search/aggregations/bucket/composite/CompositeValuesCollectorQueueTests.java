@@ -282,6 +282,18 @@ public class CompositeValuesCollectorQueueTests extends AggregatorTestCase {
                             size,
                             1
                         );
+                    } else if (randomBoolean()) {
+                        sources[i] = new SegmentOrdinalValuesSource(
+                            bigArrays,
+                            (b) -> {},
+                            fieldType,
+                            context -> DocValues.getSortedSet(context.reader(), fieldType.name()),
+                            DocValueFormat.RAW,
+                            missingBucket,
+                            MissingOrder.DEFAULT,
+                            size,
+                            1
+                        );
                     } else {
                         sources[i] = new BinaryValuesSource(
                             bigArrays,
@@ -152,6 +152,54 @@ public class SingleDimensionValuesSourceTests extends ESTestCase {
         assertNull(source.createSortedDocsProducerOrNull(reader, new TermQuery(new Term("foo", "bar"))));
     }
 
+    public void testSegmentOrdinalsSorted() {
+        final MappedFieldType keyword = new KeywordFieldMapper.KeywordFieldType("keyword");
+        SegmentOrdinalValuesSource source = new SegmentOrdinalValuesSource(
+            BigArrays.NON_RECYCLING_INSTANCE,
+            (b) -> {},
+            keyword,
+            context -> null,
+            DocValueFormat.RAW,
+            false,
+            MissingOrder.DEFAULT,
+            1,
+            1
+        );
+        assertNull(source.createSortedDocsProducerOrNull(mockIndexReader(100, 49), null));
+        IndexReader reader = mockIndexReader(1, 1);
+        assertNotNull(source.createSortedDocsProducerOrNull(reader, new MatchAllDocsQuery()));
+        assertNotNull(source.createSortedDocsProducerOrNull(reader, null));
+        assertNull(source.createSortedDocsProducerOrNull(reader, new TermQuery(new Term("foo", "bar"))));
+        assertTrue(source.isHashCodeLeafDependent());
+
+        source = new SegmentOrdinalValuesSource(
+            BigArrays.NON_RECYCLING_INSTANCE,
+            (b) -> {},
+            keyword,
+            context -> null,
+            DocValueFormat.RAW,
+            true,
+            MissingOrder.DEFAULT,
+            1,
+            1
+        );
+        assertNull(source.createSortedDocsProducerOrNull(reader, new MatchAllDocsQuery()));
+        assertNull(source.createSortedDocsProducerOrNull(reader, null));
+
+        source = new SegmentOrdinalValuesSource(
+            BigArrays.NON_RECYCLING_INSTANCE,
+            (b) -> {},
+            keyword,
+            context -> null,
+            DocValueFormat.RAW,
+            false,
+            MissingOrder.DEFAULT,
+            1,
+            -1
+        );
+        assertNull(source.createSortedDocsProducerOrNull(reader, null));
+    }
+
     public void testNumericSorted() {
         for (NumberFieldMapper.NumberType numberType : NumberFieldMapper.NumberType.values()) {
             MappedFieldType number = new NumberFieldMapper.NumberFieldType("number", NumberFieldMapper.NumberType.LONG);
@@ -26,23 +26,35 @@ import org.elasticsearch.core.CheckedConsumer;
 import org.elasticsearch.index.mapper.BooleanFieldMapper;
 import org.elasticsearch.index.mapper.DateFieldMapper;
 import org.elasticsearch.index.mapper.FieldNamesFieldMapper;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
 import org.elasticsearch.search.aggregations.AggregationBuilder;
 import org.elasticsearch.search.aggregations.AggregationReduceContext;
 import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.BucketOrder;
+import org.elasticsearch.search.aggregations.BufferingLeafBucketCollector;
 import org.elasticsearch.search.aggregations.bucket.range.RangeAggregator;
 import org.elasticsearch.search.aggregations.bucket.terms.StringTerms;
 import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.AvgAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.InternalAvg;
+import org.elasticsearch.search.aggregations.metrics.InternalMax;
+import org.elasticsearch.search.aggregations.metrics.InternalStats;
+import org.elasticsearch.search.aggregations.metrics.MaxAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.StatsAggregationBuilder;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator.PipelineTree;
 import org.elasticsearch.search.aggregations.support.AggregationContext;
 import org.hamcrest.Matcher;
 
 import java.io.IOException;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.LongSummaryStatistics;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.stream.IntStream;
 
@@ -50,6 +62,7 @@ import static java.util.stream.Collectors.toList;
 import static org.elasticsearch.test.ListMatcher.matchesList;
 import static org.elasticsearch.test.MapMatcher.assertMap;
 import static org.elasticsearch.test.MapMatcher.matchesMap;
+import static org.hamcrest.Matchers.closeTo;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasSize;
@@ -202,6 +215,49 @@ public class DateHistogramAggregatorTests extends DateHistogramAggregatorTestCas
         });
     }
 
+    public void testMetricSubAggsCollectedInBlocks() throws IOException {
+        // not searchable so the aggregation can't be rewritten into a range aggregation
+        DateFieldMapper.DateFieldType dft = aggregableDateFieldType(false, false);
+        NumberFieldMapper.NumberFieldType nft = new NumberFieldMapper.NumberFieldType("n", NumberFieldMapper.NumberType.LONG);
+        int numDocs = between(BufferingLeafBucketCollector.DEFAULT_BLOCK_SIZE, BufferingLeafBucketCollector.DEFAULT_BLOCK_SIZE * 3);
+        long start = dft.parse("2020-01-01T00:00:00Z");
+        long[] values = new long[numDocs];
+        Map<Long, LongSummaryStatistics> expected = new TreeMap<>();
+        for (int i = 0; i < numDocs; i++) {
+            values[i] = randomLongBetween(-1000, 1000);
+            long day = start + TimeUnit.HOURS.toMillis(i) / TimeUnit.DAYS.toMillis(1) * TimeUnit.DAYS.toMillis(1);
+            expected.computeIfAbsent(day, k -> new LongSummaryStatistics()).accept(values[i]);
+        }
+        AggregationBuilder builder = new DateHistogramAggregationBuilder("dh").field(AGGREGABLE_DATE)
+            .fixedInterval(new DateHistogramInterval("1d"))
+            .subAggregation(new StatsAggregationBuilder("stats").field("n"))
+            .subAggregation(new AvgAggregationBuilder("avg").field("n"))
+            .subAggregation(new MaxAggregationBuilder("max").field("n"));
+        testCase(builder, new MatchAllDocsQuery(), iw -> {
+            for (int i = 0; i < numDocs; i++) {
+                long date = start + TimeUnit.HOURS.toMillis(i);
+                iw.addDocument(
+                    List.of(new SortedNumericDocValuesField(AGGREGABLE_DATE, date), new SortedNumericDocValuesField("n", values[i]))
+                );
+            }
+        }, (InternalDateHistogram histogram) -> {
+            assertThat(histogram.getBuckets(), hasSize(expected.size()));
+            for (InternalDateHistogram.Bucket bucket : histogram.getBuckets()) {
+                LongSummaryStatistics stats = expected.get(((ZonedDateTime) bucket.getKey()).toInstant().toEpochMilli());
+                assertThat(bucket.getDocCount(), equalTo(stats.getCount()));
+                InternalStats internalStats = bucket.getAggregations().get("stats");
+                assertThat(internalStats.getCount(), equalTo(stats.getCount()));
+                assertThat(internalStats.getSum(), equalTo((double) stats.getSum()));
+                assertThat(internalStats.getMin(), equalTo((double) stats.getMin()));
+                assertThat(internalStats.getMax(), equalTo((double) stats.getMax()));
+                InternalAvg avg = bucket.getAggregations().get("avg");
+                assertThat(avg.getValue(), closeTo(stats.getAverage(), 1e-9));
+                InternalMax max = bucket.getAggregations().get("max");
+                assertThat(max.getValue(), equalTo((double) stats.getMax()));
+            }
+        }, dft, nft);
+    }
+
     public void testNoDocs() throws IOException {
         Query query = new MatchNoDocsQuery();
         List<String> dates = Collections.emptyList();
@@ -0,0 +1,76 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.terms;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class SpaceSavingSketchTests extends ESTestCase {
+
+    public void testExactUnderCapacity() {
+        int numTerms = randomIntBetween(1, 100);
+        SpaceSavingSketch sketch = new SpaceSavingSketch(numTerms + randomIntBetween(0, 10));
+        Map<BytesRef, Long> counts = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            BytesRef term = new BytesRef("t" + randomIntBetween(0, numTerms - 1));
+            sketch.add(term);
+            counts.merge(term, 1L, Long::sum);
+        }
+        assertThat(sketch.size(), equalTo(counts.size()));
+        assertThat(sketch.total(), equalTo(1000L));
+        assertThat(sketch.minCount(), equalTo(0L));
+        for (int i = 0; i < sketch.size(); i++) {
+            SpaceSavingSketch.Counter counter = sketch.get(i);
+            assertThat(counter.error(), equalTo(0L));
+            assertThat(counter.count(), equalTo(counts.get(counter.term())));
+        }
+    }
+
+    public void testBoundsOverCapacity() {
+        int capacity = randomIntBetween(1, 50);
+        SpaceSavingSketch sketch = new SpaceSavingSketch(capacity);
+        Map<BytesRef, Long> counts = new HashMap<>();
+        int total = randomIntBetween(1000, 5000);
+        for (int i = 0; i < total; i++) {
+            // skew the terms so some of them are frequent
+            int t = randomBoolean() ? randomIntBetween(0, 4) : randomIntBetween(0, 1000);
+            BytesRef term = new BytesRef("t" + t);
+            sketch.add(term);
+            counts.merge(term, 1L, Long::sum);
+        }
+        assertThat(sketch.size(), equalTo(Math.min(capacity, counts.size())));
+        Map<BytesRef, SpaceSavingSketch.Counter> tracked = new HashMap<>();
+        long sumOfCounts = 0;
+        for (int i = 0; i < sketch.size(); i++) {
+            SpaceSavingSketch.Counter counter = sketch.get(i);
+            tracked.put(counter.term(), counter);
+            sumOfCounts += counter.count();
+            long actual = counts.get(counter.term());
+            assertThat(counter.count(), greaterThanOrEqualTo(actual));
+            assertThat(counter.count() - counter.error(), lessThanOrEqualTo(actual));
+            assertThat(counter.count(), greaterThanOrEqualTo(sketch.minCount()));
+        }
+        assertThat(sumOfCounts, equalTo((long) total));
+        for (Map.Entry<BytesRef, Long> e : counts.entrySet()) {
+            if (tracked.containsKey(e.getKey()) == false) {
+                assertThat(e.getValue(), lessThanOrEqualTo(sketch.minCount()));
+            }
+            if (e.getValue() > total / capacity) {
+                assertTrue(e.getKey().utf8ToString() + " is frequent so it must be tracked", tracked.containsKey(e.getKey()));
+            }
+        }
+    }
+}
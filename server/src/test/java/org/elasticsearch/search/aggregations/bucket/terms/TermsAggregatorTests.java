@@ -145,6 +145,7 @@ import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.hasEntry;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 
 public class TermsAggregatorTests extends AggregatorTestCase {
 
@@ -303,6 +304,68 @@ public class TermsAggregatorTests extends AggregatorTestCase {
         }
     }
 
+    public void testSketchFindsHeavyHitters() throws IOException {
+        MappedFieldType fieldType = new KeywordFieldMapper.KeywordFieldType("string", randomBoolean(), true, Collections.emptyMap());
+        TermsAggregationBuilder aggregationBuilder = new TermsAggregationBuilder("_name").field("string")
+            .executionHint("sketch")
+            .size(3)
+            .shardSize(10)
+            .showTermDocCountError(true);
+        long[] heavyCounts = new long[] { 300, 200, 150 };
+        testCase(aggregationBuilder, new MatchAllDocsQuery(), iw -> {
+            List<List<IndexableField>> docs = new ArrayList<>();
+            for (int h = 0; h < heavyCounts.length; h++) {
+                for (int i = 0; i < heavyCounts[h]; i++) {
+                    docs.add(doc(fieldType, "h" + h));
+                }
+            }
+            // many more distinct terms than the sketch can track
+            for (int i = 0; i < 300; i++) {
+                docs.add(doc(fieldType, String.format(Locale.ROOT, "n%03d", i)));
+            }
+            Collections.shuffle(docs, random());
+            iw.addDocuments(docs);
+        }, (StringTerms result) -> {
+            assertThat(result.getBuckets(), hasSize(3));
+            for (int h = 0; h < heavyCounts.length; h++) {
+                StringTerms.Bucket bucket = result.getBuckets().get(h);
+                assertThat(bucket.getKeyAsString(), equalTo("h" + h));
+                // the doc count is a lower bound and the error bounds how much it is off by
+                assertThat(bucket.getDocCount(), lessThanOrEqualTo(heavyCounts[h]));
+                assertThat(bucket.getDocCount() + bucket.getDocCountError(), greaterThanOrEqualTo(heavyCounts[h]));
+            }
+        }, fieldType);
+    }
+
+    public void testSketchRejectsUnsupportedRequests() throws IOException {
+        MappedFieldType fieldType = new KeywordFieldMapper.KeywordFieldType("string", randomBoolean(), true, Collections.emptyMap());
+        try (Directory directory = newDirectory()) {
+            try (RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory)) {
+                indexWriter.addDocument(doc(fieldType, "a"));
+                try (IndexReader indexReader = maybeWrapReaderEs(indexWriter.getReader())) {
+                    IndexSearcher indexSearcher = newIndexSearcher(indexReader);
+                    TermsAggregationBuilder withSubAgg = new TermsAggregationBuilder("_name").field("string")
+                        .executionHint("sketch")
+                        .subAggregation(new CardinalityAggregationBuilder("card").field("string"));
+                    IllegalArgumentException e = expectThrows(
+                        IllegalArgumentException.class,
+                        () -> createAggregator(withSubAgg, indexSearcher, fieldType)
+                    );
+                    assertThat(e.getMessage(), equalTo("Aggregation [_name] cannot have sub-aggregations with [execution_hint] [sketch]"));
+
+                    TermsAggregationBuilder byKey = new TermsAggregationBuilder("_name").field("string")
+                        .executionHint("sketch")
+                        .order(BucketOrder.key(true));
+                    e = expectThrows(IllegalArgumentException.class, () -> createAggregator(byKey, indexSearcher, fieldType));
+                    assertThat(
+                        e.getMessage(),
+                        equalTo("Aggregation [_name] can only be sorted by descending [_count] with [execution_hint] [sketch]")
+                    );
+                }
+            }
+        }
+    }
+
     public void testManyTerms() throws Exception {
         MappedFieldType fieldType = new KeywordFieldMapper.KeywordFieldType("string", randomBoolean(), true, Collections.emptyMap());
         TermsAggregationBuilder aggregationBuilder = new TermsAggregationBuilder("_name").executionHint(randomHint()).field("string");
@@ -0,0 +1,173 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.timeseries;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedNumericSortField;
+import org.apache.lucene.search.SortedSetSortField;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.index.mapper.TimeSeriesIdFieldMapper;
+import org.elasticsearch.search.aggregations.AggregatorTestCase;
+import org.elasticsearch.search.aggregations.BucketCollector;
+import org.elasticsearch.search.aggregations.LeafBucketCollector;
+import org.elasticsearch.search.aggregations.metrics.Sum;
+import org.elasticsearch.search.aggregations.metrics.SumAggregationBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+
+public class TimeSeriesAggregatorTests extends AggregatorTestCase {
+
+    public void testBucketPerTimeSeries() throws IOException {
+        TimeSeriesAggregationBuilder builder = new TimeSeriesAggregationBuilder("ts").subAggregation(
+            new SumAggregationBuilder("sum").field("val")
+        );
+        MappedFieldType valueType = new NumberFieldMapper.NumberFieldType("val", NumberFieldMapper.NumberType.LONG);
+        try (Directory directory = newDirectory()) {
+            int numSeries = randomIntBetween(1, 10);
+            long[] docCounts = new long[numSeries];
+            long[] sums = new long[numSeries];
+            indexRandomSeries(directory, docCounts, sums);
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                IndexSearcher searcher = newIndexSearcher(reader);
+                InternalTimeSeries result = searchAndReduce(
+                    searcher,
+                    new MatchAllDocsQuery(),
+                    builder,
+                    TimeSeriesIdFieldMapper.FIELD_TYPE,
+                    valueType
+                );
+                List<InternalTimeSeries.InternalBucket> buckets = result.getBuckets();
+                assertThat(buckets.size(), equalTo(numSeries));
+                for (int i = 0; i < numSeries; i++) {
+                    InternalTimeSeries.InternalBucket bucket = buckets.get(i);
+                    assertThat(bucket.getKey(), equalTo(Map.of("host", host(i))));
+                    assertThat(bucket.getDocCount(), equalTo(docCounts[i]));
+                    assertThat(((Sum) bucket.getAggregations().get("sum")).value(), equalTo((double) sums[i]));
+                }
+            }
+        }
+    }
+
+    public void testSearcherCollectsInTimeSeriesOrder() throws IOException {
+        try (Directory directory = newDirectory()) {
+            int numSeries = randomIntBetween(2, 10);
+            indexRandomSeries(directory, new long[numSeries], new long[numSeries]);
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                assertThat(reader.leaves().size(), greaterThan(1));
+                List<BytesRef> tsids = new ArrayList<>();
+                List<Long> timestamps = new ArrayList<>();
+                new TimeSeriesIndexSearcher(new IndexSearcher(reader), () -> {}).search(new MatchAllDocsQuery(), new BucketCollector() {
+                    @Override
+                    public LeafBucketCollector getLeafCollector(LeafReaderContext ctx) throws IOException {
+                        SortedSetDocValues tsid = ctx.reader().getSortedSetDocValues(TimeSeriesIdFieldMapper.NAME);
+                        SortedNumericDocValues timestamp = ctx.reader().getSortedNumericDocValues("@timestamp");
+                        return new LeafBucketCollector() {
+                            @Override
+                            public void collect(int doc, long owningBucketOrd) throws IOException {
+                                assertTrue(tsid.advanceExact(doc));
+                                tsids.add(BytesRef.deepCopyOf(tsid.lookupOrd(tsid.nextOrd())));
+                                assertTrue(timestamp.advanceExact(doc));
+                                timestamps.add(timestamp.nextValue());
+                            }
+                        };
+                    }
+
+                    @Override
+                    public void preCollection() {}
+
+                    @Override
+                    public void postCollection() {}
+
+                    @Override
+                    public ScoreMode scoreMode() {
+                        return ScoreMode.COMPLETE_NO_SCORES;
+                    }
+                });
+                assertThat(tsids.size(), equalTo(reader.numDocs()));
+                for (int i = 1; i < tsids.size(); i++) {
+                    int cmp = tsids.get(i).compareTo(tsids.get(i - 1));
+                    assertThat(cmp, greaterThanOrEqualTo(0));
+                    if (cmp == 0) {
+                        assertThat(timestamps.get(i), greaterThanOrEqualTo(timestamps.get(i - 1)));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Indexes documents of each series in a few segments sorted like a time series index.
+     */
+    private void indexRandomSeries(Directory directory, long[] docCounts, long[] sums) throws IOException {
+        IndexWriterConfig config = new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE)
+            .setIndexSort(
+                new Sort(
+                    new SortedSetSortField(TimeSeriesIdFieldMapper.NAME, false),
+                    new SortedNumericSortField("@timestamp", SortField.Type.LONG)
+                )
+            );
+        try (IndexWriter writer = new IndexWriter(directory, config)) {
+            int numSegments = randomIntBetween(2, 5);
+            for (int s = 0; s < numSegments; s++) {
+                for (int series = 0; series < docCounts.length; series++) {
+                    int numDocs = randomIntBetween(1, 20);
+                    for (int d = 0; d < numDocs; d++) {
+                        long value = randomLongBetween(0, 1000);
+                        Document doc = new Document();
+                        doc.add(new SortedSetDocValuesField(TimeSeriesIdFieldMapper.NAME, tsid(host(series))));
+                        doc.add(new SortedNumericDocValuesField("@timestamp", randomLongBetween(0, 1_000_000)));
+                        doc.add(new SortedNumericDocValuesField("val", value));
+                        writer.addDocument(doc);
+                        docCounts[series]++;
+                        sums[series] += value;
+                    }
+                }
+                writer.commit();
+            }
+        }
+    }
+
+    private static String host(int series) {
+        return "host" + (char) ('a' + series);
+    }
+
+    private static BytesRef tsid(String host) throws IOException {
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.writeVInt(1);
+            out.writeBytesRef(new BytesRef("host"));
+            TimeSeriesIdFieldMapper.encodeTsidValue(host).writeTo(out);
+            return out.bytes().toBytesRef();
+        }
+    }
+}
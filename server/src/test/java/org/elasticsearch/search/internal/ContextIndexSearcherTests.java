@@ -58,20 +58,26 @@ import org.elasticsearch.index.cache.bitset.BitsetFilterCache;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.lucene.util.CombinedBitSet;
 import org.elasticsearch.search.aggregations.LeafBucketCollector;
+import org.elasticsearch.tasks.TaskCancelledException;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.IndexSettingsModule;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.elasticsearch.search.internal.ContextIndexSearcher.intersectScorerAndBitSet;
 import static org.elasticsearch.search.internal.ExitableDirectoryReader.ExitableLeafReader;
 import static org.elasticsearch.search.internal.ExitableDirectoryReader.ExitablePointValues;
 import static org.elasticsearch.search.internal.ExitableDirectoryReader.ExitableTerms;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.instanceOf;
 
 public class ContextIndexSearcherTests extends ESTestCase {
@@ -271,6 +277,96 @@ public class ContextIndexSearcherTests extends ESTestCase {
         IOUtils.close(reader, w, dir);
     }
 
+    public void testComputeSlices() throws IOException {
+        Directory dir = newDirectory();
+        IndexWriter w = new IndexWriter(dir, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE));
+        int numSegments = randomIntBetween(1, 10);
+        for (int i = 0; i < numSegments; i++) {
+            int numDocs = randomIntBetween(1, 20);
+            for (int j = 0; j < numDocs; j++) {
+                Document doc = new Document();
+                doc.add(new StringField("field", "value", Field.Store.NO));
+                w.addDocument(doc);
+            }
+            w.commit();
+        }
+        w.close();
+        DirectoryReader reader = DirectoryReader.open(dir);
+        List<LeafReaderContext> leaves = reader.leaves();
+        int maximumNumberOfSlices = randomIntBetween(1, 12);
+        List<List<LeafReaderContext>> slices = ContextIndexSearcher.computeSlices(leaves, maximumNumberOfSlices, 1);
+        assertThat(slices.size(), equalTo(Math.min(maximumNumberOfSlices, leaves.size())));
+        Set<LeafReaderContext> seen = new HashSet<>();
+        for (List<LeafReaderContext> slice : slices) {
+            assertFalse(slice.isEmpty());
+            for (int i = 1; i < slice.size(); i++) {
+                assertThat(slice.get(i).ord, greaterThan(slice.get(i - 1).ord));
+            }
+            seen.addAll(slice);
+        }
+        assertThat(seen.size(), equalTo(leaves.size()));
+        // slices that would be smaller than the minimum are not created
+        assertThat(ContextIndexSearcher.computeSlices(leaves, maximumNumberOfSlices, Integer.MAX_VALUE).size(), equalTo(1));
+        IOUtils.close(reader, dir);
+    }
+
+    public void testConcurrentSearch() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriter w = new IndexWriter(dir, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE));
+        int numSegments = randomIntBetween(2, 8);
+        for (int i = 0; i < numSegments; i++) {
+            int numDocs = randomIntBetween(1, 50);
+            for (int j = 0; j < numDocs; j++) {
+                Document doc = new Document();
+                doc.add(new StringField("field", randomFrom("a", "b"), Field.Store.NO));
+                w.addDocument(doc);
+            }
+            w.commit();
+        }
+        w.close();
+        DirectoryReader reader = DirectoryReader.open(dir);
+        ExecutorService executor = Executors.newFixedThreadPool(randomIntBetween(1, 4));
+        try {
+            ContextIndexSearcher sequential = new ContextIndexSearcher(
+                reader,
+                IndexSearcher.getDefaultSimilarity(),
+                IndexSearcher.getDefaultQueryCache(),
+                IndexSearcher.getDefaultQueryCachingPolicy(),
+                false
+            );
+            assertFalse(sequential.isConcurrent());
+            ContextIndexSearcher concurrent = new ContextIndexSearcher(
+                reader,
+                IndexSearcher.getDefaultSimilarity(),
+                IndexSearcher.getDefaultQueryCache(),
+                IndexSearcher.getDefaultQueryCachingPolicy(),
+                true,
+                executor,
+                randomIntBetween(2, 8)
+            );
+            concurrent.setMinimumDocsPerSlice(1);
+            assertTrue(concurrent.isConcurrent());
+
+            Query query = new TermQuery(new Term("field", randomFrom("a", "b")));
+            assertEquals(sequential.count(query), concurrent.count(query));
+            TopDocs expected = sequential.search(query, 10);
+            TopDocs actual = concurrent.search(query, 10);
+            assertEquals(expected.totalHits, actual.totalHits);
+            assertEquals(expected.scoreDocs.length, actual.scoreDocs.length);
+            for (int i = 0; i < expected.scoreDocs.length; i++) {
+                assertEquals(expected.scoreDocs[i].doc, actual.scoreDocs[i].doc);
+                assertEquals(expected.scoreDocs[i].score, actual.scoreDocs[i].score, 0f);
+            }
+
+            // cancellation is checked on every slice, including the ones collected by the executor
+            concurrent.addQueryCancellation(() -> { throw new TaskCancelledException("cancelled"); });
+            expectThrows(TaskCancelledException.class, () -> concurrent.search(query, 10));
+        } finally {
+            terminate(executor);
+            IOUtils.close(reader, dir);
+        }
+    }
+
     private SparseFixedBitSet query(LeafReaderContext leaf, String field, String value) throws IOException {
         SparseFixedBitSet sparseFixedBitSet = new SparseFixedBitSet(leaf.reader().maxDoc());
         TermsEnum tenum = leaf.reader().terms(field).iterator();
@@ -281,6 +377,14 @@ public class ContextIndexSearcherTests extends ESTestCase {
         return sparseFixedBitSet;
     }
 
+    /**
+     * Sets the minimum number of documents of the slices of the given searcher, so that tests of other packages can collect
+     * small indices concurrently.
+     */
+    public static void setMinimumDocsPerSlice(ContextIndexSearcher searcher, int minimumDocsPerSlice) {
+        searcher.setMinimumDocsPerSlice(minimumDocsPerSlice);
+    }
+
     public static class DocumentSubsetDirectoryReader extends FilterDirectoryReader {
         private final BitsetFilterCache bitsetFilterCache;
         private final Query roleQuery;
@@ -68,7 +68,9 @@ import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.IndexShardTestCase;
 import org.elasticsearch.lucene.queries.MinDocQuery;
 import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.SearchSortValuesAndFormats;
 import org.elasticsearch.search.internal.ContextIndexSearcher;
+import org.elasticsearch.search.internal.ContextIndexSearcherTests;
 import org.elasticsearch.search.internal.ScrollContext;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.sort.SortAndFormats;
@@ -81,6 +83,8 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.elasticsearch.search.query.TopDocsCollectorContext.hasInfMaxScore;
 import static org.hamcrest.Matchers.anyOf;
@@ -783,6 +787,93 @@ public class QueryPhaseTests extends IndexShardTestCase {
         dir.close();
     }
 
+    public void testSortLeavesOnPrimarySort() throws Exception {
+        final String fieldName = "date-field";
+        MappedFieldType fieldType = new DateFieldMapper.DateFieldType(fieldName);
+        SearchExecutionContext searchExecutionContext = mock(SearchExecutionContext.class);
+        when(searchExecutionContext.getFieldType(fieldName)).thenReturn(fieldType);
+        Directory dir = newDirectory();
+        IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig(null).setMergePolicy(NoMergePolicy.INSTANCE));
+        final int numSegments = randomIntBetween(3, 6);
+        final int docsPerSegment = 100;
+        long value = randomLongBetween(0, 3000000000000L);
+        final long firstValue = value;
+        for (int i = 0; i < numSegments; i++) {
+            for (int j = 0; j < docsPerSegment; j++) {
+                Document doc = new Document();
+                doc.add(new LongPoint(fieldName, value));
+                doc.add(new NumericDocValuesField(fieldName, value));
+                writer.addDocument(doc);
+                value++;
+            }
+            writer.flush();
+        }
+        writer.close();
+        final long lastValue = value - 1;
+        final IndexReader reader = DirectoryReader.open(dir);
+        assertThat(reader.leaves().size(), equalTo(numSegments));
+
+        final DocValueFormat format = fieldType.docValueFormat(null, null);
+        final SortField sortField = new SortField(fieldName, SortField.Type.LONG, true);
+        sortField.setMissingValue(Long.MIN_VALUE);
+        final SortAndFormats sortAndFormats = new SortAndFormats(new Sort(sortField), new DocValueFormat[] { format });
+        final Query query = new MatchAllDocsQuery();
+        final SearchShardTask task = new SearchShardTask(123L, "", "", "", null, Collections.emptyMap());
+
+        // the most recent segments are searched first
+        {
+            TestSearchContext searchContext = new TestSearchContext(searchExecutionContext, indexShard, newContextSearcher(reader));
+            searchContext.sort(sortAndFormats);
+            List<LeafReaderContext> leaves = QueryPhase.sortLeavesOrNull(searchContext, reader);
+            assertNotNull(leaves);
+            assertThat(leaves.size(), equalTo(numSegments));
+            for (int i = 0; i < numSegments; i++) {
+                assertThat(leaves.get(i).ord, equalTo(numSegments - 1 - i));
+            }
+
+            searchContext.parsedQuery(new ParsedQuery(query));
+            searchContext.setTask(task);
+            searchContext.trackTotalHitsUpTo(10);
+            searchContext.setSize(10);
+            QueryPhase.executeInternal(searchContext);
+            ScoreDoc[] scoreDocs = searchContext.queryResult().topDocs().topDocs.scoreDocs;
+            assertThat(scoreDocs.length, equalTo(10));
+            for (int i = 0; i < scoreDocs.length; i++) {
+                assertThat(((FieldDoc) scoreDocs[i]).fields[0], equalTo(lastValue - i));
+            }
+        }
+
+        // the segments that cannot beat the bottom of the other shards are skipped if the total hits are not tracked
+        {
+            final int skippedSegments = randomIntBetween(1, numSegments - 1);
+            final long bottom = firstValue + (long) skippedSegments * docsPerSegment;
+            TestSearchContext searchContext = new TestSearchContext(searchExecutionContext, indexShard, newContextSearcher(reader));
+            searchContext.sort(sortAndFormats);
+            searchContext.request()
+                .setBottomSortValues(new SearchSortValuesAndFormats(new Object[] { bottom }, new DocValueFormat[] { format }));
+            searchContext.trackTotalHitsUpTo(SearchContext.TRACK_TOTAL_HITS_DISABLED);
+            List<LeafReaderContext> leaves = QueryPhase.sortLeavesOrNull(searchContext, reader);
+            assertNotNull(leaves);
+            assertThat(leaves.size(), equalTo(numSegments - skippedSegments));
+
+            searchContext.trackTotalHitsUpTo(SearchContext.TRACK_TOTAL_HITS_ACCURATE);
+            leaves = QueryPhase.sortLeavesOrNull(searchContext, reader);
+            assertThat(leaves.size(), equalTo(numSegments));
+        }
+
+        // no reordering without a sort on an indexed field
+        {
+            TestSearchContext searchContext = new TestSearchContext(searchExecutionContext, indexShard, newContextSearcher(reader));
+            assertNull(QueryPhase.sortLeavesOrNull(searchContext, reader));
+            SortField docSort = new SortField(null, SortField.Type.DOC);
+            searchContext.sort(new SortAndFormats(new Sort(docSort), new DocValueFormat[] { DocValueFormat.RAW }));
+            assertNull(QueryPhase.sortLeavesOrNull(searchContext, reader));
+        }
+
+        reader.close();
+        dir.close();
+    }
+
     public void testMaxScoreQueryVisitor() {
         BitSetProducer producer = context -> new FixedBitSet(1);
         Query query = new ESToParentBlockJoinQuery(new MatchAllDocsQuery(), producer, ScoreMode.Avg, "nested");
@@ -917,6 +1008,57 @@ public class QueryPhaseTests extends IndexShardTestCase {
         }
     }
 
+    public void testConcurrentSearchTimeoutReturnsCollectedTopDocs() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriter w = new IndexWriter(dir, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE));
+        final int numSegments = randomIntBetween(2, 5);
+        int numDocs = 0;
+        for (int i = 0; i < numSegments; i++) {
+            for (int j = randomIntBetween(1, 20); j > 0; j--) {
+                w.addDocument(new Document());
+                numDocs++;
+            }
+            w.commit();
+        }
+        w.close();
+
+        IndexReader reader = DirectoryReader.open(dir);
+        ExecutorService executor = Executors.newFixedThreadPool(randomIntBetween(1, 4));
+        try {
+            ContextIndexSearcher searcher = new ContextIndexSearcher(
+                reader,
+                IndexSearcher.getDefaultSimilarity(),
+                IndexSearcher.getDefaultQueryCache(),
+                IndexSearcher.getDefaultQueryCachingPolicy(),
+                true,
+                executor,
+                numSegments
+            ) {
+                @Override
+                public void search(List<LeafReaderContext> leaves, Weight weight, Collector collector) throws IOException {
+                    super.search(leaves, weight, collector);
+                    if (leaves.stream().noneMatch(leaf -> leaf.ord == 0)) {
+                        // all slices but the first one time out, once they collected their documents
+                        throw new QueryPhase.TimeExceededException();
+                    }
+                }
+            };
+            ContextIndexSearcherTests.setMinimumDocsPerSlice(searcher, 1);
+            TestSearchContext context = new TestSearchContext(null, indexShard, searcher);
+            context.setTask(new SearchShardTask(123L, "", "", "", null, Collections.emptyMap()));
+            context.parsedQuery(new ParsedQuery(new MatchAllDocsQuery()));
+            context.setSize(10);
+            QueryPhase.executeInternal(context);
+            assertTrue(context.queryResult().searchTimedOut());
+            // the hits that the slices collected before the timeout are still reduced into the results of the shard
+            assertThat(context.queryResult().topDocs().topDocs.scoreDocs.length, equalTo(Math.min(10, numDocs)));
+        } finally {
+            terminate(executor);
+            reader.close();
+            dir.close();
+        }
+    }
+
     private static ContextIndexSearcher newContextSearcher(IndexReader reader) throws IOException {
         return new ContextIndexSearcher(
             reader,
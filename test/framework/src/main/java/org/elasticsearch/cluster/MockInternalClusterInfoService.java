@@ -89,7 +89,8 @@ public class MockInternalClusterInfoService extends InternalClusterInfoService {
                 nodeStats.getIngestStats(),
                 nodeStats.getAdaptiveSelectionStats(),
                 nodeStats.getScriptCacheStats(),
-                nodeStats.getIndexingPressureStats()
+                nodeStats.getIndexingPressureStats(),
+                nodeStats.getIndexingMemoryControllerStats()
             );
         }).collect(Collectors.toList());
     }
@@ -102,7 +103,9 @@ public class MockInternalClusterInfoService extends InternalClusterInfoService {
                 delegate.shardSizes,
                 delegate.shardDataSetSizes,
                 delegate.routingToDataPath,
-                delegate.reservedSpace
+                delegate.reservedSpace,
+                delegate.shardWriteLoads,
+                delegate.shardSearchLoads
             );
         }
 
@@ -376,6 +376,11 @@ public class MockBigArrays extends BigArrays {
             return in.get(index, len, ref);
         }
 
+        @Override
+        public boolean bytesEquals(long index, BytesRef other, BytesRef scratch) {
+            return in.bytesEquals(index, other, scratch);
+        }
+
         @Override
         public void set(long index, byte[] buf, int offset, int len) {
             in.set(index, buf, offset, len);
@@ -13,6 +13,7 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.transport.LeakTracker;
 
 import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Random;
 
@@ -42,6 +43,8 @@ public class MockPageCacheRecycler extends PageCacheRecycler {
                     Arrays.fill((Object[]) ref, 0, Array.getLength(ref), null);
                 } else if (ref instanceof byte[]) {
                     Arrays.fill((byte[]) ref, 0, Array.getLength(ref), (byte) random.nextInt(256));
+                } else if (ref instanceof ByteBuffer) {
+                    fill((ByteBuffer) ref, (byte) random.nextInt(256));
                 } else {
                     for (int i = 0; i < Array.getLength(ref); ++i) {
                         Array.set(ref, i, (byte) random.nextInt(256));
@@ -77,4 +80,19 @@ public class MockPageCacheRecycler extends PageCacheRecycler {
         return wrap(super.objectPage());
     }
 
+    @Override
+    public V<ByteBuffer> directPage(boolean clear) {
+        final V<ByteBuffer> page = super.directPage(clear);
+        if (clear == false) {
+            fill(page.v(), (byte) random.nextInt(1 << 8));
+        }
+        return wrap(page);
+    }
+
+    private static void fill(ByteBuffer buffer, byte value) {
+        for (int i = 0; i < buffer.capacity(); i++) {
+            buffer.put(i, value);
+        }
+    }
+
 }
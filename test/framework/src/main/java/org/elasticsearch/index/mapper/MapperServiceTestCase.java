@@ -29,6 +29,7 @@ import org.elasticsearch.common.util.MockBigArrays;
 import org.elasticsearch.common.util.MockPageCacheRecycler;
 import org.elasticsearch.core.CheckedConsumer;
 import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.Releasable;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.analysis.AnalyzerScope;
 import org.elasticsearch.index.analysis.IndexAnalyzers;
@@ -462,6 +463,11 @@ public abstract class MapperServiceTestCase extends ESTestCase {
                 // TODO we'll have to handle this in the tests eventually
             }
 
+            @Override
+            public Releasable newReleasableScope() {
+                return () -> {};
+            }
+
             @Override
             public MultiBucketConsumer multiBucketConsumer() {
                 return multiBucketConsumer;
@@ -124,6 +124,30 @@ public class AsyncRecoveryTarget implements RecoveryTargetHandler {
         }
     }
 
+    @Override
+    public void writeFileRange(
+        StoreFileMetadata fileMetadata,
+        long position,
+        ReleasableBytesReference content,
+        long rangeChecksum,
+        int totalTranslogOps,
+        ActionListener<Void> listener
+    ) {
+        final ReleasableBytesReference retained = content.retain();
+        final ActionListener<Void> wrappedListener = ActionListener.runBefore(listener, retained::close);
+        boolean success = false;
+        try {
+            executor.execute(
+                () -> target.writeFileRange(fileMetadata, position, retained, rangeChecksum, totalTranslogOps, wrappedListener)
+            );
+            success = true;
+        } finally {
+            if (success == false) {
+                content.decRef();
+            }
+        }
+    }
+
     @Override
     public void restoreFileFromSnapshot(
         String repository,
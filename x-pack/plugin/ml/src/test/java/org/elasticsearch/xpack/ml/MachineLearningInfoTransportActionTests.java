@@ -842,6 +842,7 @@ public class MachineLearningInfoTransportActionTests extends ESTestCase {
             ingestStats,
             null,
             null,
+            null,
             null
         );
 